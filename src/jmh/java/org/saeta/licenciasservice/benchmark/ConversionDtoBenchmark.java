@@ -0,0 +1,50 @@
+package org.saeta.licenciasservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saeta.licenciasservice.dto.LicenciaDTO;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.service.LicenciaManagementService;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LicenciaManagementService.convertToDTO (privado, invocado mediante MethodHandle)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionDtoBenchmark {
+
+    private LicenciaManagementService servicio;
+    private MethodHandle convertToDTO;
+    private Licencia licencia;
+
+    @Setup
+    public void preparar() throws Exception {
+        servicio = new LicenciaManagementService();
+        convertToDTO = MethodHandles.privateLookupIn(LicenciaManagementService.class, MethodHandles.lookup())
+                .findVirtual(LicenciaManagementService.class, "convertToDTO",
+                        MethodType.methodType(LicenciaDTO.class, Licencia.class));
+        licencia = Datos.licencias(1).get(0);
+    }
+
+    @Benchmark
+    public LicenciaDTO convertToDTO() throws Throwable {
+        return (LicenciaDTO) convertToDTO.invokeExact(servicio, licencia);
+    }
+}
@@ -0,0 +1,50 @@
+package org.saeta.licenciasservice.benchmark;
+
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.util.MacAddress;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos sintéticos compartidos por los benchmarks
+ */
+final class Datos {
+
+    static final String[] VIGENCIAS = {"1 hora", "3 días", "2 semanas", "6 meses", "1 año"};
+
+    private Datos() {
+    }
+
+    static List<Licencia> licencias(int cantidad) {
+        List<Licencia> licencias = new ArrayList<>(cantidad);
+        LocalDateTime ahora = LocalDateTime.now();
+        for (int i = 0; i < cantidad; i++) {
+            Licencia licencia = new Licencia();
+            licencia.setId(i + 1);
+            licencia.setEmpresa("Empresa " + (i % 100));
+            licencia.setMac(mac(i));
+            licencia.setEstado("1");
+            licencia.setObservacion("Licencia de prueba " + i);
+            licencia.setFechaHora(ahora.minusDays(i % 30));
+            licencia.setVigencia(VIGENCIAS[i % VIGENCIAS.length]);
+            licencias.add(licencia);
+        }
+        return licencias;
+    }
+
+    /**
+     * MAC registrada número i en formato XX-XX-XX-XX-XX-XX
+     */
+    static String mac(int i) {
+        return MacAddress.formatear(0x00155D000000L + i);
+    }
+
+    /**
+     * MAC que no pertenece a ninguna licencia generada
+     */
+    static String macNoRegistrada(int i) {
+        return MacAddress.formatear(0xF0DEAD000000L + i).replace('-', ':').toLowerCase();
+    }
+}
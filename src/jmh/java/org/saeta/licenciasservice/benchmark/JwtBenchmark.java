@@ -0,0 +1,59 @@
+package org.saeta.licenciasservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saeta.licenciasservice.entity.User;
+import org.saeta.licenciasservice.security.JwtUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtUtil.validateToken con un token válido y con uno de firma incorrecta
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private JwtUtil jwtUtil;
+    private String tokenValido;
+    private String tokenFirmaIncorrecta;
+
+    @Setup
+    public void preparar() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@saeta.org");
+
+        JwtUtil otraClave = new JwtUtil();
+        ReflectionTestUtils.setField(otraClave, "secretKey", "OtraClaveSecreta");
+        tokenFirmaIncorrecta = otraClave.generateToken(user);
+
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", "LicenciasSecretKey123");
+        tokenValido = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean validateTokenValido() {
+        return jwtUtil.validateToken(tokenValido);
+    }
+
+    @Benchmark
+    public boolean validateTokenFirmaIncorrecta() {
+        return jwtUtil.validateToken(tokenFirmaIncorrecta);
+    }
+}
@@ -0,0 +1,59 @@
+package org.saeta.licenciasservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saeta.licenciasservice.util.MacAddress;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Validación y normalización de MAC: regex + String (implementación anterior) frente a MacAddress
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MacBenchmark {
+
+    private static final Pattern MAC_PATTERN = Pattern.compile(
+            "^([0-9A-Fa-f]{2}[:-]){5}([0-9A-Fa-f]{2})$"
+    );
+
+    @Param({"00:15:5d:0a:1b:2c", "00-15-5D-0A-1B-2C"})
+    public String mac;
+
+    @Benchmark
+    public String regexYNormalizacion() {
+        if (!MAC_PATTERN.matcher(mac.trim()).matches()) {
+            return null;
+        }
+        return mac.trim().replace(":", "-").toUpperCase();
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return MAC_PATTERN.matcher(mac.trim()).matches();
+    }
+
+    @Benchmark
+    public long macAddressParsear() {
+        return MacAddress.parsear(mac);
+    }
+
+    @Benchmark
+    public String macAddressParsearYFormatear() {
+        long bits = MacAddress.parsear(mac);
+        return bits == MacAddress.INVALIDA ? null : MacAddress.formatear(bits);
+    }
+}
@@ -0,0 +1,64 @@
+package org.saeta.licenciasservice.benchmark;
+
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * LicenciaRepository en memoria para los benchmarks: solo implementa las consultas que usa
+ * la validación y la carga del snapshot; el resto lanza UnsupportedOperationException.
+ */
+final class RepositorioEnMemoria {
+
+    private RepositorioEnMemoria() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static LicenciaRepository crear(List<Licencia> licencias) {
+        Map<Long, Licencia> porMac = new HashMap<>();
+        for (Licencia licencia : licencias) {
+            porMac.put(licencia.getMacBits(), licencia);
+        }
+
+        return (LicenciaRepository) Proxy.newProxyInstance(
+                LicenciaRepository.class.getClassLoader(),
+                new Class<?>[]{LicenciaRepository.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "findFirstByMacBitsOrderByIdDesc":
+                            return Optional.ofNullable(porMac.get((Long) args[0]));
+                        case "existsByMacBits":
+                            return porMac.containsKey((Long) args[0]);
+                        case "findByMacBitsInOrderByIdDesc": {
+                            List<Licencia> encontradas = new ArrayList<>();
+                            for (Long mac : (Collection<Long>) args[0]) {
+                                Licencia licencia = porMac.get(mac);
+                                if (licencia != null) {
+                                    encontradas.add(licencia);
+                                }
+                            }
+                            return encontradas;
+                        }
+                        case "findAll":
+                            return new ArrayList<>(licencias);
+                        case "findAllMacBits":
+                            return new ArrayList<>(porMac.keySet());
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "RepositorioEnMemoria";
+                        default:
+                            throw new UnsupportedOperationException(metodo.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,92 @@
+package org.saeta.licenciasservice.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saeta.licenciasservice.cache.LicenciaSnapshotCache;
+import org.saeta.licenciasservice.cache.MacBloomFilter;
+import org.saeta.licenciasservice.dto.ValidacionRequest;
+import org.saeta.licenciasservice.dto.ValidacionResponse;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.saeta.licenciasservice.service.impl.LicenciaServiceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LicenciaServiceImpl.validarLicencia con un repositorio en memoria, resolviendo desde el
+ * snapshot o desde el repositorio (snapshot deshabilitado, como cuando está obsoleto).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidacionLicenciaBenchmark {
+
+    @Param({"snapshot", "repositorio"})
+    public String origen;
+
+    @Param({"10000"})
+    public int licencias;
+
+    private LicenciaServiceImpl servicio;
+    private ValidacionRequest registrada;
+    private ValidacionRequest noRegistrada;
+    private ValidacionRequest invalida;
+
+    @Setup
+    public void preparar() {
+        LicenciaRepository repositorio = RepositorioEnMemoria.crear(Datos.licencias(licencias));
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+
+        LicenciaSnapshotCache cache = new LicenciaSnapshotCache(registro);
+        ReflectionTestUtils.setField(cache, "licenciaRepository", repositorio);
+        ReflectionTestUtils.setField(cache, "habilitado", "snapshot".equals(origen));
+        ReflectionTestUtils.setField(cache, "maxObsolescenciaMs", Long.MAX_VALUE);
+        cache.recargar();
+
+        MacBloomFilter filtro = new MacBloomFilter(registro);
+        ReflectionTestUtils.setField(filtro, "licenciaRepository", repositorio);
+
+        servicio = new LicenciaServiceImpl();
+        ReflectionTestUtils.setField(servicio, "licenciaRepository", repositorio);
+        ReflectionTestUtils.setField(servicio, "licenciaCache", cache);
+        ReflectionTestUtils.setField(servicio, "macBloomFilter", filtro);
+
+        registrada = request(Datos.mac(licencias / 2).replace('-', ':'));
+        noRegistrada = request(Datos.macNoRegistrada(7));
+        invalida = request("00:15:5D:XX:00:01");
+    }
+
+    private static ValidacionRequest request(String mac) {
+        ValidacionRequest request = new ValidacionRequest();
+        request.setMac(mac);
+        return request;
+    }
+
+    @Benchmark
+    public ValidacionResponse validarRegistrada() {
+        return servicio.validarLicencia(registrada);
+    }
+
+    @Benchmark
+    public ValidacionResponse validarNoRegistrada() {
+        return servicio.validarLicencia(noRegistrada);
+    }
+
+    @Benchmark
+    public ValidacionResponse validarInvalida() {
+        return servicio.validarLicencia(invalida);
+    }
+}
@@ -0,0 +1,56 @@
+package org.saeta.licenciasservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.entity.Proyecto;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Interpretación del texto de vigencia en Licencia y Proyecto
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VigenciaBenchmark {
+
+    @Param({"1 hora", "3 días", "6 meses", "1 año"})
+    public String vigencia;
+
+    private Licencia licencia;
+    private Proyecto proyecto;
+
+    @Setup
+    public void preparar() {
+        licencia = new Licencia();
+        licencia.setVigencia(vigencia);
+
+        proyecto = new Proyecto();
+        proyecto.setFechaInicio(LocalDateTime.of(2024, 1, 15, 0, 0));
+        proyecto.setVigencia(vigencia);
+    }
+
+    @Benchmark
+    public Integer licenciaVigenciaEnMinutos() {
+        return licencia.getVigenciaEnMinutos();
+    }
+
+    @Benchmark
+    public LocalDateTime proyectoCalcularFechaVencimiento() {
+        return proyecto.calcularFechaVencimiento();
+    }
+}
@@ -0,0 +1,288 @@
+package org.saeta.licenciasservice.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.dto.EjecutivoDTO;
+import org.saeta.licenciasservice.dto.TipoCertificadoDTO;
+import org.saeta.licenciasservice.repository.EjecutivoRepository;
+import org.saeta.licenciasservice.repository.TipoCertificadoRepository;
+import org.saeta.licenciasservice.util.TransaccionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Catálogos de referencia (ejecutivos y tipos de certificado) en memoria, con búsqueda por ID,
+ * por abreviatura y por nombre en mayúsculas (solo activos). Las tablas son pequeñas y cambian poco: cada catálogo se carga completo en la primera consulta
+ * (read-through) como una instantánea inmutable con número de versión, y se descarta tras el
+ * commit de cada alta, cambio o baja hecha desde su servicio, o periódicamente para recoger
+ * cambios hechos desde otros nodos.
+ * Quien necesita una vista coherente durante un proceso largo (p. ej. una importación) toma
+ * la instantánea una vez y la usa hasta el final aunque entretanto se publique otra.
+ * Los DTOs publicados no salen de la caché: cada consulta devuelve copias.
+ */
+@Component
+@Slf4j
+public class CatalogoCache {
+
+    // Antigüedad mínima de una instantánea para recargarla al no encontrar un ID
+    private static final long RECARGA_POR_FALLO_MS = 1000;
+
+    @Autowired
+    private EjecutivoRepository ejecutivoRepository;
+
+    @Autowired
+    private TipoCertificadoRepository tipoCertificadoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Entrada<EjecutivoDTO> ejecutivos = new Entrada<>("ejecutivos",
+            () -> convertir(ejecutivoRepository.findAll(), EjecutivoDTO::desde),
+            EjecutivoDTO::getId, EjecutivoDTO::getAbreviatura, EjecutivoDTO::getNombreEjecutivo,
+            EjecutivoDTO::isActivo, e -> e.toBuilder().build());
+
+    private final Entrada<TipoCertificadoDTO> tiposCertificado = new Entrada<>("tipos de certificado",
+            () -> convertir(tipoCertificadoRepository.findAll(), TipoCertificadoDTO::desde),
+            TipoCertificadoDTO::getId, TipoCertificadoDTO::getAbreviatura, TipoCertificadoDTO::getNombreCertificado,
+            t -> true, t -> t.toBuilder().build());
+
+    // Las cargas usan la transacción del llamador si la hay, sin pedir otra conexión al pool
+    private TransactionTemplate transaccionLectura;
+
+    @PostConstruct
+    public void init() {
+        transaccionLectura = new TransactionTemplate(transactionManager);
+        transaccionLectura.setPropagationBehavior(TransactionDefinition.PROPAGATION_SUPPORTS);
+        transaccionLectura.setReadOnly(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalogos.cache.refresh-ms:300000}",
+            initialDelayString = "${app.catalogos.cache.refresh-ms:300000}")
+    public void invalidarPeriodicamente() {
+        ejecutivos.invalidar();
+        tiposCertificado.invalidar();
+    }
+
+    /**
+     * Instantánea actual de los ejecutivos
+     */
+    public Catalogo<EjecutivoDTO> getEjecutivos() {
+        return ejecutivos.obtener();
+    }
+
+    /**
+     * Ejecutivo por ID o null si no existe. Si no está en la instantánea (creado desde otro
+     * nodo) se recarga el catálogo una vez antes de responder.
+     */
+    public EjecutivoDTO getEjecutivo(Integer id) {
+        EjecutivoDTO ejecutivo = ejecutivos.porIdConRecarga(id);
+        return ejecutivo != null ? ejecutivo.toBuilder().build() : null;
+    }
+
+    /**
+     * Tipo de certificado por ID o null si no existe (con la misma recarga que getEjecutivo)
+     */
+    public TipoCertificadoDTO getTipoCertificado(Integer id) {
+        TipoCertificadoDTO tipoCertificado = tiposCertificado.porIdConRecarga(id);
+        return tipoCertificado != null ? tipoCertificado.toBuilder().build() : null;
+    }
+
+    public String getNombreEjecutivo(Integer id) {
+        EjecutivoDTO ejecutivo = ejecutivos.porIdConRecarga(id);
+        return ejecutivo != null ? ejecutivo.getNombreEjecutivo() : null;
+    }
+
+    /**
+     * Descarta los ejecutivos en memoria tras el commit de la transacción actual
+     */
+    public void invalidarEjecutivos() {
+        TransaccionUtil.despuesDelCommit(ejecutivos::invalidar);
+    }
+
+    /**
+     * Descarta los tipos de certificado en memoria tras el commit de la transacción actual
+     */
+    public void invalidarTiposCertificado() {
+        TransaccionUtil.despuesDelCommit(tiposCertificado::invalidar);
+    }
+
+    private static <E, T> List<T> convertir(List<E> entidades, Function<E, T> convertir) {
+        List<T> elementos = new ArrayList<>(entidades.size());
+        for (E entidad : entidades) {
+            elementos.add(convertir.apply(entidad));
+        }
+        return elementos;
+    }
+
+    /**
+     * Instantánea inmutable de un catálogo. Los DTOs son mutables, así que la instantánea guarda
+     * los suyos y entrega copias: lo que haga el llamador con ellas no afecta a otros hilos.
+     */
+    public static final class Catalogo<T> {
+        private final long version;
+        private final long cargadoMs;
+        private final List<T> todos;
+        private final Map<Integer, T> porId = new HashMap<>();
+        private final Map<String, T> porAbreviatura = new HashMap<>();
+        private final Map<String, T> porNombre = new HashMap<>();
+        private final UnaryOperator<T> copiar;
+
+        Catalogo(long version, List<T> elementos, Claves<T> claves) {
+            this.version = version;
+            this.cargadoMs = System.currentTimeMillis();
+            this.todos = Collections.unmodifiableList(elementos);
+            this.copiar = claves.copiar;
+            for (T elemento : elementos) {
+                porId.put(claves.id.apply(elemento), elemento);
+                // Con claves repetidas se conserva el primero
+                String abreviatura = claves.abreviatura.apply(elemento);
+                if (abreviatura != null) {
+                    porAbreviatura.putIfAbsent(abreviatura.toUpperCase(), elemento);
+                }
+                String nombre = claves.nombre.apply(elemento);
+                if (nombre != null && claves.activo.test(elemento)) {
+                    porNombre.putIfAbsent(nombre.toUpperCase(), elemento);
+                }
+            }
+        }
+
+        /**
+         * Versión de la instantánea; cambia cada vez que el catálogo se invalida
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * Copia del elemento con ese ID, o null si no existe
+         */
+        public T porId(Integer id) {
+            return copia(buscar(id));
+        }
+
+        /**
+         * Copia del elemento con esa abreviatura (sin distinguir mayúsculas), o null si no existe
+         */
+        public T porAbreviatura(String abreviatura) {
+            return copia(abreviatura != null ? porAbreviatura.get(abreviatura.toUpperCase()) : null);
+        }
+
+        /**
+         * Copia del elemento activo con ese nombre (sin distinguir mayúsculas), o null si no existe
+         */
+        public T porNombre(String nombre) {
+            return copia(nombre != null ? porNombre.get(nombre.toUpperCase()) : null);
+        }
+
+        private T buscar(Integer id) {
+            return id != null ? porId.get(id) : null;
+        }
+
+        private T copia(T elemento) {
+            return elemento != null ? copiar.apply(elemento) : null;
+        }
+
+        public int size() {
+            return todos.size();
+        }
+    }
+
+    /**
+     * Cómo indexar y copiar los elementos de un catálogo
+     */
+    private static final class Claves<T> {
+        private final Function<T, Integer> id;
+        private final Function<T, String> abreviatura;
+        private final Function<T, String> nombre;
+        private final Predicate<T> activo;
+        private final UnaryOperator<T> copiar;
+
+        Claves(Function<T, Integer> id, Function<T, String> abreviatura, Function<T, String> nombre,
+               Predicate<T> activo, UnaryOperator<T> copiar) {
+            this.id = id;
+            this.abreviatura = abreviatura;
+            this.nombre = nombre;
+            this.activo = activo;
+            this.copiar = copiar;
+        }
+    }
+
+    /**
+     * Instantánea publicada de un catálogo y su versión. Una carga que empezó antes de una
+     * invalidación no se publica, para no reemplazar la invalidación con datos anteriores.
+     */
+    private final class Entrada<T> {
+        private final String nombre;
+        private final Supplier<List<T>> cargar;
+        private final Claves<T> claves;
+        private final AtomicLong version = new AtomicLong();
+        private volatile Catalogo<T> actual;
+
+        Entrada(String nombre, Supplier<List<T>> cargar, Function<T, Integer> id, Function<T, String> abreviatura,
+                Function<T, String> nombreElemento, Predicate<T> activo, UnaryOperator<T> copiar) {
+            this.nombre = nombre;
+            this.cargar = cargar;
+            this.claves = new Claves<>(id, abreviatura, nombreElemento, activo, copiar);
+        }
+
+        Catalogo<T> obtener() {
+            Catalogo<T> catalogo = actual;
+            return catalogo != null ? catalogo : cargar();
+        }
+
+        /**
+         * Elemento compartido de la instantánea (sin copiar); solo para lectura dentro de la caché
+         */
+        T porIdConRecarga(Integer idBuscado) {
+            if (idBuscado == null) {
+                return null;
+            }
+            Catalogo<T> catalogo = obtener();
+            T elemento = catalogo.buscar(idBuscado);
+            if (elemento == null && System.currentTimeMillis() - catalogo.cargadoMs >= RECARGA_POR_FALLO_MS) {
+                invalidar();
+                elemento = obtener().buscar(idBuscado);
+            }
+            return elemento;
+        }
+
+        void invalidar() {
+            version.incrementAndGet();
+            actual = null;
+        }
+
+        /**
+         * Sin bloqueo: un hilo que esperara aquí a otro lo haría reteniendo su propia conexión,
+         * y con el pool agotado la carga en curso no conseguiría una. Varias cargas simultáneas
+         * de tablas tan pequeñas son baratas y publica la última con la versión vigente.
+         */
+        private Catalogo<T> cargar() {
+            long versionCarga = version.get();
+            Catalogo<T> catalogo = new Catalogo<>(versionCarga, transaccionLectura.execute(estado -> cargar.get()),
+                    claves);
+            if (version.get() == versionCarga) {
+                actual = catalogo;
+                // Dentro de una transacción de escritura la carga puede ver cambios aún sin
+                // confirmar: si se revierte, se descarta lo publicado
+                TransaccionUtil.siSeRevierte(this::invalidar);
+            }
+            log.debug("Catálogo de {} cargado: {} elementos (versión {})", nombre, catalogo.size(), versionCarga);
+            return catalogo;
+        }
+    }
+}
\ No newline at end of file
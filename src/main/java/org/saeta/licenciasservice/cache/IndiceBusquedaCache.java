@@ -0,0 +1,441 @@
+package org.saeta.licenciasservice.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.Certificado;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.entity.Proyecto;
+import org.saeta.licenciasservice.repository.CertificadoRepository;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.saeta.licenciasservice.repository.ProyectoRepository;
+import org.saeta.licenciasservice.util.IndiceNgramas;
+import org.saeta.licenciasservice.util.TransaccionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Índices de búsqueda en memoria (ver IndiceNgramas) para los endpoints de búsqueda de
+ * certificados, proyectos y licencias. Cada búsqueda obtiene los IDs que cumplen los filtros
+ * de texto y los estructurados (ejecutivo, estado, vigencia) sin consultar la base de datos,
+ * y el servicio carga solo las entidades de la página pedida (ver hidratar).
+ * Se cargan al iniciar, se recargan periódicamente (cambios hechos por otros nodos o por
+ * actualizaciones masivas) y se actualizan tras el commit de cada alta, cambio o baja hecha
+ * desde los servicios. Mientras un índice no está cargado, o si el orden pedido no es por ID,
+ * las búsquedas devuelven null y el servicio usa la consulta a la base de datos.
+ */
+@Component
+@Slf4j
+public class IndiceBusquedaCache {
+
+    // Campos de texto de cada índice
+    private static final int CERTIFICADO_RAZON_SOCIAL = 0;
+    private static final int CERTIFICADO_NOMBRES = 1;
+    private static final int CERTIFICADO_PRIMER_APELLIDO = 2;
+
+    private static final int PROYECTO_ID_PRODUCTO = 0;
+    private static final int PROYECTO_PRODUCTO = 1;
+    private static final int PROYECTO_CORREO_VENDEDOR1 = 2;
+    private static final int PROYECTO_CORREO_VENDEDOR2 = 3;
+    private static final int PROYECTO_CORREO_JEFE = 4;
+
+    private static final int LICENCIA_EMPRESA = 0;
+    private static final int LICENCIA_MAC = 1;
+
+    @Autowired
+    private CertificadoRepository certificadoRepository;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Autowired
+    private LicenciaRepository licenciaRepository;
+
+    @Value("${app.busqueda.indice-memoria.enabled:true}")
+    private boolean habilitado;
+
+    private final Indice<DatosCertificado> certificados = new Indice<>("certificados");
+    private final Indice<DatosProyecto> proyectos = new Indice<>("proyectos");
+    private final Indice<Void> licencias = new Indice<>("licencias");
+
+    public IndiceBusquedaCache(MeterRegistry meterRegistry) {
+        for (Indice<?> indice : List.of(certificados, proyectos, licencias)) {
+            Gauge.builder("busqueda.indice.documentos", indice, i -> i.actual == null ? -1 : i.actual.size())
+                    .tag("entidad", indice.nombre)
+                    .description("Documentos en el índice de búsqueda en memoria")
+                    .register(meterRegistry);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    @Scheduled(fixedDelayString = "${app.busqueda.indice-memoria.refresh-ms:300000}",
+            initialDelayString = "${app.busqueda.indice-memoria.refresh-ms:300000}")
+    public void recargarPeriodicamente() {
+        recargar();
+    }
+
+    /**
+     * Reconstruye los tres índices desde la base de datos
+     */
+    public void recargar() {
+        if (!habilitado) {
+            return;
+        }
+        recargarCertificados();
+        recargarProyectos();
+        recargarLicencias();
+    }
+
+    public void recargarCertificados() {
+        certificados.recargar(() -> {
+            List<CertificadoRepository.CertificadoIndice> filas = certificadoRepository.findParaIndiceBusqueda();
+            IndiceNgramas<DatosCertificado> nuevo = new IndiceNgramas<>(3);
+            for (CertificadoRepository.CertificadoIndice fila : filas) {
+                nuevo.actualizar(fila.getId(),
+                        new DatosCertificado(fila.getEjecutivoId(), fila.getFechaVencimiento(), fila.getActivo()),
+                        fila.getRazonSocial(), fila.getNombres(), fila.getPrimerApellido());
+            }
+            return nuevo;
+        });
+    }
+
+    public void recargarProyectos() {
+        proyectos.recargar(() -> {
+            List<ProyectoRepository.ProyectoIndice> filas = proyectoRepository.findParaIndiceBusqueda();
+            IndiceNgramas<DatosProyecto> nuevo = new IndiceNgramas<>(5);
+            for (ProyectoRepository.ProyectoIndice fila : filas) {
+                nuevo.actualizar(fila.getId(),
+                        new DatosProyecto(fila.getFechaVencimiento(), fila.getActivo()),
+                        fila.getIdProducto(), fila.getProducto(),
+                        fila.getCorreoVendedor1(), fila.getCorreoVendedor2(), fila.getCorreoJefeVendedor());
+            }
+            return nuevo;
+        });
+    }
+
+    public void recargarLicencias() {
+        licencias.recargar(() -> {
+            List<LicenciaRepository.LicenciaIndice> filas = licenciaRepository.findParaIndiceBusqueda();
+            IndiceNgramas<Void> nuevo = new IndiceNgramas<>(2);
+            for (LicenciaRepository.LicenciaIndice fila : filas) {
+                nuevo.actualizar(fila.getId(), null, fila.getEmpresa(), fila.getMac());
+            }
+            return nuevo;
+        });
+    }
+
+    /**
+     * Recarga el índice de proyectos tras el commit; para actualizaciones masivas que no pasan
+     * por actualizarProyecto
+     */
+    public void recargarProyectosDespuesDelCommit() {
+        if (habilitado) {
+            TransaccionUtil.despuesDelCommit(this::recargarProyectos);
+        }
+    }
+
+    // ---- Cambios individuales (se aplican tras el commit) ----
+
+    public void actualizarCertificado(Certificado certificado) {
+        int id = certificado.getId();
+        DatosCertificado datos = new DatosCertificado(certificado.getEjecutivoId(),
+                certificado.getFechaVencimiento(), certificado.getActivo());
+        String razonSocial = certificado.getRazonSocial();
+        String nombres = certificado.getNombres();
+        String primerApellido = certificado.getPrimerApellido();
+        certificados.despuesDelCommit(indice -> indice.actualizar(id, datos, razonSocial, nombres, primerApellido));
+    }
+
+    public void eliminarCertificado(Integer id) {
+        certificados.despuesDelCommit(indice -> indice.eliminar(id));
+    }
+
+    public void actualizarProyecto(Proyecto proyecto) {
+        int id = proyecto.getId();
+        DatosProyecto datos = new DatosProyecto(proyecto.getFechaVencimiento(), proyecto.getActivo());
+        String idProducto = proyecto.getIdProducto();
+        String producto = proyecto.getProducto();
+        String correoVendedor1 = proyecto.getCorreoVendedor1();
+        String correoVendedor2 = proyecto.getCorreoVendedor2();
+        String correoJefe = proyecto.getCorreoJefeVendedor();
+        proyectos.despuesDelCommit(indice ->
+                indice.actualizar(id, datos, idProducto, producto, correoVendedor1, correoVendedor2, correoJefe));
+    }
+
+    public void eliminarProyecto(Integer id) {
+        proyectos.despuesDelCommit(indice -> indice.eliminar(id));
+    }
+
+    public void actualizarLicencia(Licencia licencia) {
+        int id = licencia.getId();
+        String empresa = licencia.getEmpresa();
+        String mac = licencia.getMac();
+        licencias.despuesDelCommit(indice -> indice.actualizar(id, null, empresa, mac));
+    }
+
+    public void eliminarLicencia(Integer id) {
+        licencias.despuesDelCommit(indice -> indice.eliminar(id));
+    }
+
+    // ---- Búsquedas: página de IDs, o null si hay que consultar la base de datos ----
+
+    /**
+     * Mismos filtros que CertificadoService.buscarCertificados (solo certificados activos)
+     */
+    public Page<Integer> buscarCertificados(Integer ejecutivoId, String razonSocial, String nombres,
+                                            String estado, Pageable pageable) {
+        IndiceNgramas<DatosCertificado> indice = certificados.actual;
+        Boolean descendente = ordenPorId(pageable);
+        if (!habilitado || indice == null || descendente == null) {
+            return null;
+        }
+
+        BitSet seleccion;
+        if (razonSocial != null && !razonSocial.isEmpty()) {
+            seleccion = indice.buscar(razonSocial, CERTIFICADO_RAZON_SOCIAL);
+        } else {
+            seleccion = indice.todos();
+        }
+        if (nombres != null && !nombres.isEmpty()) {
+            seleccion.and(indice.buscar(nombres, CERTIFICADO_NOMBRES, CERTIFICADO_PRIMER_APELLIDO));
+        }
+
+        Certificado.RangoVencimiento rango = estado != null && !estado.isEmpty()
+                ? Certificado.RangoVencimiento.de(estado, LocalDateTime.now())
+                : null;
+        if (estado != null && !estado.isEmpty() && rango == null) {
+            seleccion.clear();
+        }
+        indice.filtrar(seleccion, datos -> Boolean.TRUE.equals(datos.activo)
+                && (ejecutivoId == null || ejecutivoId.equals(datos.ejecutivoId))
+                && (rango == null || rango.contiene(datos.fechaVencimiento)));
+
+        return pagina(seleccion, pageable, descendente);
+    }
+
+    /**
+     * Mismos filtros que ProyectoService.buscarProyectos (vigenciaMin) y
+     * ProyectoService.buscarProyectosPorEstado (estado)
+     */
+    public Page<Integer> buscarProyectos(String idProducto, String producto, String correo,
+                                         Integer vigenciaMin, String estado, Pageable pageable) {
+        IndiceNgramas<DatosProyecto> indice = proyectos.actual;
+        Boolean descendente = ordenPorId(pageable);
+        if (!habilitado || indice == null || descendente == null) {
+            return null;
+        }
+
+        BitSet seleccion = indice.todos();
+        if (tieneTexto(idProducto)) {
+            seleccion.and(indice.buscar(idProducto, PROYECTO_ID_PRODUCTO));
+        }
+        if (tieneTexto(producto)) {
+            seleccion.and(indice.buscar(producto, PROYECTO_PRODUCTO));
+        }
+        if (tieneTexto(correo)) {
+            seleccion.and(indice.buscar(correo, PROYECTO_CORREO_VENDEDOR1, PROYECTO_CORREO_VENDEDOR2, PROYECTO_CORREO_JEFE));
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        if (vigenciaMin != null && vigenciaMin > 0) {
+            LocalDateTime limite = ahora.plusDays(vigenciaMin);
+            indice.filtrar(seleccion, datos -> Boolean.TRUE.equals(datos.activo)
+                    && datos.fechaVencimiento != null && !datos.fechaVencimiento.isBefore(limite));
+        }
+        if (tieneTexto(estado)) {
+            String estadoNormalizado = estado.toUpperCase();
+            indice.filtrar(seleccion, datos -> datos.cumpleEstado(estadoNormalizado, ahora));
+        }
+
+        return pagina(seleccion, pageable, descendente);
+    }
+
+    /**
+     * Mismos filtros que LicenciaManagementService.buscarLicencias
+     */
+    public Page<Integer> buscarLicencias(String empresa, String mac, Pageable pageable) {
+        IndiceNgramas<Void> indice = licencias.actual;
+        Boolean descendente = ordenPorId(pageable);
+        if (!habilitado || indice == null || descendente == null) {
+            return null;
+        }
+
+        BitSet seleccion = tieneTexto(empresa) ? indice.buscar(empresa, LICENCIA_EMPRESA) : indice.todos();
+        if (tieneTexto(mac)) {
+            seleccion.and(indice.buscar(mac, LICENCIA_MAC));
+        }
+        return pagina(seleccion, pageable, descendente);
+    }
+
+    /**
+     * Convierte una página de IDs en una página de DTOs cargando solo esas entidades,
+     * en el orden de la página (las que se eliminaron entretanto se omiten)
+     */
+    public static <T, D> Page<D> hidratar(Page<Integer> ids, Function<List<Integer>, List<T>> cargar,
+                                          Function<T, Integer> id, Function<T, D> convertir) {
+        Map<Integer, T> porId = new HashMap<>();
+        if (!ids.getContent().isEmpty()) {
+            for (T entidad : cargar.apply(ids.getContent())) {
+                porId.put(id.apply(entidad), entidad);
+            }
+        }
+        List<D> contenido = new ArrayList<>(ids.getNumberOfElements());
+        for (Integer idPagina : ids.getContent()) {
+            T entidad = porId.get(idPagina);
+            if (entidad != null) {
+                contenido.add(convertir.apply(entidad));
+            }
+        }
+        return new PageImpl<>(contenido, ids.getPageable(), ids.getTotalElements());
+    }
+
+    /**
+     * true/false si la página se ordena por ID descendente/ascendente (o no tiene orden);
+     * null para cualquier otro orden, que el índice no puede resolver
+     */
+    private static Boolean ordenPorId(Pageable pageable) {
+        Sort sort = pageable.getSort();
+        if (sort.isUnsorted()) {
+            return false;
+        }
+        List<Sort.Order> ordenes = sort.toList();
+        if (ordenes.size() != 1 || !"id".equals(ordenes.get(0).getProperty())) {
+            return null;
+        }
+        return ordenes.get(0).isDescending();
+    }
+
+    private static Page<Integer> pagina(BitSet seleccion, Pageable pageable, boolean descendente) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(IndiceNgramas.pagina(seleccion, 0, seleccion.cardinality(), descendente));
+        }
+        List<Integer> ids = IndiceNgramas.pagina(seleccion, pageable.getOffset(), pageable.getPageSize(), descendente);
+        return new PageImpl<>(ids, pageable, seleccion.cardinality());
+    }
+
+    private static boolean tieneTexto(String valor) {
+        return valor != null && !valor.trim().isEmpty();
+    }
+
+    /**
+     * Índice publicado y cambios recibidos durante una recarga (se reaplican al publicar el nuevo)
+     */
+    private static final class Indice<V> {
+        private final String nombre;
+        private volatile IndiceNgramas<V> actual;
+        private List<Consumer<IndiceNgramas<V>>> cambiosDuranteRecarga;
+
+        Indice(String nombre) {
+            this.nombre = nombre;
+        }
+
+        void recargar(Supplier<IndiceNgramas<V>> construir) {
+            synchronized (this) {
+                cambiosDuranteRecarga = new ArrayList<>();
+            }
+            try {
+                long inicio = System.currentTimeMillis();
+                IndiceNgramas<V> nuevo = construir.get();
+                synchronized (this) {
+                    for (Consumer<IndiceNgramas<V>> cambio : cambiosDuranteRecarga) {
+                        cambio.accept(nuevo);
+                    }
+                    cambiosDuranteRecarga = null;
+                    actual = nuevo;
+                }
+                log.debug("Índice de búsqueda de {} recargado: {} documentos en {} ms",
+                        nombre, nuevo.size(), System.currentTimeMillis() - inicio);
+            } catch (Exception e) {
+                synchronized (this) {
+                    cambiosDuranteRecarga = null;
+                }
+                log.error("❌ Error al recargar el índice de búsqueda de {}: {}", nombre, e.getMessage());
+            }
+        }
+
+        void despuesDelCommit(Consumer<IndiceNgramas<V>> cambio) {
+            TransaccionUtil.despuesDelCommit(() -> aplicar(cambio));
+        }
+
+        private synchronized void aplicar(Consumer<IndiceNgramas<V>> cambio) {
+            if (actual != null) {
+                cambio.accept(actual);
+            }
+            if (cambiosDuranteRecarga != null) {
+                cambiosDuranteRecarga.add(cambio);
+            }
+        }
+    }
+
+    private static final class DatosCertificado {
+        private final Integer ejecutivoId;
+        private final LocalDateTime fechaVencimiento;
+        private final Boolean activo;
+
+        DatosCertificado(Integer ejecutivoId, LocalDateTime fechaVencimiento, Boolean activo) {
+            this.ejecutivoId = ejecutivoId;
+            this.fechaVencimiento = fechaVencimiento;
+            this.activo = activo;
+        }
+    }
+
+    private static final class DatosProyecto {
+        private final LocalDateTime fechaVencimiento;
+        private final Boolean activo;
+
+        DatosProyecto(LocalDateTime fechaVencimiento, Boolean activo) {
+            this.fechaVencimiento = fechaVencimiento;
+            this.activo = activo;
+        }
+
+        /**
+         * Mismos rangos que ProyectoService.buscarProyectosPorEstado; un estado desconocido no filtra
+         */
+        boolean cumpleEstado(String estado, LocalDateTime ahora) {
+            boolean activoTrue = Boolean.TRUE.equals(activo);
+            LocalDateTime inicioVigente = Proyecto.inicioVigente(ahora);
+            LocalDateTime limiteCritico = Proyecto.inicioProximoVencer(ahora);
+            LocalDateTime limiteProximo = Proyecto.inicioActivo(ahora);
+            switch (estado) {
+                case "ACTIVO":
+                    return activoTrue && fechaVencimiento != null && !fechaVencimiento.isBefore(limiteProximo);
+                case "PROXIMO_VENCER":
+                    return activoTrue && fechaVencimiento != null && !fechaVencimiento.isBefore(limiteCritico)
+                            && fechaVencimiento.isBefore(limiteProximo);
+                case "CRITICO":
+                    return activoTrue && fechaVencimiento != null && !fechaVencimiento.isBefore(inicioVigente)
+                            && fechaVencimiento.isBefore(limiteCritico);
+                case "VENCIDO":
+                    return fechaVencimiento == null || fechaVencimiento.isBefore(inicioVigente);
+                case "INACTIVO":
+                    return Boolean.FALSE.equals(activo);
+                case "SIN_DATOS":
+                    return activoTrue && fechaVencimiento == null;
+                default:
+                    return true;
+            }
+        }
+    }
+}
\ No newline at end of file
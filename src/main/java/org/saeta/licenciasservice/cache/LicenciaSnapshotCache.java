@@ -0,0 +1,317 @@
+package org.saeta.licenciasservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.saeta.licenciasservice.util.LongObjectMap;
+import org.saeta.licenciasservice.util.MacAddress;
+import org.saeta.licenciasservice.util.TransaccionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Snapshot en memoria de la tabla 'licencia' indexado por los 48 bits de la MAC (ver MacAddress).
+ * El mapa publicado no se modifica nunca: cada cambio publica una copia, de modo que las
+ * lecturas no necesitan sincronización.
+ * Se carga al iniciar la aplicación, se recarga periódicamente y se actualiza con cada cambio
+ * realizado desde LicenciaManagementService. Si la última carga completa es más antigua que
+ * el límite de obsolescencia configurado, el snapshot deja de estar disponible y la validación
+ * vuelve a consultar la base de datos.
+ */
+@Component
+@Slf4j
+public class LicenciaSnapshotCache {
+
+    @Autowired
+    private LicenciaRepository licenciaRepository;
+
+    @Value("${app.licencias.cache.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.licencias.cache.max-staleness-ms:120000}")
+    private long maxObsolescenciaMs;
+
+    private volatile LongObjectMap<Licencia> licenciasPorMac = new LongObjectMap<>();
+    private volatile long ultimaCargaMs = 0L;
+
+    // Cambios recibidos mientras una recarga completa está en curso; se reaplican al publicar el nuevo mapa
+    private List<Cambio> cambiosDuranteRecarga;
+
+    private final Counter aciertos;
+    private final Counter fallos;
+
+    public LicenciaSnapshotCache(MeterRegistry meterRegistry) {
+        this.aciertos = Counter.builder("licencias.cache.consultas")
+                .tag("resultado", "hit")
+                .description("Validaciones resueltas desde el snapshot en memoria")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("licencias.cache.consultas")
+                .tag("resultado", "miss")
+                .description("Validaciones que tuvieron que consultar la base de datos")
+                .register(meterRegistry);
+        Gauge.builder("licencias.cache.hit.ratio", this, LicenciaSnapshotCache::getHitRatio)
+                .description("Proporción de validaciones resueltas sin acceso a la base de datos")
+                .register(meterRegistry);
+        Gauge.builder("licencias.cache.tamano", this, c -> c.licenciasPorMac.size())
+                .description("Licencias en el snapshot")
+                .register(meterRegistry);
+        Gauge.builder("licencias.cache.antiguedad.segundos", this,
+                        c -> c.ultimaCargaMs == 0L ? -1 : (System.currentTimeMillis() - c.ultimaCargaMs) / 1000.0)
+                .description("Segundos desde la última recarga completa del snapshot")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    /**
+     * Recarga completa periódica; acota la obsolescencia frente a cambios hechos por otros nodos
+     */
+    @Scheduled(fixedDelayString = "${app.licencias.cache.refresh-ms:60000}",
+            initialDelayString = "${app.licencias.cache.refresh-ms:60000}")
+    public void recargarPeriodicamente() {
+        recargar();
+    }
+
+    /**
+     * Reconstruye el snapshot completo desde la base de datos
+     */
+    public void recargar() {
+        if (!habilitado) {
+            return;
+        }
+
+        synchronized (this) {
+            cambiosDuranteRecarga = new ArrayList<>();
+        }
+
+        try {
+            long inicio = System.currentTimeMillis();
+            List<Licencia> licencias = licenciaRepository.findAll();
+            LongObjectMap<Licencia> nuevo = new LongObjectMap<>(licencias.size());
+            for (Licencia licencia : licencias) {
+                if (licencia.getMacBits() != null) {
+                    aplicar(nuevo, licencia.getMacBits(), copiar(licencia), null);
+                }
+            }
+
+            synchronized (this) {
+                for (Cambio cambio : cambiosDuranteRecarga) {
+                    if (cambio.idDesactivado != null) {
+                        marcarInactiva(nuevo, cambio.macBits, cambio.idDesactivado);
+                    } else {
+                        aplicar(nuevo, cambio.macBits, cambio.licencia, cambio.idRetirado);
+                    }
+                }
+                cambiosDuranteRecarga = null;
+                licenciasPorMac = nuevo;
+                ultimaCargaMs = inicio;
+            }
+
+            log.debug("Snapshot de licencias recargado: {} registros en {} ms",
+                    nuevo.size(), System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            synchronized (this) {
+                cambiosDuranteRecarga = null;
+            }
+            log.error("❌ Error al recargar el snapshot de licencias: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si el snapshot puede responder validaciones sin consultar la base de datos
+     */
+    public boolean isDisponible() {
+        return habilitado && ultimaCargaMs > 0L
+                && System.currentTimeMillis() - ultimaCargaMs <= maxObsolescenciaMs;
+    }
+
+    /**
+     * Busca una licencia por los bits de su MAC. Solo debe usarse si isDisponible() es true;
+     * el objeto devuelto es compartido y no debe modificarse.
+     */
+    public Licencia obtener(long macBits) {
+        return licenciasPorMac.get(macBits);
+    }
+
+    public void registrarAcierto() {
+        aciertos.increment();
+    }
+
+    public void registrarAciertos(int cantidad) {
+        aciertos.increment(cantidad);
+    }
+
+    public void registrarFallo() {
+        fallos.increment();
+    }
+
+    public void registrarFallos(int cantidad) {
+        fallos.increment(cantidad);
+    }
+
+    public double getHitRatio() {
+        double total = aciertos.count() + fallos.count();
+        return total == 0 ? 0.0 : aciertos.count() / total;
+    }
+
+    /**
+     * Registra una licencia creada o modificada. Dentro de una transacción el cambio se aplica
+     * tras el commit; si la MAC cambió se debe indicar la MAC anterior para retirarla.
+     */
+    public void actualizar(Licencia licencia, String macAnterior) {
+        Licencia copia = copiar(licencia);
+        long bitsAnteriores = MacAddress.parsear(macAnterior);
+        TransaccionUtil.despuesDelCommit(() -> {
+            if (bitsAnteriores != MacAddress.INVALIDA
+                    && (copia.getMacBits() == null || bitsAnteriores != copia.getMacBits())) {
+                modificar(bitsAnteriores, null, copia.getId());
+            }
+            if (copia.getMacBits() != null) {
+                modificar(copia.getMacBits(), copia, null);
+            }
+        });
+    }
+
+    /**
+     * Retira una licencia eliminada (solo si es la que ocupa la entrada de su MAC)
+     */
+    public void eliminar(Integer id, String mac) {
+        long macBits = MacAddress.parsear(mac);
+        TransaccionUtil.despuesDelCommit(() -> modificar(macBits, null, id));
+    }
+
+    /**
+     * Marca como inactivas las entradas de las licencias desactivadas por un mismo UPDATE;
+     * todos los cambios se aplican sobre una sola copia del snapshot. Una entrada solo se
+     * desactiva si es la de la licencia desactivada: con mac_bits repetidos, desactivar un
+     * duplicado antiguo no debe afectar a la licencia más reciente que ocupa la entrada.
+     */
+    public void desactivar(Collection<LicenciaRepository.LicenciaDesactivada> desactivadas) {
+        int[] ids = new int[desactivadas.size()];
+        long[] macBits = new long[desactivadas.size()];
+        int i = 0;
+        for (LicenciaRepository.LicenciaDesactivada licencia : desactivadas) {
+            ids[i] = licencia.getId();
+            macBits[i++] = MacAddress.parsear(licencia.getMac());
+        }
+        TransaccionUtil.despuesDelCommit(() -> desactivarEnSnapshot(ids, macBits));
+    }
+
+    private synchronized void desactivarEnSnapshot(int[] ids, long[] macBits) {
+        LongObjectMap<Licencia> nuevo = null;
+        for (int i = 0; i < ids.length; i++) {
+            if (macBits[i] == MacAddress.INVALIDA || !esEntradaDe(licenciasPorMac, macBits[i], ids[i])) {
+                continue;
+            }
+            if (nuevo == null) {
+                nuevo = licenciasPorMac.copia();
+            }
+            marcarInactiva(nuevo, macBits[i], ids[i]);
+
+            if (cambiosDuranteRecarga != null) {
+                cambiosDuranteRecarga.add(Cambio.desactivacion(macBits[i], ids[i]));
+            }
+        }
+        if (nuevo != null) {
+            licenciasPorMac = nuevo;
+        }
+    }
+
+    /**
+     * @param idRetirado al retirar (licencia null), ID de la licencia que sale; null para retirar cualquiera
+     */
+    private synchronized void modificar(long macBits, Licencia licencia, Integer idRetirado) {
+        if (macBits == MacAddress.INVALIDA) {
+            return;
+        }
+        LongObjectMap<Licencia> nuevo = licenciasPorMac.copia();
+        aplicar(nuevo, macBits, licencia, idRetirado);
+        licenciasPorMac = nuevo;
+
+        if (cambiosDuranteRecarga != null) {
+            cambiosDuranteRecarga.add(new Cambio(macBits, licencia, idRetirado));
+        }
+    }
+
+    /**
+     * Varias licencias pueden compartir mac_bits (la misma MAC escrita con distintos separadores);
+     * como en LicenciaRepository.findFirstByMacBitsOrderByIdDesc, la entrada es la de mayor ID
+     */
+    private static void aplicar(LongObjectMap<Licencia> mapa, long macBits, Licencia licencia, Integer idRetirado) {
+        Licencia actual = mapa.get(macBits);
+        if (licencia == null) {
+            if (actual != null && (idRetirado == null || idRetirado.equals(actual.getId()))) {
+                mapa.remove(macBits);
+            }
+        } else if (actual == null || actual.getId() == null || licencia.getId() == null
+                || licencia.getId() >= actual.getId()) {
+            mapa.put(macBits, licencia);
+        }
+    }
+
+    private static boolean esEntradaDe(LongObjectMap<Licencia> mapa, long macBits, Integer id) {
+        Licencia actual = mapa.get(macBits);
+        return actual != null && id.equals(actual.getId());
+    }
+
+    /**
+     * Pone estado '0' en la entrada de macBits solo si pertenece a la licencia indicada
+     */
+    private static void marcarInactiva(LongObjectMap<Licencia> mapa, long macBits, Integer id) {
+        if (esEntradaDe(mapa, macBits, id)) {
+            Licencia copia = copiar(mapa.get(macBits));
+            copia.setEstado("0");
+            mapa.put(macBits, copia);
+        }
+    }
+
+    private static final class Cambio {
+        private final long macBits;
+        private final Licencia licencia;
+        private final Integer idRetirado;
+        // Si no es null, el cambio es la desactivación de esa licencia (ver marcarInactiva)
+        private final Integer idDesactivado;
+
+        Cambio(long macBits, Licencia licencia, Integer idRetirado) {
+            this(macBits, licencia, idRetirado, null);
+        }
+
+        private Cambio(long macBits, Licencia licencia, Integer idRetirado, Integer idDesactivado) {
+            this.macBits = macBits;
+            this.licencia = licencia;
+            this.idRetirado = idRetirado;
+            this.idDesactivado = idDesactivado;
+        }
+
+        static Cambio desactivacion(long macBits, Integer id) {
+            return new Cambio(macBits, null, null, id);
+        }
+    }
+
+    private static Licencia copiar(Licencia origen) {
+        Licencia copia = new Licencia();
+        copia.setId(origen.getId());
+        copia.setEmpresa(origen.getEmpresa());
+        copia.setMac(origen.getMac());
+        copia.setFechaHora(origen.getFechaHora());
+        copia.setEstado(origen.getEstado());
+        copia.setObservacion(origen.getObservacion());
+        copia.setVigencia(origen.getVigencia());
+        copia.setFechaVencimiento(origen.getFechaVencimiento());
+        return copia;
+    }
+}
@@ -0,0 +1,248 @@
+package org.saeta.licenciasservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom sobre los bits de las MAC registradas en 'licencia' (ver MacAddress).
+ * Permite responder NO_REGISTRADO sin consultar PostgreSQL cuando la validación no puede
+ * resolverse desde el snapshot. Se reconstruye al iniciar y periódicamente (para descartar
+ * MAC eliminadas o registradas desde otros nodos) y se actualiza con cada alta o modificación.
+ * Si la última reconstrucción supera el límite de obsolescencia, el filtro deja de descartar.
+ */
+@Component
+@Slf4j
+public class MacBloomFilter {
+
+    @Autowired
+    private LicenciaRepository licenciaRepository;
+
+    @Value("${app.licencias.bloom.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.licencias.bloom.fpp:0.01}")
+    private double probabilidadFalsoPositivo;
+
+    @Value("${app.licencias.bloom.capacidad-minima:10000}")
+    private int capacidadMinima;
+
+    @Value("${app.licencias.bloom.max-staleness-ms:600000}")
+    private long maxObsolescenciaMs;
+
+    private volatile Filtro filtro;
+    private volatile long ultimaConstruccionMs = 0L;
+
+    // MAC registradas mientras se reconstruye el filtro; se añaden al nuevo antes de publicarlo
+    private List<Long> altasDuranteReconstruccion;
+
+    private final Counter descartadas;
+    private final Counter posibles;
+    private final Counter falsosPositivos;
+    private final Timer reconstruccion;
+
+    public MacBloomFilter(MeterRegistry meterRegistry) {
+        this.descartadas = Counter.builder("licencias.bloom.consultas")
+                .tag("resultado", "descartada")
+                .description("MAC descartadas por el filtro sin consultar la base de datos")
+                .register(meterRegistry);
+        this.posibles = Counter.builder("licencias.bloom.consultas")
+                .tag("resultado", "posible")
+                .description("MAC que el filtro no pudo descartar")
+                .register(meterRegistry);
+        this.falsosPositivos = Counter.builder("licencias.bloom.falsos.positivos")
+                .description("MAC no descartadas por el filtro que no estaban registradas")
+                .register(meterRegistry);
+        this.reconstruccion = Timer.builder("licencias.bloom.reconstruccion")
+                .description("Duración de la reconstrucción completa del filtro")
+                .register(meterRegistry);
+        Gauge.builder("licencias.bloom.falsos.positivos.ratio", this, MacBloomFilter::getTasaFalsosPositivos)
+                .description("Proporción observada de MAC no registradas que el filtro no descartó")
+                .register(meterRegistry);
+        Gauge.builder("licencias.bloom.fpp.estimada", this, MacBloomFilter::getFppEstimada)
+                .description("Probabilidad de falso positivo estimada según la ocupación del filtro")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirAlIniciar() {
+        reconstruir();
+    }
+
+    @Scheduled(fixedDelayString = "${app.licencias.bloom.refresh-ms:300000}",
+            initialDelayString = "${app.licencias.bloom.refresh-ms:300000}")
+    public void reconstruirPeriodicamente() {
+        reconstruir();
+    }
+
+    /**
+     * Reconstruye el filtro completo a partir de las MAC registradas
+     */
+    public void reconstruir() {
+        if (!habilitado) {
+            return;
+        }
+
+        synchronized (this) {
+            altasDuranteReconstruccion = new ArrayList<>();
+        }
+
+        long inicio = System.currentTimeMillis();
+        Timer.Sample muestra = Timer.start();
+        try {
+            List<Long> macs = licenciaRepository.findAllMacBits();
+            Filtro nuevo = new Filtro(Math.max(macs.size() * 2, capacidadMinima), probabilidadFalsoPositivo);
+            for (Long mac : macs) {
+                nuevo.agregar(mac);
+            }
+
+            synchronized (this) {
+                for (Long mac : altasDuranteReconstruccion) {
+                    nuevo.agregar(mac);
+                }
+                altasDuranteReconstruccion = null;
+                filtro = nuevo;
+                ultimaConstruccionMs = inicio;
+            }
+
+            long duracion = muestra.stop(reconstruccion) / 1_000_000;
+            log.debug("Filtro de Bloom de MAC reconstruido: {} MAC, {} bits, {} funciones hash en {} ms",
+                    macs.size(), nuevo.bits, nuevo.funciones, duracion);
+        } catch (Exception e) {
+            synchronized (this) {
+                altasDuranteReconstruccion = null;
+            }
+            log.error("❌ Error al reconstruir el filtro de Bloom de MAC: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si la MAC puede estar registrada. Un false es definitivo: la MAC no existe.
+     * Si el filtro no está construido o está obsoleto devuelve siempre true.
+     */
+    public boolean puedeContener(long macBits) {
+        Filtro actual = filtro;
+        if (!habilitado || actual == null
+                || System.currentTimeMillis() - ultimaConstruccionMs > maxObsolescenciaMs) {
+            return true;
+        }
+
+        if (actual.contiene(macBits)) {
+            posibles.increment();
+            return true;
+        }
+        descartadas.increment();
+        return false;
+    }
+
+    /**
+     * Registra que una MAC no descartada por el filtro resultó no estar registrada
+     */
+    public void registrarFalsoPositivo() {
+        falsosPositivos.increment();
+    }
+
+    /**
+     * Añade una MAC registrada o modificada. Se aplica de inmediato (no tras el commit):
+     * un bit de más solo puede producir un falso positivo, nunca descartar una MAC válida.
+     */
+    public void agregar(Long macBits) {
+        if (!habilitado || macBits == null) {
+            return;
+        }
+
+        synchronized (this) {
+            Filtro actual = filtro;
+            if (actual != null) {
+                actual.agregar(macBits);
+            }
+            if (altasDuranteReconstruccion != null) {
+                altasDuranteReconstruccion.add(macBits);
+            }
+        }
+    }
+
+    public double getTasaFalsosPositivos() {
+        double negativos = descartadas.count() + falsosPositivos.count();
+        return negativos == 0 ? 0.0 : falsosPositivos.count() / negativos;
+    }
+
+    public double getFppEstimada() {
+        Filtro actual = filtro;
+        return actual == null ? 0.0 : actual.fppEstimada();
+    }
+
+    /**
+     * Array de bits con k posiciones por elemento obtenidas por doble hashing (h1 + i*h2)
+     */
+    private static final class Filtro {
+        private final AtomicLongArray palabras;
+        private final long bits;
+        private final int funciones;
+
+        Filtro(int capacidad, double fpp) {
+            double ln2 = Math.log(2);
+            long m = (long) Math.ceil(-capacidad * Math.log(fpp) / (ln2 * ln2));
+            this.palabras = new AtomicLongArray((int) ((m + 63) / 64));
+            this.bits = palabras.length() * 64L;
+            this.funciones = Math.max(1, (int) Math.round((double) bits / capacidad * ln2));
+        }
+
+        void agregar(long valor) {
+            long h1 = mezclar(valor);
+            long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < funciones; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                int indice = (int) (bit >>> 6);
+                long mascara = 1L << bit;
+                long actual = palabras.get(indice);
+                while ((actual & mascara) == 0 && !palabras.compareAndSet(indice, actual, actual | mascara)) {
+                    actual = palabras.get(indice);
+                }
+            }
+        }
+
+        boolean contiene(long valor) {
+            long h1 = mezclar(valor);
+            long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1L;
+            for (int i = 0; i < funciones; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bits);
+                if ((palabras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        double fppEstimada() {
+            long activos = 0;
+            for (int i = 0; i < palabras.length(); i++) {
+                activos += Long.bitCount(palabras.get(i));
+            }
+            return Math.pow((double) activos / bits, funciones);
+        }
+
+        // Mezcla final de MurmurHash3 (fmix64)
+        private static long mezclar(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.saeta.licenciasservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Plantillas Excel de carga masiva generadas una sola vez (en la primera descarga) y servidas
+ * desde memoria. El contenido no depende de la petición, así que crear el libro, los estilos y
+ * ajustar columnas (autoSizeColumn mide fuentes) en cada descarga era trabajo repetido.
+ * Cada plantilla lleva una versión que debe incrementarse al cambiar sus columnas o ejemplos:
+ * forma parte del ETag y del nombre del archivo, de modo que los clientes descartan la copia anterior.
+ */
+@Component
+@Slf4j
+public class PlantillaExcelCache {
+
+    // Incrementar al cambiar las columnas o los ejemplos de la plantilla
+    public static final int VERSION_CERTIFICADOS = 1;
+    public static final int VERSION_PROYECTOS = 1;
+
+    private volatile Plantilla certificados;
+    private volatile Plantilla proyectos;
+
+    public Plantilla getPlantillaCertificados() throws IOException {
+        Plantilla plantilla = certificados;
+        if (plantilla == null) {
+            synchronized (this) {
+                if (certificados == null) {
+                    certificados = crear("plantilla_certificados", VERSION_CERTIFICADOS, generarCertificados());
+                }
+                plantilla = certificados;
+            }
+        }
+        return plantilla;
+    }
+
+    public Plantilla getPlantillaProyectos() throws IOException {
+        Plantilla plantilla = proyectos;
+        if (plantilla == null) {
+            synchronized (this) {
+                if (proyectos == null) {
+                    proyectos = crear("plantilla_proyectos", VERSION_PROYECTOS, generarProyectos());
+                }
+                plantilla = proyectos;
+            }
+        }
+        return plantilla;
+    }
+
+    /**
+     * Contenido de una plantilla con su ETag fuerte (versión + hash del contenido)
+     */
+    public static final class Plantilla {
+        private final byte[] contenido;
+        private final String etag;
+        private final String nombreArchivo;
+
+        Plantilla(byte[] contenido, String etag, String nombreArchivo) {
+            this.contenido = contenido;
+            this.etag = etag;
+            this.nombreArchivo = nombreArchivo;
+        }
+
+        /**
+         * Bytes compartidos del archivo; no deben modificarse
+         */
+        public byte[] getContenido() {
+            return contenido;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getNombreArchivo() {
+            return nombreArchivo;
+        }
+    }
+
+    private static Plantilla crear(String nombre, int version, byte[] contenido) {
+        String hash;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(contenido);
+            hash = HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+
+        log.info("Plantilla {} v{} generada ({} bytes)", nombre, version, contenido.length);
+        return new Plantilla(contenido, "\"" + nombre + "-v" + version + "-" + hash + "\"",
+                nombre + "_v" + version + ".xlsx");
+    }
+
+    private static byte[] generarCertificados() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Certificados");
+
+            // Crear encabezados
+            Row headerRow = sheet.createRow(0);
+            String[] headers = {
+                    "Fecha Emisión", "Fecha V.", "Ejecutivo", "TIPO", "Nombres",
+                    "Primer Apellido", "Segundo Apellido", "N° Documento", "Departamento",
+                    "Cargo", "correo electronico", "Razon social", "N° RUC", "Dirección",
+                    "Código postal", "Telefono", "CorreoEjecutivo1", "CorreoEjecutivo2",
+                    "CorreoEjecutivo3", "VIGENCIA"
+            };
+
+            // Estilo para encabezados
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            // Crear filas de ejemplo
+            Row row1 = sheet.createRow(1);
+            row1.createCell(0).setCellValue("15/08/2022");
+            row1.createCell(1).setCellValue("15/08/2023");
+            row1.createCell(2).setCellValue("NOEMI");
+            row1.createCell(3).setCellValue("PERSONA JURIDICA");
+            row1.createCell(4).setCellValue("YESSY TIFFANY");
+            row1.createCell(5).setCellValue("BLANCO");
+            row1.createCell(6).setCellValue("VILCHEZ");
+            row1.createCell(7).setCellValue("43011561");
+            row1.createCell(8).setCellValue("GERENCIA GENERAL");
+            row1.createCell(9).setCellValue("GERENTE GENERAL");
+            row1.createCell(10).setCellValue("constructora.macb@gmail.com");
+            row1.createCell(11).setCellValue("MACB INGENIERIA Y CONSTRUCCION SOCIEDAD ANONIMA CERRADA");
+            row1.createCell(12).setCellValue("20603995695");
+            row1.createCell(13).setCellValue("Cal. Cassinelli Nro. 348 - Chiclayo");
+            row1.createCell(14).setCellValue("14000");
+            row1.createCell(15).setCellValue("972 923 630");
+            row1.createCell(16).setCellValue("ejecutivo1@empresa.com");
+            row1.createCell(17).setCellValue("ejecutivo2@empresa.com");
+            row1.createCell(18).setCellValue("");
+            row1.createCell(19).setCellValue("365");
+
+            Row row2 = sheet.createRow(2);
+            row2.createCell(0).setCellValue("15/08/2022");
+            row2.createCell(1).setCellValue("15/08/2022");
+            row2.createCell(2).setCellValue("NOEMI");
+            row2.createCell(3).setCellValue("PERSONA NATURAL");
+            row2.createCell(4).setCellValue("YESSY TIFFANY");
+            row2.createCell(5).setCellValue("BLANCO");
+            row2.createCell(6).setCellValue("VILCHEZ");
+            row2.createCell(7).setCellValue("43011561");
+            for (int i = 8; i < headers.length; i++) {
+                row2.createCell(i).setCellValue("");
+            }
+
+            // Ajustar anchos de columna
+            for (int i = 0; i < headers.length; i++) {
+                sheet.autoSizeColumn(i);
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+
+    private static byte[] generarProyectos() throws IOException {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("Plantilla Proyectos");
+
+            // Crear encabezados
+            Row headerRow = sheet.createRow(0);
+            String[] headers = {
+                    "idProducto", "Producto", "fechaInicio", "vigencia",
+                    "vigenciaRestante", "correoVendedor1", "correoVendedor2", "correoJefeVendedor"
+            };
+
+            // Estilo para encabezados
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+
+            // Agregar filas de ejemplo
+            Row ejemplo1 = sheet.createRow(1);
+            ejemplo1.createCell(0).setCellValue("PROD-001");
+            ejemplo1.createCell(1).setCellValue("Sistema de Gestión (Ejemplo)");
+            ejemplo1.createCell(2).setCellValue("01/01/2024");
+            ejemplo1.createCell(3).setCellValue("1 año");
+            ejemplo1.createCell(4).setCellValue(""); // Se calcula automáticamente
+            ejemplo1.createCell(5).setCellValue("vendedor1@empresa.com");
+            ejemplo1.createCell(6).setCellValue("vendedor2@empresa.com");
+            ejemplo1.createCell(7).setCellValue("jefe@empresa.com");
+
+            Row ejemplo2 = sheet.createRow(2);
+            ejemplo2.createCell(0).setCellValue("PROD-002");
+            ejemplo2.createCell(1).setCellValue("Software Contable (Ejemplo)");
+            ejemplo2.createCell(2).setCellValue("15/03/2024");
+            ejemplo2.createCell(3).setCellValue("6 meses");
+            ejemplo2.createCell(4).setCellValue("");
+            ejemplo2.createCell(5).setCellValue("maria@empresa.com");
+            ejemplo2.createCell(6).setCellValue("");
+            ejemplo2.createCell(7).setCellValue("supervisor@empresa.com");
+
+            // Ajustar ancho de columnas
+            for (int i = 0; i < headers.length; i++) {
+                sheet.autoSizeColumn(i);
+            }
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
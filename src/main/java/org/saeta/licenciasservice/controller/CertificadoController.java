@@ -1,7 +1,12 @@
 package org.saeta.licenciasservice.controller;
 
+import org.saeta.licenciasservice.cache.PlantillaExcelCache;
 import org.saeta.licenciasservice.dto.*;
 import org.saeta.licenciasservice.service.CertificadoService;
+import org.saeta.licenciasservice.service.ExportacionService;
+import org.saeta.licenciasservice.service.ImportacionJob;
+import org.saeta.licenciasservice.service.ImportacionJobService;
+import org.saeta.licenciasservice.util.EscritorExportacion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -10,21 +15,25 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import java.io.ByteArrayOutputStream;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import jakarta.validation.Valid;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/certificados")
@@ -36,18 +45,43 @@ public class CertificadoController {
     @Autowired
     private CertificadoService certificadoService;
 
+    @Autowired
+    private ImportacionJobService importacionJobService;
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    @Autowired
+    private PlantillaExcelCache plantillaExcelCache;
+
+    private static final DateTimeFormatter FORMATO_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
     @GetMapping
-    @Operation(summary = "Listar certificados", description = "Obtiene todos los certificados con paginación")
-    public ResponseEntity<Page<CertificadoDTO>> listarCertificados(
+    @Operation(summary = "Listar certificados", description = "Obtiene todos los certificados con paginación. " +
+            "Con el parámetro cursor (vacío para la primera página) se pagina por cursor, sin total, " +
+            "continuando con el siguienteCursor de la respuesta anterior")
+    public ResponseEntity<?> listarCertificados(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @Parameter(description = "Cursor de continuación") @RequestParam(required = false) String cursor) {
 
         Sort sort = sortDir.equalsIgnoreCase("ASC")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(certificadoService.listarCertificados(cursor, size, sort));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                error.put("error", "Invalid Cursor");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        }
+
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<CertificadoDTO> certificados = certificadoService.listarCertificados(pageable);
 
@@ -115,8 +149,9 @@ public class CertificadoController {
     }
 
     @GetMapping("/buscar")
-    @Operation(summary = "Buscar certificados", description = "Busca certificados con filtros")
-    public ResponseEntity<Page<CertificadoDTO>> buscarCertificados(
+    @Operation(summary = "Buscar certificados", description = "Busca certificados con filtros. " +
+            "Con el parámetro cursor se pagina por cursor (ver listado); los filtros se repiten en cada página")
+    public ResponseEntity<?> buscarCertificados(
             @RequestParam(required = false) Integer ejecutivoId,
             @RequestParam(required = false) String razonSocial,
             @RequestParam(required = false) String nombres,
@@ -124,12 +159,25 @@ public class CertificadoController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @Parameter(description = "Cursor de continuación") @RequestParam(required = false) String cursor) {
 
         Sort sort = sortDir.equalsIgnoreCase("ASC")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(certificadoService.buscarCertificados(
+                        ejecutivoId, razonSocial, nombres, estado, cursor, size, sort));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                error.put("error", "Invalid Cursor");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        }
+
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<CertificadoDTO> certificados = certificadoService.buscarCertificados(
                 ejecutivoId, razonSocial, nombres, estado, pageable);
@@ -137,6 +185,33 @@ public class CertificadoController {
         return ResponseEntity.ok(certificados);
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Exportar certificados",
+            description = "Descarga en xlsx o csv todos los certificados que cumplen los filtros de /buscar")
+    public ResponseEntity<?> exportarCertificados(
+            @RequestParam(required = false) Integer ejecutivoId,
+            @RequestParam(required = false) String razonSocial,
+            @RequestParam(required = false) String nombres,
+            @RequestParam(required = false) String estado,
+            @RequestParam(defaultValue = "xlsx") String formato) {
+
+        if (!EscritorExportacion.esFormatoValido(formato)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "El formato debe ser xlsx o csv");
+            error.put("error", "Invalid Format");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        String archivo = "certificados_" + LocalDateTime.now().format(FORMATO_ARCHIVO) + "." + formato.toLowerCase();
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarCertificados(
+                ejecutivoId, razonSocial, nombres, estado, formato, salida);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + archivo)
+                .header(HttpHeaders.CONTENT_TYPE, EscritorExportacion.getContentType(formato))
+                .body(cuerpo);
+    }
+
     @PostMapping("/cargar-excel")
     @Operation(summary = "Cargar certificados desde Excel",
             description = "Carga múltiples certificados desde un archivo Excel")
@@ -152,12 +227,14 @@ public class CertificadoController {
         }
 
         try {
-            List<CertificadoDTO> certificadosCargados = certificadoService.cargarDesdeExcel(file);
+            List<String> errores = new ArrayList<>();
+            List<CertificadoDTO> certificadosCargados = certificadoService.cargarDesdeExcel(file, errores);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Certificados cargados exitosamente");
             response.put("certificadosCargados", certificadosCargados.size());
             response.put("certificados", certificadosCargados);
+            response.put("errores", errores);
 
             return ResponseEntity.ok(response);
 
@@ -169,100 +246,67 @@ public class CertificadoController {
         }
     }
 
+    @PostMapping("/cargar-excel/async")
+    @Operation(summary = "Cargar certificados desde Excel en segundo plano",
+            description = "Encola la carga y devuelve el ID del job; el avance se consulta en GET /api/v1/jobs/{id}")
+    public ResponseEntity<?> cargarDesdeExcelAsync(
+            @Parameter(description = "Archivo Excel con certificados", required = true)
+            @RequestParam("file") MultipartFile file) {
+
+        if (file.isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "El archivo está vacío");
+            error.put("error", "Bad Request");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+
+        try {
+            ImportacionJob job = importacionJobService.enviar(ImportacionJob.CERTIFICADOS, file);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Importación en proceso");
+            response.put("jobId", job.getId());
+            response.put("estado", job.toDTO().getEstado());
+            response.put("url", "/api/v1/jobs/" + job.getId());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (RejectedExecutionException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Hay demasiadas importaciones en curso, intente nuevamente en unos minutos");
+            error.put("error", "Service Unavailable");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error procesando el archivo: " + e.getMessage());
+            error.put("error", "Processing Error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
     @GetMapping("/descargar-plantilla")
     @Operation(summary = "Descargar plantilla Excel",
             description = "Descarga una plantilla Excel para carga de certificados")
-    public ResponseEntity<byte[]> descargarPlantilla() {
+    public ResponseEntity<byte[]> descargarPlantilla(WebRequest webRequest) {
         try {
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("Certificados");
-
-            // Crear encabezados
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "Fecha Emisión", "Fecha V.", "Ejecutivo", "TIPO", "Nombres",
-                    "Primer Apellido", "Segundo Apellido", "N° Documento", "Departamento",
-                    "Cargo", "correo electronico", "Razon social", "N° RUC", "Dirección",
-                    "Código postal", "Telefono", "CorreoEjecutivo1", "CorreoEjecutivo2",
-                    "CorreoEjecutivo3", "VIGENCIA"
-            };
-
-            // Estilo para encabezados
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+            PlantillaExcelCache.Plantilla plantilla = plantillaExcelCache.getPlantillaCertificados();
 
-            // Crear filas de ejemplo
-            Row row1 = sheet.createRow(1);
-            row1.createCell(0).setCellValue("15/08/2022");
-            row1.createCell(1).setCellValue("15/08/2023");
-            row1.createCell(2).setCellValue("NOEMI");
-            row1.createCell(3).setCellValue("PERSONA JURIDICA");
-            row1.createCell(4).setCellValue("YESSY TIFFANY");
-            row1.createCell(5).setCellValue("BLANCO");
-            row1.createCell(6).setCellValue("VILCHEZ");
-            row1.createCell(7).setCellValue("43011561");
-            row1.createCell(8).setCellValue("GERENCIA GENERAL");
-            row1.createCell(9).setCellValue("GERENTE GENERAL");
-            row1.createCell(10).setCellValue("constructora.macb@gmail.com");
-            row1.createCell(11).setCellValue("MACB INGENIERIA Y CONSTRUCCION SOCIEDAD ANONIMA CERRADA");
-            row1.createCell(12).setCellValue("20603995695");
-            row1.createCell(13).setCellValue("Cal. Cassinelli Nro. 348 - Chiclayo");
-            row1.createCell(14).setCellValue("14000");
-            row1.createCell(15).setCellValue("972 923 630");
-            row1.createCell(16).setCellValue("ejecutivo1@empresa.com");
-            row1.createCell(17).setCellValue("ejecutivo2@empresa.com");
-            row1.createCell(18).setCellValue("");
-            row1.createCell(19).setCellValue("365");
-
-            Row row2 = sheet.createRow(2);
-            row2.createCell(0).setCellValue("15/08/2022");
-            row2.createCell(1).setCellValue("15/08/2022");
-            row2.createCell(2).setCellValue("NOEMI");
-            row2.createCell(3).setCellValue("PERSONA NATURAL");
-            row2.createCell(4).setCellValue("YESSY TIFFANY");
-            row2.createCell(5).setCellValue("BLANCO");
-            row2.createCell(6).setCellValue("VILCHEZ");
-            row2.createCell(7).setCellValue("43011561");
-            row2.createCell(8).setCellValue("");
-            row2.createCell(9).setCellValue("");
-            row2.createCell(10).setCellValue("");
-            row2.createCell(11).setCellValue("");
-            row2.createCell(12).setCellValue("");
-            row2.createCell(13).setCellValue("");
-            row2.createCell(14).setCellValue("");
-            row2.createCell(15).setCellValue("");
-            row2.createCell(16).setCellValue("");
-            row2.createCell(17).setCellValue("");
-            row2.createCell(18).setCellValue("");
-            row2.createCell(19).setCellValue("");
-
-            // Ajustar anchos de columna
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+            // If-None-Match con el mismo ETag: el cliente ya tiene esta versión
+            if (webRequest.checkNotModified(plantilla.getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(plantilla.getEtag())
+                        .build();
             }
 
-            // Escribir el archivo
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            workbook.close();
-
             HttpHeaders headersResponse = new HttpHeaders();
-            headersResponse.add("Content-Disposition", "attachment; filename=plantilla_certificados.xlsx");
+            headersResponse.add("Content-Disposition", "attachment; filename=" + plantilla.getNombreArchivo());
             headersResponse.add("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 
             return ResponseEntity.ok()
                     .headers(headersResponse)
-                    .body(outputStream.toByteArray());
+                    .eTag(plantilla.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .body(plantilla.getContenido());
 
         } catch (Exception e) {
             log.error("Error generando plantilla: {}", e.getMessage());
@@ -292,23 +336,15 @@ public class CertificadoController {
     }
 
     @PostMapping("/actualizar-vigencias")
-    @Operation(summary = "Actualizar vigencias",
-            description = "Actualiza manualmente el estado de vigencia de todos los certificados")
+    @Operation(summary = "Actualizar vigencias (obsoleto)",
+            description = "La vigencia y el estado de los certificados se calculan al consultar a partir de la " +
+                    "fecha de vencimiento; se mantiene por compatibilidad y no modifica datos",
+            deprecated = true)
     public ResponseEntity<?> actualizarVigencias() {
-        try {
-            certificadoService.actualizarVigencias();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Las vigencias se calculan al consultar; no hay nada que actualizar");
+        response.put("timestamp", java.time.LocalDateTime.now().toString());
 
-            Map<String, String> response = new HashMap<>();
-            response.put("message", "Vigencias actualizadas exitosamente");
-            response.put("timestamp", java.time.LocalDateTime.now().toString());
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("message", "Error actualizando vigencias: " + e.getMessage());
-            error.put("error", "Update Error");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
-        }
+        return ResponseEntity.ok(response);
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package org.saeta.licenciasservice.controller;
+
+import org.saeta.licenciasservice.dto.ImportacionJobDTO;
+import org.saeta.licenciasservice.service.ImportacionJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+@Tag(name = "Importaciones", description = "Consulta del avance de las cargas de Excel en segundo plano")
+@CrossOrigin(origins = "*")
+public class ImportacionJobController {
+
+    @Autowired
+    private ImportacionJobService importacionJobService;
+
+    @GetMapping("/{id}")
+    @Operation(summary = "Consultar importación",
+            description = "Devuelve el estado, avance, velocidad, errores por fila y totales de una importación")
+    public ResponseEntity<?> obtenerJob(
+            @Parameter(description = "ID devuelto al encolar la importación")
+            @PathVariable String id) {
+
+        Optional<ImportacionJobDTO> job = importacionJobService.obtener(id);
+        if (job.isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Importación no encontrada: " + id);
+            error.put("error", "Not Found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        return ResponseEntity.ok(job.get());
+    }
+}
@@ -1,9 +1,11 @@
 package org.saeta.licenciasservice.controller;
 
+import org.saeta.licenciasservice.dto.ValidacionBatchRequest;
 import org.saeta.licenciasservice.dto.ValidacionRequest;
 import org.saeta.licenciasservice.dto.ValidacionResponse;
 import org.saeta.licenciasservice.service.LicenciaService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,6 +15,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/v1/licencias")
 @Tag(name = "Licencias", description = "API para validación de licencias por MAC")
@@ -22,6 +28,9 @@ public class LicenciaController {
     @Autowired
     private LicenciaService licenciaService;
 
+    @Value("${app.licencias.validacion.batch-max:100}")
+    private int batchMax;
+
     @GetMapping("/health")
     @Operation(summary = "Health Check", description = "Verificar estado del servicio")
     public String health() {
@@ -77,4 +86,38 @@ public class LicenciaController {
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
-}
\ No newline at end of file
+
+    @PostMapping("/validar/batch")
+    @Operation(summary = "Validar Licencias en lote",
+            description = "Valida varias direcciones MAC en una sola petición; devuelve un resultado por MAC en el mismo orden")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Validación exitosa"),
+            @ApiResponse(responseCode = "400", description = "Lista vacía o con más MAC de las permitidas"),
+            @ApiResponse(responseCode = "500", description = "Error interno")
+    })
+    public ResponseEntity<?> validarLicencias(
+            @Parameter(description = "Lista de direcciones MAC a validar")
+            @RequestBody ValidacionBatchRequest request) {
+
+        List<String> macs = request.getMacs();
+        if (macs == null || macs.isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Debe indicar al menos una dirección MAC");
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (macs.size() > batchMax) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "No se pueden validar más de " + batchMax + " direcciones MAC por petición");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            List<ValidacionResponse> response = licenciaService.validarLicencias(macs);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Error interno del servidor: " + e.getMessage());
+            return ResponseEntity.status(500).body(error);
+        }
+    }
+}
@@ -32,17 +32,31 @@ public class LicenciaManagementController {
     private LicenciaManagementService licenciaManagementService;
 
     @GetMapping
-    @Operation(summary = "Listar licencias", description = "Obtiene todas las licencias con paginación")
-    public ResponseEntity<Page<LicenciaDTO>> listarLicencias(
+    @Operation(summary = "Listar licencias", description = "Obtiene todas las licencias con paginación. " +
+            "Con el parámetro cursor (vacío para la primera página) se pagina por cursor, sin total, " +
+            "continuando con el siguienteCursor de la respuesta anterior; en ese modo solo se ordena por id")
+    public ResponseEntity<?> listarLicencias(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @Parameter(description = "Cursor de continuación") @RequestParam(required = false) String cursor) {
 
         Sort sort = sortDir.equalsIgnoreCase("ASC")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(licenciaManagementService.listarLicencias(cursor, size, sort));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                error.put("error", "Invalid Cursor");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<LicenciaDTO> licencias = licenciaManagementService.listarLicencias(pageable);
 
@@ -110,12 +124,25 @@ public class LicenciaManagementController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar licencias", description = "Busca licencias por empresa o MAC")
-    public ResponseEntity<Page<LicenciaDTO>> buscarLicencias(
+    @Operation(summary = "Buscar licencias", description = "Busca licencias por empresa o MAC. " +
+            "Con el parámetro cursor se pagina por cursor (ver listado); los filtros se repiten en cada página")
+    public ResponseEntity<?> buscarLicencias(
             @RequestParam(required = false) String empresa,
             @RequestParam(required = false) String mac,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Cursor de continuación") @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(licenciaManagementService.buscarLicencias(empresa, mac, cursor, size, Sort.by("id").descending()));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                error.put("error", "Invalid Cursor");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
         Page<LicenciaDTO> licencias = licenciaManagementService.buscarLicencias(empresa, mac, pageable);
@@ -1,7 +1,12 @@
 package org.saeta.licenciasservice.controller;
 
+import org.saeta.licenciasservice.cache.PlantillaExcelCache;
 import org.saeta.licenciasservice.dto.*;
+import org.saeta.licenciasservice.service.ExportacionService;
+import org.saeta.licenciasservice.service.ImportacionJob;
+import org.saeta.licenciasservice.service.ImportacionJobService;
 import org.saeta.licenciasservice.service.ProyectoService;
+import org.saeta.licenciasservice.util.EscritorExportacion;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -10,21 +15,25 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import java.io.ByteArrayOutputStream;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import jakarta.validation.Valid;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/v1/proyectos")
@@ -36,18 +45,43 @@ public class ProyectoController {
     @Autowired
     private ProyectoService proyectoService;
 
+    @Autowired
+    private ImportacionJobService importacionJobService;
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    @Autowired
+    private PlantillaExcelCache plantillaExcelCache;
+
+    private static final DateTimeFormatter FORMATO_ARCHIVO = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
     @GetMapping
-    @Operation(summary = "Listar proyectos", description = "Obtiene todos los proyectos con paginación")
-    public ResponseEntity<Page<ProyectoDTO>> listarProyectos(
+    @Operation(summary = "Listar proyectos", description = "Obtiene todos los proyectos con paginación. " +
+            "Con el parámetro cursor (vacío para la primera página) se pagina por cursor, sin total, " +
+            "continuando con el siguienteCursor de la respuesta anterior")
+    public ResponseEntity<?> listarProyectos(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "id") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @Parameter(description = "Cursor de continuación") @RequestParam(required = false) String cursor) {
 
         Sort sort = sortDir.equalsIgnoreCase("ASC")
                 ? Sort.by(sortBy).ascending()
                 : Sort.by(sortBy).descending();
 
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(proyectoService.listarProyectos(cursor, size, sort));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                error.put("error", "Invalid Cursor");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        }
+
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<ProyectoDTO> proyectos = proyectoService.listarProyectos(pageable);
 
@@ -70,14 +104,28 @@ public class ProyectoController {
     // Agrega este método al ProyectoController.java después del método buscarProyectos existente
 
     @GetMapping("/search-by-estado")
-    @Operation(summary = "Buscar proyectos por estado", description = "Busca proyectos por diferentes criterios incluyendo estado")
-    public ResponseEntity<Page<ProyectoDTO>> buscarProyectosPorEstado(
+    @Operation(summary = "Buscar proyectos por estado", description = "Busca proyectos por diferentes criterios incluyendo estado. " +
+            "Con el parámetro cursor se pagina por cursor (ver listado); los filtros se repiten en cada página")
+    public ResponseEntity<?> buscarProyectosPorEstado(
             @RequestParam(required = false) String idProducto,
             @RequestParam(required = false) String producto,
             @RequestParam(required = false) String correo,
             @RequestParam(required = false) String estado,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Cursor de continuación") @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(proyectoService.buscarProyectosPorEstado(
+                        idProducto, producto, correo, estado, cursor, size, Sort.by("id").descending()));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                error.put("error", "Invalid Cursor");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
         Page<ProyectoDTO> proyectos = proyectoService.buscarProyectosPorEstado(idProducto, producto, correo, estado, pageable);
@@ -85,6 +133,33 @@ public class ProyectoController {
         return ResponseEntity.ok(proyectos);
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Exportar proyectos",
+            description = "Descarga en xlsx o csv todos los proyectos que cumplen los filtros de /search-by-estado")
+    public ResponseEntity<?> exportarProyectos(
+            @RequestParam(required = false) String idProducto,
+            @RequestParam(required = false) String producto,
+            @RequestParam(required = false) String correo,
+            @RequestParam(required = false) String estado,
+            @RequestParam(defaultValue = "xlsx") String formato) {
+
+        if (!EscritorExportacion.esFormatoValido(formato)) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "El formato debe ser xlsx o csv");
+            error.put("error", "Invalid Format");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        String archivo = "proyectos_" + LocalDateTime.now().format(FORMATO_ARCHIVO) + "." + formato.toLowerCase();
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarProyectos(
+                idProducto, producto, correo, estado, formato, salida);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + archivo)
+                .header(HttpHeaders.CONTENT_TYPE, EscritorExportacion.getContentType(formato))
+                .body(cuerpo);
+    }
+
     @PostMapping
     @Operation(summary = "Crear proyecto", description = "Crea un nuevo proyecto")
     public ResponseEntity<?> crearProyecto(@Valid @RequestBody CreateProyectoRequest request) {
@@ -132,14 +207,28 @@ public class ProyectoController {
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar proyectos", description = "Busca proyectos por diferentes criterios")
-    public ResponseEntity<Page<ProyectoDTO>> buscarProyectos(
+    @Operation(summary = "Buscar proyectos", description = "Busca proyectos por diferentes criterios. " +
+            "Con el parámetro cursor se pagina por cursor (ver listado); los filtros se repiten en cada página")
+    public ResponseEntity<?> buscarProyectos(
             @RequestParam(required = false) String idProducto,
             @RequestParam(required = false) String producto,
             @RequestParam(required = false) String correo,
             @RequestParam(required = false) Integer vigenciaMin,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Cursor de continuación") @RequestParam(required = false) String cursor) {
+
+        if (cursor != null) {
+            try {
+                return ResponseEntity.ok(proyectoService.buscarProyectos(
+                        idProducto, producto, correo, vigenciaMin, cursor, size, Sort.by("id").descending()));
+            } catch (IllegalArgumentException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                error.put("error", "Invalid Cursor");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+            }
+        }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
         Page<ProyectoDTO> proyectos = proyectoService.buscarProyectos(idProducto, producto, correo, vigenciaMin, pageable);
@@ -171,12 +260,14 @@ public class ProyectoController {
         }
 
         try {
-            List<ProyectoDTO> proyectosCargados = proyectoService.cargarProyectosDesdeExcel(file);
+            List<String> errores = new ArrayList<>();
+            List<ProyectoDTO> proyectosCargados = proyectoService.cargarProyectosDesdeExcel(file, errores);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Archivo procesado exitosamente");
             response.put("proyectosCargados", proyectosCargados.size());
             response.put("proyectos", proyectosCargados);
+            response.put("errores", errores);
 
             return ResponseEntity.ok(response);
 
@@ -188,6 +279,52 @@ public class ProyectoController {
         }
     }
 
+    @PostMapping("/cargar-excel/async")
+    @Operation(summary = "Cargar proyectos desde Excel en segundo plano",
+            description = "Encola la carga y devuelve el ID del job; el avance se consulta en GET /api/v1/jobs/{id}")
+    public ResponseEntity<?> cargarProyectosDesdeExcelAsync(
+            @Parameter(description = "Archivo Excel con los proyectos")
+            @RequestParam("file") MultipartFile file) {
+
+        if (file.isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Por favor seleccione un archivo");
+            error.put("error", "File Required");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        String fileName = file.getOriginalFilename();
+        if (fileName == null || !fileName.toLowerCase().endsWith(".xlsx")) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "El archivo debe ser un Excel (.xlsx)");
+            error.put("error", "Invalid File Type");
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        try {
+            ImportacionJob job = importacionJobService.enviar(ImportacionJob.PROYECTOS, file);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Importación en proceso");
+            response.put("jobId", job.getId());
+            response.put("estado", job.toDTO().getEstado());
+            response.put("url", "/api/v1/jobs/" + job.getId());
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+
+        } catch (RejectedExecutionException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Hay demasiadas importaciones en curso, intente nuevamente en unos minutos");
+            error.put("error", "Service Unavailable");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        } catch (Exception e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Error procesando el archivo: " + e.getMessage());
+            error.put("error", "Processing Error");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
     @PostMapping("/enviar-alertas")
     @Operation(summary = "Enviar alertas de vencimiento",
             description = "Envía correos de alerta para proyectos próximos a vencer")
@@ -211,13 +348,15 @@ public class ProyectoController {
 
     @PostMapping("/actualizar-vigencias")
     @Operation(summary = "Actualizar vigencias restantes",
-            description = "Actualiza manualmente los días de vigencia restante de todos los proyectos")
+            description = "La vigencia restante se calcula al consultar a partir de la fecha de vencimiento; " +
+                    "este endpoint solo desactiva manualmente los proyectos ya vencidos")
     public ResponseEntity<?> actualizarVigencias() {
         try {
-            proyectoService.actualizarVigenciaRestante();
+            int desactivados = proyectoService.desactivarVencidos();
 
             Map<String, String> response = new HashMap<>();
             response.put("message", "Vigencias actualizadas exitosamente");
+            response.put("desactivados", String.valueOf(desactivados));
             response.put("timestamp", java.time.LocalDateTime.now().toString());
 
             return ResponseEntity.ok(response);
@@ -233,72 +372,26 @@ public class ProyectoController {
     @GetMapping("/plantilla-excel")
     @Operation(summary = "Descargar plantilla Excel",
             description = "Descarga una plantilla Excel con el formato correcto para carga masiva")
-    public ResponseEntity<byte[]> descargarPlantilla() {
+    public ResponseEntity<byte[]> descargarPlantilla(WebRequest webRequest) {
         try {
-            Workbook workbook = new XSSFWorkbook();
-            Sheet sheet = workbook.createSheet("Plantilla Proyectos");
-
-            // Crear encabezados
-            Row headerRow = sheet.createRow(0);
-            String[] headers = {
-                    "idProducto", "Producto", "fechaInicio", "vigencia",
-                    "vigenciaRestante", "correoVendedor1", "correoVendedor2", "correoJefeVendedor"
-            };
-
-            // Estilo para encabezados
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.LIGHT_BLUE.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+            PlantillaExcelCache.Plantilla plantilla = plantillaExcelCache.getPlantillaProyectos();
 
-            // Agregar filas de ejemplo
-            Row ejemplo1 = sheet.createRow(1);
-            ejemplo1.createCell(0).setCellValue("PROD-001");
-            ejemplo1.createCell(1).setCellValue("Sistema de Gestión (Ejemplo)");
-            ejemplo1.createCell(2).setCellValue("01/01/2024");
-            ejemplo1.createCell(3).setCellValue("1 año");
-            ejemplo1.createCell(4).setCellValue(""); // Se calcula automáticamente
-            ejemplo1.createCell(5).setCellValue("vendedor1@empresa.com");
-            ejemplo1.createCell(6).setCellValue("vendedor2@empresa.com");
-            ejemplo1.createCell(7).setCellValue("jefe@empresa.com");
-
-            Row ejemplo2 = sheet.createRow(2);
-            ejemplo2.createCell(0).setCellValue("PROD-002");
-            ejemplo2.createCell(1).setCellValue("Software Contable (Ejemplo)");
-            ejemplo2.createCell(2).setCellValue("15/03/2024");
-            ejemplo2.createCell(3).setCellValue("6 meses");
-            ejemplo2.createCell(4).setCellValue("");
-            ejemplo2.createCell(5).setCellValue("maria@empresa.com");
-            ejemplo2.createCell(6).setCellValue("");
-            ejemplo2.createCell(7).setCellValue("supervisor@empresa.com");
-
-            // Ajustar ancho de columnas
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+            // If-None-Match con el mismo ETag: el cliente ya tiene esta versión
+            if (webRequest.checkNotModified(plantilla.getEtag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(plantilla.getEtag())
+                        .build();
             }
 
-            // Convertir a bytes
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            workbook.write(outputStream);
-            workbook.close();
-
-            byte[] bytes = outputStream.toByteArray();
-
             HttpHeaders headersResponse = new HttpHeaders();
-            headersResponse.add("Content-Disposition", "attachment; filename=plantilla_proyectos.xlsx");
+            headersResponse.add("Content-Disposition", "attachment; filename=" + plantilla.getNombreArchivo());
             headersResponse.add("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
 
             return ResponseEntity.ok()
                     .headers(headersResponse)
-                    .body(bytes);
+                    .eTag(plantilla.getEtag())
+                    .cacheControl(CacheControl.noCache())
+                    .body(plantilla.getContenido());
 
         } catch (Exception e) {
             log.error("Error generando plantilla Excel: {}", e.getMessage());
@@ -306,4 +399,4 @@ public class ProyectoController {
         }
     }
 
-}
\ No newline at end of file
+}
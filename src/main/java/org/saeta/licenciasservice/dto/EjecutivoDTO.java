@@ -4,10 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.saeta.licenciasservice.entity.Ejecutivo;
+
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class EjecutivoDTO {
@@ -18,4 +20,16 @@ public class EjecutivoDTO {
     private boolean activo;
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaActualizacion;
+
+    public static EjecutivoDTO desde(Ejecutivo ejecutivo) {
+        return EjecutivoDTO.builder()
+                .id(ejecutivo.getId())
+                .nombreEjecutivo(ejecutivo.getNombreEjecutivo())
+                .abreviatura(ejecutivo.getAbreviatura())
+                .estado(ejecutivo.getEstado())
+                .activo(ejecutivo.isActivo())
+                .fechaCreacion(ejecutivo.getFechaCreacion())
+                .fechaActualizacion(ejecutivo.getFechaActualizacion())
+                .build();
+    }
 }
\ No newline at end of file
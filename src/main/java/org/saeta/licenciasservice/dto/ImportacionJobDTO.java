@@ -0,0 +1,61 @@
+package org.saeta.licenciasservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Estado de una importación de Excel")
+public class ImportacionJobDTO {
+
+    @Schema(description = "ID del job", example = "3f2b6c1e-8a4d-4a51-9a3e-6b0f5d2c7e10")
+    private String id;
+
+    @Schema(description = "Tipo de importación", example = "CERTIFICADOS")
+    private String tipo;
+
+    @Schema(description = "Nombre del archivo cargado", example = "certificados.xlsx")
+    private String archivo;
+
+    @Schema(description = "Estado: PENDIENTE, EN_PROCESO, COMPLETADO o FALLIDO", example = "EN_PROCESO")
+    private String estado;
+
+    @Schema(description = "Filas leídas hasta el momento", example = "1500")
+    private Integer filasProcesadas;
+
+    @Schema(description = "Registros creados o actualizados", example = "1480")
+    private Integer registrosCargados;
+
+    @Schema(description = "Filas descartadas por estar ya registradas o repetidas en el archivo", example = "12")
+    private Integer duplicados;
+
+    @Schema(description = "Filas con error", example = "8")
+    private Integer totalErrores;
+
+    @Schema(description = "Velocidad de procesamiento en filas por segundo", example = "850.5")
+    private Double filasPorSegundo;
+
+    @Schema(description = "Errores por fila (limitado a los primeros)")
+    private List<String> errores;
+
+    @Schema(description = "Mensaje final o causa del fallo")
+    private String mensaje;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime fechaCreacion;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime fechaInicio;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime fechaFin;
+}
@@ -0,0 +1,30 @@
+package org.saeta.licenciasservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Página obtenida con paginación por cursor (sin total de elementos)")
+public class PaginaCursorDTO<T> {
+
+    @Schema(description = "Elementos de la página")
+    private List<T> contenido;
+
+    @Schema(description = "Cantidad de elementos de la página", example = "10")
+    private int tamano;
+
+    @Schema(description = "Indica si hay más elementos después de esta página", example = "true")
+    private boolean haySiguiente;
+
+    @Schema(description = "Cursor a enviar para obtener la página siguiente; null si es la última",
+            example = "AAJ2MQAHaWQ6REVTQwAAAAEAAmlkSQAAAGQ")
+    private String siguienteCursor;
+}
@@ -25,6 +25,7 @@ public class ProyectoDTO {
     private Boolean activo;
     private Boolean alerta30Enviada;
     private Boolean alerta60Enviada;
+    private Integer umbralAlertaEnviada;
     private String estado; // ACTIVO, PROXIMO_A_VENCER, VENCIDO
     private LocalDateTime fechaVencimiento;
 }
\ No newline at end of file
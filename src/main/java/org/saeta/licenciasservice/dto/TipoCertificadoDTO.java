@@ -4,10 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.saeta.licenciasservice.entity.TipoCertificado;
+
 import java.time.LocalDateTime;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class TipoCertificadoDTO {
@@ -16,4 +18,14 @@ public class TipoCertificadoDTO {
     private String abreviatura;
     private LocalDateTime fechaCreacion;
     private LocalDateTime fechaActualizacion;
+
+    public static TipoCertificadoDTO desde(TipoCertificado tipoCertificado) {
+        return TipoCertificadoDTO.builder()
+                .id(tipoCertificado.getId())
+                .nombreCertificado(tipoCertificado.getNombreCertificado())
+                .abreviatura(tipoCertificado.getAbreviatura())
+                .fechaCreacion(tipoCertificado.getFechaCreacion())
+                .fechaActualizacion(tipoCertificado.getFechaActualizacion())
+                .build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package org.saeta.licenciasservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para la validación de varias licencias en una sola petición.
+ * El controlador comprueba que la lista no esté vacía ni supere el máximo por petición.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ValidacionBatchRequest {
+
+    private List<String> macs;
+}
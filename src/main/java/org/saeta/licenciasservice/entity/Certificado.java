@@ -3,7 +3,9 @@ package org.saeta.licenciasservice.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -12,12 +14,20 @@ import java.time.temporal.ChronoUnit;
  * Entidad que mapea la tabla 'certificados' en el esquema 'public'
  */
 @Entity
-@Table(name = "certificados", schema = "public")
+@Table(name = "certificados", schema = "public",
+        indexes = @Index(name = "idx_certificados_fecha_vencimiento", columnList = "fecha_vencimiento"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Certificado {
 
+    public static final String VIGENTE = "VIGENTE";
+    public static final String POR_VENCER = "POR_VENCER";
+    public static final String VENCIDO = "VENCIDO";
+
+    // Días antes del vencimiento en que un certificado pasa a POR_VENCER
+    public static final int DIAS_POR_VENCER = 30;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -32,8 +42,11 @@ public class Certificado {
     @Column(name = "ejecutivo_id", nullable = false)
     private Integer ejecutivoId;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    // LAZY: las lecturas toman el nombre del ejecutivo de CatalogoCache a partir de ejecutivoId
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ejecutivo_id", insertable = false, updatable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Ejecutivo ejecutivo;
 
     @Column(name = "tipo_certificado", nullable = false, length = 50)
@@ -84,12 +97,7 @@ public class Certificado {
     @Column(name = "correo_ejecutivo_3", length = 255)
     private String correoEjecutivo3;
 
-    @Column(name = "vigencia_dias")
-    private Integer vigenciaDias;
-
-    @Column(name = "estado", length = 20)
-    private String estado = "VIGENTE";
-
+    // Obsoletas: reemplazadas por umbral_alerta_enviada (AlertaUmbralMigration las copia y las deja en false)
     @Column(name = "alerta_10_enviada")
     private Boolean alerta10Enviada = false;
 
@@ -99,6 +107,10 @@ public class Certificado {
     @Column(name = "alerta_30_enviada")
     private Boolean alerta30Enviada = false;
 
+    // Menor umbral de alerta (en días) ya enviado; null si no se ha enviado ninguno desde el último vencimiento
+    @Column(name = "umbral_alerta_enviada")
+    private Integer umbralAlertaEnviada;
+
     @Column(name = "fecha_carga")
     private LocalDateTime fechaCarga = LocalDateTime.now();
 
@@ -111,7 +123,6 @@ public class Certificado {
     @PreUpdate
     public void preUpdate() {
         this.fechaActualizacion = LocalDateTime.now();
-        this.actualizarVigencia();
     }
 
     @PrePersist
@@ -125,28 +136,99 @@ public class Certificado {
         if (this.activo == null) {
             this.activo = true;
         }
-        this.actualizarVigencia();
     }
 
     /**
-     * Actualiza el estado y vigencia del certificado
+     * Días enteros que faltan para el vencimiento (negativo si ya venció).
+     * No se guarda: se calcula con la hora actual en cada lectura.
+     */
+    public Integer getVigenciaDias() {
+        if (this.fechaVencimiento == null) {
+            return null;
+        }
+        return (int) ChronoUnit.DAYS.between(LocalDateTime.now(), this.fechaVencimiento);
+    }
+
+    /**
+     * Estado de vigencia (VIGENTE, POR_VENCER o VENCIDO) calculado con la hora actual
+     */
+    public String getEstado() {
+        return calcularEstado(this.fechaVencimiento, LocalDateTime.now());
+    }
+
+    /**
+     * Estado de vigencia para una fecha de vencimiento; coincide con los rangos de RangoVencimiento.
+     * Conserva los límites en días enteros de getVigenciaDias: VENCIDO con vigencia negativa
+     * (más de un día pasado el vencimiento) y POR_VENCER hasta DIAS_POR_VENCER días inclusive.
+     */
+    public static String calcularEstado(LocalDateTime fechaVencimiento, LocalDateTime ahora) {
+        if (fechaVencimiento == null) {
+            return null;
+        }
+        if (fechaVencimiento.isBefore(inicioPorVencer(ahora))) {
+            return VENCIDO;
+        }
+        if (fechaVencimiento.isBefore(inicioVigente(ahora))) {
+            return POR_VENCER;
+        }
+        return VIGENTE;
+    }
+
+    // Primer vencimiento con 0 días enteros restantes; los anteriores ya tienen vigencia negativa
+    private static LocalDateTime inicioPorVencer(LocalDateTime ahora) {
+        return ahora.minusDays(1);
+    }
+
+    // Primer vencimiento con más de DIAS_POR_VENCER días enteros restantes
+    private static LocalDateTime inicioVigente(LocalDateTime ahora) {
+        return ahora.plusDays(DIAS_POR_VENCER + 1);
+    }
+
+    /**
+     * Rango [desde, hasta) de fecha_vencimiento que corresponde a un estado, para filtrar con un
+     * predicado de rango sobre la columna indexada en lugar de calcular el estado por fila.
+     * Un extremo null significa sin límite.
      */
-    public void actualizarVigencia() {
-        if (this.fechaEmision != null && this.fechaVencimiento != null) {
-            LocalDateTime ahora = LocalDateTime.now();
-
-            // Calcular días de vigencia
-            long diasRestantes = ChronoUnit.DAYS.between(ahora, this.fechaVencimiento);
-            this.vigenciaDias = (int) diasRestantes;
-
-            // Actualizar estado basado en vigencia
-            if (diasRestantes < 0) {
-                this.estado = "VENCIDO";
-            } else if (diasRestantes <= 30) {
-                this.estado = "POR_VENCER";
-            } else {
-                this.estado = "VIGENTE";
+    public static final class RangoVencimiento {
+        private final LocalDateTime desde;
+        private final LocalDateTime hasta;
+
+        private RangoVencimiento(LocalDateTime desde, LocalDateTime hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        /**
+         * @return el rango del estado o null si el estado no existe
+         */
+        public static RangoVencimiento de(String estado, LocalDateTime ahora) {
+            if (VENCIDO.equals(estado)) {
+                return new RangoVencimiento(null, inicioPorVencer(ahora));
+            }
+            if (POR_VENCER.equals(estado)) {
+                return new RangoVencimiento(inicioPorVencer(ahora), inicioVigente(ahora));
+            }
+            if (VIGENTE.equals(estado)) {
+                return new RangoVencimiento(inicioVigente(ahora), null);
             }
+            return null;
+        }
+
+        public LocalDateTime getDesde() {
+            return desde;
+        }
+
+        public LocalDateTime getHasta() {
+            return hasta;
+        }
+
+        /**
+         * Indica si la fecha de vencimiento cae en el rango (una fecha null nunca cae)
+         */
+        public boolean contiene(LocalDateTime fechaVencimiento) {
+            return fechaVencimiento != null
+                    && (desde == null || !fechaVencimiento.isBefore(desde))
+                    && (hasta == null || fechaVencimiento.isBefore(hasta));
         }
     }
 
@@ -0,0 +1,86 @@
+package org.saeta.licenciasservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que mapea la tabla 'correo_pendiente' (outbox de correos) en el esquema 'public'.
+ * Los correos se registran en la misma transacción que el cambio que los origina y
+ * CorreoDispatcher los envía después, con reintentos.
+ */
+@Entity
+@Table(name = "correo_pendiente", schema = "public",
+        indexes = @Index(name = "idx_correo_pendiente_estado", columnList = "estado, proximo_intento"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CorreoPendiente {
+
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String ENVIANDO = "ENVIANDO";
+    public static final String ENVIADO = "ENVIADO";
+    public static final String FALLIDO = "FALLIDO";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    // Origen del correo, p. ej. ALERTA_CERTIFICADO o ALERTA_PROYECTO
+    @Column(name = "tipo", nullable = false, length = 50)
+    private String tipo;
+
+    @Column(name = "remitente", nullable = false, length = 255)
+    private String remitente;
+
+    // Direcciones separadas por coma
+    @Column(name = "destinatarios", nullable = false, columnDefinition = "TEXT")
+    private String destinatarios;
+
+    @Column(name = "asunto", nullable = false, length = 255)
+    private String asunto;
+
+    @Column(name = "cuerpo", nullable = false, columnDefinition = "TEXT")
+    private String cuerpo;
+
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado = PENDIENTE;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+
+    @Column(name = "ultimo_error", columnDefinition = "TEXT")
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    @PrePersist
+    public void prePersist() {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (this.fechaCreacion == null) {
+            this.fechaCreacion = ahora;
+        }
+        if (this.proximoIntento == null) {
+            this.proximoIntento = ahora;
+        }
+        this.fechaActualizacion = ahora;
+    }
+
+    public String[] getListaDestinatarios() {
+        return destinatarios.split(",");
+    }
+}
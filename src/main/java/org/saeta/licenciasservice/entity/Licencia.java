@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.saeta.licenciasservice.util.MacAddress;
 
 import java.time.LocalDateTime;
 import java.time.Duration;
@@ -13,14 +14,22 @@ import java.util.regex.Pattern;
 /**
  * Entidad que mapea la tabla 'licencia' en el esquema 'public'
  * Usa campo vigencia como texto: "1 hora", "3 días", etc.
+ * La fecha de vencimiento se persiste ya calculada en 'fecha_vencimiento'.
  */
 @Entity
-@Table(name = "licencia", schema = "public")
+@Table(name = "licencia", schema = "public", indexes = {
+        @Index(name = "idx_licencia_fecha_vencimiento", columnList = "fecha_vencimiento"),
+        @Index(name = "idx_licencia_mac_bits", columnList = "mac_bits")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Licencia {
 
+    private static final Pattern VIGENCIA_PATTERN = Pattern.compile(
+            "(\\d+)\\s*(hora|horas|día|dias|día|días|semana|semanas|mes|meses|año|anos|año|años)",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -32,6 +41,12 @@ public class Licencia {
     @Column(name = "mac")
     private String mac;
 
+    /**
+     * Los 48 bits de la MAC (ver MacAddress), mantenidos a partir de 'mac'; null si no es válida
+     */
+    @Column(name = "mac_bits")
+    private Long macBits;
+
     @Column(name = "fecha_hora")
     private LocalDateTime fechaHora;
 
@@ -44,6 +59,12 @@ public class Licencia {
     @Column(name = "vigencia", length = 50)
     private String vigencia;
 
+    /**
+     * fechaHora + vigencia, precalculada al cambiar cualquiera de las dos
+     */
+    @Column(name = "fecha_vencimiento")
+    private LocalDateTime fechaVencimiento;
+
     /**
      * Verifica si el registro está activo
      * @return true si el estado es '1', false en caso contrario
@@ -56,21 +77,23 @@ public class Licencia {
      * Convierte la vigencia texto a minutos
      */
     public Integer getVigenciaEnMinutos() {
+        return calcularVigenciaEnMinutos(vigencia);
+    }
+
+    /**
+     * Convierte un texto de vigencia ("1 hora", "3 días", "2 meses"...) a minutos
+     */
+    public static Integer calcularVigenciaEnMinutos(String vigencia) {
         if (vigencia == null || vigencia.trim().isEmpty()) {
             return null;
         }
 
-        // Patrón mejorado para capturar todas las variaciones posibles
-        Pattern pattern = Pattern.compile("(\\d+)\\s*(hora|horas|día|dias|día|días|semana|semanas|mes|meses|año|anos|año|años)", Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
-        Matcher matcher = pattern.matcher(vigencia.trim());
+        Matcher matcher = VIGENCIA_PATTERN.matcher(vigencia.trim());
 
         if (matcher.find()) {
             int valor = Integer.parseInt(matcher.group(1));
             String unidad = matcher.group(2).toLowerCase();
 
-            // Log para debugging
-            System.out.println("Vigencia: " + vigencia + " -> Valor: " + valor + ", Unidad: " + unidad);
-
             // Normalizar la unidad removiendo la 's' del plural
             if (unidad.endsWith("s") && !unidad.equals("mes")) {
                 unidad = unidad.substring(0, unidad.length() - 1);
@@ -97,7 +120,6 @@ public class Licencia {
                 case "ano":
                     return valor * 365 * 24 * 60;
                 default:
-                    System.err.println("Unidad no reconocida: " + unidad);
                     return null;
             }
         }
@@ -105,6 +127,45 @@ public class Licencia {
         return null;
     }
 
+    /**
+     * Recalcula la fecha de vencimiento a partir de fechaHora y vigencia.
+     * Queda en null si falta alguno de los dos o la vigencia no es válida.
+     */
+    public void recalcularFechaVencimiento() {
+        Integer minutos = fechaHora != null ? calcularVigenciaEnMinutos(vigencia) : null;
+        this.fechaVencimiento = (minutos != null && minutos > 0) ? fechaHora.plusMinutes(minutos) : null;
+    }
+
+    public void setMac(String mac) {
+        this.mac = mac;
+        recalcularMacBits();
+    }
+
+    /**
+     * Recalcula 'macBits' a partir de 'mac'
+     */
+    public void recalcularMacBits() {
+        long bits = MacAddress.parsear(mac);
+        this.macBits = bits == MacAddress.INVALIDA ? null : bits;
+    }
+
+    public void setFechaHora(LocalDateTime fechaHora) {
+        this.fechaHora = fechaHora;
+        recalcularFechaVencimiento();
+    }
+
+    public void setVigencia(String vigencia) {
+        this.vigencia = vigencia;
+        recalcularFechaVencimiento();
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void prePersistOrUpdate() {
+        recalcularMacBits();
+        recalcularFechaVencimiento();
+    }
+
     /**
      * Verifica si la licencia ha vencido
      */
@@ -113,16 +174,11 @@ public class Licencia {
             return false; // Si está inactivo, no se considera vencido
         }
 
-        if (fechaHora == null || vigencia == null) {
-            return true;
-        }
-
-        Integer minutos = getVigenciaEnMinutos();
-        if (minutos == null || minutos <= 0) {
+        // Sin fecha de vencimiento (falta fecha, vigencia o es inválida) se considera vencida
+        if (fechaVencimiento == null) {
             return true;
         }
 
-        LocalDateTime fechaVencimiento = fechaHora.plusMinutes(minutos);
         return LocalDateTime.now().isAfter(fechaVencimiento);
     }
 
@@ -130,16 +186,10 @@ public class Licencia {
      * Calcula el tiempo restante
      */
     public TiempoRestante getTiempoRestanteDetallado() {
-        if (!isActivo() || fechaHora == null || vigencia == null) {
-            return new TiempoRestante(0, 0, 0, 0);
-        }
-
-        Integer minutos = getVigenciaEnMinutos();
-        if (minutos == null) {
+        if (!isActivo() || fechaVencimiento == null) {
             return new TiempoRestante(0, 0, 0, 0);
         }
 
-        LocalDateTime fechaVencimiento = fechaHora.plusMinutes(minutos);
         LocalDateTime ahora = LocalDateTime.now();
 
         // Si ya venció
@@ -13,12 +13,17 @@ import java.time.temporal.ChronoUnit;
  * Entidad que mapea la tabla 'proyectos' en el esquema 'public'
  */
 @Entity
-@Table(name = "proyectos", schema = "public")
+@Table(name = "proyectos", schema = "public",
+        indexes = @Index(name = "idx_proyectos_fecha_vencimiento", columnList = "fecha_vencimiento"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Proyecto {
 
+    // Días antes del vencimiento en que un proyecto pasa a CRITICO y a PROXIMO_VENCER
+    public static final int DIAS_CRITICO = 30;
+    public static final int DIAS_PROXIMO_VENCER = 60;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id")
@@ -36,8 +41,9 @@ public class Proyecto {
     @Column(name = "vigencia", nullable = false, length = 50)
     private String vigencia;
 
-    @Column(name = "vigencia_restante")
-    private Integer vigenciaRestante;
+    // Calculada a partir de fechaInicio y vigencia cada vez que cambia alguna de las dos
+    @Column(name = "fecha_vencimiento")
+    private LocalDateTime fechaVencimiento;
 
     @Column(name = "correo_vendedor1", nullable = false, length = 255)
     private String correoVendedor1;
@@ -57,17 +63,21 @@ public class Proyecto {
     @Column(name = "activo")
     private Boolean activo = true;
 
+    // Obsoletas: reemplazadas por umbral_alerta_enviada (AlertaUmbralMigration las copia y las deja en false)
     @Column(name = "alerta_30_enviada")
     private Boolean alerta30Enviada = false;
 
     @Column(name = "alerta_60_enviada")
     private Boolean alerta60Enviada = false;
 
+    // Menor umbral de alerta (en días) ya enviado; null si no se ha enviado ninguno desde el último cambio de vigencia
+    @Column(name = "umbral_alerta_enviada")
+    private Integer umbralAlertaEnviada;
+
     @PreUpdate
     public void preUpdate() {
         this.fechaActualizacion = LocalDateTime.now();
-        // Actualizar vigencia restante antes de cada actualización
-        this.actualizarVigenciaRestante();
+        this.recalcularFechaVencimiento();
     }
 
     @PrePersist
@@ -87,21 +97,35 @@ public class Proyecto {
         if (this.alerta60Enviada == null) {
             this.alerta60Enviada = false;
         }
-        // Calcular vigencia restante al crear
-        this.actualizarVigenciaRestante();
+        this.recalcularFechaVencimiento();
+    }
+
+    public void setFechaInicio(LocalDateTime fechaInicio) {
+        this.fechaInicio = fechaInicio;
+        recalcularFechaVencimiento();
+    }
+
+    public void setVigencia(String vigencia) {
+        this.vigencia = vigencia;
+        recalcularFechaVencimiento();
+    }
+
+    /**
+     * Recalcula la fecha de vencimiento a partir de fechaInicio y vigencia.
+     * Queda en null si falta alguno de los dos o la vigencia no es válida.
+     */
+    public void recalcularFechaVencimiento() {
+        this.fechaVencimiento = calcularFechaVencimiento();
     }
 
     /**
-     * Calcula y actualiza los días de vigencia restante
+     * Días enteros de vigencia restante (0 si ya venció); no se guarda, se calcula con la hora actual
      */
-    public void actualizarVigenciaRestante() {
-        if (fechaInicio != null && vigencia != null) {
-            LocalDateTime fechaVencimiento = calcularFechaVencimiento();
-            if (fechaVencimiento != null) {
-                long diasRestantes = ChronoUnit.DAYS.between(LocalDateTime.now(), fechaVencimiento);
-                this.vigenciaRestante = Math.max(0, (int) diasRestantes);
-            }
+    public Integer getVigenciaRestante() {
+        if (fechaVencimiento == null) {
+            return null;
         }
+        return Math.max(0, (int) ChronoUnit.DAYS.between(LocalDateTime.now(), fechaVencimiento));
     }
 
     /**
@@ -145,37 +169,72 @@ public class Proyecto {
     }
 
     /**
-     * Verifica si el proyecto está próximo a vencer (30 días o menos)
+     * Verifica si el proyecto está próximo a vencer (vigencia restante entre 1 y 30 días)
      */
     public boolean isProximoAVencer30() {
-        return vigenciaRestante != null && vigenciaRestante <= 30 && vigenciaRestante > 0;
+        LocalDateTime ahora = LocalDateTime.now();
+        return fechaVencimiento != null && !fechaVencimiento.isBefore(inicioVigente(ahora))
+                && fechaVencimiento.isBefore(inicioProximoVencer(ahora));
     }
 
     /**
-     * Verifica si el proyecto está próximo a vencer (60 días o menos)
+     * Verifica si el proyecto está próximo a vencer (vigencia restante entre 31 y 60 días)
      */
     public boolean isProximoAVencer60() {
-        return vigenciaRestante != null && vigenciaRestante <= 60 && vigenciaRestante > 30;
+        LocalDateTime ahora = LocalDateTime.now();
+        return fechaVencimiento != null && !fechaVencimiento.isBefore(inicioProximoVencer(ahora))
+                && fechaVencimiento.isBefore(inicioActivo(ahora));
     }
 
     /**
-     * Verifica si el proyecto está vencido
+     * Verifica si el proyecto está vencido (vigencia restante 0)
      */
     public boolean isVencido() {
-        return vigenciaRestante != null && vigenciaRestante <= 0;
+        return fechaVencimiento != null && fechaVencimiento.isBefore(inicioVigente(LocalDateTime.now()));
+    }
+
+    /**
+     * Primer vencimiento con al menos un día entero de vigencia; los anteriores cuentan como vencidos.
+     * Junto con inicioProximoVencer e inicioActivo fija los rangos de fecha_vencimiento de cada
+     * estado según los días enteros de getVigenciaRestante: vencido con 0, CRITICO de 1 a
+     * DIAS_CRITICO, PROXIMO_VENCER hasta DIAS_PROXIMO_VENCER y ACTIVO por encima.
+     */
+    public static LocalDateTime inicioVigente(LocalDateTime ahora) {
+        return ahora.plusDays(1);
+    }
+
+    /**
+     * Primer vencimiento con más de DIAS_CRITICO días enteros de vigencia
+     */
+    public static LocalDateTime inicioProximoVencer(LocalDateTime ahora) {
+        return ahora.plusDays(DIAS_CRITICO + 1);
+    }
+
+    /**
+     * Primer vencimiento con más de DIAS_PROXIMO_VENCER días enteros de vigencia
+     */
+    public static LocalDateTime inicioActivo(LocalDateTime ahora) {
+        return ahora.plusDays(DIAS_PROXIMO_VENCER + 1);
     }
 
     /**
      * Verifica si necesita alerta de 30 días
      */
     public boolean necesitaAlerta30() {
-        return isProximoAVencer30() && !alerta30Enviada && activo;
+        return isProximoAVencer30() && !isAlertaEnviada(30) && activo;
     }
 
     /**
      * Verifica si necesita alerta de 60 días
      */
     public boolean necesitaAlerta60() {
-        return isProximoAVencer60() && !alerta60Enviada && activo;
+        return isProximoAVencer60() && !isAlertaEnviada(60) && activo;
+    }
+
+    /**
+     * Verifica si ya se envió la alerta del umbral indicado (o la de uno menor)
+     */
+    public boolean isAlertaEnviada(int umbral) {
+        return umbralAlertaEnviada != null && umbralAlertaEnviada <= umbral;
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package org.saeta.licenciasservice.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.repository.CertificadoRepository;
+import org.saeta.licenciasservice.repository.ProyectoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Traslada las marcas alerta_XX_enviada de certificados y proyectos a la columna
+ * 'umbral_alerta_enviada' (el menor umbral marcado). Las columnas booleanas quedan en false, así
+ * que la migración solo actúa una vez por fila y no hace nada en los siguientes arranques.
+ */
+@Component
+@Order(1)
+@Slf4j
+public class AlertaUmbralMigration implements ApplicationRunner {
+
+    @Autowired
+    private CertificadoRepository certificadoRepository;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        try {
+            int certificados = certificadoRepository.migrarAlertasEnviadas();
+            int proyectos = proyectoRepository.migrarAlertasEnviadas();
+            if (certificados > 0 || proyectos > 0) {
+                log.info("✅ Marcas de alerta migradas a umbral_alerta_enviada: {} certificados, {} proyectos",
+                        certificados, proyectos);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al migrar las marcas de alerta enviada: {}", e.getMessage(), e);
+        }
+    }
+}
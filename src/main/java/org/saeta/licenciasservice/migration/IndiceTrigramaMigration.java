@@ -0,0 +1,98 @@
+package org.saeta.licenciasservice.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+
+/**
+ * Crea los índices GIN de pg_trgm sobre lower(columna) para las búsquedas por subcadena
+ * (ver BusquedaTexto). Un índice B-tree no sirve para LIKE '%término%'; uno de trigramas sí.
+ * Hibernate (ddl-auto=update) no sabe crear índices de expresión, por eso se crean aquí al iniciar.
+ * Los índices se crean con CONCURRENTLY (sin bloquear escrituras) y con IF NOT EXISTS, así que
+ * tras la primera ejecución no hacen nada. Un CREATE INDEX CONCURRENTLY interrumpido (reinicio,
+ * timeout, error de unicidad) deja el índice marcado INVALID: existe, así que IF NOT EXISTS no lo
+ * rehace, pero el planificador no lo usa. Esos índices se borran y se crean de nuevo.
+ * Fuera de PostgreSQL (H2 en pruebas) o si no se puede instalar la extensión, no se crea nada
+ * y las búsquedas siguen funcionando sin índice.
+ */
+@Component
+@Order(1)
+@Slf4j
+public class IndiceTrigramaMigration implements ApplicationRunner {
+
+    // { nombre del índice, tabla, columna }
+    private static final String[][] INDICES = {
+            {"idx_certificados_razon_social_trgm", "public.certificados", "razon_social"},
+            {"idx_certificados_nombres_trgm", "public.certificados", "nombres"},
+            {"idx_certificados_primer_apellido_trgm", "public.certificados", "primer_apellido"},
+            {"idx_proyectos_id_producto_trgm", "public.proyectos", "id_producto"},
+            {"idx_proyectos_producto_trgm", "public.proyectos", "producto"},
+            {"idx_proyectos_correo_vendedor1_trgm", "public.proyectos", "correo_vendedor1"},
+            {"idx_proyectos_correo_vendedor2_trgm", "public.proyectos", "correo_vendedor2"},
+            {"idx_proyectos_correo_jefe_vendedor_trgm", "public.proyectos", "correo_jefe_vendedor"},
+            {"idx_licencia_empresa_trgm", "public.licencia", "empresa"},
+            {"idx_licencia_mac_trgm", "public.licencia", "mac"},
+            {"idx_ejecutivo_nombre_ejecutivo_trgm", "public.ejecutivo", "nombre_ejecutivo"},
+            {"idx_ejecutivo_abreviatura_trgm", "public.ejecutivo", "abreviatura"},
+            {"idx_tipo_certificado_nombre_certificado_trgm", "public.tipo_certificado", "nombre_certificado"},
+            {"idx_tipo_certificado_abreviatura_trgm", "public.tipo_certificado", "abreviatura"}
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.busqueda.indices-trigrama.enabled:true}")
+    private boolean habilitado;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!habilitado) {
+            return;
+        }
+        try {
+            String baseDatos = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            if (!"PostgreSQL".equals(baseDatos)) {
+                log.info("Índices de trigramas omitidos: base de datos {}", baseDatos);
+                return;
+            }
+
+            // Sin transacción: CREATE INDEX CONCURRENTLY no puede ejecutarse dentro de una
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+
+            for (String[] indice : INDICES) {
+                try {
+                    if (esInvalido(jdbcTemplate, indice[0])) {
+                        log.warn("⚠️ Índice {} inválido (creación interrumpida), se vuelve a crear", indice[0]);
+                        jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS public." + indice[0]);
+                    }
+                    jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + indice[0] +
+                            " ON " + indice[1] + " USING gin (lower(" + indice[2] + ") gin_trgm_ops)");
+                } catch (Exception e) {
+                    log.error("❌ Error al crear el índice {}: {}", indice[0], e.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Índices de trigramas no disponibles, las búsquedas se harán sin índice: {}", e.getMessage());
+        }
+    }
+
+    private boolean esInvalido(JdbcTemplate jdbcTemplate, String nombre) {
+        Boolean invalido = jdbcTemplate.query(
+                "SELECT NOT i.indisvalid FROM pg_index i " +
+                        "JOIN pg_class c ON c.oid = i.indexrelid " +
+                        "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                        "WHERE n.nspname = 'public' AND c.relname = ?",
+                rs -> rs.next() ? rs.getBoolean(1) : Boolean.FALSE, nombre);
+        return Boolean.TRUE.equals(invalido);
+    }
+}
\ No newline at end of file
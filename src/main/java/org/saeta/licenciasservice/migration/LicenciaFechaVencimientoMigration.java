@@ -0,0 +1,62 @@
+package org.saeta.licenciasservice.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completa la columna 'fecha_vencimiento' de las licencias registradas antes de que existiera.
+ * La columna la crea Hibernate (ddl-auto=update); esta migración solo rellena los valores,
+ * se ejecuta al iniciar y no hace nada una vez que todas las filas están calculadas.
+ */
+@Component
+@Order(1)
+@Slf4j
+public class LicenciaFechaVencimientoMigration implements ApplicationRunner {
+
+    @Autowired
+    private LicenciaRepository licenciaRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        try {
+            List<Licencia> pendientes = licenciaRepository.findSinFechaVencimiento();
+            if (pendientes.isEmpty()) {
+                return;
+            }
+
+            List<Licencia> calculadas = new ArrayList<>(pendientes.size());
+            for (Licencia licencia : pendientes) {
+                licencia.recalcularFechaVencimiento();
+                if (licencia.getFechaVencimiento() != null) {
+                    calculadas.add(licencia);
+                } else {
+                    log.debug("Licencia ID {} con vigencia no reconocida: '{}'", licencia.getId(), licencia.getVigencia());
+                }
+            }
+
+            // Las filas con vigencia no reconocida no se guardan: se vuelven a leer en cada inicio,
+            // pero sin escribirlas ni registrar un aviso por fila
+            if (!calculadas.isEmpty()) {
+                licenciaRepository.saveAllAndFlush(calculadas);
+                log.info("✅ Fecha de vencimiento calculada para {} licencias", calculadas.size());
+            }
+            if (calculadas.size() < pendientes.size()) {
+                log.info("{} licencias con vigencia no reconocida quedan sin fecha de vencimiento",
+                        pendientes.size() - calculadas.size());
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al completar fecha_vencimiento de licencias: {}", e.getMessage(), e);
+        }
+    }
+}
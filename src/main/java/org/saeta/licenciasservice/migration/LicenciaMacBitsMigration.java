@@ -0,0 +1,81 @@
+package org.saeta.licenciasservice.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completa la columna 'mac_bits' de las licencias registradas antes de que existiera.
+ * La columna y su índice los crea Hibernate (ddl-auto=update); esta migración solo rellena
+ * los valores y no hace nada una vez que todas las MAC válidas están convertidas.
+ */
+@Component
+@Order(1)
+@Slf4j
+public class LicenciaMacBitsMigration implements ApplicationRunner {
+
+    @Autowired
+    private LicenciaRepository licenciaRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        try {
+            List<Licencia> pendientes = licenciaRepository.findSinMacBits();
+            if (pendientes.isEmpty()) {
+                return;
+            }
+
+            List<Licencia> convertidas = new ArrayList<>(pendientes.size());
+            for (Licencia licencia : pendientes) {
+                licencia.recalcularMacBits();
+                if (licencia.getMacBits() != null) {
+                    convertidas.add(licencia);
+                } else {
+                    log.debug("Licencia ID {} con MAC no reconocida: '{}'", licencia.getId(), licencia.getMac());
+                }
+            }
+
+            // Las filas con MAC no reconocida no se guardan: se vuelven a leer en cada inicio,
+            // pero sin escribirlas ni registrar un aviso por fila. Las MAC repetidas solo pueden
+            // aparecer al convertir, así que se revisan únicamente cuando hubo conversiones.
+            if (!convertidas.isEmpty()) {
+                licenciaRepository.saveAllAndFlush(convertidas);
+                log.info("✅ mac_bits calculado para {} licencias", convertidas.size());
+                registrarMacRepetidas();
+            }
+            if (convertidas.size() < pendientes.size()) {
+                log.info("{} licencias con MAC no reconocida quedan sin mac_bits",
+                        pendientes.size() - convertidas.size());
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al completar mac_bits de licencias: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Al normalizar a bits, MAC que eran textos distintos (AA:BB:.. y AA-BB-..) pasan a ser la misma;
+     * la validación usa la de mayor ID y las demás quedan sin efecto hasta que se corrijan
+     */
+    private void registrarMacRepetidas() {
+        List<LicenciaRepository.LicenciaMacRepetida> repetidas = licenciaRepository.findMacRepetidas();
+        Long macActual = null;
+        for (LicenciaRepository.LicenciaMacRepetida fila : repetidas) {
+            if (fila.getMacBits().equals(macActual)) {
+                log.warn("Licencia ID {} con MAC '{}' repetida: se ignora en la validación", fila.getId(), fila.getMac());
+            } else {
+                macActual = fila.getMacBits();
+                log.warn("MAC repetida en varias licencias; se usa la licencia ID {} ('{}')", fila.getId(), fila.getMac());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.saeta.licenciasservice.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.Proyecto;
+import org.saeta.licenciasservice.repository.ProyectoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Completa la columna 'fecha_vencimiento' de los proyectos registrados antes de que existiera.
+ * La columna la crea Hibernate (ddl-auto=update); esta migración solo rellena los valores,
+ * se ejecuta al iniciar y no hace nada una vez que todas las filas están calculadas.
+ */
+@Component
+@Order(1)
+@Slf4j
+public class ProyectoFechaVencimientoMigration implements ApplicationRunner {
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        try {
+            List<Proyecto> pendientes = proyectoRepository.findSinFechaVencimiento();
+            if (pendientes.isEmpty()) {
+                return;
+            }
+
+            List<Proyecto> calculadas = new ArrayList<>(pendientes.size());
+            for (Proyecto proyecto : pendientes) {
+                proyecto.recalcularFechaVencimiento();
+                if (proyecto.getFechaVencimiento() != null) {
+                    calculadas.add(proyecto);
+                } else {
+                    log.debug("Proyecto ID {} con vigencia no reconocida: '{}'", proyecto.getId(), proyecto.getVigencia());
+                }
+            }
+
+            // Las filas con vigencia no reconocida no se guardan: se vuelven a leer en cada inicio,
+            // pero sin escribirlas ni registrar un aviso por fila
+            if (!calculadas.isEmpty()) {
+                proyectoRepository.saveAllAndFlush(calculadas);
+                log.info("✅ Fecha de vencimiento calculada para {} proyectos", calculadas.size());
+            }
+            if (calculadas.size() < pendientes.size()) {
+                log.info("{} proyectos con vigencia no reconocida quedan sin fecha de vencimiento",
+                        pendientes.size() - calculadas.size());
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al completar fecha_vencimiento de proyectos: {}", e.getMessage(), e);
+        }
+    }
+}
\ No newline at end of file
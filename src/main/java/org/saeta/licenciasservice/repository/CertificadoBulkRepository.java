@@ -0,0 +1,90 @@
+package org.saeta.licenciasservice.repository;
+
+import org.saeta.licenciasservice.entity.Certificado;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Inserción masiva de certificados con JDBC batch.
+ * Con GenerationType.IDENTITY Hibernate necesita un INSERT por fila para conocer cada id;
+ * aquí los ids se reservan de la secuencia de la columna en una sola consulta y las filas
+ * se envían en lotes (con reWriteBatchedInserts el driver los convierte en INSERT multi-fila).
+ */
+@Repository
+public class CertificadoBulkRepository {
+
+    private static final String SQL_RESERVAR_IDS =
+            "SELECT nextval(pg_get_serial_sequence('public.certificados', 'id')) FROM generate_series(1, ?)";
+
+    private static final String SQL_INSERTAR =
+            "INSERT INTO public.certificados (id, fecha_emision, fecha_vencimiento, ejecutivo_id, tipo_certificado, " +
+            "nombres, primer_apellido, segundo_apellido, numero_documento, departamento, cargo, correo_electronico, " +
+            "razon_social, numero_ruc, direccion, codigo_postal, telefono, correo_ejecutivo_1, correo_ejecutivo_2, " +
+            "correo_ejecutivo_3, alerta_10_enviada, alerta_20_enviada, alerta_30_enviada, " +
+            "fecha_carga, fecha_actualizacion, activo) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserta los certificados en un único lote JDBC y les asigna el id generado.
+     * Aplica los mismos valores por defecto que @PrePersist (fechas y activo).
+     */
+    public void insertar(List<Certificado> certificados) {
+        if (certificados.isEmpty()) {
+            return;
+        }
+
+        List<Integer> ids = jdbcTemplate.queryForList(SQL_RESERVAR_IDS, Integer.class, certificados.size());
+        for (int i = 0; i < certificados.size(); i++) {
+            Certificado certificado = certificados.get(i);
+            certificado.setId(ids.get(i));
+            certificado.prePersist();
+        }
+
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Certificado c = certificados.get(i);
+                ps.setInt(1, c.getId());
+                ps.setObject(2, c.getFechaEmision());
+                ps.setObject(3, c.getFechaVencimiento());
+                ps.setInt(4, c.getEjecutivoId());
+                ps.setString(5, c.getTipoCertificado());
+                ps.setString(6, c.getNombres());
+                ps.setString(7, c.getPrimerApellido());
+                ps.setString(8, c.getSegundoApellido());
+                ps.setString(9, c.getNumeroDocumento());
+                ps.setString(10, c.getDepartamento());
+                ps.setString(11, c.getCargo());
+                ps.setString(12, c.getCorreoElectronico());
+                ps.setString(13, c.getRazonSocial());
+                ps.setString(14, c.getNumeroRuc());
+                ps.setString(15, c.getDireccion());
+                ps.setString(16, c.getCodigoPostal());
+                ps.setString(17, c.getTelefono());
+                ps.setString(18, c.getCorreoEjecutivo1());
+                ps.setString(19, c.getCorreoEjecutivo2());
+                ps.setString(20, c.getCorreoEjecutivo3());
+                ps.setObject(21, c.getAlerta10Enviada());
+                ps.setObject(22, c.getAlerta20Enviada());
+                ps.setObject(23, c.getAlerta30Enviada());
+                ps.setObject(24, c.getFechaCarga());
+                ps.setObject(25, c.getFechaActualizacion());
+                ps.setObject(26, c.getActivo());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return certificados.size();
+            }
+        });
+    }
+}
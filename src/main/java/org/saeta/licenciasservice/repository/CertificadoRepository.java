@@ -5,11 +5,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,11 +33,6 @@ public interface CertificadoRepository extends JpaRepository<Certificado, Intege
      */
     Page<Certificado> findByTipoCertificado(String tipoCertificado, Pageable pageable);
 
-    /**
-     * Busca certificados por estado
-     */
-    Page<Certificado> findByEstado(String estado, Pageable pageable);
-
     /**
      * Busca certificados activos
      */
@@ -56,51 +53,110 @@ public interface CertificadoRepository extends JpaRepository<Certificado, Intege
                                                 @Param("fechaFin") LocalDateTime fechaFin);
 
     /**
-     * Busca certificados para alerta de 10 días
+     * Certificados activos con alguna alerta de vencimiento pendiente, en una sola pasada.
+     * Cada certificado se cruza con la lista de umbrales (días, separados por coma) y se queda con
+     * los umbrales cuya ventana ya alcanzó y que son menores que el último umbral enviado;
+     * 'umbral' es el menor de ellos. 'limite' es ahora + el mayor umbral y acota el rango por índice.
+     * Devuelve solo las columnas que usan los correos (sin cargar la entidad ni su ejecutivo).
      */
-    @Query("SELECT c FROM Certificado c WHERE c.activo = true AND c.alerta10Enviada = false " +
-            "AND c.fechaVencimiento BETWEEN :ahora AND :limite")
-    List<Certificado> findCertificadosParaAlerta10(@Param("ahora") LocalDateTime ahora,
-                                                   @Param("limite") LocalDateTime limite);
+    @Query(value = "SELECT c.id AS \"id\", c.tipo_certificado AS \"tipoCertificado\", c.nombres AS \"nombres\", " +
+            "c.primer_apellido AS \"primerApellido\", c.segundo_apellido AS \"segundoApellido\", " +
+            "c.numero_documento AS \"numeroDocumento\", c.razon_social AS \"razonSocial\", " +
+            "c.fecha_emision AS \"fechaEmision\", c.fecha_vencimiento AS \"fechaVencimiento\", " +
+            "c.correo_ejecutivo_1 AS \"correoEjecutivo1\", c.correo_ejecutivo_2 AS \"correoEjecutivo2\", " +
+            "c.correo_ejecutivo_3 AS \"correoEjecutivo3\", MIN(u.umbral) AS \"umbral\" " +
+            "FROM public.certificados c " +
+            "CROSS JOIN unnest(CAST(string_to_array(:umbrales, ',') AS integer[])) AS u(umbral) " +
+            "WHERE c.activo = true AND c.fecha_vencimiento BETWEEN :ahora AND :limite " +
+            "AND c.fecha_vencimiento <= CAST(:ahora AS timestamp) + make_interval(days => u.umbral) " +
+            "AND (c.umbral_alerta_enviada IS NULL OR u.umbral < c.umbral_alerta_enviada) " +
+            "GROUP BY c.id ORDER BY c.fecha_vencimiento", nativeQuery = true)
+    List<CertificadoAlerta> findAlertasPendientes(@Param("ahora") LocalDateTime ahora,
+                                                  @Param("limite") LocalDateTime limite,
+                                                  @Param("umbrales") String umbrales);
+
+    @Modifying
+    @Query("UPDATE Certificado c SET c.umbralAlertaEnviada = :umbral WHERE c.id IN :ids")
+    int marcarAlertaEnviada(@Param("ids") Collection<Integer> ids, @Param("umbral") Integer umbral);
 
     /**
-     * Busca certificados para alerta de 20 días
+     * Copia las marcas alertaXXEnviada anteriores a umbral_alerta_enviada y las deja en false
      */
-    @Query("SELECT c FROM Certificado c WHERE c.activo = true AND c.alerta20Enviada = false " +
-            "AND c.fechaVencimiento BETWEEN :ahora AND :limite")
-    List<Certificado> findCertificadosParaAlerta20(@Param("ahora") LocalDateTime ahora,
-                                                   @Param("limite") LocalDateTime limite);
+    @Modifying
+    @Query(value = "UPDATE public.certificados SET umbral_alerta_enviada = CASE " +
+            "WHEN alerta_10_enviada THEN 10 WHEN alerta_20_enviada THEN 20 ELSE 30 END, " +
+            "alerta_10_enviada = false, alerta_20_enviada = false, alerta_30_enviada = false " +
+            "WHERE alerta_10_enviada OR alerta_20_enviada OR alerta_30_enviada", nativeQuery = true)
+    int migrarAlertasEnviadas();
 
     /**
-     * Busca certificados para alerta de 30 días
+     * Verifica si existe un certificado con el mismo documento y tipo
      */
-    @Query("SELECT c FROM Certificado c WHERE c.activo = true AND c.alerta30Enviada = false " +
-            "AND c.fechaVencimiento BETWEEN :ahora AND :limite")
-    List<Certificado> findCertificadosParaAlerta30(@Param("ahora") LocalDateTime ahora,
-                                                   @Param("limite") LocalDateTime limite);
+    boolean existsByNumeroDocumentoAndTipoCertificado(String numeroDocumento, String tipoCertificado);
 
     /**
-     * Verifica si existe un certificado con el mismo documento y tipo
+     * Claves (documento, tipo) ya registradas para los documentos indicados, en una sola consulta
      */
-    boolean existsByNumeroDocumentoAndTipoCertificado(String numeroDocumento, String tipoCertificado);
+    @Query("SELECT c.numeroDocumento AS numeroDocumento, c.tipoCertificado AS tipoCertificado " +
+            "FROM Certificado c WHERE c.numeroDocumento IN :documentos")
+    List<ClaveCertificado> findClavesExistentes(@Param("documentos") Collection<String> documentos);
+
+    /**
+     * Campos de todos los certificados que usa el índice de búsqueda en memoria (IndiceBusquedaCache)
+     */
+    @Query("SELECT c.id AS id, c.razonSocial AS razonSocial, c.nombres AS nombres, " +
+            "c.primerApellido AS primerApellido, c.ejecutivoId AS ejecutivoId, " +
+            "c.fechaVencimiento AS fechaVencimiento, c.activo AS activo FROM Certificado c")
+    List<CertificadoIndice> findParaIndiceBusqueda();
+
+    /**
+     * Proyección con la clave de unicidad de un certificado
+     */
+    interface ClaveCertificado {
+        String getNumeroDocumento();
+        String getTipoCertificado();
+    }
 
     /**
-     * Busca certificados por múltiples criterios
+     * Fila devuelta por findAlertasPendientes
      */
-    @Query("SELECT c FROM Certificado c WHERE " +
-            "(:ejecutivoId IS NULL OR c.ejecutivoId = :ejecutivoId) AND " +
-            "(:razonSocial IS NULL OR LOWER(c.razonSocial) LIKE LOWER(CONCAT('%', :razonSocial, '%'))) AND " +
-            "(:nombres IS NULL OR LOWER(CONCAT(c.nombres, ' ', c.primerApellido, ' ', COALESCE(c.segundoApellido, ''))) LIKE LOWER(CONCAT('%', :nombres, '%'))) AND " +
-            "(:estado IS NULL OR c.estado = :estado)")
-    Page<Certificado> buscarCertificados(@Param("ejecutivoId") Integer ejecutivoId,
-                                         @Param("razonSocial") String razonSocial,
-                                         @Param("nombres") String nombres,
-                                         @Param("estado") String estado,
-                                         Pageable pageable);
+    interface CertificadoAlerta {
+        Integer getId();
+        String getTipoCertificado();
+        String getNombres();
+        String getPrimerApellido();
+        String getSegundoApellido();
+        String getNumeroDocumento();
+        String getRazonSocial();
+        LocalDateTime getFechaEmision();
+        LocalDateTime getFechaVencimiento();
+        String getCorreoEjecutivo1();
+        String getCorreoEjecutivo2();
+        String getCorreoEjecutivo3();
+        Integer getUmbral();
+
+        default String getNombreCompleto() {
+            StringBuilder nombre = new StringBuilder(getNombres());
+            if (getPrimerApellido() != null && !getPrimerApellido().isEmpty()) {
+                nombre.append(" ").append(getPrimerApellido());
+            }
+            if (getSegundoApellido() != null && !getSegundoApellido().isEmpty()) {
+                nombre.append(" ").append(getSegundoApellido());
+            }
+            return nombre.toString();
+        }
+    }
 
     /**
-     * Cuenta certificados por estado
+     * Fila devuelta por findParaIndiceBusqueda
      */
-    @Query("SELECT c.estado, COUNT(c) FROM Certificado c WHERE c.activo = true GROUP BY c.estado")
-    List<Object[]> contarPorEstado();
+    interface CertificadoIndice {
+        Integer getId();
+        String getRazonSocial();
+        String getNombres();
+        String getPrimerApellido();
+        Integer getEjecutivoId();
+        LocalDateTime getFechaVencimiento();
+        Boolean getActivo();
+    }
 }
\ No newline at end of file
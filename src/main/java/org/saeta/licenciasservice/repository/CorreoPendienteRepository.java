@@ -0,0 +1,59 @@
+package org.saeta.licenciasservice.repository;
+
+import org.saeta.licenciasservice.entity.CorreoPendiente;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CorreoPendienteRepository extends JpaRepository<CorreoPendiente, Long> {
+
+    /**
+     * Reserva hasta 'limite' correos listos para enviar: los pasa a ENVIANDO y suma un intento.
+     * FOR UPDATE SKIP LOCKED permite que varios nodos despachen sin reservar el mismo correo.
+     * Específico de PostgreSQL.
+     */
+    @Transactional
+    @Query(value = "UPDATE public.correo_pendiente SET estado = 'ENVIANDO', intentos = intentos + 1, " +
+            "fecha_actualizacion = :ahora " +
+            "WHERE id IN (SELECT id FROM public.correo_pendiente " +
+            "WHERE estado = 'PENDIENTE' AND proximo_intento <= :ahora " +
+            "ORDER BY proximo_intento, id LIMIT :limite FOR UPDATE SKIP LOCKED) " +
+            "RETURNING *", nativeQuery = true)
+    List<CorreoPendiente> reservar(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+
+    /**
+     * Devuelve a PENDIENTE los correos que quedaron en ENVIANDO (p. ej. el nodo se detuvo a mitad del envío)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoPendiente c SET c.estado = 'PENDIENTE', c.fechaActualizacion = :ahora " +
+            "WHERE c.estado = 'ENVIANDO' AND c.fechaActualizacion < :limite")
+    int liberarBloqueados(@Param("ahora") LocalDateTime ahora, @Param("limite") LocalDateTime limite);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoPendiente c SET c.estado = 'ENVIADO', c.fechaEnvio = :ahora, " +
+            "c.fechaActualizacion = :ahora, c.ultimoError = null WHERE c.id IN :ids")
+    int marcarEnviados(@Param("ids") Collection<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Registra un envío fallido: vuelve a PENDIENTE con un nuevo intento programado o queda FALLIDO
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE CorreoPendiente c SET c.estado = :estado, c.proximoIntento = :proximoIntento, " +
+            "c.ultimoError = :error, c.fechaActualizacion = :ahora WHERE c.id = :id")
+    int registrarFallo(@Param("id") Long id, @Param("estado") String estado,
+                       @Param("proximoIntento") LocalDateTime proximoIntento,
+                       @Param("error") String error, @Param("ahora") LocalDateTime ahora);
+
+    long countByEstado(String estado);
+}
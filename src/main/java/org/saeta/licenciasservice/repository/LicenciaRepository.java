@@ -10,6 +10,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,51 @@ public interface LicenciaRepository extends JpaRepository<Licencia, Integer>, Jp
      */
     Optional<Licencia> findByMac(String mac);
 
+    /**
+     * Busca una licencia por los 48 bits de su MAC (ver MacAddress). El índice de mac_bits no es
+     * único: MAC que antes eran textos distintos (AA:BB:.. y AA-BB-..) comparten bits; en ese caso
+     * se toma la de mayor ID, la misma regla que aplican el snapshot y findByMacBitsInOrderByIdDesc.
+     */
+    Optional<Licencia> findFirstByMacBitsOrderByIdDesc(Long macBits);
+
+    /**
+     * Verifica si ya existe una licencia con la MAC indicada
+     */
+    boolean existsByMacBits(Long macBits);
+
+    /**
+     * Verifica si otra licencia (distinta de la indicada) tiene la MAC
+     */
+    boolean existsByMacBitsAndIdNot(Long macBits, Integer id);
+
+    /**
+     * Busca las licencias de varias direcciones MAC en una sola consulta
+     * @param macBits los 48 bits de cada MAC
+     * @return licencias encontradas, de mayor a menor ID (con MAC repetidas, la primera es la vigente)
+     */
+    List<Licencia> findByMacBitsInOrderByIdDesc(Collection<Long> macBits);
+
+    /**
+     * Devuelve los bits de todas las MAC registradas (para construir el filtro de Bloom)
+     */
+    @Query("SELECT l.macBits FROM Licencia l WHERE l.macBits IS NOT NULL")
+    List<Long> findAllMacBits();
+
+    /**
+     * Licencias cuya MAC comparte mac_bits con otra (la misma MAC con distinto formato),
+     * agrupadas por MAC y de mayor a menor ID
+     */
+    @Query("SELECT l.id AS id, l.mac AS mac, l.macBits AS macBits FROM Licencia l WHERE l.macBits IN " +
+            "(SELECT r.macBits FROM Licencia r WHERE r.macBits IS NOT NULL GROUP BY r.macBits HAVING COUNT(r) > 1) " +
+            "ORDER BY l.macBits, l.id DESC")
+    List<LicenciaMacRepetida> findMacRepetidas();
+
+    /**
+     * Licencias con MAC a las que aún no se les ha calculado 'mac_bits'
+     */
+    @Query("SELECT l FROM Licencia l WHERE l.macBits IS NULL AND l.mac IS NOT NULL")
+    List<Licencia> findSinMacBits();
+
     /**
      * Busca licencias por estado
      * @param estado estado a buscar ('1' activo, '0' inactivo)
@@ -45,6 +91,51 @@ public interface LicenciaRepository extends JpaRepository<Licencia, Integer>, Jp
     @Query("SELECT l FROM Licencia l WHERE l.estado = '1' AND l.fechaHora IS NOT NULL")
     List<Licencia> findLicenciasActivas();
 
+    /**
+     * Busca licencias activas cuya fecha de vencimiento cae dentro del rango indicado
+     */
+    @Query("SELECT l FROM Licencia l WHERE l.estado = '1' " +
+            "AND l.fechaVencimiento > :desde AND l.fechaVencimiento < :hasta ORDER BY l.fechaVencimiento")
+    List<Licencia> findLicenciasPorVencer(@Param("desde") LocalDateTime desde,
+                                          @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Busca licencias a las que aún no se les ha calculado la fecha de vencimiento
+     */
+    @Query("SELECT l FROM Licencia l WHERE l.fechaVencimiento IS NULL " +
+            "AND l.fechaHora IS NOT NULL AND l.vigencia IS NOT NULL")
+    List<Licencia> findSinFechaVencimiento();
+
+    /**
+     * Desactiva en una sola sentencia todas las licencias activas vencidas (o sin fecha de
+     * vencimiento calculable, incluidas las que no tienen fecha_hora, como Licencia.hasVencido)
+     * y devuelve las filas afectadas. Específico de PostgreSQL (RETURNING).
+     */
+    @Transactional
+    @Query(value = "UPDATE public.licencia SET estado = '0' " +
+            "WHERE estado = '1' " +
+            "AND (fecha_hora IS NULL OR fecha_vencimiento IS NULL OR fecha_vencimiento < :ahora) " +
+            "RETURNING id, mac, empresa", nativeQuery = true)
+    List<LicenciaDesactivada> desactivarVencidas(@Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Desactiva las licencias indicadas que sigan activas y cuyo vencimiento ya pasó.
+     * Las que fueron renovadas entre tanto no se ven afectadas.
+     */
+    @Transactional
+    @Query(value = "UPDATE public.licencia SET estado = '0' " +
+            "WHERE id IN (:ids) AND estado = '1' AND fecha_vencimiento <= :ahora " +
+            "RETURNING id, mac, empresa", nativeQuery = true)
+    List<LicenciaDesactivada> desactivarVencidasPorId(@Param("ids") Collection<Integer> ids,
+                                                      @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Licencias activas con fecha de vencimiento, para programar su expiración
+     */
+    @Query("SELECT l.id AS id, l.mac AS mac, l.fechaVencimiento AS fechaVencimiento FROM Licencia l " +
+            "WHERE l.estado = '1' AND l.fechaVencimiento IS NOT NULL")
+    List<LicenciaVencimiento> findVencimientosActivos();
+
     /**
      * Actualiza el estado de una licencia específica
      */
@@ -52,4 +143,46 @@ public interface LicenciaRepository extends JpaRepository<Licencia, Integer>, Jp
     @Transactional
     @Query("UPDATE Licencia l SET l.estado = :estado WHERE l.id = :id")
     int actualizarEstado(@Param("id") Integer id, @Param("estado") String estado);
+
+    /**
+     * Campos de todas las licencias que usa el índice de búsqueda en memoria (IndiceBusquedaCache)
+     */
+    @Query("SELECT l.id AS id, l.empresa AS empresa, l.mac AS mac FROM Licencia l")
+    List<LicenciaIndice> findParaIndiceBusqueda();
+
+    /**
+     * Vencimiento programable de una licencia activa
+     */
+    interface LicenciaVencimiento {
+        Integer getId();
+        String getMac();
+        LocalDateTime getFechaVencimiento();
+    }
+
+    /**
+     * Fila devuelta por desactivarVencidas
+     */
+    interface LicenciaDesactivada {
+        Integer getId();
+        String getMac();
+        String getEmpresa();
+    }
+
+    /**
+     * Fila devuelta por findParaIndiceBusqueda
+     */
+    interface LicenciaIndice {
+        Integer getId();
+        String getEmpresa();
+        String getMac();
+    }
+
+    /**
+     * Fila devuelta por findMacRepetidas
+     */
+    interface LicenciaMacRepetida {
+        Integer getId();
+        String getMac();
+        Long getMacBits();
+    }
 }
\ No newline at end of file
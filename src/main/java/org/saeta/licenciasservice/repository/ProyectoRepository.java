@@ -3,10 +3,14 @@ package org.saeta.licenciasservice.repository;
 import org.saeta.licenciasservice.entity.Proyecto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +22,11 @@ public interface ProyectoRepository extends JpaRepository<Proyecto, Integer>, Jp
      */
     Optional<Proyecto> findByIdProducto(String idProducto);
 
+    /**
+     * Busca los proyectos de varios IDs de producto en una sola consulta
+     */
+    List<Proyecto> findByIdProductoIn(Collection<String> idsProducto);
+
     /**
      * Busca todos los proyectos activos
      */
@@ -29,28 +38,54 @@ public interface ProyectoRepository extends JpaRepository<Proyecto, Integer>, Jp
     List<Proyecto> findByProductoContainingIgnoreCase(String producto);
 
     /**
-     * Busca proyectos con vigencia restante menor o igual a un número de días
+     * Proyectos activos con alguna alerta de vencimiento pendiente, en una sola pasada.
+     * Cada proyecto se cruza con la lista de umbrales (días, separados por coma) y se queda con
+     * los umbrales cuya ventana ya alcanzó su fecha de vencimiento y que son menores que el último
+     * umbral enviado; 'umbral' es el menor de ellos. 'desde' es el primer vencimiento con un día
+     * entero de vigencia (Proyecto.inicioVigente), así un umbral de N días cubre una vigencia
+     * restante de 1 a N días; 'limite' es desde + el mayor umbral y acota el rango por índice.
      */
-    @Query("SELECT p FROM Proyecto p WHERE p.activo = true AND p.vigenciaRestante <= :dias AND p.vigenciaRestante > 0")
-    List<Proyecto> findProyectosProximosAVencer(@Param("dias") int dias);
+    @Query(value = "SELECT p.id AS \"id\", p.id_producto AS \"idProducto\", p.producto AS \"producto\", " +
+            "p.fecha_inicio AS \"fechaInicio\", p.vigencia AS \"vigencia\", p.fecha_vencimiento AS \"fechaVencimiento\", " +
+            "p.correo_vendedor1 AS \"correoVendedor1\", p.correo_vendedor2 AS \"correoVendedor2\", " +
+            "p.correo_jefe_vendedor AS \"correoJefeVendedor\", MIN(u.umbral) AS \"umbral\" " +
+            "FROM public.proyectos p " +
+            "CROSS JOIN unnest(CAST(string_to_array(:umbrales, ',') AS integer[])) AS u(umbral) " +
+            "WHERE p.activo = true AND p.fecha_vencimiento >= :desde AND p.fecha_vencimiento < :limite " +
+            "AND p.fecha_vencimiento < CAST(:desde AS timestamp) + make_interval(days => u.umbral) " +
+            "AND (p.umbral_alerta_enviada IS NULL OR u.umbral < p.umbral_alerta_enviada) " +
+            "GROUP BY p.id ORDER BY p.fecha_vencimiento", nativeQuery = true)
+    List<ProyectoAlerta> findAlertasPendientes(@Param("desde") LocalDateTime desde,
+                                               @Param("limite") LocalDateTime limite,
+                                               @Param("umbrales") String umbrales);
+
+    @Modifying
+    @Query("UPDATE Proyecto p SET p.umbralAlertaEnviada = :umbral WHERE p.id IN :ids")
+    int marcarAlertaEnviada(@Param("ids") Collection<Integer> ids, @Param("umbral") Integer umbral);
 
     /**
-     * Busca proyectos que necesitan alerta de 30 días
+     * Desactiva los proyectos activos que vencen antes de 'limite'
      */
-    @Query("SELECT p FROM Proyecto p WHERE p.activo = true AND p.vigenciaRestante <= 30 AND p.vigenciaRestante > 0 AND p.alerta30Enviada = false")
-    List<Proyecto> findProyectosParaAlerta30();
+    @Modifying
+    @Query("UPDATE Proyecto p SET p.activo = false, p.fechaActualizacion = :ahora " +
+            "WHERE p.activo = true AND p.fechaVencimiento < :limite")
+    int desactivarVencidos(@Param("limite") LocalDateTime limite, @Param("ahora") LocalDateTime ahora);
 
     /**
-     * Busca proyectos que necesitan alerta de 60 días
+     * Proyectos sin fecha de vencimiento calculada (registrados antes de que existiera la columna)
      */
-    @Query("SELECT p FROM Proyecto p WHERE p.activo = true AND p.vigenciaRestante <= 60 AND p.vigenciaRestante > 30 AND p.alerta60Enviada = false")
-    List<Proyecto> findProyectosParaAlerta60();
+    @Query("SELECT p FROM Proyecto p WHERE p.fechaVencimiento IS NULL " +
+            "AND p.fechaInicio IS NOT NULL AND p.vigencia IS NOT NULL")
+    List<Proyecto> findSinFechaVencimiento();
 
     /**
-     * Busca proyectos vencidos
+     * Copia las marcas alertaXXEnviada anteriores a umbral_alerta_enviada y las deja en false
      */
-    @Query("SELECT p FROM Proyecto p WHERE p.activo = true AND (p.vigenciaRestante IS NULL OR p.vigenciaRestante <= 0)")
-    List<Proyecto> findProyectosVencidos();
+    @Modifying
+    @Query(value = "UPDATE public.proyectos SET umbral_alerta_enviada = CASE WHEN alerta_30_enviada THEN 30 ELSE 60 END, " +
+            "alerta_30_enviada = false, alerta_60_enviada = false " +
+            "WHERE alerta_30_enviada OR alerta_60_enviada", nativeQuery = true)
+    int migrarAlertasEnviadas();
 
     /**
      * Busca proyectos por correo del vendedor
@@ -59,13 +94,53 @@ public interface ProyectoRepository extends JpaRepository<Proyecto, Integer>, Jp
     List<Proyecto> findByCorreoVendedor(@Param("correo") String correo);
 
     /**
-     * Cuenta proyectos con vigencia restante mayor o igual a días especificados
+     * Verifica si existe un proyecto con el mismo ID de producto
      */
-    @Query("SELECT COUNT(p) FROM Proyecto p WHERE p.activo = true AND p.vigenciaRestante >= :dias")
-    long countProyectosConVigenciaMayorIgual(@Param("dias") int dias);
+    boolean existsByIdProducto(String idProducto);
 
     /**
-     * Verifica si existe un proyecto con el mismo ID de producto
+     * Campos de todos los proyectos que usa el índice de búsqueda en memoria (IndiceBusquedaCache)
      */
-    boolean existsByIdProducto(String idProducto);
+    @Query("SELECT p.id AS id, p.idProducto AS idProducto, p.producto AS producto, " +
+            "p.correoVendedor1 AS correoVendedor1, p.correoVendedor2 AS correoVendedor2, " +
+            "p.correoJefeVendedor AS correoJefeVendedor, p.fechaVencimiento AS fechaVencimiento, " +
+            "p.activo AS activo FROM Proyecto p")
+    List<ProyectoIndice> findParaIndiceBusqueda();
+
+    /**
+     * Fila devuelta por findAlertasPendientes
+     */
+    interface ProyectoAlerta {
+        Integer getId();
+        String getIdProducto();
+        String getProducto();
+        LocalDateTime getFechaInicio();
+        String getVigencia();
+        LocalDateTime getFechaVencimiento();
+        String getCorreoVendedor1();
+        String getCorreoVendedor2();
+        String getCorreoJefeVendedor();
+        Integer getUmbral();
+
+        /**
+         * Días enteros de vigencia restante, con el mismo cálculo que Proyecto.getVigenciaRestante
+         */
+        default Integer getVigenciaRestante() {
+            return Math.max(0, (int) ChronoUnit.DAYS.between(LocalDateTime.now(), getFechaVencimiento()));
+        }
+    }
+
+    /**
+     * Fila devuelta por findParaIndiceBusqueda
+     */
+    interface ProyectoIndice {
+        Integer getId();
+        String getIdProducto();
+        String getProducto();
+        String getCorreoVendedor1();
+        String getCorreoVendedor2();
+        String getCorreoJefeVendedor();
+        LocalDateTime getFechaVencimiento();
+        Boolean getActivo();
+    }
 }
\ No newline at end of file
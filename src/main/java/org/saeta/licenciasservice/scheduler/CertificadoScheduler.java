@@ -16,21 +16,6 @@ public class CertificadoScheduler {
     @Autowired
     private CertificadoService certificadoService;
 
-    /**
-     * Actualiza el estado de vigencia de todos los certificados
-     * Se ejecuta todos los días a las 00:30
-     */
-    @Scheduled(cron = "0 30 0 * * *")
-    public void actualizarVigencias() {
-        try {
-            log.info("🔄 Iniciando actualización de vigencias de certificados...");
-            certificadoService.actualizarVigencias();
-            log.info("✅ Vigencias de certificados actualizadas exitosamente");
-        } catch (Exception e) {
-            log.error("❌ Error al actualizar vigencias de certificados: {}", e.getMessage(), e);
-        }
-    }
-
     /**
      * Envía alertas de vencimiento para certificados
      * Se ejecuta todos los días a las 9:30 AM
@@ -0,0 +1,239 @@
+package org.saeta.licenciasservice.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.CorreoPendiente;
+import org.saeta.licenciasservice.repository.CorreoPendienteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envía los correos del outbox (tabla correo_pendiente).
+ * En cada ciclo reserva lotes de correos listos (FOR UPDATE SKIP LOCKED, ver
+ * CorreoPendienteRepository.reservar) mientras el pool tenga capacidad libre, y cada hilo envía
+ * su lote con una sola llamada a JavaMailSender: una conexión SMTP para todo el lote en lugar de
+ * una por correo. El resultado se registra por correo; los fallidos se reintentan con espera
+ * exponencial hasta 'max-intentos' y después quedan en estado FALLIDO.
+ */
+@Component
+@Slf4j
+public class CorreoDispatcher {
+
+    @Autowired
+    private CorreoPendienteRepository correoPendienteRepository;
+
+    @Autowired(required = false)
+    private JavaMailSender mailSender;
+
+    @Value("${app.correo.dispatcher.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.correo.dispatcher.lote:20}")
+    private int tamanoLote;
+
+    @Value("${app.correo.dispatcher.max-intentos:5}")
+    private int maxIntentos;
+
+    @Value("${app.correo.dispatcher.reintento-base-ms:60000}")
+    private long reintentoBaseMs;
+
+    @Value("${app.correo.dispatcher.reintento-max-ms:3600000}")
+    private long reintentoMaxMs;
+
+    // Tiempo tras el cual un correo en ENVIANDO se considera abandonado (nodo detenido a mitad del envío)
+    @Value("${app.correo.dispatcher.bloqueo-ms:600000}")
+    private long bloqueoMs;
+
+    private final int hilos;
+    private final ThreadPoolExecutor workers;
+
+    // Lotes reservados que aún no terminan (en ejecución o en la cola del pool)
+    private final AtomicInteger lotesEnVuelo = new AtomicInteger();
+
+    private final Counter enviados;
+    private final Counter reintentos;
+    private final Counter fallidos;
+
+    private boolean avisoSinMailSender;
+
+    public CorreoDispatcher(@Value("${app.correo.dispatcher.hilos:4}") int hilos, MeterRegistry meterRegistry) {
+        this.hilos = Math.max(1, hilos);
+        AtomicInteger contador = new AtomicInteger();
+        // Cola acotada: nunca se reservan más lotes de los que el pool puede aceptar
+        this.workers = new ThreadPoolExecutor(this.hilos, this.hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.hilos),
+                r -> {
+                    Thread hilo = new Thread(r, "correo-dispatcher-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+
+        this.enviados = Counter.builder("correo.outbox.envios")
+                .tag("resultado", "enviado")
+                .description("Correos del outbox entregados al servidor SMTP")
+                .register(meterRegistry);
+        this.reintentos = Counter.builder("correo.outbox.envios")
+                .tag("resultado", "reintento")
+                .description("Envíos fallidos que se reprogramaron")
+                .register(meterRegistry);
+        this.fallidos = Counter.builder("correo.outbox.envios")
+                .tag("resultado", "fallido")
+                .description("Correos descartados tras agotar los reintentos")
+                .register(meterRegistry);
+        Gauge.builder("correo.outbox.lotes.en.vuelo", lotesEnVuelo, AtomicInteger::get)
+                .description("Lotes de correo reservados pendientes de envío")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void detener() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                // Los correos que queden en ENVIANDO se liberan en el siguiente arranque (bloqueo-ms)
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reserva y reparte lotes mientras haya correos listos y capacidad en el pool; no espera a
+     * que terminen los envíos.
+     */
+    @Scheduled(fixedDelayString = "${app.correo.dispatcher.intervalo-ms:10000}",
+            initialDelayString = "${app.correo.dispatcher.intervalo-ms:10000}")
+    public synchronized void despachar() {
+        if (!habilitado || workers.isShutdown()) {
+            return;
+        }
+        if (mailSender == null) {
+            if (!avisoSinMailSender) {
+                log.warn("JavaMailSender no configurado, los correos pendientes no se enviarán");
+                avisoSinMailSender = true;
+            }
+            return;
+        }
+
+        try {
+            LocalDateTime ahora = LocalDateTime.now();
+            int liberados = correoPendienteRepository.liberarBloqueados(ahora, ahora.minus(bloqueoMs, ChronoUnit.MILLIS));
+            if (liberados > 0) {
+                log.warn("📧 {} correos abandonados en ENVIANDO devueltos a PENDIENTE", liberados);
+            }
+
+            while (lotesEnVuelo.get() < hilos * 2) {
+                List<CorreoPendiente> lote = correoPendienteRepository.reservar(LocalDateTime.now(), tamanoLote);
+                if (lote.isEmpty()) {
+                    return;
+                }
+
+                lotesEnVuelo.incrementAndGet();
+                try {
+                    workers.execute(() -> {
+                        try {
+                            enviar(lote);
+                        } finally {
+                            lotesEnVuelo.decrementAndGet();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Solo ocurre durante el apagado; el lote se recupera como abandonado
+                    lotesEnVuelo.decrementAndGet();
+                    log.warn("Pool de correo detenido, {} correos quedan reservados", lote.size());
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al despachar correos pendientes: {}", e.getMessage(), e);
+        }
+    }
+
+    private void enviar(List<CorreoPendiente> lote) {
+        SimpleMailMessage[] mensajes = new SimpleMailMessage[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            CorreoPendiente correo = lote.get(i);
+            SimpleMailMessage mensaje = new SimpleMailMessage();
+            mensaje.setFrom(correo.getRemitente());
+            mensaje.setTo(correo.getListaDestinatarios());
+            mensaje.setSubject(correo.getAsunto());
+            mensaje.setText(correo.getCuerpo());
+            mensajes[i] = mensaje;
+        }
+
+        Map<Object, Exception> errores = Map.of();
+        Exception errorGeneral = null;
+        try {
+            mailSender.send(mensajes);
+        } catch (MailSendException e) {
+            // Incluye los fallos de conexión: JavaMailSenderImpl informa cada mensaje no enviado
+            errores = e.getFailedMessages();
+            if (errores.isEmpty()) {
+                errorGeneral = e;
+            }
+        } catch (RuntimeException e) {
+            errorGeneral = e;
+        }
+
+        List<Long> ok = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            Exception error = errorGeneral != null ? errorGeneral : errores.get(mensajes[i]);
+            if (error == null) {
+                ok.add(lote.get(i).getId());
+            } else {
+                registrarFallo(lote.get(i), error);
+            }
+        }
+
+        if (!ok.isEmpty()) {
+            correoPendienteRepository.marcarEnviados(ok, LocalDateTime.now());
+            enviados.increment(ok.size());
+            log.info("📧 {} correos enviados ({} en el lote)", ok.size(), lote.size());
+        }
+    }
+
+    private void registrarFallo(CorreoPendiente correo, Exception error) {
+        LocalDateTime ahora = LocalDateTime.now();
+        String mensaje = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+
+        // 'intentos' ya incluye el envío actual (se incrementa al reservar)
+        int intentos = correo.getIntentos();
+        if (intentos >= maxIntentos) {
+            correoPendienteRepository.registrarFallo(correo.getId(), CorreoPendiente.FALLIDO, ahora, mensaje, ahora);
+            fallidos.increment();
+            log.error("❌ Correo ID {} descartado tras {} intentos: {}", correo.getId(), intentos, mensaje);
+            return;
+        }
+
+        long espera = reintentoBaseMs << Math.min(intentos - 1, 30);
+        if (espera <= 0 || espera > reintentoMaxMs) {
+            espera = reintentoMaxMs;
+        }
+        LocalDateTime proximo = ahora.plus(espera, ChronoUnit.MILLIS);
+        correoPendienteRepository.registrarFallo(correo.getId(), CorreoPendiente.PENDIENTE, proximo, mensaje, ahora);
+        reintentos.increment();
+        log.warn("Correo ID {} no enviado (intento {}), se reintenta a las {}: {}",
+                correo.getId(), intentos, proximo, mensaje);
+    }
+}
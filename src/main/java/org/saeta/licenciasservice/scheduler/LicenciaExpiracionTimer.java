@@ -0,0 +1,255 @@
+package org.saeta.licenciasservice.scheduler;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.cache.LicenciaSnapshotCache;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.saeta.licenciasservice.util.TransaccionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Desactiva cada licencia en el momento exacto de su vencimiento.
+ * Mantiene una DelayQueue con el vencimiento de cada licencia activa, sembrada desde la tabla al
+ * iniciar y actualizada desde LicenciaManagementService. Un hilo dedicado espera al siguiente
+ * vencimiento, agrupa los que coinciden en una ventana corta y los desactiva con un único UPDATE.
+ */
+@Component
+@Slf4j
+public class LicenciaExpiracionTimer {
+
+    @Autowired
+    private LicenciaRepository licenciaRepository;
+
+    @Autowired
+    private LicenciaSnapshotCache licenciaCache;
+
+    @Value("${app.licencias.expiracion.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${app.licencias.expiracion.ventana-ms:100}")
+    private long ventanaMs;
+
+    @Value("${app.licencias.expiracion.lote-max:500}")
+    private int loteMax;
+
+    @Value("${app.licencias.expiracion.reintento-ms:30000}")
+    private long reintentoMs;
+
+    private final DelayQueue<Expiracion> cola = new DelayQueue<>();
+
+    // Vencimiento vigente por licencia; las entradas de la cola que no coinciden están obsoletas
+    private final Map<Integer, Long> vencimientos = new ConcurrentHashMap<>();
+
+    private volatile Thread hilo;
+
+    public LicenciaExpiracionTimer(MeterRegistry meterRegistry) {
+        Gauge.builder("licencias.expiracion.programadas", vencimientos, Map::size)
+                .description("Licencias activas con expiración programada")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitado) {
+            return;
+        }
+
+        try {
+            List<LicenciaRepository.LicenciaVencimiento> activas = licenciaRepository.findVencimientosActivos();
+            for (LicenciaRepository.LicenciaVencimiento licencia : activas) {
+                encolar(licencia.getId(), licencia.getMac(), licencia.getFechaVencimiento());
+            }
+            log.info("⏱️ Expiración programada para {} licencias activas", activas.size());
+        } catch (Exception e) {
+            log.error("❌ Error al programar la expiración de licencias: {}", e.getMessage(), e);
+        }
+
+        hilo = new Thread(this::procesar, "licencia-expiracion");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        Thread actual = hilo;
+        hilo = null;
+        if (actual != null) {
+            actual.interrupt();
+        }
+    }
+
+    /**
+     * Programa (o reprograma) la expiración de una licencia tras el commit de la transacción actual.
+     * Si la licencia no está activa o no tiene vencimiento, cancela la programación existente.
+     */
+    public void programar(Licencia licencia) {
+        Integer id = licencia.getId();
+        String mac = licencia.getMac();
+        LocalDateTime fechaVencimiento = licencia.isActivo() ? licencia.getFechaVencimiento() : null;
+
+        TransaccionUtil.despuesDelCommit(() -> {
+            descartar(id);
+            if (fechaVencimiento != null) {
+                encolar(id, mac, fechaVencimiento);
+            }
+        });
+    }
+
+    /**
+     * Cancela la expiración programada de una licencia eliminada
+     */
+    public void cancelar(Integer id) {
+        TransaccionUtil.despuesDelCommit(() -> descartar(id));
+    }
+
+    /**
+     * Olvida las licencias que el barrido de reconciliación ya desactivó
+     */
+    public void olvidar(Collection<LicenciaRepository.LicenciaDesactivada> desactivadas) {
+        if (desactivadas.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = new HashSet<>();
+        for (LicenciaRepository.LicenciaDesactivada licencia : desactivadas) {
+            ids.add(licencia.getId());
+        }
+        TransaccionUtil.despuesDelCommit(() -> {
+            vencimientos.keySet().removeAll(ids);
+            cola.removeIf(expiracion -> ids.contains(expiracion.id));
+        });
+    }
+
+    // Quita la programación vigente y su entrada de la cola, para que no se acumulen las obsoletas
+    private void descartar(Integer id) {
+        if (id == null) {
+            return;
+        }
+        vencimientos.remove(id);
+        cola.removeIf(expiracion -> expiracion.id.equals(id));
+    }
+
+    private void encolar(Integer id, String mac, LocalDateTime fechaVencimiento) {
+        if (!habilitado || id == null) {
+            return;
+        }
+        long vencimientoMs = fechaVencimiento.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        vencimientos.put(id, vencimientoMs);
+        cola.put(new Expiracion(id, mac, vencimientoMs));
+    }
+
+    private void procesar() {
+        while (hilo == Thread.currentThread()) {
+            try {
+                List<Expiracion> lote = new ArrayList<>();
+                lote.add(cola.take());
+
+                // Agrupar los vencimientos que llegan dentro de la ventana en un solo UPDATE
+                long limite = System.currentTimeMillis() + ventanaMs;
+                while (lote.size() < loteMax) {
+                    cola.drainTo(lote, loteMax - lote.size());
+                    long espera = limite - System.currentTimeMillis();
+                    if (lote.size() >= loteMax || espera <= 0) {
+                        break;
+                    }
+                    Expiracion siguiente = cola.poll(espera, TimeUnit.MILLISECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+
+                desactivar(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Error en el temporizador de expiración de licencias: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    private void desactivar(List<Expiracion> lote) {
+        Map<Integer, Expiracion> vigentes = new HashMap<>();
+        for (Expiracion expiracion : lote) {
+            Long vencimiento = vencimientos.get(expiracion.id);
+            if (vencimiento != null && vencimiento == expiracion.vencimientoMs) {
+                vigentes.put(expiracion.id, expiracion);
+            }
+        }
+        if (vigentes.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<LicenciaRepository.LicenciaDesactivada> desactivadas =
+                    licenciaRepository.desactivarVencidasPorId(vigentes.keySet(), LocalDateTime.now());
+
+            for (LicenciaRepository.LicenciaDesactivada licencia : desactivadas) {
+                log.info("Licencia vencida desactivada - ID: {}, MAC: {}, Empresa: {}",
+                        licencia.getId(), licencia.getMac(), licencia.getEmpresa());
+            }
+            licenciaCache.desactivar(desactivadas);
+            for (Expiracion expiracion : vigentes.values()) {
+                vencimientos.remove(expiracion.id, expiracion.vencimientoMs);
+            }
+        } catch (Exception e) {
+            log.error("❌ Error al desactivar {} licencias vencidas, se reintentará: {}", vigentes.size(), e.getMessage());
+            long reintento = System.currentTimeMillis() + reintentoMs;
+            for (Expiracion expiracion : vigentes.values()) {
+                cola.put(new Expiracion(expiracion.id, expiracion.mac, expiracion.vencimientoMs, reintento));
+            }
+        }
+    }
+
+    /**
+     * Entrada de la cola: vence en 'disparoMs', normalmente igual al vencimiento de la licencia
+     */
+    private static final class Expiracion implements Delayed {
+        private final Integer id;
+        private final String mac;
+        private final long vencimientoMs;
+        private final long disparoMs;
+
+        Expiracion(Integer id, String mac, long vencimientoMs) {
+            this(id, mac, vencimientoMs, vencimientoMs);
+        }
+
+        Expiracion(Integer id, String mac, long vencimientoMs, long disparoMs) {
+            this.id = id;
+            this.mac = mac;
+            this.vencimientoMs = vencimientoMs;
+            this.disparoMs = disparoMs;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(disparoMs - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(disparoMs, ((Expiracion) otro).disparoMs);
+        }
+    }
+}
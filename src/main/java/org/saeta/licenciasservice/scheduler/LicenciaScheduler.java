@@ -1,5 +1,6 @@
 package org.saeta.licenciasservice.scheduler;
 
+import org.saeta.licenciasservice.cache.LicenciaSnapshotCache;
 import org.saeta.licenciasservice.entity.Licencia;
 import org.saeta.licenciasservice.repository.LicenciaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,6 +8,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -19,22 +21,31 @@ public class LicenciaScheduler {
     @Autowired
     private LicenciaRepository licenciaRepository;
 
-    @Scheduled(cron = "0 */5 * * * *")
+    @Autowired
+    private LicenciaSnapshotCache licenciaCache;
+
+    @Autowired
+    private LicenciaExpiracionTimer expiracionTimer;
+
+    /**
+     * Barrido de reconciliación: LicenciaExpiracionTimer desactiva cada licencia al vencer,
+     * este proceso solo recoge las que se hayan escapado (reinicios, cambios hechos fuera de la API).
+     * Por defecto se ejecuta cada hora.
+     */
+    @Scheduled(cron = "${app.licencias.expiracion.reconciliacion-cron:0 0 * * * *}")
     public void limpiarLicenciasVencidas() {
         try {
-            // Obtener todas las licencias activas
-            List<Licencia> licenciasActivas = licenciaRepository.findLicenciasActivas();
-            int licenciasDesactivadas = 0;
-
-            for (Licencia licencia : licenciasActivas) {
-                if (licencia.hasVencido()) {
-                    licencia.setEstado("0");
-                    licenciaRepository.save(licencia);
-                    licenciasDesactivadas++;
-                    log.info("Licencia vencida desactivada - ID: {}, MAC: {}, Empresa: {}",
-                            licencia.getId(), licencia.getMac(), licencia.getEmpresa());
-                }
+            // Desactivar en bloque las licencias vencidas
+            List<LicenciaRepository.LicenciaDesactivada> desactivadas =
+                    licenciaRepository.desactivarVencidas(LocalDateTime.now());
+            int licenciasDesactivadas = desactivadas.size();
+
+            for (LicenciaRepository.LicenciaDesactivada licencia : desactivadas) {
+                log.info("Licencia vencida desactivada - ID: {}, MAC: {}, Empresa: {}",
+                        licencia.getId(), licencia.getMac(), licencia.getEmpresa());
             }
+            licenciaCache.desactivar(desactivadas);
+            expiracionTimer.olvidar(desactivadas);
 
             if (licenciasDesactivadas > 0) {
                 log.info("✅ Total de licencias vencidas desactivadas: {}", licenciasDesactivadas);
@@ -54,32 +65,29 @@ public class LicenciaScheduler {
     @Scheduled(cron = "0 0 8 * * *")
     public void reportarLicenciasProximasAVencer() {
         try {
-            List<Licencia> licenciasActivas = licenciaRepository.findLicenciasActivas();
+            // Licencias que vencen en los próximos 7 días (menos de 8 días completos)
+            LocalDateTime ahora = LocalDateTime.now();
+            List<Licencia> licenciasPorVencer = licenciaRepository.findLicenciasPorVencer(ahora, ahora.plusDays(8));
             int licenciasProximasAVencer = 0;
 
             log.info("🔔 Verificando licencias próximas a vencer...");
 
-            for (Licencia licencia : licenciasActivas) {
-                long diasRestantes = licencia.getDiasRestantes();
-
-                // Reportar licencias que vencen en los próximos 7 días
-                if (diasRestantes >= 0 && diasRestantes <= 7) {
-                    licenciasProximasAVencer++;
+            for (Licencia licencia : licenciasPorVencer) {
+                licenciasProximasAVencer++;
 
-                    var tiempo = licencia.getTiempoRestanteDetallado();
-                    String tiempoRestante = "";
+                var tiempo = licencia.getTiempoRestanteDetallado();
+                String tiempoRestante = "";
 
-                    if (tiempo.getDias() > 0) {
-                        tiempoRestante = tiempo.getDias() + " días, " + tiempo.getHoras() + " horas";
-                    } else if (tiempo.getHoras() > 0) {
-                        tiempoRestante = tiempo.getHoras() + " horas, " + tiempo.getMinutos() + " minutos";
-                    } else {
-                        tiempoRestante = tiempo.getMinutos() + " minutos";
-                    }
-
-                    log.warn("⚠️ Licencia próxima a vencer - ID: {}, MAC: {}, Empresa: {}, Tiempo restante: {}",
-                            licencia.getId(), licencia.getMac(), licencia.getEmpresa(), tiempoRestante);
+                if (tiempo.getDias() > 0) {
+                    tiempoRestante = tiempo.getDias() + " días, " + tiempo.getHoras() + " horas";
+                } else if (tiempo.getHoras() > 0) {
+                    tiempoRestante = tiempo.getHoras() + " horas, " + tiempo.getMinutos() + " minutos";
+                } else {
+                    tiempoRestante = tiempo.getMinutos() + " minutos";
                 }
+
+                log.warn("⚠️ Licencia próxima a vencer - ID: {}, MAC: {}, Empresa: {}, Tiempo restante: {}",
+                        licencia.getId(), licencia.getMac(), licencia.getEmpresa(), tiempoRestante);
             }
 
             if (licenciasProximasAVencer > 0) {
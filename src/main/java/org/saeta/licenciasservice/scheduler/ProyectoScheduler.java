@@ -17,17 +17,17 @@ public class ProyectoScheduler {
     private ProyectoService proyectoService;
 
     /**
-     * Actualiza la vigencia restante de todos los proyectos
+     * Desactiva los proyectos que vencieron desde la ejecución anterior
      * Se ejecuta todos los días a las 00:00
      */
     @Scheduled(cron = "0 0 0 * * *")
-    public void actualizarVigenciaRestante() {
+    public void desactivarVencidos() {
         try {
-            log.info("🔄 Iniciando actualización de vigencias restantes...");
-            proyectoService.actualizarVigenciaRestante();
-            log.info("✅ Vigencias restantes actualizadas exitosamente");
+            log.info("🔄 Iniciando desactivación de proyectos vencidos...");
+            proyectoService.desactivarVencidos();
+            log.info("✅ Proyectos vencidos desactivados exitosamente");
         } catch (Exception e) {
-            log.error("❌ Error al actualizar vigencias restantes: {}", e.getMessage(), e);
+            log.error("❌ Error al desactivar proyectos vencidos: {}", e.getMessage(), e);
         }
     }
 
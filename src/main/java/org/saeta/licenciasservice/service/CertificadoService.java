@@ -1,32 +1,43 @@
 package org.saeta.licenciasservice.service;
 
+import org.saeta.licenciasservice.cache.CatalogoCache;
+import org.saeta.licenciasservice.cache.IndiceBusquedaCache;
 import org.saeta.licenciasservice.dto.*;
 import org.saeta.licenciasservice.entity.Certificado;
-import org.saeta.licenciasservice.entity.Ejecutivo;
+import org.saeta.licenciasservice.repository.CertificadoBulkRepository;
 import org.saeta.licenciasservice.repository.CertificadoRepository;
-import org.saeta.licenciasservice.repository.EjecutivoRepository;
+import org.saeta.licenciasservice.util.BusquedaTexto;
+import org.saeta.licenciasservice.util.CursorPaginacion;
+import org.saeta.licenciasservice.util.ExcelStreamReader;
+import org.saeta.licenciasservice.util.FechaParser;
+import org.saeta.licenciasservice.util.TablaTexto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import lombok.extern.slf4j.Slf4j;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import jakarta.annotation.PostConstruct;
 
 import jakarta.persistence.criteria.Predicate;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,24 +46,55 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CertificadoService {
 
+    // IDs por UPDATE al marcar alertas enviadas
+    private static final int IDS_POR_ACTUALIZACION = 1000;
+
+    // Columnas (no nulas) por las que se puede ordenar en la paginación por cursor
+    private static final Set<String> ORDENES_CURSOR = Set.of("id", "fechaEmision", "fechaVencimiento",
+            "ejecutivoId", "tipoCertificado", "nombres", "primerApellido", "numeroDocumento");
+
     @Autowired
     private CertificadoRepository certificadoRepository;
 
     @Autowired
-    private EjecutivoRepository ejecutivoRepository;
+    private CertificadoBulkRepository certificadoBulkRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ImportacionPipeline importacionPipeline;
+
+    @Autowired
+    private IndiceBusquedaCache indiceBusqueda;
 
-    @Autowired(required = false)
-    private JavaMailSender mailSender;
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Value("${app.certificados.carga.tamano-lote:500}")
+    private int tamanoLoteCarga;
+
+    @Value("${app.importacion.max-errores:1000}")
+    private int maxErrores;
+
+    // Transacción independiente por lote para las importaciones en segundo plano
+    private TransactionTemplate transaccionPorLote;
+
+    @PostConstruct
+    public void init() {
+        transaccionPorLote = new TransactionTemplate(transactionManager);
+        transaccionPorLote.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Autowired
+    private CorreoOutboxService correoOutboxService;
 
-    // Formateadores de fecha
-    private static final DateTimeFormatter[] DATE_FORMATTERS = {
-            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
-            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
-            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
-    };
+    @Value("${app.alertas.resumen.enabled:true}")
+    private boolean alertasResumen;
+
+    // Días antes del vencimiento en que se envía cada alerta
+    @Value("${app.alertas.certificados.umbrales:10,20,30}")
+    private List<Integer> umbralesAlerta;
 
     /**
      * Obtiene todos los certificados con paginación
@@ -61,6 +103,13 @@ public class CertificadoService {
         return certificadoRepository.findAll(pageable).map(this::convertToDTO);
     }
 
+    /**
+     * Obtiene todos los certificados con paginación por cursor (sin total)
+     */
+    public PaginaCursorDTO<CertificadoDTO> listarCertificados(String cursor, int size, Sort sort) {
+        return CursorPaginacion.consultar(certificadoRepository, null, cursor, size, sort, ORDENES_CURSOR, this::convertToDTO);
+    }
+
     /**
      * Obtiene un certificado por ID
      */
@@ -75,8 +124,9 @@ public class CertificadoService {
      */
     public CertificadoDTO crearCertificado(CreateCertificadoRequest request) {
         // Verificar si el ejecutivo existe
-        Ejecutivo ejecutivo = ejecutivoRepository.findById(request.getEjecutivoId())
-                .orElseThrow(() -> new RuntimeException("Ejecutivo no encontrado con ID: " + request.getEjecutivoId()));
+        if (catalogoCache.getEjecutivo(request.getEjecutivoId()) == null) {
+            throw new RuntimeException("Ejecutivo no encontrado con ID: " + request.getEjecutivoId());
+        }
 
         // Verificar si ya existe un certificado con el mismo documento y tipo
         if (certificadoRepository.existsByNumeroDocumentoAndTipoCertificado(
@@ -89,6 +139,7 @@ public class CertificadoService {
         certificado.setActivo(true);
 
         Certificado saved = certificadoRepository.save(certificado);
+        indiceBusqueda.actualizarCertificado(saved);
         return convertToDTO(saved);
     }
 
@@ -104,12 +155,11 @@ public class CertificadoService {
         // Resetear alertas si se cambian las fechas
         if (request.getFechaVencimiento() != null &&
                 !request.getFechaVencimiento().equals(certificado.getFechaVencimiento())) {
-            certificado.setAlerta10Enviada(false);
-            certificado.setAlerta20Enviada(false);
-            certificado.setAlerta30Enviada(false);
+            certificado.setUmbralAlertaEnviada(null);
         }
 
         Certificado updated = certificadoRepository.save(certificado);
+        indiceBusqueda.actualizarCertificado(updated);
         return convertToDTO(updated);
     }
 
@@ -121,6 +171,7 @@ public class CertificadoService {
             throw new RuntimeException("Certificado no encontrado con ID: " + id);
         }
         certificadoRepository.deleteById(id);
+        indiceBusqueda.eliminarCertificado(id);
     }
 
     /**
@@ -128,7 +179,27 @@ public class CertificadoService {
      */
     public Page<CertificadoDTO> buscarCertificados(Integer ejecutivoId, String razonSocial,
                                                    String nombres, String estado, Pageable pageable) {
-        Specification<Certificado> spec = (root, query, criteriaBuilder) -> {
+        Page<Integer> ids = indiceBusqueda.buscarCertificados(ejecutivoId, razonSocial, nombres, estado, pageable);
+        if (ids != null) {
+            return IndiceBusquedaCache.hidratar(ids, certificadoRepository::findAllById, Certificado::getId, this::convertToDTO);
+        }
+
+        return certificadoRepository.findAll(especificacionBusqueda(ejecutivoId, razonSocial, nombres, estado), pageable)
+                .map(this::convertToDTO);
+    }
+
+    /**
+     * Busca certificados con filtros y paginación por cursor (sin total)
+     */
+    public PaginaCursorDTO<CertificadoDTO> buscarCertificados(Integer ejecutivoId, String razonSocial, String nombres,
+                                                              String estado, String cursor, int size, Sort sort) {
+        return CursorPaginacion.consultar(certificadoRepository, especificacionBusqueda(ejecutivoId, razonSocial, nombres, estado),
+                cursor, size, sort, ORDENES_CURSOR, this::convertToDTO);
+    }
+
+    private Specification<Certificado> especificacionBusqueda(Integer ejecutivoId, String razonSocial,
+                                                              String nombres, String estado) {
+        return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
 
             if (ejecutivoId != null) {
@@ -136,158 +207,310 @@ public class CertificadoService {
             }
 
             if (razonSocial != null && !razonSocial.isEmpty()) {
-                predicates.add(criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("razonSocial")),
-                        "%" + razonSocial.toLowerCase() + "%"
-                ));
+                predicates.add(BusquedaTexto.contiene(criteriaBuilder, root.get("razonSocial"), razonSocial));
             }
 
             if (nombres != null && !nombres.isEmpty()) {
-                Predicate nombresPred = criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("nombres")),
-                        "%" + nombres.toLowerCase() + "%"
-                );
-                Predicate apellidoPred = criteriaBuilder.like(
-                        criteriaBuilder.lower(root.get("primerApellido")),
-                        "%" + nombres.toLowerCase() + "%"
-                );
-                predicates.add(criteriaBuilder.or(nombresPred, apellidoPred));
+                predicates.add(BusquedaTexto.contieneEnAlguno(criteriaBuilder, nombres,
+                        root.get("nombres"), root.get("primerApellido")));
             }
 
             if (estado != null && !estado.isEmpty()) {
-                predicates.add(criteriaBuilder.equal(root.get("estado"), estado));
+                // El estado no se guarda: se traduce a un rango de fecha_vencimiento (usa el índice)
+                Certificado.RangoVencimiento rango = Certificado.RangoVencimiento.de(estado, LocalDateTime.now());
+                if (rango == null) {
+                    predicates.add(criteriaBuilder.disjunction());
+                } else {
+                    if (rango.getDesde() != null) {
+                        predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("fechaVencimiento"), rango.getDesde()));
+                    }
+                    if (rango.getHasta() != null) {
+                        predicates.add(criteriaBuilder.lessThan(root.get("fechaVencimiento"), rango.getHasta()));
+                    }
+                }
             }
 
             predicates.add(criteriaBuilder.equal(root.get("activo"), true));
 
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
-
-        return certificadoRepository.findAll(spec, pageable).map(this::convertToDTO);
     }
 
     /**
-     * Carga certificados desde archivo Excel
+     * Carga certificados desde archivo Excel en la transacción de la petición
+     * @param errores recibe los errores por fila (hasta app.importacion.max-errores)
      */
-    public List<CertificadoDTO> cargarDesdeExcel(MultipartFile file) throws IOException {
+    public List<CertificadoDTO> cargarDesdeExcel(MultipartFile file, List<String> errores) throws IOException {
+        ImportacionJob resultado = new ImportacionJob(ImportacionJob.CERTIFICADOS, file.getOriginalFilename(), maxErrores);
         List<CertificadoDTO> certificadosCargados = new ArrayList<>();
-        List<String> errores = new ArrayList<>();
 
-        try (InputStream is = file.getInputStream();
-             Workbook workbook = new XSSFWorkbook(is)) {
+        Path temporal = ExcelStreamReader.copiarATemporal(file);
+        try {
+            importar(temporal.toFile(), resultado, certificadosCargados, null);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
 
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rows = sheet.iterator();
+        if (resultado.getTotalErrores() > 0) {
+            log.warn("Se encontraron {} errores durante la carga", resultado.getTotalErrores());
+        }
+        errores.addAll(resultado.toDTO().getErrores());
 
-            // Saltar la fila de encabezados
-            if (rows.hasNext()) {
-                rows.next();
-            }
+        return certificadosCargados;
+    }
 
-            // Crear un mapa de ejecutivos para búsqueda rápida
-            Map<String, Ejecutivo> ejecutivosMap = ejecutivoRepository.findAll().stream()
-                    .filter(e -> "1".equals(e.getEstado()))
-                    .collect(Collectors.toMap(
-                            e -> e.getNombreEjecutivo().toUpperCase(),
-                            e -> e,
-                            (e1, e2) -> e1
-                    ));
-
-            int rowNum = 2;
-            while (rows.hasNext()) {
-                Row row = rows.next();
-                if (isRowEmpty(row)) continue;
-
-                try {
-                    CertificadoExcelDTO excelDTO = procesarFilaExcel(row);
-
-                    if (excelDTO.isEsValido()) {
-                        // Buscar ejecutivo
-                        Ejecutivo ejecutivo = ejecutivosMap.get(excelDTO.getEjecutivo().toUpperCase());
-                        if (ejecutivo == null) {
-                            errores.add("Fila " + rowNum + ": Ejecutivo no encontrado: " + excelDTO.getEjecutivo());
-                            continue;
-                        }
+    /**
+     * Importa certificados desde un archivo Excel para un job en segundo plano.
+     * Cada lote se confirma en su propia transacción, de modo que el avance queda guardado
+     * aunque el archivo falle más adelante.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void importarCertificados(File archivo, ImportacionJob job) throws IOException {
+        importar(archivo, job, null, transaccionPorLote);
+    }
 
-                        // Crear certificado
-                        Certificado certificado = crearCertificadoDesdeExcel(excelDTO, ejecutivo);
+    /**
+     * La hoja se procesa con ImportacionPipeline: un hilo la lee en streaming, el pool convierte y
+     * valida las filas en paralelo y este hilo recibe los certificados en el orden del archivo.
+     * Las filas válidas se acumulan en lotes: por cada lote se consultan de una vez los
+     * (documento, tipo) ya registrados y los nuevos se insertan con un único batch JDBC.
+     * Los duplicados dentro del mismo archivo también se descartan.
+     * @param certificadosCargados si no es null, recibe los certificados creados
+     * @param transaccion si no es null, cada lote se guarda en una transacción propia
+     */
+    private void importar(File archivo, ImportacionJob job, List<CertificadoDTO> certificadosCargados,
+                          TransactionTemplate transaccion) throws IOException {
+        // Una misma instantánea del catálogo para todo el archivo (inmutable, se consulta desde los procesadores)
+        CatalogoCache.Catalogo<EjecutivoDTO> ejecutivos = catalogoCache.getEjecutivos();
+
+        Set<String> clavesArchivo = new HashSet<>();
+        List<Certificado> lote = new ArrayList<>(tamanoLoteCarga);
+        List<Integer> filasLote = new ArrayList<>(tamanoLoteCarga);
+
+        // La primera fila contiene los encabezados
+        importacionPipeline.ejecutar(
+                consumidor -> ExcelStreamReader.leerPrimeraHoja(archivo, 1, consumidor),
+                (ExcelStreamReader.Fila fila) -> convertirFila(fila, ejecutivos),
+                resultado -> {
+                    int rowNum = resultado.numero;
+                    job.registrarFila();
+                    if (resultado.error != null) {
+                        job.registrarError(rowNum, resultado.error);
+                        return;
+                    }
 
-                        // Verificar si ya existe
-                        if (!certificadoRepository.existsByNumeroDocumentoAndTipoCertificado(
-                                certificado.getNumeroDocumento(), certificado.getTipoCertificado())) {
-                            Certificado saved = certificadoRepository.save(certificado);
-                            certificadosCargados.add(convertToDTO(saved));
-                        } else {
+                    try {
+                        Certificado certificado = resultado.certificado;
+
+                        // Duplicado dentro del propio archivo
+                        if (!clavesArchivo.add(claveCertificado(certificado.getNumeroDocumento(), certificado.getTipoCertificado()))) {
                             log.warn("Certificado duplicado en fila {}: {} - {}",
                                     rowNum, certificado.getNumeroDocumento(), certificado.getTipoCertificado());
+                            job.registrarDuplicado();
+                            return;
+                        }
+
+                        lote.add(certificado);
+                        filasLote.add(rowNum);
+                        if (lote.size() >= tamanoLoteCarga) {
+                            guardarLote(lote, filasLote, job, certificadosCargados, transaccion);
                         }
-                    } else {
-                        errores.add("Fila " + rowNum + ": " + excelDTO.getError());
+                    } catch (Exception e) {
+                        log.error("Error procesando fila {}: {}", rowNum, e.getMessage());
+                        job.registrarError(rowNum, e.getMessage());
                     }
-                } catch (Exception e) {
-                    log.error("Error procesando fila {}: {}", rowNum, e.getMessage());
-                    errores.add("Fila " + rowNum + ": " + e.getMessage());
-                }
-                rowNum++;
+                });
+        guardarLote(lote, filasLote, job, certificadosCargados, transaccion);
+    }
+
+    /**
+     * Convierte y valida una fila; se ejecuta en los hilos del pipeline, sin acceso a la base de datos
+     */
+    private FilaCertificado convertirFila(ExcelStreamReader.Fila fila, CatalogoCache.Catalogo<EjecutivoDTO> ejecutivos) {
+        int rowNum = fila.getNumero();
+        try {
+            CertificadoExcelDTO excelDTO = procesarFilaExcel(fila);
+            if (!excelDTO.isEsValido()) {
+                return new FilaCertificado(rowNum, null, excelDTO.getError());
+            }
+
+            // Buscar ejecutivo activo por nombre
+            EjecutivoDTO ejecutivo = ejecutivos.porNombre(excelDTO.getEjecutivo());
+            if (ejecutivo == null) {
+                return new FilaCertificado(rowNum, null, "Ejecutivo no encontrado: " + excelDTO.getEjecutivo());
             }
+
+            LocalDateTime fechaEmision = FechaParser.parsear(excelDTO.getFechaEmision());
+            if (fechaEmision == null) {
+                return new FilaCertificado(rowNum, null, "Fecha de emisión no válida: " + excelDTO.getFechaEmision());
+            }
+            LocalDateTime fechaVencimiento = FechaParser.parsear(excelDTO.getFechaVencimiento());
+            if (fechaVencimiento == null) {
+                return new FilaCertificado(rowNum, null, "Fecha de vencimiento no válida: " + excelDTO.getFechaVencimiento());
+            }
+
+            // Crear certificado
+            Certificado certificado = crearCertificadoDesdeExcel(excelDTO, ejecutivo, fechaEmision, fechaVencimiento);
+            return new FilaCertificado(rowNum, certificado, null);
+        } catch (Exception e) {
+            log.error("Error procesando fila {}: {}", rowNum, e.getMessage());
+            return new FilaCertificado(rowNum, null, e.getMessage());
         }
+    }
+
+    /**
+     * Resultado de convertir una fila: el certificado o el error que la invalida
+     */
+    private static final class FilaCertificado {
+        private final int numero;
+        private final Certificado certificado;
+        private final String error;
 
-        if (!errores.isEmpty()) {
-            log.warn("Se encontraron {} errores durante la carga", errores.size());
+        FilaCertificado(int numero, Certificado certificado, String error) {
+            this.numero = numero;
+            this.certificado = certificado;
+            this.error = error;
         }
+    }
 
-        return certificadosCargados;
+    private void guardarLote(List<Certificado> lote, List<Integer> filasLote, ImportacionJob job,
+                             List<CertificadoDTO> certificadosCargados, TransactionTemplate transaccion) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        if (transaccion != null) {
+            transaccion.executeWithoutResult(estado -> guardarLote(lote, filasLote, job, certificadosCargados));
+        } else {
+            guardarLote(lote, filasLote, job, certificadosCargados);
+        }
+
+        lote.clear();
+        filasLote.clear();
     }
 
     /**
-     * Actualiza el estado de vigencia de todos los certificados
+     * Descarta los certificados del lote que ya existen (una consulta) e inserta el resto en un batch
      */
-    public void actualizarVigencias() {
-        List<Certificado> certificados = certificadoRepository.findCertificadosActivos();
+    private void guardarLote(List<Certificado> lote, List<Integer> filasLote, ImportacionJob job,
+                             List<CertificadoDTO> certificadosCargados) {
+        Set<String> documentos = lote.stream().map(Certificado::getNumeroDocumento).collect(Collectors.toSet());
+        Set<String> existentes = certificadoRepository.findClavesExistentes(documentos).stream()
+                .map(c -> claveCertificado(c.getNumeroDocumento(), c.getTipoCertificado()))
+                .collect(Collectors.toSet());
+
+        List<Certificado> nuevos = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            Certificado certificado = lote.get(i);
+            if (existentes.contains(claveCertificado(certificado.getNumeroDocumento(), certificado.getTipoCertificado()))) {
+                log.warn("Certificado duplicado en fila {}: {} - {}",
+                        filasLote.get(i), certificado.getNumeroDocumento(), certificado.getTipoCertificado());
+                job.registrarDuplicado();
+            } else {
+                nuevos.add(certificado);
+            }
+        }
 
-        for (Certificado certificado : certificados) {
-            certificado.actualizarVigencia();
-            certificadoRepository.save(certificado);
+        certificadoBulkRepository.insertar(nuevos);
+        for (Certificado certificado : nuevos) {
+            indiceBusqueda.actualizarCertificado(certificado);
+        }
+        job.registrarCargados(nuevos.size());
+        if (certificadosCargados != null) {
+            for (Certificado certificado : nuevos) {
+                certificadosCargados.add(convertToDTO(certificado));
+            }
         }
+    }
 
-        log.info("Actualizadas {} vigencias de certificados", certificados.size());
+    private static String claveCertificado(String numeroDocumento, String tipoCertificado) {
+        return numeroDocumento + '\u0000' + tipoCertificado;
     }
 
     /**
-     * Envía alertas de vencimiento
+     * Envía alertas de vencimiento.
+     * Una sola consulta devuelve cada certificado con alerta pendiente y el menor umbral que
+     * alcanzó (umbrales configurables en app.alertas.certificados.umbrales). En modo resumen
+     * (app.alertas.resumen.enabled) se encola un correo por destinatario con la tabla de
+     * certificados; si no, un correo por certificado. Las marcas se guardan en la misma
+     * transacción que los correos encolados.
      */
     public void enviarAlertasVencimiento() {
         LocalDateTime ahora = LocalDateTime.now();
-
-        // Alertas de 10 días
-        LocalDateTime limite10 = ahora.plusDays(10);
-        List<Certificado> certificados10 = certificadoRepository.findCertificadosParaAlerta10(ahora, limite10);
-        for (Certificado certificado : certificados10) {
-            if (enviarCorreoAlerta(certificado, 10)) {
-                certificado.setAlerta10Enviada(true);
-                certificadoRepository.save(certificado);
+        List<CertificadoRepository.CertificadoAlerta> alertas = certificadoRepository.findAlertasPendientes(
+                ahora, ahora.plusDays(Collections.max(umbralesAlerta)), unirUmbrales(umbralesAlerta));
+
+        List<CertificadoRepository.CertificadoAlerta> enviadas = alertasResumen
+                ? enviarResumenAlertas(ahora, alertas)
+                : alertas.stream().filter(this::enviarCorreoAlerta).collect(Collectors.toList());
+
+        // Una actualización por umbral (y por bloque de IDs)
+        Map<Integer, List<Integer>> idsPorUmbral = enviadas.stream().collect(Collectors.groupingBy(
+                CertificadoRepository.CertificadoAlerta::getUmbral, TreeMap::new,
+                Collectors.mapping(CertificadoRepository.CertificadoAlerta::getId, Collectors.toList())));
+        idsPorUmbral.forEach((umbral, ids) -> {
+            for (int i = 0; i < ids.size(); i += IDS_POR_ACTUALIZACION) {
+                certificadoRepository.marcarAlertaEnviada(ids.subList(i, Math.min(i + IDS_POR_ACTUALIZACION, ids.size())), umbral);
             }
-        }
+        });
 
-        // Alertas de 20 días
-        LocalDateTime limite20 = ahora.plusDays(20);
-        List<Certificado> certificados20 = certificadoRepository.findCertificadosParaAlerta20(ahora, limite20);
-        for (Certificado certificado : certificados20) {
-            if (enviarCorreoAlerta(certificado, 20)) {
-                certificado.setAlerta20Enviada(true);
-                certificadoRepository.save(certificado);
-            }
-        }
+        log.info("Alertas de vencimiento: {} certificados pendientes, {} marcados", alertas.size(), enviadas.size());
+    }
 
-        // Alertas de 30 días
-        LocalDateTime limite30 = ahora.plusDays(30);
-        List<Certificado> certificados30 = certificadoRepository.findCertificadosParaAlerta30(ahora, limite30);
-        for (Certificado certificado : certificados30) {
-            if (enviarCorreoAlerta(certificado, 30)) {
-                certificado.setAlerta30Enviada(true);
-                certificadoRepository.save(certificado);
+    /**
+     * Un correo por destinatario con todos sus certificados por vencer (en el orden de la
+     * consulta, por fecha de vencimiento). Devuelve los certificados incluidos en algún correo.
+     */
+    private List<CertificadoRepository.CertificadoAlerta> enviarResumenAlertas(
+            LocalDateTime ahora, List<CertificadoRepository.CertificadoAlerta> alertas) {
+        Map<String, List<CertificadoRepository.CertificadoAlerta>> porDestinatario = new TreeMap<>();
+        List<CertificadoRepository.CertificadoAlerta> enviadas = new ArrayList<>();
+        for (CertificadoRepository.CertificadoAlerta alerta : alertas) {
+            List<String> destinatarios = destinatariosAlerta(alerta);
+            if (destinatarios.isEmpty()) {
+                log.warn("No hay correos configurados para el certificado ID: {}", alerta.getId());
+                continue;
             }
+            for (String destinatario : destinatarios) {
+                porDestinatario.computeIfAbsent(destinatario.trim().toLowerCase(), d -> new ArrayList<>()).add(alerta);
+            }
+            enviadas.add(alerta);
+        }
+
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        for (Map.Entry<String, List<CertificadoRepository.CertificadoAlerta>> entrada : porDestinatario.entrySet()) {
+            List<CertificadoRepository.CertificadoAlerta> certificados = entrada.getValue();
+
+            TablaTexto tabla = new TablaTexto("Vencimiento", "Días", "Tipo", "Titular", "Documento", "Empresa");
+            for (CertificadoRepository.CertificadoAlerta certificado : certificados) {
+                tabla.fila(
+                        certificado.getFechaVencimiento().format(formato),
+                        ChronoUnit.DAYS.between(ahora.toLocalDate(), certificado.getFechaVencimiento().toLocalDate()),
+                        certificado.getTipoCertificado(),
+                        certificado.getNombreCompleto(),
+                        certificado.getNumeroDocumento(),
+                        certificado.getRazonSocial() != null ? certificado.getRazonSocial() : "N/A");
+            }
+
+            String texto = "Estimado(a),\n\n" +
+                    "Le informamos que los siguientes " + certificados.size() +
+                    " certificados están próximos a vencer.\n\n" +
+                    tabla +
+                    "\nPor favor, tome las acciones necesarias para renovarlos.\n\n" +
+                    "Saludos cordiales,\n" +
+                    "Sistema de Gestión de Certificados";
+
+            correoOutboxService.encolar(CorreoOutboxService.TIPO_RESUMEN_CERTIFICADOS, "alertas@sistema-certificados.com",
+                    List.of(entrada.getKey()),
+                    "⚠️ Alerta de Vencimiento - " + certificados.size() + " certificado(s) por vencer", texto);
         }
+
+        log.info("Resumen de alertas encolado: {} certificados, {} correos", enviadas.size(), porDestinatario.size());
+        return enviadas;
+    }
+
+    private static String unirUmbrales(List<Integer> umbrales) {
+        return umbrales.stream().map(String::valueOf).collect(Collectors.joining(","));
     }
 
     /**
@@ -299,8 +522,7 @@ public class CertificadoService {
                 .fechaEmision(certificado.getFechaEmision())
                 .fechaVencimiento(certificado.getFechaVencimiento())
                 .ejecutivoId(certificado.getEjecutivoId())
-                .ejecutivoNombre(certificado.getEjecutivo() != null ?
-                        certificado.getEjecutivo().getNombreEjecutivo() : null)
+                .ejecutivoNombre(catalogoCache.getNombreEjecutivo(certificado.getEjecutivoId()))
                 .tipoCertificado(certificado.getTipoCertificado())
                 .nombres(certificado.getNombres())
                 .primerApellido(certificado.getPrimerApellido())
@@ -419,30 +641,30 @@ public class CertificadoService {
     /**
      * Procesa una fila del Excel
      */
-    private CertificadoExcelDTO procesarFilaExcel(Row row) {
+    private CertificadoExcelDTO procesarFilaExcel(ExcelStreamReader.Fila fila) {
         CertificadoExcelDTO dto = new CertificadoExcelDTO();
 
         try {
-            dto.setFechaEmision(getCellStringValue(row.getCell(0)));
-            dto.setFechaVencimiento(getCellStringValue(row.getCell(1)));
-            dto.setEjecutivo(getCellStringValue(row.getCell(2)));
-            dto.setTipo(getCellStringValue(row.getCell(3)));
-            dto.setNombres(getCellStringValue(row.getCell(4)));
-            dto.setPrimerApellido(getCellStringValue(row.getCell(5)));
-            dto.setSegundoApellido(getCellStringValue(row.getCell(6)));
-            dto.setNumeroDocumento(getCellStringValue(row.getCell(7)));
-            dto.setDepartamento(getCellStringValue(row.getCell(8)));
-            dto.setCargo(getCellStringValue(row.getCell(9)));
-            dto.setCorreoElectronico(getCellStringValue(row.getCell(10)));
-            dto.setRazonSocial(getCellStringValue(row.getCell(11)));
-            dto.setNumeroRuc(getCellStringValue(row.getCell(12)));
-            dto.setDireccion(getCellStringValue(row.getCell(13)));
-            dto.setCodigoPostal(getCellStringValue(row.getCell(14)));
-            dto.setTelefono(getCellStringValue(row.getCell(15)));
-            dto.setCorreoEjecutivo1(getCellStringValue(row.getCell(16)));
-            dto.setCorreoEjecutivo2(getCellStringValue(row.getCell(17)));
-            dto.setCorreoEjecutivo3(getCellStringValue(row.getCell(18)));
-            dto.setVigencia(getCellStringValue(row.getCell(19)));
+            dto.setFechaEmision(fila.getValor(0));
+            dto.setFechaVencimiento(fila.getValor(1));
+            dto.setEjecutivo(fila.getValor(2));
+            dto.setTipo(fila.getValor(3));
+            dto.setNombres(fila.getValor(4));
+            dto.setPrimerApellido(fila.getValor(5));
+            dto.setSegundoApellido(fila.getValor(6));
+            dto.setNumeroDocumento(fila.getValor(7));
+            dto.setDepartamento(fila.getValor(8));
+            dto.setCargo(fila.getValor(9));
+            dto.setCorreoElectronico(fila.getValor(10));
+            dto.setRazonSocial(fila.getValor(11));
+            dto.setNumeroRuc(fila.getValor(12));
+            dto.setDireccion(fila.getValor(13));
+            dto.setCodigoPostal(fila.getValor(14));
+            dto.setTelefono(fila.getValor(15));
+            dto.setCorreoEjecutivo1(fila.getValor(16));
+            dto.setCorreoEjecutivo2(fila.getValor(17));
+            dto.setCorreoEjecutivo3(fila.getValor(18));
+            dto.setVigencia(fila.getValor(19));
 
             // Validar campos requeridos
             if (dto.getFechaEmision() == null || dto.getFechaEmision().isEmpty()) {
@@ -485,11 +707,12 @@ public class CertificadoService {
     /**
      * Crea certificado desde datos del Excel
      */
-    private Certificado crearCertificadoDesdeExcel(CertificadoExcelDTO dto, Ejecutivo ejecutivo) {
+    private Certificado crearCertificadoDesdeExcel(CertificadoExcelDTO dto, EjecutivoDTO ejecutivo,
+                                                   LocalDateTime fechaEmision, LocalDateTime fechaVencimiento) {
         Certificado certificado = new Certificado();
 
-        certificado.setFechaEmision(parsearFecha(dto.getFechaEmision()));
-        certificado.setFechaVencimiento(parsearFecha(dto.getFechaVencimiento()));
+        certificado.setFechaEmision(fechaEmision);
+        certificado.setFechaVencimiento(fechaVencimiento);
         certificado.setEjecutivoId(ejecutivo.getId());
         certificado.setTipoCertificado(dto.getTipo());
         certificado.setNombres(dto.getNombres());
@@ -513,139 +736,64 @@ public class CertificadoService {
     }
 
     /**
-     * Envía correo de alerta
+     * Registra el correo de alerta en el outbox, dentro de la transacción que marca la alerta como
+     * enviada; el envío real lo hace CorreoDispatcher
      */
-    private boolean enviarCorreoAlerta(Certificado certificado, int dias) {
-        if (mailSender == null) {
-            log.warn("JavaMailSender no configurado, no se pueden enviar correos");
-            return false;
-        }
-
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom("alertas@sistema-certificados.com");
-
-            // Destinatarios
-            List<String> destinatarios = new ArrayList<>();
-            if (certificado.getCorreoEjecutivo1() != null && !certificado.getCorreoEjecutivo1().isEmpty()) {
-                destinatarios.add(certificado.getCorreoEjecutivo1());
-            }
-            if (certificado.getCorreoEjecutivo2() != null && !certificado.getCorreoEjecutivo2().isEmpty()) {
-                destinatarios.add(certificado.getCorreoEjecutivo2());
-            }
-            if (certificado.getCorreoEjecutivo3() != null && !certificado.getCorreoEjecutivo3().isEmpty()) {
-                destinatarios.add(certificado.getCorreoEjecutivo3());
-            }
+    private boolean enviarCorreoAlerta(CertificadoRepository.CertificadoAlerta certificado) {
+        int dias = certificado.getUmbral();
+        String remitente = "alertas@sistema-certificados.com";
 
-            if (destinatarios.isEmpty()) {
-                log.warn("No hay correos configurados para el certificado ID: {}", certificado.getId());
-                return false;
-            }
-
-            message.setTo(destinatarios.toArray(new String[0]));
-            message.setSubject("⚠️ Alerta de Vencimiento - Certificado " + certificado.getTipoCertificado());
-
-            String texto = String.format(
-                    "Estimado(a),\n\n" +
-                            "Le informamos que el certificado está próximo a vencer.\n\n" +
-                            "Detalles del certificado:\n" +
-                            "- Tipo: %s\n" +
-                            "- Titular: %s\n" +
-                            "- Documento: %s\n" +
-                            "- Empresa: %s\n" +
-                            "- Fecha de emisión: %s\n" +
-                            "- Fecha de vencimiento: %s\n" +
-                            "- Días restantes: %d\n\n" +
-                            "Por favor, tome las acciones necesarias para renovar este certificado.\n\n" +
-                            "Saludos cordiales,\n" +
-                            "Sistema de Gestión de Certificados",
-                    certificado.getTipoCertificado(),
-                    certificado.getNombreCompleto(),
-                    certificado.getNumeroDocumento(),
-                    certificado.getRazonSocial() != null ? certificado.getRazonSocial() : "N/A",
-                    certificado.getFechaEmision().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
-                    certificado.getFechaVencimiento().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
-                    dias
-            );
-
-            message.setText(texto);
-            mailSender.send(message);
-
-            log.info("Correo de alerta enviado para certificado ID: {} ({} días)", certificado.getId(), dias);
-            return true;
-
-        } catch (Exception e) {
-            log.error("Error al enviar correo de alerta para certificado ID: {}: {}",
-                    certificado.getId(), e.getMessage());
+        List<String> destinatarios = destinatariosAlerta(certificado);
+        if (destinatarios.isEmpty()) {
+            log.warn("No hay correos configurados para el certificado ID: {}", certificado.getId());
             return false;
         }
-    }
 
-    /**
-     * Obtiene el valor de una celda como String
-     */
-    private String getCellStringValue(Cell cell) {
-        if (cell == null) return null;
-
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getLocalDateTimeCellValue()
-                            .format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-                }
-                return String.valueOf((long) cell.getNumericCellValue());
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                try {
-                    return cell.getStringCellValue();
-                } catch (Exception e) {
-                    return String.valueOf(cell.getNumericCellValue());
-                }
-            default:
-                return null;
-        }
-    }
-
-    /**
-     * Verifica si una fila está vacía
-     */
-    private boolean isRowEmpty(Row row) {
-        if (row == null) return true;
-
-        for (int cellNum = row.getFirstCellNum(); cellNum < row.getLastCellNum(); cellNum++) {
-            Cell cell = row.getCell(cellNum);
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                return false;
-            }
-        }
+        String asunto = "⚠️ Alerta de Vencimiento - Certificado " + certificado.getTipoCertificado();
+
+        String texto = String.format(
+                "Estimado(a),\n\n" +
+                        "Le informamos que el certificado está próximo a vencer.\n\n" +
+                        "Detalles del certificado:\n" +
+                        "- Tipo: %s\n" +
+                        "- Titular: %s\n" +
+                        "- Documento: %s\n" +
+                        "- Empresa: %s\n" +
+                        "- Fecha de emisión: %s\n" +
+                        "- Fecha de vencimiento: %s\n" +
+                        "- Días restantes: %d\n\n" +
+                        "Por favor, tome las acciones necesarias para renovar este certificado.\n\n" +
+                        "Saludos cordiales,\n" +
+                        "Sistema de Gestión de Certificados",
+                certificado.getTipoCertificado(),
+                certificado.getNombreCompleto(),
+                certificado.getNumeroDocumento(),
+                certificado.getRazonSocial() != null ? certificado.getRazonSocial() : "N/A",
+                certificado.getFechaEmision().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+                certificado.getFechaVencimiento().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+                dias
+        );
+
+        correoOutboxService.encolar(CorreoOutboxService.TIPO_ALERTA_CERTIFICADO, remitente, destinatarios, asunto, texto);
+
+        log.info("Correo de alerta encolado para certificado ID: {} ({} días)", certificado.getId(), dias);
         return true;
     }
 
     /**
-     * Parsea una fecha desde string
+     * Correos de los ejecutivos configurados en el certificado
      */
-    private LocalDateTime parsearFecha(String fechaStr) {
-        if (fechaStr == null || fechaStr.isEmpty()) {
-            return null;
-        }
-
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                return LocalDateTime.parse(fechaStr + " 00:00:00",
-                        DateTimeFormatter.ofPattern(formatter.toString() + " HH:mm:ss"));
-            } catch (DateTimeParseException e) {
-                // Intentar sin hora
-                try {
-                    return LocalDateTime.parse(fechaStr + "T00:00:00");
-                } catch (DateTimeParseException e2) {
-                    // Continuar con el siguiente formato
-                }
-            }
+    private List<String> destinatariosAlerta(CertificadoRepository.CertificadoAlerta certificado) {
+        List<String> destinatarios = new ArrayList<>();
+        if (certificado.getCorreoEjecutivo1() != null && !certificado.getCorreoEjecutivo1().isEmpty()) {
+            destinatarios.add(certificado.getCorreoEjecutivo1());
         }
-
-        throw new RuntimeException("No se pudo parsear la fecha: " + fechaStr);
+        if (certificado.getCorreoEjecutivo2() != null && !certificado.getCorreoEjecutivo2().isEmpty()) {
+            destinatarios.add(certificado.getCorreoEjecutivo2());
+        }
+        if (certificado.getCorreoEjecutivo3() != null && !certificado.getCorreoEjecutivo3().isEmpty()) {
+            destinatarios.add(certificado.getCorreoEjecutivo3());
+        }
+        return destinatarios;
     }
-}
\ No newline at end of file
+}
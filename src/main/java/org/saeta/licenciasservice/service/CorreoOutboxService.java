@@ -0,0 +1,47 @@
+package org.saeta.licenciasservice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.CorreoPendiente;
+import org.saeta.licenciasservice.repository.CorreoPendienteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Registro de correos en el outbox (tabla correo_pendiente).
+ * encolar() participa en la transacción del llamador: el correo queda guardado si y solo si se
+ * confirma el cambio que lo origina (p. ej. la marca alertaXXEnviada). El envío lo hace CorreoDispatcher.
+ */
+@Service
+@Transactional
+@Slf4j
+public class CorreoOutboxService {
+
+    public static final String TIPO_ALERTA_CERTIFICADO = "ALERTA_CERTIFICADO";
+    public static final String TIPO_ALERTA_PROYECTO = "ALERTA_PROYECTO";
+    public static final String TIPO_RESUMEN_CERTIFICADOS = "RESUMEN_CERTIFICADOS";
+    public static final String TIPO_RESUMEN_PROYECTOS = "RESUMEN_PROYECTOS";
+
+    @Autowired
+    private CorreoPendienteRepository correoPendienteRepository;
+
+    public CorreoPendiente encolar(String tipo, String remitente, List<String> destinatarios,
+                                   String asunto, String cuerpo) {
+        if (destinatarios == null || destinatarios.isEmpty()) {
+            throw new IllegalArgumentException("El correo debe tener al menos un destinatario");
+        }
+
+        CorreoPendiente correo = new CorreoPendiente();
+        correo.setTipo(tipo);
+        correo.setRemitente(remitente);
+        correo.setDestinatarios(String.join(",", destinatarios));
+        correo.setAsunto(asunto);
+        correo.setCuerpo(cuerpo);
+
+        CorreoPendiente guardado = correoPendienteRepository.save(correo);
+        log.debug("Correo {} encolado (ID: {}) para {}", tipo, guardado.getId(), guardado.getDestinatarios());
+        return guardado;
+    }
+}
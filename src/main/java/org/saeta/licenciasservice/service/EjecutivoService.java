@@ -1,10 +1,12 @@
 package org.saeta.licenciasservice.service;
 
+import org.saeta.licenciasservice.cache.CatalogoCache;
 import org.saeta.licenciasservice.dto.EjecutivoDTO;
 import org.saeta.licenciasservice.dto.CreateEjecutivoRequest;
 import org.saeta.licenciasservice.dto.UpdateEjecutivoRequest;
 import org.saeta.licenciasservice.entity.Ejecutivo;
 import org.saeta.licenciasservice.repository.EjecutivoRepository;
+import org.saeta.licenciasservice.util.BusquedaTexto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -21,14 +23,19 @@ public class EjecutivoService {
     @Autowired
     private EjecutivoRepository ejecutivoRepository;
 
+    @Autowired
+    private CatalogoCache catalogoCache;
+
     public Page<EjecutivoDTO> listarEjecutivos(Pageable pageable) {
         return ejecutivoRepository.findAll(pageable).map(this::convertToDTO);
     }
 
     public EjecutivoDTO obtenerEjecutivo(Integer id) {
-        Ejecutivo ejecutivo = ejecutivoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Ejecutivo no encontrado con ID: " + id));
-        return convertToDTO(ejecutivo);
+        EjecutivoDTO ejecutivo = catalogoCache.getEjecutivo(id);
+        if (ejecutivo == null) {
+            throw new RuntimeException("Ejecutivo no encontrado con ID: " + id);
+        }
+        return ejecutivo;
     }
 
     public EjecutivoDTO crearEjecutivo(CreateEjecutivoRequest request) {
@@ -43,6 +50,7 @@ public class EjecutivoService {
         ejecutivo.setEstado(request.getEstado() != null ? request.getEstado() : "1");
 
         Ejecutivo saved = ejecutivoRepository.save(ejecutivo);
+        catalogoCache.invalidarEjecutivos();
         return convertToDTO(saved);
     }
 
@@ -69,6 +77,7 @@ public class EjecutivoService {
         }
 
         Ejecutivo updated = ejecutivoRepository.save(ejecutivo);
+        catalogoCache.invalidarEjecutivos();
         return convertToDTO(updated);
     }
 
@@ -77,6 +86,7 @@ public class EjecutivoService {
             throw new RuntimeException("Ejecutivo no encontrado con ID: " + id);
         }
         ejecutivoRepository.deleteById(id);
+        catalogoCache.invalidarEjecutivos();
     }
 
     public Page<EjecutivoDTO> buscarEjecutivos(String nombre, String abreviatura, String estado, Pageable pageable) {
@@ -84,12 +94,12 @@ public class EjecutivoService {
 
         if (nombre != null && !nombre.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("nombreEjecutivo")), "%" + nombre.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("nombreEjecutivo"), nombre));
         }
 
         if (abreviatura != null && !abreviatura.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("abreviatura")), "%" + abreviatura.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("abreviatura"), abreviatura));
         }
 
         if (estado != null && !estado.trim().isEmpty()) {
@@ -112,12 +122,12 @@ public class EjecutivoService {
 
         if (nombre != null && !nombre.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("nombreEjecutivo")), "%" + nombre.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("nombreEjecutivo"), nombre));
         }
 
         if (abreviatura != null && !abreviatura.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("abreviatura")), "%" + abreviatura.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("abreviatura"), abreviatura));
         }
 
         if (estado != null && !estado.trim().isEmpty()) {
@@ -140,14 +150,6 @@ public class EjecutivoService {
     }
 
     private EjecutivoDTO convertToDTO(Ejecutivo ejecutivo) {
-        return EjecutivoDTO.builder()
-                .id(ejecutivo.getId())
-                .nombreEjecutivo(ejecutivo.getNombreEjecutivo())
-                .abreviatura(ejecutivo.getAbreviatura())
-                .estado(ejecutivo.getEstado())
-                .activo(ejecutivo.isActivo())
-                .fechaCreacion(ejecutivo.getFechaCreacion())
-                .fechaActualizacion(ejecutivo.getFechaActualizacion())
-                .build();
+        return EjecutivoDTO.desde(ejecutivo);
     }
 }
\ No newline at end of file
@@ -0,0 +1,275 @@
+package org.saeta.licenciasservice.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.entity.Certificado;
+import org.saeta.licenciasservice.entity.Proyecto;
+import org.saeta.licenciasservice.util.BusquedaTexto;
+import org.saeta.licenciasservice.util.EscritorExportacion;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación completa de certificados y proyectos a xlsx o csv.
+ * Las filas se leen con un cursor JDBC de solo avance: dentro de una transacción de solo lectura
+ * y con fetch size, el driver de PostgreSQL trae las filas por bloques en lugar de cargar todo el
+ * resultado, y cada fila se escribe en la salida según llega (ver EscritorExportacion).
+ * Los filtros son los mismos que aplican CertificadoService.buscarCertificados y
+ * ProyectoService.buscarProyectosPorEstado, traducidos a SQL.
+ */
+@Service
+@Slf4j
+public class ExportacionService {
+
+    private static final String[] ENCABEZADOS_CERTIFICADOS = {
+            "ID", "Fecha Emisión", "Fecha V.", "Ejecutivo", "TIPO", "Nombres",
+            "Primer Apellido", "Segundo Apellido", "N° Documento", "Departamento",
+            "Cargo", "correo electronico", "Razon social", "N° RUC", "Dirección",
+            "Código postal", "Telefono", "CorreoEjecutivo1", "CorreoEjecutivo2",
+            "CorreoEjecutivo3", "Vigencia (días)", "Estado"
+    };
+
+    private static final String[] ENCABEZADOS_PROYECTOS = {
+            "ID", "ID Producto", "Producto", "Fecha Inicio", "Vigencia", "Vigencia Restante",
+            "Correo Vendedor 1", "Correo Vendedor 2", "Correo Jefe Vendedor", "Activo",
+            "Estado", "Fecha Vencimiento"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.exportacion.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.exportacion.ventana-filas:200}")
+    private int ventanaFilas;
+
+    private JdbcTemplate jdbcCursor;
+
+    private TransactionTemplate transaccionLectura;
+
+    @PostConstruct
+    public void init() {
+        jdbcCursor = new JdbcTemplate(dataSource);
+        jdbcCursor.setFetchSize(fetchSize);
+        // PostgreSQL solo usa el cursor (fetch size) con autocommit desactivado
+        transaccionLectura = new TransactionTemplate(transactionManager);
+        transaccionLectura.setReadOnly(true);
+    }
+
+    /**
+     * Exporta los certificados activos que cumplen los filtros, del más reciente al más antiguo
+     */
+    public void exportarCertificados(Integer ejecutivoId, String razonSocial, String nombres, String estado,
+                                     String formato, OutputStream salida) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT c.id, c.fecha_emision, c.fecha_vencimiento, e.nombre_ejecutivo, c.tipo_certificado, " +
+                "c.nombres, c.primer_apellido, c.segundo_apellido, c.numero_documento, c.departamento, c.cargo, " +
+                "c.correo_electronico, c.razon_social, c.numero_ruc, c.direccion, c.codigo_postal, c.telefono, " +
+                "c.correo_ejecutivo_1, c.correo_ejecutivo_2, c.correo_ejecutivo_3 " +
+                "FROM public.certificados c LEFT JOIN public.ejecutivo e ON e.id = c.ejecutivo_id " +
+                "WHERE c.activo = true");
+        List<Object> parametros = new ArrayList<>();
+
+        if (ejecutivoId != null) {
+            sql.append(" AND c.ejecutivo_id = ?");
+            parametros.add(ejecutivoId);
+        }
+        if (razonSocial != null && !razonSocial.isEmpty()) {
+            sql.append(" AND ").append(BusquedaTexto.sqlContiene("c.razon_social"));
+            parametros.add(BusquedaTexto.patronContiene(razonSocial));
+        }
+        if (nombres != null && !nombres.isEmpty()) {
+            sql.append(" AND (").append(BusquedaTexto.sqlContiene("c.nombres"))
+                    .append(" OR ").append(BusquedaTexto.sqlContiene("c.primer_apellido")).append(")");
+            String patron = BusquedaTexto.patronContiene(nombres);
+            parametros.add(patron);
+            parametros.add(patron);
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        if (estado != null && !estado.isEmpty()) {
+            // Mismo rango de fecha_vencimiento que CertificadoService.buscarCertificados
+            Certificado.RangoVencimiento rango = Certificado.RangoVencimiento.de(estado, ahora);
+            if (rango == null) {
+                sql.append(" AND 1 = 0");
+            } else {
+                if (rango.getDesde() != null) {
+                    sql.append(" AND c.fecha_vencimiento >= ?");
+                    parametros.add(rango.getDesde());
+                }
+                if (rango.getHasta() != null) {
+                    sql.append(" AND c.fecha_vencimiento < ?");
+                    parametros.add(rango.getHasta());
+                }
+            }
+        }
+        sql.append(" ORDER BY c.id DESC");
+
+        exportar(sql.toString(), parametros, ENCABEZADOS_CERTIFICADOS, formato, salida, (rs, escritor) -> {
+            LocalDateTime fechaVencimiento = rs.getObject(3, LocalDateTime.class);
+            escritor.fila(
+                    rs.getInt(1),
+                    rs.getObject(2, LocalDateTime.class),
+                    fechaVencimiento,
+                    rs.getString(4),
+                    rs.getString(5),
+                    rs.getString(6),
+                    rs.getString(7),
+                    rs.getString(8),
+                    rs.getString(9),
+                    rs.getString(10),
+                    rs.getString(11),
+                    rs.getString(12),
+                    rs.getString(13),
+                    rs.getString(14),
+                    rs.getString(15),
+                    rs.getString(16),
+                    rs.getString(17),
+                    rs.getString(18),
+                    rs.getString(19),
+                    rs.getString(20),
+                    ChronoUnit.DAYS.between(ahora, fechaVencimiento),
+                    Certificado.calcularEstado(fechaVencimiento, ahora));
+        });
+    }
+
+    /**
+     * Exporta los proyectos que cumplen los filtros, del más reciente al más antiguo
+     */
+    public void exportarProyectos(String idProducto, String producto, String correo, String estado,
+                                  String formato, OutputStream salida) throws IOException {
+        StringBuilder sql = new StringBuilder(
+                "SELECT p.id, p.id_producto, p.producto, p.fecha_inicio, p.vigencia, p.fecha_vencimiento, " +
+                "p.correo_vendedor1, p.correo_vendedor2, p.correo_jefe_vendedor, p.activo " +
+                "FROM public.proyectos p WHERE 1 = 1");
+        List<Object> parametros = new ArrayList<>();
+
+        if (idProducto != null && !idProducto.trim().isEmpty()) {
+            sql.append(" AND ").append(BusquedaTexto.sqlContiene("p.id_producto"));
+            parametros.add(BusquedaTexto.patronContiene(idProducto));
+        }
+        if (producto != null && !producto.trim().isEmpty()) {
+            sql.append(" AND ").append(BusquedaTexto.sqlContiene("p.producto"));
+            parametros.add(BusquedaTexto.patronContiene(producto));
+        }
+        if (correo != null && !correo.trim().isEmpty()) {
+            sql.append(" AND (").append(BusquedaTexto.sqlContiene("p.correo_vendedor1"))
+                    .append(" OR ").append(BusquedaTexto.sqlContiene("p.correo_vendedor2"))
+                    .append(" OR ").append(BusquedaTexto.sqlContiene("p.correo_jefe_vendedor")).append(")");
+            String patron = BusquedaTexto.patronContiene(correo);
+            parametros.add(patron);
+            parametros.add(patron);
+            parametros.add(patron);
+        }
+        if (estado != null && !estado.trim().isEmpty()) {
+            // Mismos rangos de fecha_vencimiento que ProyectoService.buscarProyectosPorEstado
+            LocalDateTime ahora = LocalDateTime.now();
+            LocalDateTime inicioVigente = Proyecto.inicioVigente(ahora);
+            LocalDateTime limiteCritico = Proyecto.inicioProximoVencer(ahora);
+            LocalDateTime limiteProximo = Proyecto.inicioActivo(ahora);
+            switch (estado.toUpperCase()) {
+                case "ACTIVO":
+                    sql.append(" AND p.activo = true AND p.fecha_vencimiento >= ?");
+                    parametros.add(limiteProximo);
+                    break;
+                case "PROXIMO_VENCER":
+                    sql.append(" AND p.activo = true AND p.fecha_vencimiento >= ? AND p.fecha_vencimiento < ?");
+                    parametros.add(limiteCritico);
+                    parametros.add(limiteProximo);
+                    break;
+                case "CRITICO":
+                    sql.append(" AND p.activo = true AND p.fecha_vencimiento >= ? AND p.fecha_vencimiento < ?");
+                    parametros.add(inicioVigente);
+                    parametros.add(limiteCritico);
+                    break;
+                case "VENCIDO":
+                    sql.append(" AND (p.fecha_vencimiento IS NULL OR p.fecha_vencimiento < ?)");
+                    parametros.add(inicioVigente);
+                    break;
+                case "INACTIVO":
+                    sql.append(" AND p.activo = false");
+                    break;
+                case "SIN_DATOS":
+                    sql.append(" AND p.activo = true AND p.fecha_vencimiento IS NULL");
+                    break;
+            }
+        }
+        sql.append(" ORDER BY p.id DESC");
+
+        // Entidad auxiliar para reutilizar el cálculo de estado y vencimiento de Proyecto
+        Proyecto proyecto = new Proyecto();
+        exportar(sql.toString(), parametros, ENCABEZADOS_PROYECTOS, formato, salida, (rs, escritor) -> {
+            proyecto.setFechaInicio(rs.getObject(4, LocalDateTime.class));
+            proyecto.setVigencia(rs.getString(5));
+            proyecto.setFechaVencimiento(rs.getObject(6, LocalDateTime.class));
+
+            String estadoProyecto = "ACTIVO";
+            if (proyecto.isVencido()) {
+                estadoProyecto = "VENCIDO";
+            } else if (proyecto.isProximoAVencer30()) {
+                estadoProyecto = "PROXIMO_A_VENCER";
+            }
+
+            escritor.fila(
+                    rs.getInt(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    proyecto.getFechaInicio(),
+                    proyecto.getVigencia(),
+                    proyecto.getVigenciaRestante(),
+                    rs.getString(7),
+                    rs.getString(8),
+                    rs.getString(9),
+                    rs.getObject(10, Boolean.class),
+                    estadoProyecto,
+                    proyecto.getFechaVencimiento());
+        });
+    }
+
+    private void exportar(String sql, List<Object> parametros, String[] encabezados, String formato,
+                          OutputStream salida, EscritorFila escritorFila) throws IOException {
+        long inicio = System.currentTimeMillis();
+        int[] filas = {0};
+
+        try (EscritorExportacion escritor = EscritorExportacion.crear(formato, salida, ventanaFilas)) {
+            escritor.encabezados(encabezados);
+            transaccionLectura.executeWithoutResult(estado ->
+                    jdbcCursor.query(sql, rs -> {
+                        try {
+                            escritorFila.escribir(rs, escritor);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        filas[0]++;
+                    }, parametros.toArray()));
+            escritor.terminar();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Exportación {} completada: {} filas en {} ms", formato, filas[0], System.currentTimeMillis() - inicio);
+    }
+
+    @FunctionalInterface
+    private interface EscritorFila {
+        void escribir(ResultSet rs, EscritorExportacion escritor) throws SQLException, IOException;
+    }
+}
@@ -0,0 +1,158 @@
+package org.saeta.licenciasservice.service;
+
+import org.saeta.licenciasservice.dto.ImportacionJobDTO;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progreso y resultado de una importación de Excel.
+ * Lo actualiza el hilo que procesa el archivo y lo consultan las peticiones GET /api/v1/jobs/{id};
+ * también se usa como acumulador en la carga síncrona.
+ */
+public class ImportacionJob {
+
+    public static final String CERTIFICADOS = "CERTIFICADOS";
+    public static final String PROYECTOS = "PROYECTOS";
+
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String EN_PROCESO = "EN_PROCESO";
+    public static final String COMPLETADO = "COMPLETADO";
+    public static final String FALLIDO = "FALLIDO";
+
+    private final String id = UUID.randomUUID().toString();
+    private final String tipo;
+    private final String archivo;
+    private final int maxErrores;
+    private final LocalDateTime fechaCreacion = LocalDateTime.now();
+
+    private volatile String estado = PENDIENTE;
+    private volatile String mensaje;
+    private volatile LocalDateTime fechaInicio;
+    private volatile LocalDateTime fechaFin;
+    private volatile long inicioNanos;
+    private volatile long finNanos;
+
+    private final AtomicInteger filasProcesadas = new AtomicInteger();
+    private final AtomicInteger registrosCargados = new AtomicInteger();
+    private final AtomicInteger duplicados = new AtomicInteger();
+    private final AtomicInteger totalErrores = new AtomicInteger();
+    private final List<String> errores = new ArrayList<>();
+
+    public ImportacionJob(String tipo, String archivo, int maxErrores) {
+        this.tipo = tipo;
+        this.archivo = archivo;
+        this.maxErrores = maxErrores;
+    }
+
+    public void iniciar() {
+        inicioNanos = System.nanoTime();
+        fechaInicio = LocalDateTime.now();
+        estado = EN_PROCESO;
+    }
+
+    public void completar() {
+        finalizar(COMPLETADO, "Se cargaron " + registrosCargados.get() + " registros de "
+                + filasProcesadas.get() + " filas (" + totalErrores.get() + " con error)");
+    }
+
+    public void fallar(String causa) {
+        finalizar(FALLIDO, causa);
+    }
+
+    private void finalizar(String estadoFinal, String mensajeFinal) {
+        finNanos = System.nanoTime();
+        fechaFin = LocalDateTime.now();
+        mensaje = mensajeFinal;
+        estado = estadoFinal;
+    }
+
+    public void registrarFila() {
+        filasProcesadas.incrementAndGet();
+    }
+
+    public void registrarCargados(int cantidad) {
+        registrosCargados.addAndGet(cantidad);
+    }
+
+    public void registrarDuplicado() {
+        duplicados.incrementAndGet();
+    }
+
+    /**
+     * Registra el error de una fila; solo se conservan los primeros 'maxErrores' mensajes
+     */
+    public void registrarError(int fila, String error) {
+        totalErrores.incrementAndGet();
+        synchronized (errores) {
+            if (errores.size() < maxErrores) {
+                errores.add("Fila " + fila + ": " + error);
+            }
+        }
+    }
+
+    public List<String> getErrores() {
+        synchronized (errores) {
+            return new ArrayList<>(errores);
+        }
+    }
+
+    public boolean isFinalizado() {
+        return COMPLETADO.equals(estado) || FALLIDO.equals(estado);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public LocalDateTime getFechaFin() {
+        return fechaFin;
+    }
+
+    public int getTotalErrores() {
+        return totalErrores.get();
+    }
+
+    /**
+     * Filas por segundo desde el inicio hasta el final (o hasta ahora si sigue en proceso)
+     */
+    public double getFilasPorSegundo() {
+        if (inicioNanos == 0L) {
+            return 0.0;
+        }
+        long fin = finNanos != 0L ? finNanos : System.nanoTime();
+        double segundos = Duration.ofNanos(fin - inicioNanos).toMillis() / 1000.0;
+        return segundos <= 0 ? 0.0 : Math.round(filasProcesadas.get() / segundos * 10) / 10.0;
+    }
+
+    public ImportacionJobDTO toDTO() {
+        return ImportacionJobDTO.builder()
+                .id(id)
+                .tipo(tipo)
+                .archivo(archivo)
+                .estado(estado)
+                .filasProcesadas(filasProcesadas.get())
+                .registrosCargados(registrosCargados.get())
+                .duplicados(duplicados.get())
+                .totalErrores(totalErrores.get())
+                .filasPorSegundo(getFilasPorSegundo())
+                .errores(getErrores())
+                .mensaje(mensaje)
+                .fechaCreacion(fechaCreacion)
+                .fechaInicio(fechaInicio)
+                .fechaFin(fechaFin)
+                .build();
+    }
+}
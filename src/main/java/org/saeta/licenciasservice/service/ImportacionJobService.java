@@ -0,0 +1,127 @@
+package org.saeta.licenciasservice.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.saeta.licenciasservice.dto.ImportacionJobDTO;
+import org.saeta.licenciasservice.util.ExcelStreamReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta importaciones de Excel en segundo plano.
+ * Los jobs se procesan en un pool acotado (hilos y cola configurables); si está lleno, la
+ * importación se rechaza en lugar de acumularse. El registro de jobs es en memoria y los jobs
+ * finalizados se descartan pasado el tiempo de retención.
+ */
+@Service
+@Slf4j
+public class ImportacionJobService {
+
+    @Autowired
+    private CertificadoService certificadoService;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Value("${app.importacion.max-errores:1000}")
+    private int maxErrores;
+
+    @Value("${app.importacion.retencion-ms:3600000}")
+    private long retencionMs;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ImportacionJob> jobs = new ConcurrentHashMap<>();
+
+    public ImportacionJobService(@Value("${app.importacion.hilos:2}") int hilos,
+                                 @Value("${app.importacion.cola:10}") int cola) {
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola),
+                r -> {
+                    Thread hilo = new Thread(r, "importacion-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Copia el archivo a un temporal y encola su importación
+     * @throws RejectedExecutionException si ya hay demasiadas importaciones en curso
+     */
+    public ImportacionJob enviar(String tipo, MultipartFile file) throws IOException {
+        Path temporal = ExcelStreamReader.copiarATemporal(file);
+        ImportacionJob job = new ImportacionJob(tipo, file.getOriginalFilename(), maxErrores);
+
+        try {
+            jobs.put(job.getId(), job);
+            executor.execute(() -> ejecutar(job, temporal));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        log.info("Importación {} encolada: {} ({})", job.getId(), file.getOriginalFilename(), tipo);
+        return job;
+    }
+
+    public Optional<ImportacionJobDTO> obtener(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ImportacionJob::toDTO);
+    }
+
+    private void ejecutar(ImportacionJob job, Path temporal) {
+        job.iniciar();
+        try {
+            File archivo = temporal.toFile();
+            if (ImportacionJob.CERTIFICADOS.equals(job.getTipo())) {
+                certificadoService.importarCertificados(archivo, job);
+            } else {
+                proyectoService.importarProyectos(archivo, job);
+            }
+            job.completar();
+            log.info("Importación {} completada: {}", job.getId(), job.getMensaje());
+        } catch (Exception e) {
+            log.error("❌ Importación {} fallida: {}", job.getId(), e.getMessage(), e);
+            job.fallar("Error procesando el archivo: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException e) {
+                log.warn("No se pudo eliminar el temporal {}: {}", temporal, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Descarta los jobs finalizados hace más del tiempo de retención
+     */
+    @Scheduled(fixedDelayString = "${app.importacion.limpieza-ms:600000}")
+    public void limpiarJobsFinalizados() {
+        LocalDateTime limite = LocalDateTime.now().minusNanos(retencionMs * 1_000_000L);
+        jobs.values().removeIf(job -> job.isFinalizado() && job.getFechaFin().isBefore(limite));
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+}
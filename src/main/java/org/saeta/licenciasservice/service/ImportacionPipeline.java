@@ -0,0 +1,242 @@
+package org.saeta.licenciasservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Pipeline de importación en tres etapas:
+ * - lector: un hilo propio recorre el archivo en streaming y agrupa las filas en bloques;
+ * - procesadores: un pool compartido convierte y valida los bloques en paralelo (trabajo de CPU);
+ * - escritor: el hilo que llama recibe los resultados en el orden del archivo y los persiste,
+ *   de modo que la persistencia usa su transacción igual que antes.
+ * Cada importación limita los bloques en vuelo: si el escritor se retrasa, el lector se detiene
+ * en lugar de acumular filas en memoria.
+ */
+@Component
+public class ImportacionPipeline {
+
+    /**
+     * Origen de las filas; entrega cada fila al consumidor en el orden del archivo
+     */
+    @FunctionalInterface
+    public interface Fuente<F> {
+        void leer(Consumer<F> consumidor) throws IOException;
+    }
+
+    @Value("${app.importacion.pipeline.filas-por-bloque:256}")
+    private int filasPorBloque;
+
+    @Value("${app.importacion.pipeline.bloques-en-vuelo:16}")
+    private int bloquesEnVuelo;
+
+    private final ThreadPoolExecutor procesadores;
+
+    private final AtomicInteger contadorLectores = new AtomicInteger();
+
+    public ImportacionPipeline(@Value("${app.importacion.pipeline.procesadores:0}") int hilos) {
+        int total = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        // Cola sin límite: cada importación ya acota sus bloques pendientes
+        this.procesadores = new ThreadPoolExecutor(total, total, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread hilo = new Thread(r, "importacion-procesador-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    @PreDestroy
+    public void detener() {
+        procesadores.shutdownNow();
+    }
+
+    /**
+     * Lee la fuente, procesa cada fila con 'procesador' en el pool y entrega los resultados a
+     * 'escritor' en el hilo actual y en el orden original. Si alguna etapa falla, se detiene el
+     * resto y la excepción se propaga al llamador.
+     */
+    public <F, R> void ejecutar(Fuente<F> fuente, Function<F, R> procesador, Consumer<R> escritor)
+            throws IOException {
+        Ejecucion<F, R> ejecucion = new Ejecucion<>(fuente, procesador);
+        Thread lector = new Thread(ejecucion::leer, "importacion-lector-" + contadorLectores.incrementAndGet());
+        lector.setDaemon(true);
+        lector.start();
+
+        try {
+            ejecucion.escribir(escritor);
+        } finally {
+            ejecucion.cancelada = true;
+            lector.interrupt();
+            try {
+                lector.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final class Ejecucion<F, R> {
+        private final Fuente<F> fuente;
+        private final Function<F, R> procesador;
+        private final Semaphore permisos = new Semaphore(bloquesEnVuelo);
+        // Sin límite propio: como mucho contiene 'bloquesEnVuelo' bloques más el aviso de fin
+        private final BlockingQueue<Mensaje<R>> salida = new LinkedBlockingQueue<>();
+        private volatile boolean cancelada;
+
+        // Solo los usa el hilo lector
+        private List<F> bloque;
+        private int secuencia;
+
+        Ejecucion(Fuente<F> fuente, Function<F, R> procesador) {
+            this.fuente = fuente;
+            this.procesador = procesador;
+            this.bloque = new ArrayList<>(filasPorBloque);
+        }
+
+        void leer() {
+            try {
+                fuente.leer(fila -> {
+                    bloque.add(fila);
+                    if (bloque.size() >= filasPorBloque) {
+                        enviarBloque();
+                    }
+                });
+                if (!bloque.isEmpty()) {
+                    enviarBloque();
+                }
+                salida.add(Mensaje.fin(secuencia));
+            } catch (CancellationException e) {
+                // El escritor terminó antes de tiempo; no hay a quién avisar
+            } catch (Throwable e) {
+                salida.add(Mensaje.fallo(e));
+            }
+        }
+
+        private void enviarBloque() {
+            List<F> filas = bloque;
+            int numero = secuencia++;
+            bloque = new ArrayList<>(filasPorBloque);
+
+            try {
+                permisos.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Importación cancelada");
+            }
+            if (cancelada) {
+                throw new CancellationException("Importación cancelada");
+            }
+            procesadores.execute(() -> procesar(numero, filas));
+        }
+
+        private void procesar(int numero, List<F> filas) {
+            if (cancelada) {
+                return;
+            }
+            try {
+                List<R> resultados = new ArrayList<>(filas.size());
+                for (F fila : filas) {
+                    resultados.add(procesador.apply(fila));
+                }
+                salida.add(Mensaje.bloque(numero, resultados));
+            } catch (Throwable e) {
+                salida.add(Mensaje.fallo(e));
+            }
+        }
+
+        /**
+         * Reordena los bloques según llegan y entrega sus resultados en orden; el permiso de
+         * cada bloque se libera cuando el escritor lo termina.
+         */
+        void escribir(Consumer<R> escritor) throws IOException {
+            Map<Integer, List<R>> pendientes = new HashMap<>();
+            int siguiente = 0;
+            int total = -1;
+
+            while (total < 0 || siguiente < total) {
+                Mensaje<R> mensaje;
+                try {
+                    mensaje = salida.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Importación interrumpida", e);
+                }
+
+                if (mensaje.error != null) {
+                    propagar(mensaje.error);
+                }
+                if (mensaje.resultados == null) {
+                    total = mensaje.numero;
+                    continue;
+                }
+
+                pendientes.put(mensaje.numero, mensaje.resultados);
+                List<R> listos;
+                while ((listos = pendientes.remove(siguiente)) != null) {
+                    for (R resultado : listos) {
+                        escritor.accept(resultado);
+                    }
+                    siguiente++;
+                    permisos.release();
+                }
+            }
+        }
+    }
+
+    private static void propagar(Throwable error) throws IOException {
+        if (error instanceof IOException e) {
+            throw e;
+        }
+        if (error instanceof RuntimeException e) {
+            throw e;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        throw new IOException(error.getMessage(), error);
+    }
+
+    /**
+     * Bloque procesado, aviso de fin (con el total de bloques en 'numero') o fallo de una etapa
+     */
+    private static final class Mensaje<R> {
+        private final int numero;
+        private final List<R> resultados;
+        private final Throwable error;
+
+        private Mensaje(int numero, List<R> resultados, Throwable error) {
+            this.numero = numero;
+            this.resultados = resultados;
+            this.error = error;
+        }
+
+        static <R> Mensaje<R> bloque(int numero, List<R> resultados) {
+            return new Mensaje<>(numero, resultados, null);
+        }
+
+        static <R> Mensaje<R> fin(int totalBloques) {
+            return new Mensaje<>(totalBloques, null, null);
+        }
+
+        static <R> Mensaje<R> fallo(Throwable error) {
+            return new Mensaje<>(-1, null, error);
+        }
+    }
+}
@@ -1,31 +1,60 @@
 package org.saeta.licenciasservice.service;
 
+import org.saeta.licenciasservice.cache.IndiceBusquedaCache;
+import org.saeta.licenciasservice.cache.LicenciaSnapshotCache;
+import org.saeta.licenciasservice.cache.MacBloomFilter;
 import org.saeta.licenciasservice.dto.LicenciaDTO;
+import org.saeta.licenciasservice.dto.PaginaCursorDTO;
 import org.saeta.licenciasservice.dto.CreateLicenciaRequest;
 import org.saeta.licenciasservice.dto.TiempoRestanteDTO;
 import org.saeta.licenciasservice.dto.UpdateLicenciaRequest;
 import org.saeta.licenciasservice.entity.Licencia;
 import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.saeta.licenciasservice.scheduler.LicenciaExpiracionTimer;
+import org.saeta.licenciasservice.util.BusquedaTexto;
+import org.saeta.licenciasservice.util.CursorPaginacion;
+import org.saeta.licenciasservice.util.MacAddress;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 @Service
 @Transactional
 public class LicenciaManagementService {
 
+    // Las demás columnas de licencia admiten null: la paginación por cursor solo ordena por ID
+    private static final Set<String> ORDENES_CURSOR = Set.of("id");
+
     @Autowired
     private LicenciaRepository licenciaRepository;
 
+    @Autowired
+    private LicenciaSnapshotCache licenciaCache;
+
+    @Autowired
+    private LicenciaExpiracionTimer expiracionTimer;
+
+    @Autowired
+    private MacBloomFilter macBloomFilter;
+
+    @Autowired
+    private IndiceBusquedaCache indiceBusqueda;
+
     public Page<LicenciaDTO> listarLicencias(Pageable pageable) {
         return licenciaRepository.findAll(pageable).map(this::convertToDTO);
     }
 
+    public PaginaCursorDTO<LicenciaDTO> listarLicencias(String cursor, int size, Sort sort) {
+        return CursorPaginacion.consultar(licenciaRepository, null, cursor, size, sort, ORDENES_CURSOR, this::convertToDTO);
+    }
+
     public LicenciaDTO obtenerLicencia(Integer id) {
         Licencia licencia = licenciaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Licencia no encontrada con ID: " + id));
@@ -34,7 +63,7 @@ public class LicenciaManagementService {
 
     public LicenciaDTO crearLicencia(CreateLicenciaRequest request) {
         // Verificar si la MAC ya existe
-        if (licenciaRepository.findByMac(normalizarMac(request.getMac())).isPresent()) {
+        if (licenciaRepository.existsByMacBits(MacAddress.parsear(request.getMac()))) {
             throw new RuntimeException("Ya existe una licencia con la MAC: " + request.getMac());
         }
 
@@ -50,6 +79,10 @@ public class LicenciaManagementService {
         licencia.setVigencia(vigenciaTexto);
 
         Licencia saved = licenciaRepository.save(licencia);
+        macBloomFilter.agregar(saved.getMacBits());
+        licenciaCache.actualizar(saved, null);
+        indiceBusqueda.actualizarLicencia(saved);
+        expiracionTimer.programar(saved);
         return convertToDTO(saved);
     }
 
@@ -57,18 +90,18 @@ public class LicenciaManagementService {
         Licencia licencia = licenciaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Licencia no encontrada con ID: " + id));
 
-        // Guardar el estado anterior para comparación
+        // Guardar el estado y la MAC anteriores para comparación
         String estadoAnterior = licencia.getEstado();
+        String macAnterior = licencia.getMac();
 
         // Verificar si la nueva MAC ya existe en otra licencia
         if (request.getMac() != null && !request.getMac().isEmpty()) {
             String macNormalizada = normalizarMac(request.getMac());
-            if (!macNormalizada.equals(licencia.getMac())) {
-                licenciaRepository.findByMac(macNormalizada).ifPresent(existing -> {
-                    if (!existing.getId().equals(id)) {
-                        throw new RuntimeException("Ya existe otra licencia con la MAC: " + request.getMac());
-                    }
-                });
+            long macBits = MacAddress.parsear(macNormalizada);
+            if (licencia.getMacBits() == null || macBits != licencia.getMacBits()) {
+                if (licenciaRepository.existsByMacBitsAndIdNot(macBits, id)) {
+                    throw new RuntimeException("Ya existe otra licencia con la MAC: " + request.getMac());
+                }
             }
             licencia.setMac(macNormalizada);
         }
@@ -101,30 +134,50 @@ public class LicenciaManagementService {
         }
 
         Licencia updated = licenciaRepository.save(licencia);
+        macBloomFilter.agregar(updated.getMacBits());
+        licenciaCache.actualizar(updated, macAnterior);
+        indiceBusqueda.actualizarLicencia(updated);
+        expiracionTimer.programar(updated);
         return convertToDTO(updated);
     }
 
     public void eliminarLicencia(Integer id) {
-        if (!licenciaRepository.existsById(id)) {
-            throw new RuntimeException("Licencia no encontrada con ID: " + id);
-        }
-        licenciaRepository.deleteById(id);
+        Licencia licencia = licenciaRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Licencia no encontrada con ID: " + id));
+        licenciaRepository.delete(licencia);
+        licenciaCache.eliminar(licencia.getId(), licencia.getMac());
+        indiceBusqueda.eliminarLicencia(licencia.getId());
+        expiracionTimer.cancelar(licencia.getId());
     }
 
     public Page<LicenciaDTO> buscarLicencias(String empresa, String mac, Pageable pageable) {
+        Page<Integer> ids = indiceBusqueda.buscarLicencias(empresa, mac, pageable);
+        if (ids != null) {
+            return IndiceBusquedaCache.hidratar(ids, licenciaRepository::findAllById, Licencia::getId, this::convertToDTO);
+        }
+
+        return licenciaRepository.findAll(especificacionBusqueda(empresa, mac), pageable).map(this::convertToDTO);
+    }
+
+    public PaginaCursorDTO<LicenciaDTO> buscarLicencias(String empresa, String mac, String cursor, int size, Sort sort) {
+        return CursorPaginacion.consultar(licenciaRepository, especificacionBusqueda(empresa, mac),
+                cursor, size, sort, ORDENES_CURSOR, this::convertToDTO);
+    }
+
+    private Specification<Licencia> especificacionBusqueda(String empresa, String mac) {
         Specification<Licencia> spec = Specification.where(null);
 
         if (empresa != null && !empresa.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("empresa")), "%" + empresa.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("empresa"), empresa));
         }
 
         if (mac != null && !mac.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("mac")), "%" + mac.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("mac"), mac));
         }
 
-        return licenciaRepository.findAll(spec, pageable).map(this::convertToDTO);
+        return spec;
     }
 
     private LicenciaDTO convertToDTO(Licencia licencia) {
@@ -136,23 +189,20 @@ public class LicenciaManagementService {
         boolean vencido = false;
 
         // Solo calcular tiempo restante si la licencia está activa
-        if (licencia.isActivo() && licencia.getFechaHora() != null && licencia.getVigencia() != null) {
-            Integer minutos = licencia.getVigenciaEnMinutos();
-            if (minutos != null && minutos > 0) {
-                fechaVencimiento = licencia.getFechaHora().plusMinutes(minutos);
-                diasRestantes = licencia.getDiasRestantes();
-                horasRestantes = licencia.getHorasRestantes();
-                minutosRestantes = licencia.getMinutosRestantes();
-                vencido = licencia.hasVencido();
-
-                var tiempo = licencia.getTiempoRestanteDetallado();
-                tiempoRestante = TiempoRestanteDTO.builder()
-                        .dias(tiempo.getDias())
-                        .horas(tiempo.getHoras())
-                        .minutos(tiempo.getMinutos())
-                        .totalMinutos(tiempo.getTotalMinutos())
-                        .build();
-            }
+        if (licencia.isActivo() && licencia.getFechaVencimiento() != null) {
+            fechaVencimiento = licencia.getFechaVencimiento();
+            vencido = licencia.hasVencido();
+
+            var tiempo = licencia.getTiempoRestanteDetallado();
+            diasRestantes = tiempo.getDias();
+            horasRestantes = Math.max(0, tiempo.getTotalMinutos() / 60);
+            minutosRestantes = tiempo.getTotalMinutos();
+            tiempoRestante = TiempoRestanteDTO.builder()
+                    .dias(tiempo.getDias())
+                    .horas(tiempo.getHoras())
+                    .minutos(tiempo.getMinutos())
+                    .totalMinutos(tiempo.getTotalMinutos())
+                    .build();
         }
 
         // Si está inactivo, establecer valores por defecto
@@ -215,6 +265,6 @@ public class LicenciaManagementService {
     }
 
     private String normalizarMac(String mac) {
-        return mac.trim().replace(":", "-").toUpperCase();
+        return MacAddress.of(mac).toString();
     }
 }
\ No newline at end of file
@@ -3,6 +3,8 @@ package org.saeta.licenciasservice.service;
 import org.saeta.licenciasservice.dto.ValidacionRequest;
 import org.saeta.licenciasservice.dto.ValidacionResponse;
 
+import java.util.List;
+
 public interface LicenciaService {
 
     /**
@@ -12,6 +14,13 @@ public interface LicenciaService {
      */
     ValidacionResponse validarLicencia(ValidacionRequest request);
 
+    /**
+     * Valida varias licencias a la vez con la misma semántica que validarLicencia
+     * @param macs Direcciones MAC a validar
+     * @return una ValidacionResponse por MAC, en el mismo orden recibido
+     */
+    List<ValidacionResponse> validarLicencias(List<String> macs);
+
     /**
      * Valida si una MAC es válida en formato
      * @param mac Dirección MAC a validar
@@ -1,25 +1,36 @@
 package org.saeta.licenciasservice.service;
 
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import jakarta.annotation.PostConstruct;
+import org.saeta.licenciasservice.cache.IndiceBusquedaCache;
 import org.saeta.licenciasservice.dto.*;
 import org.saeta.licenciasservice.entity.Proyecto;
 import org.saeta.licenciasservice.repository.ProyectoRepository;
+import org.saeta.licenciasservice.util.BusquedaTexto;
+import org.saeta.licenciasservice.util.CursorPaginacion;
+import org.saeta.licenciasservice.util.ExcelStreamReader;
+import org.saeta.licenciasservice.util.FechaParser;
+import org.saeta.licenciasservice.util.TablaTexto;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,22 +39,49 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProyectoService {
 
+    // IDs por UPDATE al marcar alertas enviadas
+    private static final int IDS_POR_ACTUALIZACION = 1000;
+
+    // Columnas (no nulas) por las que se puede ordenar en la paginación por cursor
+    private static final Set<String> ORDENES_CURSOR = Set.of("id", "idProducto", "producto", "fechaInicio",
+            "vigencia", "correoVendedor1");
+
     @Autowired
     private ProyectoRepository proyectoRepository;
 
-    @Autowired(required = false)
-    private JavaMailSender mailSender;
+    @Autowired
+    private CorreoOutboxService correoOutboxService;
+
+    @Autowired
+    private IndiceBusquedaCache indiceBusqueda;
+
+    @Value("${app.alertas.resumen.enabled:true}")
+    private boolean alertasResumen;
+
+    // Días de vigencia restante en que se envía cada alerta
+    @Value("${app.alertas.proyectos.umbrales:30,60}")
+    private List<Integer> umbralesAlerta;
 
-    // Formateadores de fecha
-    private static final DateTimeFormatter[] DATE_FORMATTERS = {
-            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"),
-            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"),
-            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"),
-            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
-            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
-            DateTimeFormatter.ofPattern("MM/dd/yyyy")
-    };
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ImportacionPipeline importacionPipeline;
+
+    @Value("${app.importacion.filas-por-transaccion:500}")
+    private int filasPorTransaccion;
+
+    @Value("${app.importacion.max-errores:1000}")
+    private int maxErrores;
+
+    // Transacción independiente por grupo de filas para las importaciones en segundo plano
+    private TransactionTemplate transaccionPorLote;
+
+    @PostConstruct
+    public void init() {
+        transaccionPorLote = new TransactionTemplate(transactionManager);
+        transaccionPorLote.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     /**
      * Obtiene todos los proyectos con paginación
@@ -52,6 +90,13 @@ public class ProyectoService {
         return proyectoRepository.findAll(pageable).map(this::convertToDTO);
     }
 
+    /**
+     * Obtiene todos los proyectos con paginación por cursor (sin total)
+     */
+    public PaginaCursorDTO<ProyectoDTO> listarProyectos(String cursor, int size, Sort sort) {
+        return CursorPaginacion.consultar(proyectoRepository, null, cursor, size, sort, ORDENES_CURSOR, this::convertToDTO);
+    }
+
     /**
      * Obtiene un proyecto por ID
      */
@@ -82,6 +127,7 @@ public class ProyectoService {
 
         // El @PrePersist calculará la vigencia restante
         Proyecto saved = proyectoRepository.save(proyecto);
+        indiceBusqueda.actualizarProyecto(saved);
         return convertToDTO(saved);
     }
 
@@ -112,8 +158,7 @@ public class ProyectoService {
         if (request.getVigencia() != null) {
             proyecto.setVigencia(request.getVigencia());
             // Resetear alertas si se cambia la vigencia
-            proyecto.setAlerta30Enviada(false);
-            proyecto.setAlerta60Enviada(false);
+            proyecto.setUmbralAlertaEnviada(null);
         }
 
         if (request.getCorreoVendedor1() != null) {
@@ -134,6 +179,7 @@ public class ProyectoService {
 
         // El @PreUpdate calculará la vigencia restante
         Proyecto updated = proyectoRepository.save(proyecto);
+        indiceBusqueda.actualizarProyecto(updated);
         return convertToDTO(updated);
     }
 
@@ -145,155 +191,370 @@ public class ProyectoService {
             throw new RuntimeException("Proyecto no encontrado con ID: " + id);
         }
         proyectoRepository.deleteById(id);
+        indiceBusqueda.eliminarProyecto(id);
     }
 
     /**
      * Busca proyectos con filtros
      */
     public Page<ProyectoDTO> buscarProyectos(String idProducto, String producto, String correo, Integer vigenciaMin, Pageable pageable) {
+        Page<Integer> ids = indiceBusqueda.buscarProyectos(idProducto, producto, correo, vigenciaMin, null, pageable);
+        if (ids != null) {
+            return IndiceBusquedaCache.hidratar(ids, proyectoRepository::findAllById, Proyecto::getId, this::convertToDTO);
+        }
+
+        return proyectoRepository.findAll(especificacionBusqueda(idProducto, producto, correo, vigenciaMin), pageable)
+                .map(this::convertToDTO);
+    }
+
+    /**
+     * Busca proyectos con filtros y paginación por cursor (sin total)
+     */
+    public PaginaCursorDTO<ProyectoDTO> buscarProyectos(String idProducto, String producto, String correo, Integer vigenciaMin,
+                                                        String cursor, int size, Sort sort) {
+        return CursorPaginacion.consultar(proyectoRepository, especificacionBusqueda(idProducto, producto, correo, vigenciaMin),
+                cursor, size, sort, ORDENES_CURSOR, this::convertToDTO);
+    }
+
+    private Specification<Proyecto> especificacionBusqueda(String idProducto, String producto, String correo, Integer vigenciaMin) {
+        Specification<Proyecto> spec = filtrosTexto(idProducto, producto, correo);
+
+        if (vigenciaMin != null && vigenciaMin > 0) {
+            spec = spec.and((root, query, cb) ->
+                    cb.and(
+                            cb.isTrue(root.get("activo")),
+                            cb.greaterThanOrEqualTo(root.get("fechaVencimiento"), LocalDateTime.now().plusDays(vigenciaMin))
+                    ));
+        }
+
+        return spec;
+    }
+
+    /**
+     * Filtros de texto comunes a las búsquedas de proyectos
+     */
+    private Specification<Proyecto> filtrosTexto(String idProducto, String producto, String correo) {
         Specification<Proyecto> spec = Specification.where(null);
 
         if (idProducto != null && !idProducto.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("idProducto")), "%" + idProducto.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("idProducto"), idProducto));
         }
 
         if (producto != null && !producto.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("producto")), "%" + producto.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("producto"), producto));
         }
 
         if (correo != null && !correo.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.or(
-                            cb.like(cb.lower(root.get("correoVendedor1")), "%" + correo.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("correoVendedor2")), "%" + correo.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("correoJefeVendedor")), "%" + correo.toLowerCase() + "%")
-                    ));
-        }
-
-        if (vigenciaMin != null && vigenciaMin > 0) {
-            spec = spec.and((root, query, cb) ->
-                    cb.and(
-                            cb.isTrue(root.get("activo")),
-                            cb.greaterThanOrEqualTo(root.get("vigenciaRestante"), vigenciaMin)
-                    ));
+                    BusquedaTexto.contieneEnAlguno(cb, correo,
+                            root.get("correoVendedor1"),
+                            root.get("correoVendedor2"),
+                            root.get("correoJefeVendedor")));
         }
 
-        return proyectoRepository.findAll(spec, pageable).map(this::convertToDTO);
+        return spec;
     }
 
     /**
-     * Procesa un archivo Excel y carga los proyectos
+     * Procesa un archivo Excel y carga los proyectos en la transacción de la petición
+     * @param errores recibe los errores por fila (hasta app.importacion.max-errores)
      */
-    public List<ProyectoDTO> cargarProyectosDesdeExcel(MultipartFile file) throws IOException {
+    public List<ProyectoDTO> cargarProyectosDesdeExcel(MultipartFile file, List<String> errores) throws IOException {
+        ImportacionJob resultado = new ImportacionJob(ImportacionJob.PROYECTOS, file.getOriginalFilename(), maxErrores);
         List<ProyectoDTO> proyectosCargados = new ArrayList<>();
-        List<String> errores = new ArrayList<>();
 
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
+        Path temporal = ExcelStreamReader.copiarATemporal(file);
+        try {
+            importar(temporal.toFile(), resultado, proyectosCargados, null);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
 
-            // Saltar la fila de encabezados
-            if (rowIterator.hasNext()) {
-                rowIterator.next();
-            }
+        if (resultado.getTotalErrores() > 0) {
+            log.warn("Se encontraron {} errores durante la carga", resultado.getTotalErrores());
+        }
+        errores.addAll(resultado.toDTO().getErrores());
 
-            int rowNum = 1;
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                rowNum++;
-
-                try {
-                    ProyectoExcelDTO excelDTO = procesarFilaExcel(row, rowNum);
-
-                    if (excelDTO.isValido()) {
-                        // Verificar si ya existe
-                        if (proyectoRepository.existsByIdProducto(excelDTO.getIdProducto())) {
-                            log.warn("Proyecto con ID {} ya existe, actualizando...", excelDTO.getIdProducto());
-                            // Actualizar existente
-                            Optional<Proyecto> existente = proyectoRepository.findByIdProducto(excelDTO.getIdProducto());
-                            if (existente.isPresent()) {
-                                Proyecto proyecto = existente.get();
-                                actualizarProyectoDesdeExcel(proyecto, excelDTO);
-                                Proyecto updated = proyectoRepository.save(proyecto);
-                                proyectosCargados.add(convertToDTO(updated));
-                            }
-                        } else {
-                            // Crear nuevo
-                            Proyecto nuevoProyecto = crearProyectoDesdeExcel(excelDTO);
-                            Proyecto saved = proyectoRepository.save(nuevoProyecto);
-                            proyectosCargados.add(convertToDTO(saved));
-                        }
-                    } else {
-                        errores.add("Fila " + rowNum + ": " + excelDTO.getError());
+        return proyectosCargados;
+    }
+
+    /**
+     * Importa proyectos desde un archivo Excel para un job en segundo plano.
+     * Las filas se guardan en grupos, cada uno en su propia transacción.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void importarProyectos(File archivo, ImportacionJob job) throws IOException {
+        importar(archivo, job, null, transaccionPorLote);
+    }
+
+    /**
+     * La hoja se procesa con ImportacionPipeline: un hilo la lee en streaming, el pool convierte y
+     * valida las filas en paralelo y este hilo las guarda en grupos en el orden del archivo.
+     * @param proyectosCargados si no es null, recibe los proyectos creados o actualizados
+     * @param transaccion si no es null, cada grupo de filas se guarda en una transacción propia
+     */
+    private void importar(File archivo, ImportacionJob job, List<ProyectoDTO> proyectosCargados,
+                          TransactionTemplate transaccion) throws IOException {
+        List<FilaProyecto> grupo = new ArrayList<>(filasPorTransaccion);
+
+        // La primera fila contiene los encabezados
+        importacionPipeline.ejecutar(
+                consumidor -> ExcelStreamReader.leerPrimeraHoja(archivo, 1, consumidor),
+                this::convertirFila,
+                fila -> {
+                    job.registrarFila();
+                    if (fila.error != null) {
+                        job.registrarError(fila.numero, fila.error);
+                        return;
                     }
-                } catch (Exception e) {
-                    log.error("Error procesando fila {}: {}", rowNum, e.getMessage());
-                    errores.add("Fila " + rowNum + ": " + e.getMessage());
-                }
+                    grupo.add(fila);
+                    if (grupo.size() >= filasPorTransaccion) {
+                        guardarGrupo(grupo, job, proyectosCargados, transaccion);
+                    }
+                });
+        guardarGrupo(grupo, job, proyectosCargados, transaccion);
+    }
+
+    private void guardarGrupo(List<FilaProyecto> grupo, ImportacionJob job, List<ProyectoDTO> proyectosCargados,
+                              TransactionTemplate transaccion) {
+        if (grupo.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<ProyectoDTO> guardados = transaccion != null
+                    ? transaccion.execute(estado -> guardarGrupo(grupo))
+                    : guardarGrupo(grupo);
+
+            // Las filas se cuentan como cargadas solo cuando el grupo se guardó completo
+            job.registrarCargados(guardados.size());
+            if (proyectosCargados != null) {
+                proyectosCargados.addAll(guardados);
             }
+        } catch (RuntimeException e) {
+            if (transaccion == null) {
+                throw e;
+            }
+            // Un error de persistencia deja la transacción del grupo marcada para rollback:
+            // el grupo falla completo y la importación sigue con el siguiente
+            log.error("Error guardando el grupo de {} filas: {}", grupo.size(), e.getMessage());
+            for (FilaProyecto fila : grupo) {
+                job.registrarError(fila.numero, "No se guardó el grupo de la fila: " + e.getMessage());
+            }
+        } finally {
+            grupo.clear();
         }
+    }
 
-        if (!errores.isEmpty()) {
-            log.warn("Se encontraron {} errores durante la carga", errores.size());
-            // Podrías lanzar una excepción personalizada con los errores
+    /**
+     * Crea o actualiza los proyectos del grupo; los existentes se buscan con una sola consulta.
+     * Las filas llegan validadas (ver convertirFila), así que cualquier error al guardar es de
+     * persistencia y se propaga para que el grupo se revierta entero.
+     */
+    private List<ProyectoDTO> guardarGrupo(List<FilaProyecto> grupo) {
+        Set<String> ids = grupo.stream().map(f -> f.datos.getIdProducto()).collect(Collectors.toSet());
+        Map<String, Proyecto> existentes = new HashMap<>();
+        for (Proyecto proyecto : proyectoRepository.findByIdProductoIn(ids)) {
+            existentes.putIfAbsent(proyecto.getIdProducto(), proyecto);
         }
 
-        return proyectosCargados;
+        List<ProyectoDTO> guardados = new ArrayList<>(grupo.size());
+        for (FilaProyecto fila : grupo) {
+            ProyectoExcelDTO excelDTO = fila.datos;
+            Proyecto proyecto = existentes.get(excelDTO.getIdProducto());
+            if (proyecto != null) {
+                log.warn("Proyecto con ID {} ya existe, actualizando...", excelDTO.getIdProducto());
+                // Actualizar existente
+                actualizarProyectoDesdeExcel(proyecto, excelDTO, fila.fechaInicio);
+            } else {
+                // Crear nuevo
+                proyecto = crearProyectoDesdeExcel(excelDTO, fila.fechaInicio);
+            }
+            Proyecto guardado = proyectoRepository.save(proyecto);
+            indiceBusqueda.actualizarProyecto(guardado);
+            existentes.put(guardado.getIdProducto(), guardado);
+            guardados.add(convertToDTO(guardado));
+        }
+        // Fuerza los INSERT/UPDATE dentro del grupo para que sus errores no aparezcan en el commit
+        proyectoRepository.flush();
+        return guardados;
     }
 
     /**
-     * Envía alertas por correo para proyectos próximos a vencer
+     * Convierte y valida una fila; se ejecuta en los hilos del pipeline, sin acceso a la base de datos
      */
-    public void enviarAlertasVencimiento() {
-        // Alertas de 30 días
-        List<Proyecto> proyectos30 = proyectoRepository.findProyectosParaAlerta30();
-        for (Proyecto proyecto : proyectos30) {
-            if (enviarCorreoAlerta(proyecto, 30)) {
-                proyecto.setAlerta30Enviada(true);
-                proyectoRepository.save(proyecto);
+    private FilaProyecto convertirFila(ExcelStreamReader.Fila fila) {
+        try {
+            ProyectoExcelDTO excelDTO = procesarFilaExcel(fila);
+            if (!excelDTO.isValido()) {
+                return new FilaProyecto(fila.getNumero(), null, null, excelDTO.getError());
+            }
+            LocalDateTime fechaInicio = FechaParser.parsear(excelDTO.getFechaInicio());
+            if (fechaInicio == null) {
+                return new FilaProyecto(fila.getNumero(), null, null,
+                        "Fecha de inicio no válida: " + excelDTO.getFechaInicio());
+            }
+            String errorLongitud = validarLongitudes(excelDTO);
+            if (errorLongitud != null) {
+                return new FilaProyecto(fila.getNumero(), null, null, errorLongitud);
             }
+            return new FilaProyecto(fila.getNumero(), excelDTO, fechaInicio, null);
+        } catch (Exception e) {
+            log.error("Error procesando fila {}: {}", fila.getNumero(), e.getMessage());
+            return new FilaProyecto(fila.getNumero(), null, null, e.getMessage());
         }
+    }
 
-        // Alertas de 60 días
-        List<Proyecto> proyectos60 = proyectoRepository.findProyectosParaAlerta60();
-        for (Proyecto proyecto : proyectos60) {
-            if (enviarCorreoAlerta(proyecto, 60)) {
-                proyecto.setAlerta60Enviada(true);
-                proyectoRepository.save(proyecto);
-            }
+    /**
+     * Comprueba las longitudes máximas de las columnas de 'proyectos' antes de guardar, para que
+     * una fila demasiado larga se rechace sola en lugar de revertir el grupo entero
+     * @return el error de la primera columna que excede su longitud, o null
+     */
+    private static String validarLongitudes(ProyectoExcelDTO dto) {
+        if (excede(dto.getIdProducto(), 100)) {
+            return "ID de producto excede 100 caracteres";
+        }
+        if (excede(dto.getProducto(), 255)) {
+            return "Nombre de producto excede 255 caracteres";
+        }
+        if (excede(dto.getVigencia(), 50)) {
+            return "Vigencia excede 50 caracteres";
         }
+        if (excede(dto.getCorreoVendedor1(), 255) || excede(dto.getCorreoVendedor2(), 255)
+                || excede(dto.getCorreoJefeVendedor(), 255)) {
+            return "Correo excede 255 caracteres";
+        }
+        return null;
+    }
+
+    private static boolean excede(String valor, int longitudMaxima) {
+        return valor != null && valor.length() > longitudMaxima;
     }
 
     /**
-     * Actualiza la vigencia restante de todos los proyectos activos
+     * Resultado de convertir una fila: los datos validados o el error que la invalida
      */
-    public void actualizarVigenciaRestante() {
-        List<Proyecto> proyectosActivos = proyectoRepository.findByActivoTrue();
+    private static final class FilaProyecto {
+        private final int numero;
+        private final ProyectoExcelDTO datos;
+        private final LocalDateTime fechaInicio;
+        private final String error;
+
+        FilaProyecto(int numero, ProyectoExcelDTO datos, LocalDateTime fechaInicio, String error) {
+            this.numero = numero;
+            this.datos = datos;
+            this.fechaInicio = fechaInicio;
+            this.error = error;
+        }
+    }
 
-        for (Proyecto proyecto : proyectosActivos) {
-            proyecto.actualizarVigenciaRestante();
+    /**
+     * Envía alertas por correo para proyectos próximos a vencer.
+     * Una sola consulta devuelve cada proyecto con alerta pendiente y el menor umbral que alcanzó
+     * (umbrales configurables en app.alertas.proyectos.umbrales). En modo resumen
+     * (app.alertas.resumen.enabled) se encola un correo por destinatario con la tabla de
+     * proyectos; si no, un correo por proyecto. Las marcas se guardan en la misma transacción
+     * que los correos encolados.
+     */
+    public void enviarAlertasVencimiento() {
+        LocalDateTime desde = Proyecto.inicioVigente(LocalDateTime.now());
+        List<ProyectoRepository.ProyectoAlerta> alertas = proyectoRepository.findAlertasPendientes(
+                desde, desde.plusDays(Collections.max(umbralesAlerta)),
+                umbralesAlerta.stream().map(String::valueOf).collect(Collectors.joining(",")));
+
+        List<ProyectoRepository.ProyectoAlerta> enviadas = alertasResumen
+                ? enviarResumenAlertas(alertas)
+                : alertas.stream().filter(this::enviarCorreoAlerta).collect(Collectors.toList());
+
+        // Una actualización por umbral (y por bloque de IDs)
+        Map<Integer, List<Integer>> idsPorUmbral = enviadas.stream().collect(Collectors.groupingBy(
+                ProyectoRepository.ProyectoAlerta::getUmbral, TreeMap::new,
+                Collectors.mapping(ProyectoRepository.ProyectoAlerta::getId, Collectors.toList())));
+        idsPorUmbral.forEach((umbral, ids) -> {
+            for (int i = 0; i < ids.size(); i += IDS_POR_ACTUALIZACION) {
+                proyectoRepository.marcarAlertaEnviada(ids.subList(i, Math.min(i + IDS_POR_ACTUALIZACION, ids.size())), umbral);
+            }
+        });
 
-            // Si el proyecto está vencido, desactivarlo
-            if (proyecto.isVencido()) {
-                proyecto.setActivo(false);
-                log.info("Proyecto {} desactivado por vencimiento", proyecto.getIdProducto());
+        log.info("Alertas de vencimiento: {} proyectos pendientes, {} marcados", alertas.size(), enviadas.size());
+    }
+
+    /**
+     * Un correo por destinatario con todos sus proyectos por vencer (en el orden de la consulta,
+     * por fecha de vencimiento). Devuelve los proyectos incluidos en algún correo.
+     */
+    private List<ProyectoRepository.ProyectoAlerta> enviarResumenAlertas(List<ProyectoRepository.ProyectoAlerta> alertas) {
+        Map<String, List<ProyectoRepository.ProyectoAlerta>> porDestinatario = new TreeMap<>();
+        List<ProyectoRepository.ProyectoAlerta> enviadas = new ArrayList<>();
+        for (ProyectoRepository.ProyectoAlerta alerta : alertas) {
+            List<String> destinatarios = destinatariosAlerta(alerta);
+            if (destinatarios.isEmpty()) {
+                log.warn("No hay correos configurados para el proyecto {}", alerta.getIdProducto());
+                continue;
+            }
+            for (String destinatario : destinatarios) {
+                porDestinatario.computeIfAbsent(destinatario.trim().toLowerCase(), d -> new ArrayList<>()).add(alerta);
             }
+            enviadas.add(alerta);
+        }
+
+        DateTimeFormatter formato = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+        for (Map.Entry<String, List<ProyectoRepository.ProyectoAlerta>> entrada : porDestinatario.entrySet()) {
+            List<ProyectoRepository.ProyectoAlerta> proyectos = entrada.getValue();
+
+            TablaTexto tabla = new TablaTexto("Vencimiento", "Días", "ID Producto", "Producto", "Vigencia");
+            for (ProyectoRepository.ProyectoAlerta proyecto : proyectos) {
+                tabla.fila(
+                        proyecto.getFechaVencimiento().format(formato),
+                        proyecto.getVigenciaRestante(),
+                        proyecto.getIdProducto(),
+                        proyecto.getProducto(),
+                        proyecto.getVigencia());
+            }
+
+            String texto = "Estimado(a),\n\n" +
+                    "Le informamos que los siguientes " + proyectos.size() +
+                    " proyectos están próximos a vencer.\n\n" +
+                    tabla +
+                    "\nPor favor, tome las acciones necesarias para renovar o dar seguimiento a estos proyectos.\n\n" +
+                    "Saludos cordiales,\n" +
+                    "Sistema de Gestión de Proyectos";
+
+            correoOutboxService.encolar(CorreoOutboxService.TIPO_RESUMEN_PROYECTOS, "alertas@sistema-licencias.com",
+                    List.of(entrada.getKey()),
+                    "⚠️ Alerta de Vencimiento - " + proyectos.size() + " proyecto(s) por vencer", texto);
+        }
+
+        log.info("Resumen de alertas encolado: {} proyectos, {} correos", enviadas.size(), porDestinatario.size());
+        return enviadas;
+    }
 
-            proyectoRepository.save(proyecto);
+    /**
+     * Desactiva los proyectos vencidos (sin días enteros de vigencia restante, como isVencido).
+     * Es un único UPDATE sobre el índice de fecha_vencimiento que solo toca los proyectos que
+     * vencieron desde la ejecución anterior; la vigencia restante se calcula al consultar.
+     */
+    public int desactivarVencidos() {
+        LocalDateTime ahora = LocalDateTime.now();
+        int desactivados = proyectoRepository.desactivarVencidos(Proyecto.inicioVigente(ahora), ahora);
+        if (desactivados > 0) {
+            log.info("{} proyectos desactivados por vencimiento", desactivados);
+            indiceBusqueda.recargarProyectosDespuesDelCommit();
         }
+        return desactivados;
     }
 
     /**
      * Procesa una fila del Excel
      */
-    private ProyectoExcelDTO procesarFilaExcel(Row row, int rowNum) {
+    private ProyectoExcelDTO procesarFilaExcel(ExcelStreamReader.Fila fila) {
         ProyectoExcelDTO dto = new ProyectoExcelDTO();
 
         try {
             // ID Producto
-            dto.setIdProducto(getCellValueAsString(row.getCell(0)));
+            dto.setIdProducto(fila.getValor(0));
             if (dto.getIdProducto() == null || dto.getIdProducto().trim().isEmpty()) {
                 dto.setValido(false);
                 dto.setError("ID de producto vacío");
@@ -301,7 +562,7 @@ public class ProyectoService {
             }
 
             // Producto
-            dto.setProducto(getCellValueAsString(row.getCell(1)));
+            dto.setProducto(fila.getValor(1));
             if (dto.getProducto() == null || dto.getProducto().trim().isEmpty()) {
                 dto.setValido(false);
                 dto.setError("Nombre de producto vacío");
@@ -309,7 +570,7 @@ public class ProyectoService {
             }
 
             // Fecha Inicio
-            dto.setFechaInicio(getCellValueAsString(row.getCell(2)));
+            dto.setFechaInicio(fila.getValor(2));
             if (dto.getFechaInicio() == null || dto.getFechaInicio().trim().isEmpty()) {
                 dto.setValido(false);
                 dto.setError("Fecha de inicio vacía");
@@ -317,7 +578,7 @@ public class ProyectoService {
             }
 
             // Vigencia
-            dto.setVigencia(getCellValueAsString(row.getCell(3)));
+            dto.setVigencia(fila.getValor(3));
             if (dto.getVigencia() == null || dto.getVigencia().trim().isEmpty()) {
                 dto.setValido(false);
                 dto.setError("Vigencia vacía");
@@ -325,13 +586,13 @@ public class ProyectoService {
             }
 
             // Vigencia Restante (opcional, se calculará)
-            Cell vigenciaRestanteCell = row.getCell(4);
-            if (vigenciaRestanteCell != null && vigenciaRestanteCell.getCellType() == CellType.NUMERIC) {
-                dto.setVigenciaRestante((int) vigenciaRestanteCell.getNumericCellValue());
+            String vigenciaRestante = fila.getValor(4);
+            if (vigenciaRestante != null && vigenciaRestante.matches("-?\\d{1,9}")) {
+                dto.setVigenciaRestante(Integer.parseInt(vigenciaRestante));
             }
 
             // Correo Vendedor 1
-            dto.setCorreoVendedor1(getCellValueAsString(row.getCell(5)));
+            dto.setCorreoVendedor1(fila.getValor(5));
             if (dto.getCorreoVendedor1() == null || dto.getCorreoVendedor1().trim().isEmpty()) {
                 dto.setValido(false);
                 dto.setError("Correo vendedor 1 vacío");
@@ -339,10 +600,10 @@ public class ProyectoService {
             }
 
             // Correo Vendedor 2 (opcional)
-            dto.setCorreoVendedor2(getCellValueAsString(row.getCell(6)));
+            dto.setCorreoVendedor2(fila.getValor(6));
 
             // Correo Jefe Vendedor (opcional)
-            dto.setCorreoJefeVendedor(getCellValueAsString(row.getCell(7)));
+            dto.setCorreoJefeVendedor(fila.getValor(7));
 
         } catch (Exception e) {
             dto.setValido(false);
@@ -352,40 +613,14 @@ public class ProyectoService {
         return dto;
     }
 
-    /**
-     * Obtiene el valor de una celda como String
-     */
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return null;
-        }
-
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getLocalDateTimeCellValue().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-                } else {
-                    return String.valueOf((long) cell.getNumericCellValue());
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
-        }
-    }
-
     /**
      * Crea un proyecto desde los datos del Excel
      */
-    private Proyecto crearProyectoDesdeExcel(ProyectoExcelDTO dto) {
+    private Proyecto crearProyectoDesdeExcel(ProyectoExcelDTO dto, LocalDateTime fechaInicio) {
         Proyecto proyecto = new Proyecto();
         proyecto.setIdProducto(dto.getIdProducto());
         proyecto.setProducto(dto.getProducto());
-        proyecto.setFechaInicio(parsearFecha(dto.getFechaInicio()));
+        proyecto.setFechaInicio(fechaInicio);
         proyecto.setVigencia(dto.getVigencia());
         proyecto.setCorreoVendedor1(dto.getCorreoVendedor1());
         proyecto.setCorreoVendedor2(dto.getCorreoVendedor2());
@@ -398,75 +633,51 @@ public class ProyectoService {
     /**
      * Actualiza un proyecto existente con datos del Excel
      */
-    private void actualizarProyectoDesdeExcel(Proyecto proyecto, ProyectoExcelDTO dto) {
+    private void actualizarProyectoDesdeExcel(Proyecto proyecto, ProyectoExcelDTO dto, LocalDateTime fechaInicio) {
         proyecto.setProducto(dto.getProducto());
-        proyecto.setFechaInicio(parsearFecha(dto.getFechaInicio()));
+        proyecto.setFechaInicio(fechaInicio);
         proyecto.setVigencia(dto.getVigencia());
         proyecto.setCorreoVendedor1(dto.getCorreoVendedor1());
         proyecto.setCorreoVendedor2(dto.getCorreoVendedor2());
         proyecto.setCorreoJefeVendedor(dto.getCorreoJefeVendedor());
         // Resetear alertas si se actualiza
-        proyecto.setAlerta30Enviada(false);
-        proyecto.setAlerta60Enviada(false);
+        proyecto.setUmbralAlertaEnviada(null);
     }
 
-    /**
-     * Parsea una fecha desde String
-     */
-    private LocalDateTime parsearFecha(String fechaStr) {
-        if (fechaStr == null || fechaStr.trim().isEmpty()) {
-            return LocalDateTime.now();
-        }
-
-        // Intentar parsear con diferentes formatos
-        for (DateTimeFormatter formatter : DATE_FORMATTERS) {
-            try {
-                // Si el formato no incluye hora, agregar 00:00:00
-                if (!fechaStr.contains(":")) {
-                    return LocalDateTime.parse(fechaStr + " 00:00:00",
-                            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss"));
-                }
-                return LocalDateTime.parse(fechaStr, formatter);
-            } catch (DateTimeParseException e) {
-                // Intentar con el siguiente formato
-            }
+    public Page<ProyectoDTO> buscarProyectosPorEstado(String idProducto, String producto, String correo, String estado, Pageable pageable) {
+        Page<Integer> ids = indiceBusqueda.buscarProyectos(idProducto, producto, correo, null, estado, pageable);
+        if (ids != null) {
+            return IndiceBusquedaCache.hidratar(ids, proyectoRepository::findAllById, Proyecto::getId, this::convertToDTO);
         }
 
-        // Si ningún formato funciona, usar fecha actual
-        log.warn("No se pudo parsear la fecha: {}, usando fecha actual", fechaStr);
-        return LocalDateTime.now();
+        return proyectoRepository.findAll(especificacionPorEstado(idProducto, producto, correo, estado), pageable)
+                .map(this::convertToDTO);
     }
 
-    public Page<ProyectoDTO> buscarProyectosPorEstado(String idProducto, String producto, String correo, String estado, Pageable pageable) {
-        Specification<Proyecto> spec = Specification.where(null);
-
-        if (idProducto != null && !idProducto.trim().isEmpty()) {
-            spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("idProducto")), "%" + idProducto.toLowerCase() + "%"));
-        }
-
-        if (producto != null && !producto.trim().isEmpty()) {
-            spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("producto")), "%" + producto.toLowerCase() + "%"));
-        }
+    /**
+     * Busca proyectos por estado con paginación por cursor (sin total)
+     */
+    public PaginaCursorDTO<ProyectoDTO> buscarProyectosPorEstado(String idProducto, String producto, String correo, String estado,
+                                                                 String cursor, int size, Sort sort) {
+        return CursorPaginacion.consultar(proyectoRepository, especificacionPorEstado(idProducto, producto, correo, estado),
+                cursor, size, sort, ORDENES_CURSOR, this::convertToDTO);
+    }
 
-        if (correo != null && !correo.trim().isEmpty()) {
-            spec = spec.and((root, query, cb) ->
-                    cb.or(
-                            cb.like(cb.lower(root.get("correoVendedor1")), "%" + correo.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("correoVendedor2")), "%" + correo.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("correoJefeVendedor")), "%" + correo.toLowerCase() + "%")
-                    ));
-        }
+    private Specification<Proyecto> especificacionPorEstado(String idProducto, String producto, String correo, String estado) {
+        Specification<Proyecto> spec = filtrosTexto(idProducto, producto, correo);
 
-        // Filtrar por estado
+        // Filtrar por estado: rangos de fecha_vencimiento respecto a la hora actual (usan el índice)
         if (estado != null && !estado.trim().isEmpty()) {
+            LocalDateTime ahora = LocalDateTime.now();
+            LocalDateTime inicioVigente = Proyecto.inicioVigente(ahora);
+            LocalDateTime limiteCritico = Proyecto.inicioProximoVencer(ahora);
+            LocalDateTime limiteProximo = Proyecto.inicioActivo(ahora);
             switch (estado.toUpperCase()) {
                 case "ACTIVO":
                     spec = spec.and((root, query, cb) ->
                             cb.and(
                                     cb.isTrue(root.get("activo")),
-                                    cb.greaterThan(root.get("vigenciaRestante"), 60)
+                                    cb.greaterThanOrEqualTo(root.get("fechaVencimiento"), limiteProximo)
                             ));
                     break;
 
@@ -474,8 +685,8 @@ public class ProyectoService {
                     spec = spec.and((root, query, cb) ->
                             cb.and(
                                     cb.isTrue(root.get("activo")),
-                                    cb.greaterThan(root.get("vigenciaRestante"), 30),
-                                    cb.lessThanOrEqualTo(root.get("vigenciaRestante"), 60)
+                                    cb.greaterThanOrEqualTo(root.get("fechaVencimiento"), limiteCritico),
+                                    cb.lessThan(root.get("fechaVencimiento"), limiteProximo)
                             ));
                     break;
 
@@ -483,16 +694,16 @@ public class ProyectoService {
                     spec = spec.and((root, query, cb) ->
                             cb.and(
                                     cb.isTrue(root.get("activo")),
-                                    cb.greaterThan(root.get("vigenciaRestante"), 0),
-                                    cb.lessThanOrEqualTo(root.get("vigenciaRestante"), 30)
+                                    cb.greaterThanOrEqualTo(root.get("fechaVencimiento"), inicioVigente),
+                                    cb.lessThan(root.get("fechaVencimiento"), limiteCritico)
                             ));
                     break;
 
                 case "VENCIDO":
                     spec = spec.and((root, query, cb) ->
                             cb.or(
-                                    cb.isNull(root.get("vigenciaRestante")),
-                                    cb.lessThanOrEqualTo(root.get("vigenciaRestante"), 0)
+                                    cb.isNull(root.get("fechaVencimiento")),
+                                    cb.lessThan(root.get("fechaVencimiento"), inicioVigente)
                             ));
                     break;
 
@@ -505,76 +716,75 @@ public class ProyectoService {
                     spec = spec.and((root, query, cb) ->
                             cb.and(
                                     cb.isTrue(root.get("activo")),
-                                    cb.isNull(root.get("vigenciaRestante"))
+                                    cb.isNull(root.get("fechaVencimiento"))
                             ));
                     break;
             }
         }
 
-        return proyectoRepository.findAll(spec, pageable).map(this::convertToDTO);
+        return spec;
     }
 
     /**
-     * Envía correo de alerta
+     * Registra el correo de alerta en el outbox, dentro de la transacción que marca la alerta como
+     * enviada; el envío real lo hace CorreoDispatcher
      */
-    private boolean enviarCorreoAlerta(Proyecto proyecto, int dias) {
-        if (mailSender == null) {
-            log.warn("JavaMailSender no configurado, no se pueden enviar correos");
+    private boolean enviarCorreoAlerta(ProyectoRepository.ProyectoAlerta proyecto) {
+        int dias = proyecto.getUmbral();
+        String remitente = "alertas@sistema-licencias.com";
+
+        List<String> destinatarios = destinatariosAlerta(proyecto);
+        if (destinatarios.isEmpty()) {
+            log.warn("No hay correos configurados para el proyecto {}", proyecto.getIdProducto());
             return false;
         }
 
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom("alertas@sistema-licencias.com");
+        String asunto = "⚠️ Alerta de Vencimiento - Proyecto " + proyecto.getIdProducto();
+
+        String texto = String.format(
+                "Estimado(a),\n\n" +
+                        "Le informamos que el proyecto %s (%s) está próximo a vencer.\n\n" +
+                        "Detalles del proyecto:\n" +
+                        "- ID Producto: %s\n" +
+                        "- Producto: %s\n" +
+                        "- Fecha de inicio: %s\n" +
+                        "- Vigencia: %s\n" +
+                        "- Días restantes: %d\n" +
+                        "- Fecha estimada de vencimiento: %s\n\n" +
+                        "Por favor, tome las acciones necesarias para renovar o dar seguimiento a este proyecto.\n\n" +
+                        "Saludos cordiales,\n" +
+                        "Sistema de Gestión de Proyectos",
+                proyecto.getIdProducto(),
+                proyecto.getProducto(),
+                proyecto.getIdProducto(),
+                proyecto.getProducto(),
+                proyecto.getFechaInicio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
+                proyecto.getVigencia(),
+                proyecto.getVigenciaRestante(),
+                proyecto.getFechaVencimiento().format(DateTimeFormatter.ofPattern("dd/MM/yyyy"))
+        );
+
+        correoOutboxService.encolar(CorreoOutboxService.TIPO_ALERTA_PROYECTO, remitente, destinatarios, asunto, texto);
+
+        log.info("Correo de alerta de {} días encolado para proyecto {}", dias, proyecto.getIdProducto());
+        return true;
+    }
 
-            // Destinatarios
-            List<String> destinatarios = new ArrayList<>();
+    /**
+     * Correos de los vendedores y del jefe configurados en el proyecto
+     */
+    private List<String> destinatariosAlerta(ProyectoRepository.ProyectoAlerta proyecto) {
+        List<String> destinatarios = new ArrayList<>();
+        if (proyecto.getCorreoVendedor1() != null && !proyecto.getCorreoVendedor1().isEmpty()) {
             destinatarios.add(proyecto.getCorreoVendedor1());
-            if (proyecto.getCorreoVendedor2() != null && !proyecto.getCorreoVendedor2().isEmpty()) {
-                destinatarios.add(proyecto.getCorreoVendedor2());
-            }
-            if (proyecto.getCorreoJefeVendedor() != null && !proyecto.getCorreoJefeVendedor().isEmpty()) {
-                destinatarios.add(proyecto.getCorreoJefeVendedor());
-            }
-
-            message.setTo(destinatarios.toArray(new String[0]));
-            message.setSubject("⚠️ Alerta de Vencimiento - Proyecto " + proyecto.getIdProducto());
-
-            String texto = String.format(
-                    "Estimado(a),\n\n" +
-                            "Le informamos que el proyecto %s (%s) está próximo a vencer.\n\n" +
-                            "Detalles del proyecto:\n" +
-                            "- ID Producto: %s\n" +
-                            "- Producto: %s\n" +
-                            "- Fecha de inicio: %s\n" +
-                            "- Vigencia: %s\n" +
-                            "- Días restantes: %d\n" +
-                            "- Fecha estimada de vencimiento: %s\n\n" +
-                            "Por favor, tome las acciones necesarias para renovar o dar seguimiento a este proyecto.\n\n" +
-                            "Saludos cordiales,\n" +
-                            "Sistema de Gestión de Proyectos",
-                    proyecto.getIdProducto(),
-                    proyecto.getProducto(),
-                    proyecto.getIdProducto(),
-                    proyecto.getProducto(),
-                    proyecto.getFechaInicio().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")),
-                    proyecto.getVigencia(),
-                    proyecto.getVigenciaRestante(),
-                    proyecto.calcularFechaVencimiento() != null ?
-                            proyecto.calcularFechaVencimiento().format(DateTimeFormatter.ofPattern("dd/MM/yyyy")) : "N/A"
-            );
-
-            message.setText(texto);
-            mailSender.send(message);
-
-            log.info("Correo de alerta de {} días enviado para proyecto {}", dias, proyecto.getIdProducto());
-            return true;
-
-        } catch (Exception e) {
-            log.error("Error enviando correo de alerta para proyecto {}: {}",
-                    proyecto.getIdProducto(), e.getMessage());
-            return false;
         }
+        if (proyecto.getCorreoVendedor2() != null && !proyecto.getCorreoVendedor2().isEmpty()) {
+            destinatarios.add(proyecto.getCorreoVendedor2());
+        }
+        if (proyecto.getCorreoJefeVendedor() != null && !proyecto.getCorreoJefeVendedor().isEmpty()) {
+            destinatarios.add(proyecto.getCorreoJefeVendedor());
+        }
+        return destinatarios;
     }
 
     /**
@@ -601,10 +811,11 @@ public class ProyectoService {
                 .fechaCarga(proyecto.getFechaCarga())
                 .fechaActualizacion(proyecto.getFechaActualizacion())
                 .activo(proyecto.getActivo())
-                .alerta30Enviada(proyecto.getAlerta30Enviada())
-                .alerta60Enviada(proyecto.getAlerta60Enviada())
+                .alerta30Enviada(proyecto.isAlertaEnviada(30))
+                .alerta60Enviada(proyecto.isAlertaEnviada(60))
+                .umbralAlertaEnviada(proyecto.getUmbralAlertaEnviada())
                 .estado(estado)
-                .fechaVencimiento(proyecto.calcularFechaVencimiento())
+                .fechaVencimiento(proyecto.getFechaVencimiento())
                 .build();
     }
 }
\ No newline at end of file
@@ -1,10 +1,12 @@
 package org.saeta.licenciasservice.service;
 
+import org.saeta.licenciasservice.cache.CatalogoCache;
 import org.saeta.licenciasservice.dto.TipoCertificadoDTO;
 import org.saeta.licenciasservice.dto.CreateTipoCertificadoRequest;
 import org.saeta.licenciasservice.dto.UpdateTipoCertificadoRequest;
 import org.saeta.licenciasservice.entity.TipoCertificado;
 import org.saeta.licenciasservice.repository.TipoCertificadoRepository;
+import org.saeta.licenciasservice.util.BusquedaTexto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -21,14 +23,19 @@ public class TipoCertificadoService {
     @Autowired
     private TipoCertificadoRepository tipoCertificadoRepository;
 
+    @Autowired
+    private CatalogoCache catalogoCache;
+
     public Page<TipoCertificadoDTO> listarTiposCertificado(Pageable pageable) {
         return tipoCertificadoRepository.findAll(pageable).map(this::convertToDTO);
     }
 
     public TipoCertificadoDTO obtenerTipoCertificado(Integer id) {
-        TipoCertificado tipoCertificado = tipoCertificadoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Tipo de certificado no encontrado con ID: " + id));
-        return convertToDTO(tipoCertificado);
+        TipoCertificadoDTO tipoCertificado = catalogoCache.getTipoCertificado(id);
+        if (tipoCertificado == null) {
+            throw new RuntimeException("Tipo de certificado no encontrado con ID: " + id);
+        }
+        return tipoCertificado;
     }
 
     public TipoCertificadoDTO crearTipoCertificado(CreateTipoCertificadoRequest request) {
@@ -42,6 +49,7 @@ public class TipoCertificadoService {
         tipoCertificado.setAbreviatura(request.getAbreviatura().toUpperCase());
 
         TipoCertificado saved = tipoCertificadoRepository.save(tipoCertificado);
+        catalogoCache.invalidarTiposCertificado();
         return convertToDTO(saved);
     }
 
@@ -64,6 +72,7 @@ public class TipoCertificadoService {
         }
 
         TipoCertificado updated = tipoCertificadoRepository.save(tipoCertificado);
+        catalogoCache.invalidarTiposCertificado();
         return convertToDTO(updated);
     }
 
@@ -72,6 +81,7 @@ public class TipoCertificadoService {
             throw new RuntimeException("Tipo de certificado no encontrado con ID: " + id);
         }
         tipoCertificadoRepository.deleteById(id);
+        catalogoCache.invalidarTiposCertificado();
     }
 
     public Page<TipoCertificadoDTO> buscarTiposCertificado(String nombre, String abreviatura, Pageable pageable) {
@@ -79,12 +89,12 @@ public class TipoCertificadoService {
 
         if (nombre != null && !nombre.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("nombreCertificado")), "%" + nombre.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("nombreCertificado"), nombre));
         }
 
         if (abreviatura != null && !abreviatura.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("abreviatura")), "%" + abreviatura.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("abreviatura"), abreviatura));
         }
 
         return tipoCertificadoRepository.findAll(spec, pageable).map(this::convertToDTO);
@@ -101,12 +111,12 @@ public class TipoCertificadoService {
 
         if (nombre != null && !nombre.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("nombreCertificado")), "%" + nombre.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("nombreCertificado"), nombre));
         }
 
         if (abreviatura != null && !abreviatura.trim().isEmpty()) {
             spec = spec.and((root, query, cb) ->
-                    cb.like(cb.lower(root.get("abreviatura")), "%" + abreviatura.toLowerCase() + "%"));
+                    BusquedaTexto.contiene(cb, root.get("abreviatura"), abreviatura));
         }
 
         if (fechaInicio != null && fechaFin != null) {
@@ -124,12 +134,6 @@ public class TipoCertificadoService {
     }
 
     private TipoCertificadoDTO convertToDTO(TipoCertificado tipoCertificado) {
-        return TipoCertificadoDTO.builder()
-                .id(tipoCertificado.getId())
-                .nombreCertificado(tipoCertificado.getNombreCertificado())
-                .abreviatura(tipoCertificado.getAbreviatura())
-                .fechaCreacion(tipoCertificado.getFechaCreacion())
-                .fechaActualizacion(tipoCertificado.getFechaActualizacion())
-                .build();
+        return TipoCertificadoDTO.desde(tipoCertificado);
     }
 }
\ No newline at end of file
@@ -1,17 +1,26 @@
 package org.saeta.licenciasservice.service.impl;
 
+import org.saeta.licenciasservice.cache.LicenciaSnapshotCache;
+import org.saeta.licenciasservice.cache.MacBloomFilter;
 import org.saeta.licenciasservice.dto.ValidacionRequest;
 import org.saeta.licenciasservice.dto.ValidacionResponse;
 import org.saeta.licenciasservice.entity.Licencia;
 import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.saeta.licenciasservice.scheduler.LicenciaExpiracionTimer;
 import org.saeta.licenciasservice.service.LicenciaService;
+import org.saeta.licenciasservice.util.MacAddress;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 @Service
 public class LicenciaServiceImpl implements LicenciaService {
@@ -19,145 +28,246 @@ public class LicenciaServiceImpl implements LicenciaService {
     @Autowired
     private LicenciaRepository licenciaRepository;
 
-    // Patrón para validar formato MAC (acepta : y -)
-    private static final Pattern MAC_PATTERN = Pattern.compile(
-            "^([0-9A-Fa-f]{2}[:-]){5}([0-9A-Fa-f]{2})$"
-    );
+    @Autowired
+    private LicenciaSnapshotCache licenciaCache;
+
+    @Autowired
+    private MacBloomFilter macBloomFilter;
+
+    @Autowired
+    private LicenciaExpiracionTimer expiracionTimer;
 
     @Override
     public ValidacionResponse validarLicencia(ValidacionRequest request) {
         try {
             String mac = request.getMac();
 
-            // Validar formato de MAC
-            if (!esMacValida(mac)) {
-                return ValidacionResponse.builder()
-                        .valido(false)
-                        .mensaje("Formato de dirección MAC inválido")
-                        .mac(mac)
-                        .estado("INVALIDO")
-                        .codigoError(400)
-                        .fechaValidacion(LocalDateTime.now().toString())
-                        .build();
+            // Validar formato de MAC y convertirla a sus 48 bits (acepta :, - y hex sin separadores)
+            long macBits = MacAddress.parsear(mac);
+            if (macBits == MacAddress.INVALIDA) {
+                return respuestaMacInvalida(mac);
             }
 
-            // Normalizar MAC (convertir : a -)
-            String macNormalizada = normalizarMac(mac);
-
-            // Buscar en base de datos
-            Optional<Licencia> licenciaOpt = licenciaRepository.findByMac(macNormalizada);
-
-            if (licenciaOpt.isEmpty()) {
-                return ValidacionResponse.builder()
-                        .valido(false)
-                        .mensaje("Licencia no registrada")
-                        .mac(macNormalizada)
-                        .estado("NO_REGISTRADO")
-                        .codigoError(404)
-                        .fechaValidacion(LocalDateTime.now().toString())
-                        .build();
-            }
+            // Buscar en el snapshot en memoria o, si no está disponible, en base de datos
+            Optional<Licencia> licenciaOpt = buscarLicencia(macBits);
 
-            Licencia licencia = licenciaOpt.get();
-
-            // Verificar si la licencia ha vencido por tiempo
-            if (licencia.hasVencido()) {
-                // Actualizar estado a inactivo si venció
-                licencia.setEstado("0");
-                licenciaRepository.save(licencia);
-
-                return ValidacionResponse.builder()
-                        .valido(false)
-                        .mensaje("Licencia vencida (vigencia: " + licencia.getVigencia() + ")")
-                        .mac(macNormalizada)
-                        .estado("VENCIDO")
-                        .empresa(licencia.getEmpresa())
-                        .codigoError(403)
-                        .fechaValidacion(LocalDateTime.now().toString())
-                        .build();
-            }
+            return evaluarLicencia(macBits, licenciaOpt);
 
-            // Verificar si está activa (estado = '1')
-            if (!"1".equals(licencia.getEstado())) {
-                return ValidacionResponse.builder()
-                        .valido(false)
-                        .mensaje("Licencia inactiva")
-                        .mac(macNormalizada)
-                        .estado("INACTIVO")
-                        .empresa(licencia.getEmpresa())
-                        .codigoError(403)
-                        .fechaValidacion(LocalDateTime.now().toString())
-                        .build();
+        } catch (Exception e) {
+            return respuestaError(e);
+        }
+    }
+
+    @Override
+    public List<ValidacionResponse> validarLicencias(List<String> macs) {
+        // Resolver todas las MAC válidas con una sola consulta (o desde el snapshot)
+        Set<Long> macsValidas = new LinkedHashSet<>();
+        for (String mac : macs) {
+            long macBits = MacAddress.parsear(mac);
+            if (macBits != MacAddress.INVALIDA) {
+                macsValidas.add(macBits);
             }
+        }
+
+        Map<Long, Licencia> licencias = Map.of();
+        Exception errorBusqueda = null;
+        try {
+            licencias = buscarLicencias(macsValidas);
+        } catch (Exception e) {
+            errorBusqueda = e;
+        }
 
-            // Licencia válida
-            String mensajeVigencia = "Licencia válida";
-            if (licencia.getVigencia() != null && !licencia.getVigencia().isEmpty()) {
-                long diasRestantes = licencia.getDiasRestantes();
-                if (diasRestantes > 30) {
-                    mensajeVigencia = "Licencia válida (vigencia: " + licencia.getVigencia() + ")";
-                } else if (diasRestantes > 0) {
-                    mensajeVigencia = "Licencia válida (¡ATENCIÓN! Vence en " + diasRestantes + " días)";
+        List<ValidacionResponse> respuestas = new ArrayList<>(macs.size());
+        for (String mac : macs) {
+            try {
+                long macBits = MacAddress.parsear(mac);
+                if (macBits == MacAddress.INVALIDA) {
+                    respuestas.add(respuestaMacInvalida(mac));
+                } else if (errorBusqueda != null) {
+                    respuestas.add(respuestaError(errorBusqueda));
                 } else {
-                    var tiempo = licencia.getTiempoRestanteDetallado();
-                    if (tiempo.getHoras() > 0) {
-                        mensajeVigencia = "Licencia válida (¡ATENCIÓN! Vence en " + tiempo.getHoras() + " horas)";
-                    } else {
-                        mensajeVigencia = "Licencia válida (¡ATENCIÓN! Vence en " + tiempo.getMinutos() + " minutos)";
-                    }
+                    respuestas.add(evaluarLicencia(macBits, Optional.ofNullable(licencias.get(macBits))));
                 }
+            } catch (Exception e) {
+                respuestas.add(respuestaError(e));
             }
+        }
+        return respuestas;
+    }
+
+    /**
+     * Construye la respuesta de validación para una MAC válida y su licencia (si existe)
+     */
+    private ValidacionResponse evaluarLicencia(long macBits, Optional<Licencia> licenciaOpt) {
+        String macNormalizada = MacAddress.formatear(macBits);
 
+        if (licenciaOpt.isEmpty()) {
             return ValidacionResponse.builder()
-                    .valido(true)
-                    .mensaje(mensajeVigencia)
-                    .estado("ACTIVO")
-                    .empresa(licencia.getEmpresa())
+                    .valido(false)
+                    .mensaje("Licencia no registrada")
+                    .mac(macNormalizada)
+                    .estado("NO_REGISTRADO")
+                    .codigoError(404)
                     .fechaValidacion(LocalDateTime.now().toString())
+                    .build();
+        }
+
+        Licencia licencia = licenciaOpt.get();
+
+        // Verificar si la licencia ha vencido por tiempo
+        // (LicenciaExpiracionTimer se encarga de desactivarla en base de datos)
+        if (licencia.hasVencido()) {
+            return ValidacionResponse.builder()
+                    .valido(false)
+                    .mensaje("Licencia vencida (vigencia: " + licencia.getVigencia() + ")")
                     .mac(macNormalizada)
+                    .estado("VENCIDO")
+                    .empresa(licencia.getEmpresa())
+                    .codigoError(403)
+                    .fechaValidacion(LocalDateTime.now().toString())
                     .build();
+        }
 
-        } catch (Exception e) {
+        // Verificar si está activa (estado = '1')
+        if (!"1".equals(licencia.getEstado())) {
             return ValidacionResponse.builder()
                     .valido(false)
-                    .mensaje("Error interno del servidor: " + e.getMessage())
-                    .estado("ERROR")
-                    .codigoError(500)
+                    .mensaje("Licencia inactiva")
+                    .mac(macNormalizada)
+                    .estado("INACTIVO")
+                    .empresa(licencia.getEmpresa())
+                    .codigoError(403)
                     .fechaValidacion(LocalDateTime.now().toString())
                     .build();
         }
+
+        // Licencia válida
+        String mensajeVigencia = "Licencia válida";
+        if (licencia.getVigencia() != null && !licencia.getVigencia().isEmpty()) {
+            long diasRestantes = licencia.getDiasRestantes();
+            if (diasRestantes > 30) {
+                mensajeVigencia = "Licencia válida (vigencia: " + licencia.getVigencia() + ")";
+            } else if (diasRestantes > 0) {
+                mensajeVigencia = "Licencia válida (¡ATENCIÓN! Vence en " + diasRestantes + " días)";
+            } else {
+                var tiempo = licencia.getTiempoRestanteDetallado();
+                if (tiempo.getHoras() > 0) {
+                    mensajeVigencia = "Licencia válida (¡ATENCIÓN! Vence en " + tiempo.getHoras() + " horas)";
+                } else {
+                    mensajeVigencia = "Licencia válida (¡ATENCIÓN! Vence en " + tiempo.getMinutos() + " minutos)";
+                }
+            }
+        }
+
+        return ValidacionResponse.builder()
+                .valido(true)
+                .mensaje(mensajeVigencia)
+                .estado("ACTIVO")
+                .empresa(licencia.getEmpresa())
+                .fechaValidacion(LocalDateTime.now().toString())
+                .mac(macNormalizada)
+                .build();
+    }
+
+    private ValidacionResponse respuestaMacInvalida(String mac) {
+        return ValidacionResponse.builder()
+                .valido(false)
+                .mensaje("Formato de dirección MAC inválido")
+                .mac(mac)
+                .estado("INVALIDO")
+                .codigoError(400)
+                .fechaValidacion(LocalDateTime.now().toString())
+                .build();
+    }
+
+    private ValidacionResponse respuestaError(Exception e) {
+        return ValidacionResponse.builder()
+                .valido(false)
+                .mensaje("Error interno del servidor: " + e.getMessage())
+                .estado("ERROR")
+                .codigoError(500)
+                .fechaValidacion(LocalDateTime.now().toString())
+                .build();
     }
 
     @Override
     public boolean esMacValida(String mac) {
-        if (mac == null || mac.trim().isEmpty()) {
-            return false;
+        return MacAddress.esValida(mac);
+    }
+
+    /**
+     * Resuelve la licencia desde el snapshot si está disponible; si no, consulta la base de datos
+     * salvo que el filtro de Bloom descarte la MAC como no registrada
+     */
+    private Optional<Licencia> buscarLicencia(long macBits) {
+        if (licenciaCache.isDisponible()) {
+            licenciaCache.registrarAcierto();
+            return Optional.ofNullable(licenciaCache.obtener(macBits));
         }
-        return MAC_PATTERN.matcher(mac.trim()).matches();
+        if (!macBloomFilter.puedeContener(macBits)) {
+            return Optional.empty();
+        }
+        licenciaCache.registrarFallo();
+        Optional<Licencia> licencia = licenciaRepository.findFirstByMacBitsOrderByIdDesc(macBits);
+        if (licencia.isEmpty()) {
+            macBloomFilter.registrarFalsoPositivo();
+        }
+        return licencia;
     }
 
     /**
-     * Normaliza la MAC convirtiendo : a - y poniendo en mayúsculas
+     * Resuelve varias licencias a la vez: desde el snapshot si está disponible o con un único
+     * WHERE mac_bits IN (...) sobre las MAC que el filtro de Bloom no descarta
      */
-    private String normalizarMac(String mac) {
-        return mac.trim().replace(":", "-").toUpperCase();
+    private Map<Long, Licencia> buscarLicencias(Set<Long> macsValidas) {
+        Map<Long, Licencia> licencias = new HashMap<>();
+        if (macsValidas.isEmpty()) {
+            return licencias;
+        }
+
+        if (licenciaCache.isDisponible()) {
+            licenciaCache.registrarAciertos(macsValidas.size());
+            for (Long mac : macsValidas) {
+                Licencia licencia = licenciaCache.obtener(mac);
+                if (licencia != null) {
+                    licencias.put(mac, licencia);
+                }
+            }
+            return licencias;
+        }
+
+        Set<Long> posibles = new HashSet<>();
+        for (Long mac : macsValidas) {
+            if (macBloomFilter.puedeContener(mac)) {
+                posibles.add(mac);
+            }
+        }
+        if (posibles.isEmpty()) {
+            return licencias;
+        }
+
+        licenciaCache.registrarFallos(posibles.size());
+        // Con MAC repetidas se queda la de mayor ID (la primera en el orden de la consulta)
+        for (Licencia licencia : licenciaRepository.findByMacBitsInOrderByIdDesc(posibles)) {
+            licencias.putIfAbsent(licencia.getMacBits(), licencia);
+        }
+        for (Long mac : posibles) {
+            if (!licencias.containsKey(mac)) {
+                macBloomFilter.registrarFalsoPositivo();
+            }
+        }
+        return licencias;
     }
 
     /**
      * Método para limpiar licencias vencidas automáticamente
      */
     public int limpiarLicenciasVencidas() {
-        List<Licencia> licenciasActivas = licenciaRepository.findLicenciasActivas();
-        int count = 0;
-
-        for (Licencia licencia : licenciasActivas) {
-            if (licencia.hasVencido()) {
-                licencia.setEstado("0");
-                licenciaRepository.save(licencia);
-                count++;
-            }
-        }
+        List<LicenciaRepository.LicenciaDesactivada> desactivadas =
+                licenciaRepository.desactivarVencidas(LocalDateTime.now());
+        licenciaCache.desactivar(desactivadas);
+        expiracionTimer.olvidar(desactivadas);
 
-        return count;
+        return desactivadas.size();
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package org.saeta.licenciasservice.util;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Búsqueda por subcadena sin distinguir mayúsculas: lower(columna) LIKE '%término%'.
+ * Todas las búsquedas usan exactamente la expresión lower(columna), que es la que indexa
+ * IndiceTrigramaMigration con pg_trgm (GIN), de modo que PostgreSQL resuelve el LIKE con el
+ * índice en lugar de recorrer la tabla. En otras bases (H2) es el LIKE de siempre.
+ * Los comodines % y _ del término se escapan: se buscan como texto literal.
+ */
+public final class BusquedaTexto {
+
+    public static final char ESCAPE = '\\';
+
+    private BusquedaTexto() {
+    }
+
+    /**
+     * Patrón LIKE '%término%' en minúsculas con los comodines del término escapados
+     */
+    public static String patronContiene(String termino) {
+        String minusculas = termino.toLowerCase();
+        StringBuilder patron = new StringBuilder(minusculas.length() + 2).append('%');
+        for (int i = 0; i < minusculas.length(); i++) {
+            char c = minusculas.charAt(i);
+            if (c == '%' || c == '_' || c == ESCAPE) {
+                patron.append(ESCAPE);
+            }
+            patron.append(c);
+        }
+        return patron.append('%').toString();
+    }
+
+    /**
+     * lower(campo) LIKE '%término%'
+     */
+    public static Predicate contiene(CriteriaBuilder cb, Expression<String> campo, String termino) {
+        return cb.like(cb.lower(campo), patronContiene(termino), ESCAPE);
+    }
+
+    /**
+     * El término aparece en al menos uno de los campos (cada uno usa su propio índice)
+     */
+    @SafeVarargs
+    public static Predicate contieneEnAlguno(CriteriaBuilder cb, String termino, Expression<String>... campos) {
+        String patron = patronContiene(termino);
+        Predicate[] predicados = new Predicate[campos.length];
+        for (int i = 0; i < campos.length; i++) {
+            predicados[i] = cb.like(cb.lower(campos[i]), patron, ESCAPE);
+        }
+        return cb.or(predicados);
+    }
+
+    /**
+     * Condición SQL equivalente para consultas nativas/JDBC; el parámetro se completa con patronContiene
+     */
+    public static String sqlContiene(String columna) {
+        return "lower(" + columna + ") LIKE ? ESCAPE '" + ESCAPE + "'";
+    }
+}
\ No newline at end of file
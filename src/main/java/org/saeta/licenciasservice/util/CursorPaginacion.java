@@ -0,0 +1,219 @@
+package org.saeta.licenciasservice.util;
+
+import org.saeta.licenciasservice.dto.PaginaCursorDTO;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Paginación por cursor (keyset): cada página continúa después de la última fila de la anterior
+ * con WHERE (orden, id) > (últimos valores) en lugar de OFFSET, y no se cuenta el total.
+ * El tiempo por página no depende de lo profundo que esté la página ni del tamaño de la tabla.
+ * El cursor es opaco para el cliente: contiene el orden de la consulta y los valores de la
+ * última fila (las columnas del orden más el ID, que Spring Data añade como desempate).
+ * Al continuar, el orden sale del cursor; los filtros los debe repetir el cliente.
+ * Solo se admiten columnas de orden que no pueden ser null, porque la comparación por
+ * tuplas no sabe continuar después de un null.
+ */
+public final class CursorPaginacion {
+
+    private static final String VERSION = "c1";
+
+    private static final byte TIPO_INTEGER = 'I';
+    private static final byte TIPO_LONG = 'L';
+    private static final byte TIPO_STRING = 'S';
+    private static final byte TIPO_FECHA_HORA = 'T';
+    private static final byte TIPO_FECHA = 'D';
+    private static final byte TIPO_BOOLEAN = 'B';
+
+    private CursorPaginacion() {
+    }
+
+    /**
+     * Ejecuta la consulta de una página.
+     * @param cursor cursor recibido del cliente; vacío para la primera página
+     * @param orden orden de la primera página (en las siguientes se usa el del cursor)
+     * @param ordenesPermitidos propiedades por las que se puede ordenar en este modo
+     * @throws IllegalArgumentException si el cursor no es válido o el orden no está permitido
+     */
+    public static <T, D> PaginaCursorDTO<D> consultar(JpaSpecificationExecutor<T> repositorio, Specification<T> especificacion,
+                                                      String cursor, int tamano, Sort orden,
+                                                      Set<String> ordenesPermitidos, Function<T, D> convertir) {
+        if (tamano < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que cero");
+        }
+
+        Sort ordenConsulta;
+        ScrollPosition posicion;
+        if (cursor == null || cursor.isBlank()) {
+            ordenConsulta = orden;
+            posicion = ScrollPosition.keyset();
+        } else {
+            Cursor decodificado = decodificar(cursor);
+            ordenConsulta = decodificado.orden;
+            posicion = ScrollPosition.forward(decodificado.claves);
+        }
+        for (Sort.Order order : ordenConsulta) {
+            if (!ordenesPermitidos.contains(order.getProperty())) {
+                throw new IllegalArgumentException("No se puede paginar por cursor ordenando por: " + order.getProperty());
+            }
+        }
+
+        Specification<T> filtro = especificacion != null ? especificacion : Specification.where(null);
+        Window<T> ventana = repositorio.findBy(filtro, consulta -> consulta
+                .sortBy(ordenConsulta)
+                .limit(tamano)
+                .scroll(posicion));
+
+        List<D> contenido = new ArrayList<>(ventana.size());
+        for (T entidad : ventana) {
+            contenido.add(convertir.apply(entidad));
+        }
+
+        String siguiente = null;
+        if (ventana.hasNext() && !ventana.isEmpty()) {
+            KeysetScrollPosition ultima = (KeysetScrollPosition) ventana.positionAt(ventana.size() - 1);
+            siguiente = codificar(ordenConsulta, ultima.getKeys());
+        }
+
+        return PaginaCursorDTO.<D>builder()
+                .contenido(contenido)
+                .tamano(contenido.size())
+                .haySiguiente(siguiente != null)
+                .siguienteCursor(siguiente)
+                .build();
+    }
+
+    static String codificar(Sort orden, Map<String, Object> claves) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream salida = new DataOutputStream(bytes);
+            salida.writeUTF(VERSION);
+
+            List<Sort.Order> ordenes = orden.toList();
+            salida.writeByte(ordenes.size());
+            for (Sort.Order order : ordenes) {
+                salida.writeUTF(order.getProperty());
+                salida.writeBoolean(order.isAscending());
+            }
+
+            salida.writeByte(claves.size());
+            for (Map.Entry<String, Object> clave : claves.entrySet()) {
+                salida.writeUTF(clave.getKey());
+                escribirValor(salida, clave.getKey(), clave.getValue());
+            }
+            salida.flush();
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo generar el cursor", e);
+        }
+    }
+
+    static Cursor decodificar(String cursor) {
+        try {
+            DataInputStream entrada = new DataInputStream(
+                    new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)));
+            if (!VERSION.equals(entrada.readUTF())) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+
+            int totalOrdenes = entrada.readUnsignedByte();
+            List<Sort.Order> ordenes = new ArrayList<>(totalOrdenes);
+            for (int i = 0; i < totalOrdenes; i++) {
+                String propiedad = entrada.readUTF();
+                ordenes.add(entrada.readBoolean() ? Sort.Order.asc(propiedad) : Sort.Order.desc(propiedad));
+            }
+
+            int totalClaves = entrada.readUnsignedByte();
+            Map<String, Object> claves = new LinkedHashMap<>();
+            for (int i = 0; i < totalClaves; i++) {
+                String propiedad = entrada.readUTF();
+                claves.put(propiedad, leerValor(entrada));
+            }
+            if (entrada.available() > 0 || claves.isEmpty()) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            for (Sort.Order order : ordenes) {
+                if (claves.get(order.getProperty()) == null) {
+                    throw new IllegalArgumentException("Cursor inválido");
+                }
+            }
+            return new Cursor(Sort.by(ordenes), claves);
+        } catch (IOException | IllegalArgumentException | DateTimeException e) {
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+
+    private static void escribirValor(DataOutputStream salida, String propiedad, Object valor) throws IOException {
+        if (valor instanceof Integer entero) {
+            salida.writeByte(TIPO_INTEGER);
+            salida.writeInt(entero);
+        } else if (valor instanceof Long largo) {
+            salida.writeByte(TIPO_LONG);
+            salida.writeLong(largo);
+        } else if (valor instanceof String texto) {
+            salida.writeByte(TIPO_STRING);
+            salida.writeUTF(texto);
+        } else if (valor instanceof LocalDateTime fecha) {
+            salida.writeByte(TIPO_FECHA_HORA);
+            salida.writeUTF(fecha.toString());
+        } else if (valor instanceof LocalDate fecha) {
+            salida.writeByte(TIPO_FECHA);
+            salida.writeUTF(fecha.toString());
+        } else if (valor instanceof Boolean booleano) {
+            salida.writeByte(TIPO_BOOLEAN);
+            salida.writeBoolean(booleano);
+        } else {
+            throw new IllegalStateException("Valor no admitido en el cursor para " + propiedad + ": " + valor);
+        }
+    }
+
+    private static Object leerValor(DataInputStream entrada) throws IOException {
+        byte tipo = entrada.readByte();
+        switch (tipo) {
+            case TIPO_INTEGER:
+                return entrada.readInt();
+            case TIPO_LONG:
+                return entrada.readLong();
+            case TIPO_STRING:
+                return entrada.readUTF();
+            case TIPO_FECHA_HORA:
+                return LocalDateTime.parse(entrada.readUTF());
+            case TIPO_FECHA:
+                return LocalDate.parse(entrada.readUTF());
+            case TIPO_BOOLEAN:
+                return entrada.readBoolean();
+            default:
+                throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    static final class Cursor {
+        final Sort orden;
+        final Map<String, Object> claves;
+
+        Cursor(Sort orden, Map<String, Object> claves) {
+            this.orden = orden;
+            this.claves = claves;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,216 @@
+package org.saeta.licenciasservice.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Escritura en streaming de una exportación tabular, fila a fila.
+ * - xlsx: SXSSFWorkbook mantiene en memoria solo las últimas 'ventanaFilas' filas y vuelca el
+ *   resto a un temporal comprimido; el libro se escribe en la salida con terminar().
+ * - csv: cada fila se escribe directamente en la salida (UTF-8 con BOM para que Excel respete las tildes).
+ * La salida recibida nunca se cierra. Las fechas se escriben como dd/MM/yyyy, el mismo formato
+ * que acepta la carga de Excel.
+ */
+public abstract class EscritorExportacion implements Closeable {
+
+    public static final String XLSX = "xlsx";
+    public static final String CSV = "csv";
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Crea el escritor del formato indicado
+     * @throws IllegalArgumentException si el formato no es xlsx ni csv
+     */
+    public static EscritorExportacion crear(String formato, OutputStream salida, int ventanaFilas) {
+        if (XLSX.equalsIgnoreCase(formato)) {
+            return new Xlsx(salida, ventanaFilas);
+        }
+        if (CSV.equalsIgnoreCase(formato)) {
+            return new Csv(salida);
+        }
+        throw new IllegalArgumentException("Formato de exportación no soportado: " + formato);
+    }
+
+    public static boolean esFormatoValido(String formato) {
+        return XLSX.equalsIgnoreCase(formato) || CSV.equalsIgnoreCase(formato);
+    }
+
+    public static String getContentType(String formato) {
+        return XLSX.equalsIgnoreCase(formato)
+                ? "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
+                : "text/csv; charset=UTF-8";
+    }
+
+    public abstract void encabezados(String... titulos) throws IOException;
+
+    /**
+     * Escribe una fila; admite String, Number, Boolean, LocalDate, LocalDateTime y null
+     */
+    public abstract void fila(Object... valores) throws IOException;
+
+    /**
+     * Completa el archivo en la salida; si no se llama (por un error), close() solo libera recursos
+     */
+    public abstract void terminar() throws IOException;
+
+    private static String formatear(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor instanceof LocalDateTime fecha) {
+            return fecha.format(FORMATO_FECHA);
+        }
+        if (valor instanceof LocalDate fecha) {
+            return fecha.format(FORMATO_FECHA);
+        }
+        if (valor instanceof Boolean b) {
+            return b ? "SI" : "NO";
+        }
+        return valor.toString();
+    }
+
+    private static final class Xlsx extends EscritorExportacion {
+        private final OutputStream salida;
+        private final SXSSFWorkbook workbook;
+        private final SXSSFSheet sheet;
+        private final CellStyle estiloEncabezado;
+        private final CellStyle estiloFecha;
+        private int numeroFila;
+
+        Xlsx(OutputStream salida, int ventanaFilas) {
+            this.salida = salida;
+            this.workbook = new SXSSFWorkbook(ventanaFilas);
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet("Datos");
+
+            estiloEncabezado = workbook.createCellStyle();
+            Font fuente = workbook.createFont();
+            fuente.setBold(true);
+            estiloEncabezado.setFont(fuente);
+            estiloEncabezado.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            estiloEncabezado.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+            estiloFecha = workbook.createCellStyle();
+            estiloFecha.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy"));
+        }
+
+        @Override
+        public void encabezados(String... titulos) {
+            Row row = sheet.createRow(numeroFila++);
+            for (int i = 0; i < titulos.length; i++) {
+                Cell cell = row.createCell(i);
+                cell.setCellValue(titulos[i]);
+                cell.setCellStyle(estiloEncabezado);
+                // autoSizeColumn no es viable en streaming: ancho fijo según el título
+                sheet.setColumnWidth(i, Math.min(255, Math.max(12, titulos[i].length() + 4)) * 256);
+            }
+        }
+
+        @Override
+        public void fila(Object... valores) {
+            Row row = sheet.createRow(numeroFila++);
+            for (int i = 0; i < valores.length; i++) {
+                Object valor = valores[i];
+                if (valor == null) {
+                    continue;
+                }
+                Cell cell = row.createCell(i);
+                if (valor instanceof Number numero) {
+                    cell.setCellValue(numero.doubleValue());
+                } else if (valor instanceof LocalDateTime fecha) {
+                    cell.setCellValue(fecha);
+                    cell.setCellStyle(estiloFecha);
+                } else if (valor instanceof LocalDate fecha) {
+                    cell.setCellValue(fecha);
+                    cell.setCellStyle(estiloFecha);
+                } else {
+                    cell.setCellValue(formatear(valor));
+                }
+            }
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            workbook.write(salida);
+            salida.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Elimina los temporales de las filas ya volcadas
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static final class Csv extends EscritorExportacion {
+        private final Writer writer;
+
+        Csv(OutputStream salida) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void encabezados(String... titulos) throws IOException {
+            writer.write('\uFEFF');
+            fila((Object[]) titulos);
+        }
+
+        @Override
+        public void fila(Object... valores) throws IOException {
+            for (int i = 0; i < valores.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                escribirCampo(formatear(valores[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        /**
+         * Entrecomilla el campo si contiene separadores, comillas o saltos de línea (RFC 4180)
+         */
+        private void escribirCampo(String campo) throws IOException {
+            boolean comillas = false;
+            for (int i = 0; i < campo.length() && !comillas; i++) {
+                char c = campo.charAt(i);
+                comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!comillas) {
+                writer.write(campo);
+                return;
+            }
+            writer.write('"');
+            writer.write(campo.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void terminar() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            // No se cierra la salida: pertenece al contenedor
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package org.saeta.licenciasservice.util;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Lectura en streaming (SAX) de la primera hoja de un archivo .xlsx.
+ * Las filas se entregan de una en una sin construir el libro en memoria, por lo que el consumo
+ * no depende del número de filas (solo la tabla de textos compartidos se mantiene en memoria).
+ * Los valores se entregan como texto con el mismo criterio que se usaba con XSSFWorkbook:
+ * fechas como dd/MM/yyyy, números como enteros y textos sin espacios al inicio ni al final.
+ */
+public final class ExcelStreamReader {
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private ExcelStreamReader() {
+    }
+
+    /**
+     * Copia el archivo subido a un temporal; quien lo llama debe eliminarlo al terminar
+     */
+    public static Path copiarATemporal(MultipartFile archivo) throws IOException {
+        Path temporal = Files.createTempFile("carga-excel-", ".xlsx");
+        try {
+            archivo.transferTo(temporal);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        return temporal;
+    }
+
+    /**
+     * Lee la primera hoja de un archivo .xlsx y entrega cada fila no vacía al consumidor.
+     * Cada Fila es una copia propia de sus valores y sigue siendo válida después de la llamada:
+     * ImportacionPipeline la entrega a otros hilos, así que el manejador no debe reutilizar el arreglo.
+     * @param filasEncabezado filas iniciales que no se entregan al consumidor
+     */
+    public static void leerPrimeraHoja(File archivo, int filasEncabezado, Consumer<Fila> consumidor)
+            throws IOException {
+        try (OPCPackage paquete = OPCPackage.open(archivo, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(paquete);
+            reader.setUseReadOnlySharedStringsTable(true);
+            SharedStrings textos = reader.getSharedStringsTable();
+            StylesTable estilos = reader.getStylesTable();
+
+            XSSFReader.SheetIterator hojas = (XSSFReader.SheetIterator) reader.getSheetsData();
+            if (!hojas.hasNext()) {
+                throw new IOException("El archivo Excel no contiene hojas");
+            }
+
+            try (InputStream hoja = hojas.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(estilos, null, textos,
+                        new ManejadorFilas(filasEncabezado, consumidor), new FormateadorCeldas(), false));
+                parser.parse(new InputSource(hoja));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("No se pudo leer el archivo Excel: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Valores de una fila del Excel
+     */
+    public static final class Fila {
+        private final int numero;
+        private final String[] valores;
+
+        Fila(int numero, String[] valores) {
+            this.numero = numero;
+            this.valores = valores;
+        }
+
+        /**
+         * Número de fila tal como se muestra en Excel (la primera es 1)
+         */
+        public int getNumero() {
+            return numero;
+        }
+
+        /**
+         * Valor de la columna indicada (la primera es 0) o null si la celda está vacía
+         */
+        public String getValor(int columna) {
+            return columna < valores.length ? valores[columna] : null;
+        }
+    }
+
+    private static final class ManejadorFilas implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final int filasEncabezado;
+        private final Consumer<Fila> consumidor;
+        private String[] valores = new String[32];
+        private int columnas;
+
+        ManejadorFilas(int filasEncabezado, Consumer<Fila> consumidor) {
+            this.filasEncabezado = filasEncabezado;
+            this.consumidor = consumidor;
+        }
+
+        @Override
+        public void startRow(int numeroFila) {
+            Arrays.fill(valores, 0, columnas, null);
+            columnas = 0;
+        }
+
+        @Override
+        public void endRow(int numeroFila) {
+            if (numeroFila < filasEncabezado || columnas == 0) {
+                return;
+            }
+            // Copia obligatoria: 'valores' se reutiliza en la fila siguiente y la Fila puede procesarse en otro hilo
+            consumidor.accept(new Fila(numeroFila + 1, Arrays.copyOf(valores, columnas)));
+        }
+
+        @Override
+        public void cell(String referencia, String valor, XSSFComment comentario) {
+            if (referencia == null || valor == null) {
+                return;
+            }
+            int columna = new CellReference(referencia).getCol();
+            if (columna >= valores.length) {
+                valores = Arrays.copyOf(valores, Math.max(columna + 1, valores.length * 2));
+            }
+            valores[columna] = valor.trim();
+            columnas = Math.max(columnas, columna + 1);
+        }
+    }
+
+    /**
+     * Formatea las celdas numéricas: fechas como dd/MM/yyyy y el resto como número entero
+     */
+    private static final class FormateadorCeldas extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double valor, int indiceFormato, String formato, boolean usar1904) {
+            if (DateUtil.isADateFormat(indiceFormato, formato) && DateUtil.isValidExcelDate(valor)) {
+                return DateUtil.getLocalDateTime(valor, usar1904).format(FORMATO_FECHA);
+            }
+            return String.valueOf((long) valor);
+        }
+    }
+}
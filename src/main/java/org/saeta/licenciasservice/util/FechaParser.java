@@ -0,0 +1,178 @@
+package org.saeta.licenciasservice.util;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Lectura de las fechas que llegan en las importaciones de Excel.
+ * En lugar de probar formatos capturando DateTimeParseException, clasifica el texto por su forma
+ * (separadores y longitud de cada grupo de dígitos), lee los campos de la posición que
+ * corresponde y valida los rangos. No lanza excepciones: un texto no reconocido devuelve null.
+ * Formatos aceptados (día y mes con uno o dos dígitos):
+ * - dd/MM/yyyy, o MM/dd/yyyy cuando el segundo campo no puede ser un mes
+ * - dd-MM-yyyy
+ * - yyyy-MM-dd
+ * seguidos opcionalmente de ' ' o 'T' y HH:mm, HH:mm:ss o HH:mm:ss.fracción.
+ */
+public final class FechaParser {
+
+    private FechaParser() {
+    }
+
+    /**
+     * @return la fecha (a las 00:00 si el texto no incluye hora) o null si el texto está vacío
+     *         o no tiene un formato reconocido
+     */
+    public static LocalDateTime parsear(CharSequence texto) {
+        if (texto == null) {
+            return null;
+        }
+
+        Cursor cursor = new Cursor(texto);
+        if (cursor.pos == cursor.fin) {
+            return null;
+        }
+
+        int primero = cursor.numero(4);
+        int digitosPrimero = cursor.digitos;
+        char separador = cursor.siguiente();
+        if (primero < 0 || (separador != '/' && separador != '-')) {
+            return null;
+        }
+        int segundo = cursor.numero(2);
+        if (segundo < 0 || cursor.siguiente() != separador) {
+            return null;
+        }
+        int tercero = cursor.numero(4);
+        int digitosTercero = cursor.digitos;
+        if (tercero < 0) {
+            return null;
+        }
+
+        int anio;
+        int mes;
+        int dia;
+        if (digitosPrimero == 4 && separador == '-' && digitosTercero <= 2) {
+            // yyyy-MM-dd
+            anio = primero;
+            mes = segundo;
+            dia = tercero;
+        } else if (digitosPrimero <= 2 && digitosTercero == 4) {
+            anio = tercero;
+            if (separador == '/' && segundo > 12 && primero <= 12) {
+                // MM/dd/yyyy
+                mes = primero;
+                dia = segundo;
+            } else {
+                // dd/MM/yyyy o dd-MM-yyyy
+                mes = segundo;
+                dia = primero;
+            }
+        } else {
+            return null;
+        }
+
+        if (anio < 1 || mes < 1 || mes > 12 || dia < 1 || dia > Month.of(mes).length(Year.isLeap(anio))) {
+            return null;
+        }
+
+        int hora = 0;
+        int minuto = 0;
+        int segundoDelMinuto = 0;
+        int nanos = 0;
+        if (cursor.pos < cursor.fin) {
+            char separadorHora = cursor.siguiente();
+            if (separadorHora != ' ' && separadorHora != 'T') {
+                return null;
+            }
+            hora = cursor.numero(2);
+            if (hora < 0 || hora > 23 || cursor.siguiente() != ':') {
+                return null;
+            }
+            minuto = cursor.numero(2);
+            if (minuto < 0 || cursor.digitos != 2 || minuto > 59) {
+                return null;
+            }
+            if (cursor.pos < cursor.fin) {
+                if (cursor.siguiente() != ':') {
+                    return null;
+                }
+                segundoDelMinuto = cursor.numero(2);
+                if (segundoDelMinuto < 0 || cursor.digitos != 2 || segundoDelMinuto > 59) {
+                    return null;
+                }
+                if (cursor.pos < cursor.fin) {
+                    if (cursor.siguiente() != '.') {
+                        return null;
+                    }
+                    int fraccion = cursor.numero(9);
+                    if (fraccion < 0) {
+                        return null;
+                    }
+                    nanos = fraccion;
+                    for (int i = cursor.digitos; i < 9; i++) {
+                        nanos *= 10;
+                    }
+                }
+            }
+        }
+
+        if (cursor.pos != cursor.fin) {
+            return null;
+        }
+        return LocalDateTime.of(anio, mes, dia, hora, minuto, segundoDelMinuto, nanos);
+    }
+
+    /**
+     * Posición de lectura dentro del texto, sin los espacios del inicio y del final
+     */
+    private static final class Cursor {
+        private final CharSequence texto;
+        private final int fin;
+        private int pos;
+        // Dígitos leídos por la última llamada a numero()
+        private int digitos;
+
+        Cursor(CharSequence texto) {
+            int inicio = 0;
+            int fin = texto.length();
+            while (inicio < fin && texto.charAt(inicio) <= ' ') {
+                inicio++;
+            }
+            while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+                fin--;
+            }
+            this.texto = texto;
+            this.pos = inicio;
+            this.fin = fin;
+        }
+
+        /**
+         * Lee entre 1 y 'maxDigitos' dígitos; devuelve -1 si no hay ninguno o hay más de los permitidos
+         */
+        int numero(int maxDigitos) {
+            int valor = 0;
+            digitos = 0;
+            while (pos < fin) {
+                char c = texto.charAt(pos);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (++digitos > maxDigitos) {
+                    return -1;
+                }
+                valor = valor * 10 + (c - '0');
+                pos++;
+            }
+            return digitos == 0 ? -1 : valor;
+        }
+
+        /**
+         * Devuelve el siguiente carácter y avanza, o '\0' si no quedan caracteres
+         */
+        char siguiente() {
+            return pos < fin ? texto.charAt(pos++) : '\0';
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package org.saeta.licenciasservice.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice invertido de trigramas en memoria sobre los campos de texto de una entidad.
+ * Cada documento es un ID entero con un número fijo de campos de texto (en minúsculas) y un
+ * valor con los atributos que se filtran fuera del texto. Para cada trigrama de cada campo se
+ * guarda la lista ordenada de IDs que lo contienen (int[], 4 bytes por aparición).
+ * Una búsqueda por subcadena intersecta las listas de los trigramas del término y verifica
+ * cada candidato contra el texto; los resultados se devuelven como BitSet de IDs, de modo que
+ * varios filtros se combinan con and/or sin crear colecciones de objetos.
+ * Es thread-safe: las lecturas comparten un lock de lectura y los cambios toman el de escritura.
+ */
+public class IndiceNgramas<V> {
+
+    private static final int N = 3;
+
+    private final int numeroCampos;
+    // Clave: número de campo (16 bits altos) y los tres caracteres del trigrama (16 bits cada uno)
+    private final LongObjectMap<ListaIds> listas = new LongObjectMap<>();
+    private final LongObjectMap<Documento<V>> documentos = new LongObjectMap<>();
+    private final BitSet ids = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public IndiceNgramas(int numeroCampos) {
+        this.numeroCampos = numeroCampos;
+    }
+
+    /**
+     * Agrega o reemplaza un documento; solo se reindexan los campos cuyo texto cambió
+     */
+    public void actualizar(int id, V valor, String... campos) {
+        if (campos.length != numeroCampos) {
+            throw new IllegalArgumentException("Se esperaban " + numeroCampos + " campos y se recibieron " + campos.length);
+        }
+        String[] normalizados = new String[numeroCampos];
+        for (int i = 0; i < numeroCampos; i++) {
+            normalizados[i] = campos[i] != null ? campos[i].toLowerCase() : null;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Documento<V> anterior = documentos.put(id, new Documento<>(valor, normalizados));
+            for (int campo = 0; campo < numeroCampos; campo++) {
+                String textoAnterior = anterior != null ? anterior.campos[campo] : null;
+                if (!Objects.equals(textoAnterior, normalizados[campo])) {
+                    quitar(id, campo, textoAnterior);
+                    agregar(id, campo, normalizados[campo]);
+                }
+            }
+            ids.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void eliminar(int id) {
+        lock.writeLock().lock();
+        try {
+            Documento<V> anterior = documentos.remove(id);
+            if (anterior != null) {
+                for (int campo = 0; campo < numeroCampos; campo++) {
+                    quitar(id, campo, anterior.campos[campo]);
+                }
+            }
+            ids.clear(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentos.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copia de los IDs de todos los documentos
+     */
+    public BitSet todos() {
+        lock.readLock().lock();
+        try {
+            return (BitSet) ids.clone();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de los documentos en los que alguno de los campos indicados contiene el término, sin
+     * distinguir mayúsculas. Con términos de menos de tres caracteres no hay trigramas que
+     * consultar y se recorre el texto de todos los documentos.
+     */
+    public BitSet buscar(String termino, int... campos) {
+        String normalizado = termino.toLowerCase();
+        BitSet resultado = new BitSet();
+
+        lock.readLock().lock();
+        try {
+            for (int campo : campos) {
+                if (normalizado.length() < N) {
+                    for (int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+                        if (documentos.get(id).contiene(campo, normalizado)) {
+                            resultado.set(id);
+                        }
+                    }
+                } else {
+                    buscarPorTrigramas(campo, normalizado, resultado);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    /**
+     * Conserva en 'seleccion' solo los documentos cuyo valor cumple la condición
+     */
+    public void filtrar(BitSet seleccion, Predicate<V> condicion) {
+        lock.readLock().lock();
+        try {
+            for (int id = seleccion.nextSetBit(0); id >= 0; id = seleccion.nextSetBit(id + 1)) {
+                Documento<V> documento = documentos.get(id);
+                if (documento == null || !condicion.test(documento.valor)) {
+                    seleccion.clear(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de una página de la selección, en orden ascendente o descendente de ID
+     */
+    public static List<Integer> pagina(BitSet seleccion, long desplazamiento, int tamano, boolean descendente) {
+        List<Integer> pagina = new ArrayList<>(tamano);
+        long omitidos = 0;
+        int id = descendente ? seleccion.previousSetBit(seleccion.length() - 1) : seleccion.nextSetBit(0);
+        while (id >= 0 && pagina.size() < tamano) {
+            if (omitidos < desplazamiento) {
+                omitidos++;
+            } else {
+                pagina.add(id);
+            }
+            id = descendente ? seleccion.previousSetBit(id - 1) : seleccion.nextSetBit(id + 1);
+        }
+        return pagina;
+    }
+
+    /**
+     * Intersecta las listas de los trigramas del término empezando por la más corta y verifica
+     * cada candidato (los trigramas no garantizan el orden ni la contigüidad)
+     */
+    private void buscarPorTrigramas(int campo, String termino, BitSet resultado) {
+        long[] claves = trigramas(campo, termino);
+        ListaIds[] seleccionadas = new ListaIds[claves.length];
+        for (int i = 0; i < claves.length; i++) {
+            seleccionadas[i] = listas.get(claves[i]);
+            if (seleccionadas[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(seleccionadas, Comparator.comparingInt(lista -> lista.tamano));
+
+        ListaIds menor = seleccionadas[0];
+        for (int k = 0; k < menor.tamano; k++) {
+            int id = menor.ids[k];
+            if (resultado.get(id)) {
+                continue;
+            }
+            boolean enTodas = true;
+            for (int i = 1; i < seleccionadas.length && enTodas; i++) {
+                enTodas = seleccionadas[i].contiene(id);
+            }
+            if (enTodas && documentos.get(id).contiene(campo, termino)) {
+                resultado.set(id);
+            }
+        }
+    }
+
+    private void agregar(int id, int campo, String texto) {
+        if (texto == null) {
+            return;
+        }
+        for (long clave : trigramas(campo, texto)) {
+            ListaIds lista = listas.get(clave);
+            if (lista == null) {
+                lista = new ListaIds();
+                listas.put(clave, lista);
+            }
+            lista.agregar(id);
+        }
+    }
+
+    private void quitar(int id, int campo, String texto) {
+        if (texto == null) {
+            return;
+        }
+        for (long clave : trigramas(campo, texto)) {
+            ListaIds lista = listas.get(clave);
+            if (lista != null && lista.quitar(id) && lista.tamano == 0) {
+                listas.remove(clave);
+            }
+        }
+    }
+
+    /**
+     * Claves distintas de los trigramas del texto en el campo indicado
+     */
+    private static long[] trigramas(int campo, String texto) {
+        int total = texto.length() - N + 1;
+        if (total <= 0) {
+            return new long[0];
+        }
+        long[] claves = new long[total];
+        for (int i = 0; i < total; i++) {
+            claves[i] = ((long) campo << 48)
+                    | ((long) texto.charAt(i) << 32)
+                    | ((long) texto.charAt(i + 1) << 16)
+                    | texto.charAt(i + 2);
+        }
+        Arrays.sort(claves);
+        int distintas = 1;
+        for (int i = 1; i < total; i++) {
+            if (claves[i] != claves[distintas - 1]) {
+                claves[distintas++] = claves[i];
+            }
+        }
+        return distintas == total ? claves : Arrays.copyOf(claves, distintas);
+    }
+
+    private static final class Documento<V> {
+        private final V valor;
+        private final String[] campos;
+
+        Documento(V valor, String[] campos) {
+            this.valor = valor;
+            this.campos = campos;
+        }
+
+        boolean contiene(int campo, String termino) {
+            return campos[campo] != null && campos[campo].contains(termino);
+        }
+    }
+
+    /**
+     * Lista ordenada de IDs sin repetidos; las altas nuevas (IDs crecientes) se añaden al final
+     */
+    private static final class ListaIds {
+        private int[] ids = new int[4];
+        private int tamano;
+
+        void agregar(int id) {
+            int posicion;
+            if (tamano == 0 || id > ids[tamano - 1]) {
+                posicion = tamano;
+            } else {
+                posicion = Arrays.binarySearch(ids, 0, tamano, id);
+                if (posicion >= 0) {
+                    return;
+                }
+                posicion = -posicion - 1;
+            }
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+            ids[posicion] = id;
+            tamano++;
+        }
+
+        boolean quitar(int id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion < 0) {
+                return false;
+            }
+            System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+            tamano--;
+            return true;
+        }
+
+        boolean contiene(int id) {
+            return Arrays.binarySearch(ids, 0, tamano, id) >= 0;
+        }
+    }
+}
\ No newline at end of file
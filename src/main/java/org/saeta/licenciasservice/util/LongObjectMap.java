@@ -0,0 +1,153 @@
+package org.saeta.licenciasservice.util;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Mapa de claves long primitivas con direccionamiento abierto (sondeo lineal).
+ * Evita el boxing de las claves y los nodos por entrada de HashMap. No es thread-safe:
+ * para lecturas concurrentes se debe publicar una instancia que ya no se modifique.
+ * La clave Long.MIN_VALUE está reservada para marcar huecos libres.
+ */
+public class LongObjectMap<V> {
+
+    private static final long LIBRE = Long.MIN_VALUE;
+    private static final float CARGA_MAXIMA = 0.5f;
+
+    private long[] claves;
+    private Object[] valores;
+    private int tamano;
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    public LongObjectMap(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadEsperada / CARGA_MAXIMA)) - 1) << 1;
+        this.claves = new long[capacidad];
+        this.valores = new Object[capacidad];
+        Arrays.fill(claves, LIBRE);
+    }
+
+    /**
+     * Copia independiente del mapa (los valores no se copian)
+     */
+    public LongObjectMap<V> copia() {
+        LongObjectMap<V> copia = new LongObjectMap<>(0);
+        copia.claves = claves.clone();
+        copia.valores = valores.clone();
+        copia.tamano = tamano;
+        return copia;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long clave) {
+        int mascara = claves.length - 1;
+        for (int i = indice(clave, mascara); ; i = (i + 1) & mascara) {
+            long actual = claves[i];
+            if (actual == clave) {
+                return (V) valores[i];
+            }
+            if (actual == LIBRE) {
+                return null;
+            }
+        }
+    }
+
+    public boolean containsKey(long clave) {
+        return get(clave) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long clave, V valor) {
+        if (clave == LIBRE) {
+            throw new IllegalArgumentException("Clave reservada: " + clave);
+        }
+        int mascara = claves.length - 1;
+        int i = indice(clave, mascara);
+        while (claves[i] != LIBRE) {
+            if (claves[i] == clave) {
+                V anterior = (V) valores[i];
+                valores[i] = valor;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+        claves[i] = clave;
+        valores[i] = valor;
+        if (++tamano > claves.length * CARGA_MAXIMA) {
+            redimensionar();
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long clave) {
+        int mascara = claves.length - 1;
+        int i = indice(clave, mascara);
+        while (claves[i] != clave) {
+            if (claves[i] == LIBRE) {
+                return null;
+            }
+            i = (i + 1) & mascara;
+        }
+        V anterior = (V) valores[i];
+
+        // Borrado por desplazamiento hacia atrás: recoloca las entradas siguientes del mismo grupo
+        int hueco = i;
+        for (int j = (hueco + 1) & mascara; claves[j] != LIBRE; j = (j + 1) & mascara) {
+            int ideal = indice(claves[j], mascara);
+            if (((j - ideal) & mascara) >= ((j - hueco) & mascara)) {
+                claves[hueco] = claves[j];
+                valores[hueco] = valores[j];
+                hueco = j;
+            }
+        }
+        claves[hueco] = LIBRE;
+        valores[hueco] = null;
+        tamano--;
+        return anterior;
+    }
+
+    public int size() {
+        return tamano;
+    }
+
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Long, ? super V> accion) {
+        for (int i = 0; i < claves.length; i++) {
+            if (claves[i] != LIBRE) {
+                accion.accept(claves[i], (V) valores[i]);
+            }
+        }
+    }
+
+    private void redimensionar() {
+        long[] clavesAnteriores = claves;
+        Object[] valoresAnteriores = valores;
+        claves = new long[clavesAnteriores.length * 2];
+        valores = new Object[valoresAnteriores.length * 2];
+        Arrays.fill(claves, LIBRE);
+        int mascara = claves.length - 1;
+        for (int i = 0; i < clavesAnteriores.length; i++) {
+            long clave = clavesAnteriores[i];
+            if (clave != LIBRE) {
+                int j = indice(clave, mascara);
+                while (claves[j] != LIBRE) {
+                    j = (j + 1) & mascara;
+                }
+                claves[j] = clave;
+                valores[j] = valoresAnteriores[i];
+            }
+        }
+    }
+
+    private static int indice(long clave, int mascara) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
@@ -0,0 +1,153 @@
+package org.saeta.licenciasservice.util;
+
+/**
+ * Dirección MAC representada por sus 48 bits en un long.
+ * Los métodos estáticos permiten validar, comparar e indexar MAC sin crear Strings intermedios;
+ * el formato textual normalizado es XX-XX-XX-XX-XX-XX.
+ */
+public final class MacAddress implements Comparable<MacAddress> {
+
+    /**
+     * Valor devuelto por parsear() cuando el texto no es una MAC válida
+     */
+    public static final long INVALIDA = -1L;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final long bits;
+
+    private MacAddress(long bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Crea una MAC a partir de sus 48 bits
+     */
+    public static MacAddress of(long bits) {
+        if ((bits & ~0xFFFFFFFFFFFFL) != 0) {
+            throw new IllegalArgumentException("Dirección MAC fuera de rango: " + bits);
+        }
+        return new MacAddress(bits);
+    }
+
+    /**
+     * Crea una MAC a partir de su texto
+     * @throws IllegalArgumentException si el formato no es válido
+     */
+    public static MacAddress of(CharSequence texto) {
+        long bits = parsear(texto);
+        if (bits == INVALIDA) {
+            throw new IllegalArgumentException("Formato de dirección MAC inválido: " + texto);
+        }
+        return new MacAddress(bits);
+    }
+
+    /**
+     * Convierte el texto de una MAC a sus 48 bits sin reservar memoria.
+     * Acepta XX:XX:XX:XX:XX:XX, XX-XX-XX-XX-XX-XX (o separadores mezclados) y XXXXXXXXXXXX,
+     * en mayúsculas o minúsculas e ignorando espacios al inicio y al final.
+     * @return los bits de la MAC o INVALIDA si el formato no es válido
+     */
+    public static long parsear(CharSequence texto) {
+        if (texto == null) {
+            return INVALIDA;
+        }
+
+        int inicio = 0;
+        int fin = texto.length();
+        while (inicio < fin && texto.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+
+        boolean conSeparadores;
+        if (fin - inicio == 17) {
+            conSeparadores = true;
+        } else if (fin - inicio == 12) {
+            conSeparadores = false;
+        } else {
+            return INVALIDA;
+        }
+
+        long bits = 0L;
+        int pos = inicio;
+        for (int octeto = 0; octeto < 6; octeto++) {
+            if (conSeparadores && octeto > 0) {
+                char separador = texto.charAt(pos++);
+                if (separador != ':' && separador != '-') {
+                    return INVALIDA;
+                }
+            }
+            int alto = valorHex(texto.charAt(pos++));
+            int bajo = valorHex(texto.charAt(pos++));
+            if ((alto | bajo) < 0) {
+                return INVALIDA;
+            }
+            bits = (bits << 8) | (alto << 4) | bajo;
+        }
+        return bits;
+    }
+
+    /**
+     * Indica si el texto es una MAC válida
+     */
+    public static boolean esValida(CharSequence texto) {
+        return parsear(texto) != INVALIDA;
+    }
+
+    /**
+     * Formatea los 48 bits de una MAC como XX-XX-XX-XX-XX-XX
+     */
+    public static String formatear(long bits) {
+        char[] texto = new char[17];
+        for (int octeto = 0; octeto < 6; octeto++) {
+            int valor = (int) (bits >>> (40 - octeto * 8)) & 0xFF;
+            int pos = octeto * 3;
+            texto[pos] = HEX[valor >>> 4];
+            texto[pos + 1] = HEX[valor & 0x0F];
+            if (octeto < 5) {
+                texto[pos + 2] = '-';
+            }
+        }
+        return new String(texto);
+    }
+
+    private static int valorHex(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    public long getBits() {
+        return bits;
+    }
+
+    @Override
+    public int compareTo(MacAddress otra) {
+        return Long.compare(bits, otra.bits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MacAddress && ((MacAddress) o).bits == bits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(bits);
+    }
+
+    @Override
+    public String toString() {
+        return formatear(bits);
+    }
+}
@@ -0,0 +1,75 @@
+package org.saeta.licenciasservice.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tabla de texto plano con columnas alineadas, para los correos de resumen (SimpleMailMessage
+ * solo admite texto). Los valores de más de 40 caracteres se recortan con "…".
+ */
+public final class TablaTexto {
+
+    private static final int ANCHO_MAXIMO = 40;
+
+    private final String[] encabezados;
+    private final List<String[]> filas = new ArrayList<>();
+
+    public TablaTexto(String... encabezados) {
+        this.encabezados = encabezados;
+    }
+
+    public TablaTexto fila(Object... valores) {
+        String[] fila = new String[encabezados.length];
+        for (int i = 0; i < fila.length; i++) {
+            Object valor = i < valores.length ? valores[i] : null;
+            String texto = valor == null ? "" : valor.toString().replace('\n', ' ').replace('\r', ' ').trim();
+            fila[i] = texto.length() > ANCHO_MAXIMO ? texto.substring(0, ANCHO_MAXIMO - 1) + "…" : texto;
+        }
+        filas.add(fila);
+        return this;
+    }
+
+    public int size() {
+        return filas.size();
+    }
+
+    @Override
+    public String toString() {
+        int[] anchos = new int[encabezados.length];
+        for (int i = 0; i < anchos.length; i++) {
+            anchos[i] = encabezados[i].length();
+        }
+        for (String[] fila : filas) {
+            for (int i = 0; i < anchos.length; i++) {
+                anchos[i] = Math.max(anchos[i], fila[i].length());
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        escribirFila(sb, encabezados, anchos);
+        for (int i = 0; i < anchos.length; i++) {
+            if (i > 0) {
+                sb.append("-+-");
+            }
+            sb.append("-".repeat(anchos[i]));
+        }
+        sb.append('\n');
+        for (String[] fila : filas) {
+            escribirFila(sb, fila, anchos);
+        }
+        return sb.toString();
+    }
+
+    private static void escribirFila(StringBuilder sb, String[] valores, int[] anchos) {
+        for (int i = 0; i < anchos.length; i++) {
+            if (i > 0) {
+                sb.append(" | ");
+            }
+            sb.append(valores[i]);
+            if (i < anchos.length - 1) {
+                sb.append(" ".repeat(anchos[i] - valores[i].length()));
+            }
+        }
+        sb.append('\n');
+    }
+}
@@ -0,0 +1,48 @@
+package org.saeta.licenciasservice.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades para coordinar efectos en memoria con la transacción en curso
+ */
+public class TransaccionUtil {
+
+    private TransaccionUtil() {
+    }
+
+    /**
+     * Ejecuta la acción tras el commit de la transacción actual, o de inmediato si no hay transacción.
+     * Si la transacción se revierte, la acción no se ejecuta.
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Ejecuta la acción si la transacción de escritura actual termina sin commit.
+     * Sin transacción, o si es de solo lectura, no hace nada.
+     */
+    public static void siSeRevierte(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        accion.run();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.saeta.licenciasservice.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.dto.EjecutivoDTO;
+import org.saeta.licenciasservice.entity.Ejecutivo;
+import org.saeta.licenciasservice.repository.EjecutivoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(CatalogoCache.class)
+class CatalogoCacheTest {
+
+    @Autowired
+    private EjecutivoRepository ejecutivoRepository;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    private Integer idAna;
+
+    @BeforeEach
+    void setUp() {
+        idAna = ejecutivoRepository.save(ejecutivo("Ana Pérez", "AP", "1")).getId();
+        ejecutivoRepository.save(ejecutivo("Luis Rojas", "LR", "0"));
+    }
+
+    @Test
+    void buscaPorNombreSoloEntreLosActivos() {
+        CatalogoCache.Catalogo<EjecutivoDTO> ejecutivos = catalogoCache.getEjecutivos();
+
+        assertThat(ejecutivos.porNombre("ana pérez").getId()).isEqualTo(idAna);
+        assertThat(ejecutivos.porNombre("LUIS ROJAS")).isNull();
+        assertThat(ejecutivos.porNombre(null)).isNull();
+    }
+
+    @Test
+    void buscaPorAbreviaturaSinDistinguirMayusculas() {
+        CatalogoCache.Catalogo<EjecutivoDTO> ejecutivos = catalogoCache.getEjecutivos();
+
+        assertThat(ejecutivos.porAbreviatura("ap").getNombreEjecutivo()).isEqualTo("Ana Pérez");
+        assertThat(ejecutivos.porAbreviatura("lr").getNombreEjecutivo()).isEqualTo("Luis Rojas");
+        assertThat(ejecutivos.porAbreviatura("XX")).isNull();
+    }
+
+    @Test
+    void entregaCopiasQueNoAlteranLaInstantanea() {
+        CatalogoCache.Catalogo<EjecutivoDTO> ejecutivos = catalogoCache.getEjecutivos();
+
+        ejecutivos.porNombre("Ana Pérez").setNombreEjecutivo("Modificado");
+        catalogoCache.getEjecutivo(idAna).setAbreviatura("ZZ");
+
+        assertThat(ejecutivos.porId(idAna).getNombreEjecutivo()).isEqualTo("Ana Pérez");
+        assertThat(catalogoCache.getEjecutivo(idAna).getAbreviatura()).isEqualTo("AP");
+        assertThat(ejecutivos.porNombre("Modificado")).isNull();
+    }
+
+    private static Ejecutivo ejecutivo(String nombre, String abreviatura, String estado) {
+        Ejecutivo ejecutivo = new Ejecutivo();
+        ejecutivo.setNombreEjecutivo(nombre);
+        ejecutivo.setAbreviatura(abreviatura);
+        ejecutivo.setEstado(estado);
+        return ejecutivo;
+    }
+}
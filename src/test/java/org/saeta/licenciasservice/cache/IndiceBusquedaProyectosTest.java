@@ -0,0 +1,151 @@
+package org.saeta.licenciasservice.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.dto.ProyectoDTO;
+import org.saeta.licenciasservice.entity.Proyecto;
+import org.saeta.licenciasservice.repository.ProyectoRepository;
+import org.saeta.licenciasservice.service.CorreoOutboxService;
+import org.saeta.licenciasservice.service.ImportacionPipeline;
+import org.saeta.licenciasservice.service.ProyectoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Los filtros de estado y vigenciaMin del índice en memoria devuelven los mismos proyectos que
+ * las especificaciones de ProyectoService sobre la base de datos (la paginación por cursor
+ * siempre consulta la base de datos). Las fechas de vencimiento quedan a una hora de cada límite.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({ProyectoService.class, IndiceBusquedaCache.class, IndiceBusquedaProyectosTest.Config.class})
+class IndiceBusquedaProyectosTest {
+
+    private static final Sort POR_ID = Sort.by("id").descending();
+
+    @MockBean
+    private CorreoOutboxService correoOutboxService;
+
+    @MockBean
+    private ImportacionPipeline importacionPipeline;
+
+    @Autowired
+    private ProyectoRepository proyectoRepository;
+
+    @Autowired
+    private ProyectoService proyectoService;
+
+    @Autowired
+    private IndiceBusquedaCache indiceBusqueda;
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime ahora = LocalDateTime.now();
+        Duration hora = Duration.ofHours(1);
+        List<LocalDateTime> vencimientos = List.of(
+                ahora.minusDays(2),
+                ahora.minus(hora),
+                ahora.plus(hora),
+                ahora.plusDays(1).plus(hora),
+                ahora.plusDays(15),
+                ahora.plusDays(31).minus(hora),
+                ahora.plusDays(31).plus(hora),
+                ahora.plusDays(61).minus(hora),
+                ahora.plusDays(61).plus(hora),
+                ahora.plusDays(200));
+
+        int numero = 0;
+        for (LocalDateTime vencimiento : vencimientos) {
+            proyectoRepository.save(proyecto(numero++, vencimiento.minusDays(1), "1 dia", true));
+            proyectoRepository.save(proyecto(numero++, vencimiento.minusDays(1), "1 dia", false));
+        }
+        proyectoRepository.save(proyecto(numero++, ahora, "sin vigencia", true));
+        proyectoRepository.save(proyecto(numero, ahora, "sin vigencia", false));
+        proyectoRepository.flush();
+
+        indiceBusqueda.recargarProyectos();
+    }
+
+    @Test
+    void elFiltroDeEstadoCoincideConLaBaseDeDatos() {
+        for (String estado : List.of("ACTIVO", "PROXIMO_VENCER", "CRITICO", "VENCIDO", "INACTIVO", "SIN_DATOS",
+                "vencido", "OTRO")) {
+            List<Integer> enIndice = indiceBusqueda.buscarProyectos(null, null, null, null, estado,
+                    PageRequest.of(0, 100, POR_ID)).getContent();
+            List<Integer> enBaseDeDatos = ids(proyectoService.buscarProyectosPorEstado(null, null, null, estado,
+                    null, 100, POR_ID).getContenido());
+
+            assertThat(enIndice).as("estado %s", estado).isEqualTo(enBaseDeDatos);
+        }
+    }
+
+    @Test
+    void elFiltroDeVigenciaMinimaCoincideConLaBaseDeDatos() {
+        for (int vigenciaMin : List.of(0, 1, 15, 30, 31, 60, 61, 300)) {
+            List<Integer> enIndice = indiceBusqueda.buscarProyectos(null, null, null, vigenciaMin, null,
+                    PageRequest.of(0, 100, POR_ID)).getContent();
+            List<Integer> enBaseDeDatos = ids(proyectoService.buscarProyectos(null, null, null, vigenciaMin,
+                    null, 100, POR_ID).getContenido());
+
+            assertThat(enIndice).as("vigenciaMin %d", vigenciaMin).isEqualTo(enBaseDeDatos);
+        }
+    }
+
+    @Test
+    void losEstadosUsanLosDiasEnterosDeVigencia() {
+        // Activos con vencimiento: 0 días enteros (vencidos) a una hora antes o después de ahora,
+        // 1 a 30 días críticos, 31 a 60 próximos a vencer y el resto activos
+        assertThat(contar("CRITICO")).isEqualTo(3);
+        assertThat(contar("PROXIMO_VENCER")).isEqualTo(2);
+        assertThat(contar("ACTIVO")).isEqualTo(2);
+        assertThat(contar("SIN_DATOS")).isEqualTo(1);
+        // Tres vencimientos vencidos, activos e inactivos, más los dos sin vencimiento
+        assertThat(contar("VENCIDO")).isEqualTo(8);
+        assertThat(contar("INACTIVO")).isEqualTo(11);
+    }
+
+    private int contar(String estado) {
+        return indiceBusqueda.buscarProyectos(null, null, null, null, estado, PageRequest.of(0, 100, POR_ID))
+                .getContent().size();
+    }
+
+    private static List<Integer> ids(List<ProyectoDTO> proyectos) {
+        return proyectos.stream().map(ProyectoDTO::getId).collect(Collectors.toList());
+    }
+
+    private static Proyecto proyecto(int numero, LocalDateTime fechaInicio, String vigencia, boolean activo) {
+        Proyecto proyecto = new Proyecto();
+        proyecto.setIdProducto("P-" + numero);
+        proyecto.setProducto("Producto " + numero);
+        proyecto.setFechaInicio(fechaInicio);
+        proyecto.setVigencia(vigencia);
+        proyecto.setCorreoVendedor1("ventas" + numero + "@saeta.pe");
+        proyecto.setActivo(activo);
+        return proyecto;
+    }
+}
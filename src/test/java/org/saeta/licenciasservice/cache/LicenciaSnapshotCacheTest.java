@@ -0,0 +1,122 @@
+package org.saeta.licenciasservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.saeta.licenciasservice.util.MacAddress;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Desactivación de licencias en el snapshot cuando varias comparten mac_bits
+ */
+class LicenciaSnapshotCacheTest {
+
+    private static final String MAC = "AA-BB-CC-DD-EE-FF";
+    private static final long MAC_BITS = MacAddress.parsear(MAC);
+
+    private final LicenciaRepository licenciaRepository = mock(LicenciaRepository.class);
+    private final LicenciaSnapshotCache cache = new LicenciaSnapshotCache(new SimpleMeterRegistry());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "licenciaRepository", licenciaRepository);
+        ReflectionTestUtils.setField(cache, "habilitado", true);
+        ReflectionTestUtils.setField(cache, "maxObsolescenciaMs", 120000L);
+    }
+
+    @Test
+    void desactivarUnDuplicadoAntiguoNoAfectaALaEntradaVigente() {
+        // La misma MAC escrita con otro separador: 1 vencida y 2 renovada
+        when(licenciaRepository.findAll()).thenReturn(List.of(licencia(1, "aa:bb:cc:dd:ee:ff"), licencia(2, MAC)));
+        cache.recargar();
+
+        cache.desactivar(List.of(desactivada(1, "aa:bb:cc:dd:ee:ff")));
+
+        assertThat(cache.obtener(MAC_BITS).getId()).isEqualTo(2);
+        assertThat(cache.obtener(MAC_BITS).getEstado()).isEqualTo("1");
+    }
+
+    @Test
+    void desactivaLaEntradaDeLaLicenciaIndicada() {
+        when(licenciaRepository.findAll()).thenReturn(List.of(licencia(1, "aa:bb:cc:dd:ee:ff"), licencia(2, MAC)));
+        cache.recargar();
+        Licencia antes = cache.obtener(MAC_BITS);
+
+        cache.desactivar(List.of(desactivada(2, MAC)));
+
+        assertThat(cache.obtener(MAC_BITS).getEstado()).isEqualTo("0");
+        // El mapa publicado anterior no se modifica
+        assertThat(antes.getEstado()).isEqualTo("1");
+    }
+
+    @Test
+    void laDesactivacionDuranteUnaRecargaSeReaplicaSobreLaMismaLicencia() {
+        when(licenciaRepository.findAll())
+                .thenReturn(List.of(licencia(1, "aa:bb:cc:dd:ee:ff"), licencia(2, MAC)))
+                .thenAnswer(invocacion -> {
+                    // Llega mientras la recarga lee la tabla, que aún la ve activa: se reaplica al publicar
+                    cache.desactivar(List.of(desactivada(2, MAC)));
+                    return List.of(licencia(1, "aa:bb:cc:dd:ee:ff"), licencia(2, MAC));
+                });
+        cache.recargar();
+
+        cache.recargar();
+
+        assertThat(cache.obtener(MAC_BITS).getId()).isEqualTo(2);
+        assertThat(cache.obtener(MAC_BITS).getEstado()).isEqualTo("0");
+    }
+
+    @Test
+    void laDesactivacionReaplicadaNoAfectaAUnaLicenciaNueva() {
+        when(licenciaRepository.findAll())
+                .thenReturn(List.of(licencia(1, "aa:bb:cc:dd:ee:ff"), licencia(2, MAC)))
+                .thenAnswer(invocacion -> {
+                    cache.desactivar(List.of(desactivada(2, MAC)));
+                    return List.of(licencia(1, "aa:bb:cc:dd:ee:ff"), licencia(2, MAC), licencia(3, "aabbccddeeff"));
+                });
+        cache.recargar();
+
+        cache.recargar();
+
+        // La licencia 3 se creó después: la desactivación de 2 no se le aplica
+        assertThat(cache.obtener(MAC_BITS).getId()).isEqualTo(3);
+        assertThat(cache.obtener(MAC_BITS).getEstado()).isEqualTo("1");
+    }
+
+    private static Licencia licencia(int id, String mac) {
+        Licencia licencia = new Licencia();
+        licencia.setId(id);
+        licencia.setMac(mac);
+        licencia.setMacBits(MacAddress.parsear(mac));
+        licencia.setEmpresa("Empresa " + id);
+        licencia.setEstado("1");
+        return licencia;
+    }
+
+    private static LicenciaRepository.LicenciaDesactivada desactivada(int id, String mac) {
+        return new LicenciaRepository.LicenciaDesactivada() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public String getMac() {
+                return mac;
+            }
+
+            @Override
+            public String getEmpresa() {
+                return "Empresa " + id;
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package org.saeta.licenciasservice.entity;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Límites de estado de un certificado: iguales a los de días enteros restantes (getVigenciaDias)
+ */
+class CertificadoEstadoTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @ParameterizedTest
+    @CsvSource({
+            "-2880, VENCIDO",
+            "-1441, VENCIDO",
+            "-1439, POR_VENCER",
+            "-1, POR_VENCER",
+            "0, POR_VENCER",
+            "43199, POR_VENCER",
+            "43200, POR_VENCER",
+            "44639, POR_VENCER",
+            "44640, VIGENTE",
+            "86400, VIGENTE"
+    })
+    void coincideConLosDiasEnterosRestantes(long minutos, String esperado) {
+        LocalDateTime fechaVencimiento = AHORA.plusMinutes(minutos);
+        long dias = ChronoUnit.DAYS.between(AHORA, fechaVencimiento);
+        String segunDias = dias < 0 ? Certificado.VENCIDO
+                : dias <= Certificado.DIAS_POR_VENCER ? Certificado.POR_VENCER : Certificado.VIGENTE;
+
+        assertThat(Certificado.calcularEstado(fechaVencimiento, AHORA)).isEqualTo(esperado);
+        assertThat(segunDias).isEqualTo(esperado);
+        assertThat(Certificado.RangoVencimiento.de(esperado, AHORA).contiene(fechaVencimiento)).isTrue();
+    }
+}
@@ -0,0 +1,47 @@
+package org.saeta.licenciasservice.entity;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Límites de estado de un proyecto: iguales a los de días enteros de vigencia restante
+ */
+class ProyectoEstadoTest {
+
+    // Margen para que la hora que toma cada método no cruce el límite durante la prueba
+    private static final long MARGEN_MINUTOS = 5;
+
+    @ParameterizedTest
+    @CsvSource({
+            "-1, 0, VENCIDO",
+            "0, 0, VENCIDO",
+            "1, 0, VENCIDO",
+            "1, 1, CRITICO",
+            "30, 1, CRITICO",
+            "31, 0, CRITICO",
+            "31, 1, PROXIMO_VENCER",
+            "60, 1, PROXIMO_VENCER",
+            "61, 0, PROXIMO_VENCER",
+            "61, 1, ACTIVO"
+    })
+    void coincideConLosDiasEnterosDeVigencia(long dias, int signo, String esperado) {
+        // signo 0: unos minutos antes de cumplir 'dias' días; 1: unos minutos después
+        long minutos = signo == 0 ? -MARGEN_MINUTOS : MARGEN_MINUTOS;
+        Proyecto proyecto = new Proyecto();
+        proyecto.setFechaVencimiento(LocalDateTime.now().plusDays(dias).plusMinutes(minutos));
+
+        int vigencia = proyecto.getVigenciaRestante();
+        String segunVigencia = vigencia <= 0 ? "VENCIDO"
+                : vigencia <= Proyecto.DIAS_CRITICO ? "CRITICO"
+                : vigencia <= Proyecto.DIAS_PROXIMO_VENCER ? "PROXIMO_VENCER" : "ACTIVO";
+
+        assertThat(segunVigencia).isEqualTo(esperado);
+        assertThat(proyecto.isVencido()).isEqualTo("VENCIDO".equals(esperado));
+        assertThat(proyecto.isProximoAVencer30()).isEqualTo("CRITICO".equals(esperado));
+        assertThat(proyecto.isProximoAVencer60()).isEqualTo("PROXIMO_VENCER".equals(esperado));
+    }
+}
@@ -0,0 +1,95 @@
+package org.saeta.licenciasservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.entity.CorreoPendiente;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cambios de estado del outbox hechos con JPQL (la reserva nativa está en CorreoPendienteReservaTest)
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class CorreoPendienteRepositoryTest {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2024, 6, 1, 12, 0);
+
+    @Autowired
+    private CorreoPendienteRepository correoPendienteRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void liberaSoloLosEnviandoAbandonados() {
+        Long abandonado = guardar(CorreoPendiente.ENVIANDO, AHORA.minusMinutes(30));
+        Long enCurso = guardar(CorreoPendiente.ENVIANDO, AHORA.minusMinutes(2));
+        Long enviado = guardar(CorreoPendiente.ENVIADO, AHORA.minusMinutes(30));
+
+        int liberados = correoPendienteRepository.liberarBloqueados(AHORA, AHORA.minusMinutes(10));
+        entityManager.clear();
+
+        assertThat(liberados).isEqualTo(1);
+        assertThat(estado(abandonado)).isEqualTo(CorreoPendiente.PENDIENTE);
+        assertThat(estado(enCurso)).isEqualTo(CorreoPendiente.ENVIANDO);
+        assertThat(estado(enviado)).isEqualTo(CorreoPendiente.ENVIADO);
+    }
+
+    @Test
+    void marcaEnviadosYBorraElUltimoError() {
+        Long id = guardar(CorreoPendiente.ENVIANDO, AHORA);
+        correoPendienteRepository.registrarFallo(id, CorreoPendiente.ENVIANDO, AHORA, "timeout", AHORA);
+
+        correoPendienteRepository.marcarEnviados(List.of(id), AHORA);
+        entityManager.clear();
+
+        CorreoPendiente correo = correoPendienteRepository.findById(id).orElseThrow();
+        assertThat(correo.getEstado()).isEqualTo(CorreoPendiente.ENVIADO);
+        assertThat(correo.getFechaEnvio()).isEqualTo(AHORA);
+        assertThat(correo.getUltimoError()).isNull();
+    }
+
+    @Test
+    void registrarFalloReprogramaElSiguienteIntento() {
+        Long id = guardar(CorreoPendiente.ENVIANDO, AHORA);
+
+        correoPendienteRepository.registrarFallo(id, CorreoPendiente.PENDIENTE, AHORA.plusMinutes(2),
+                "Mail server connection failed", AHORA);
+        entityManager.clear();
+
+        CorreoPendiente correo = correoPendienteRepository.findById(id).orElseThrow();
+        assertThat(correo.getEstado()).isEqualTo(CorreoPendiente.PENDIENTE);
+        assertThat(correo.getProximoIntento()).isEqualTo(AHORA.plusMinutes(2));
+        assertThat(correo.getUltimoError()).isEqualTo("Mail server connection failed");
+        assertThat(correoPendienteRepository.countByEstado(CorreoPendiente.PENDIENTE)).isEqualTo(1);
+    }
+
+    private Long guardar(String estado, LocalDateTime fechaActualizacion) {
+        CorreoPendiente correo = new CorreoPendiente();
+        correo.setTipo("ALERTA_CERTIFICADO");
+        correo.setRemitente("alertas@saeta.pe");
+        correo.setDestinatarios("ana@saeta.pe");
+        correo.setAsunto("Alerta");
+        correo.setCuerpo("Cuerpo");
+        correo.setEstado(estado);
+        Long id = entityManager.persistAndFlush(correo).getId();
+        // prePersist fija fecha_actualizacion al momento actual: se reemplaza por la de la prueba
+        entityManager.getEntityManager()
+                .createQuery("UPDATE CorreoPendiente c SET c.fechaActualizacion = :fecha WHERE c.id = :id")
+                .setParameter("fecha", fechaActualizacion)
+                .setParameter("id", id)
+                .executeUpdate();
+        return id;
+    }
+
+    private String estado(Long id) {
+        return correoPendienteRepository.findById(id).orElseThrow().getEstado();
+    }
+}
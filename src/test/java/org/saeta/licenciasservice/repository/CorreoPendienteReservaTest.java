@@ -0,0 +1,145 @@
+package org.saeta.licenciasservice.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.entity.CorreoPendiente;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reserva de correos del outbox (UPDATE ... FOR UPDATE SKIP LOCKED ... RETURNING), que solo
+ * existe en PostgreSQL. Corre contra un contenedor de PostgreSQL y se omite si no hay Docker.
+ * Sin transacción de prueba: cada reserva confirma como en producción.
+ */
+@DataJpaTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("test")
+@Testcontainers(disabledWithoutDocker = true)
+class CorreoPendienteReservaTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void baseDeDatos(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", postgres::getJdbcUrl);
+        registro.add("spring.datasource.username", postgres::getUsername);
+        registro.add("spring.datasource.password", postgres::getPassword);
+        registro.add("spring.jpa.database-platform", () -> "org.hibernate.dialect.PostgreSQLDialect");
+    }
+
+    @Autowired
+    private CorreoPendienteRepository correoPendienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        correoPendienteRepository.deleteAll();
+    }
+
+    @Test
+    void reservaLosListosYSumaUnIntento() {
+        LocalDateTime ahora = LocalDateTime.now();
+        Long listo1 = guardar(CorreoPendiente.PENDIENTE, ahora.minusMinutes(5));
+        Long listo2 = guardar(CorreoPendiente.PENDIENTE, ahora.minusMinutes(1));
+        guardar(CorreoPendiente.PENDIENTE, ahora.plusMinutes(10));
+        guardar(CorreoPendiente.ENVIADO, ahora.minusMinutes(5));
+        guardar(CorreoPendiente.FALLIDO, ahora.minusMinutes(5));
+
+        List<CorreoPendiente> reservados = correoPendienteRepository.reservar(ahora, 10);
+
+        assertThat(reservados).extracting(CorreoPendiente::getId).containsExactlyInAnyOrder(listo1, listo2);
+        assertThat(reservados).allSatisfy(correo -> {
+            assertThat(correo.getEstado()).isEqualTo(CorreoPendiente.ENVIANDO);
+            assertThat(correo.getIntentos()).isEqualTo(1);
+        });
+        assertThat(correoPendienteRepository.reservar(ahora, 10)).isEmpty();
+    }
+
+    @Test
+    void respetaElLimiteEmpezandoPorLosMasAntiguos() {
+        LocalDateTime ahora = LocalDateTime.now();
+        Long antiguo = guardar(CorreoPendiente.PENDIENTE, ahora.minusMinutes(30));
+        Long medio = guardar(CorreoPendiente.PENDIENTE, ahora.minusMinutes(20));
+        guardar(CorreoPendiente.PENDIENTE, ahora.minusMinutes(10));
+
+        assertThat(correoPendienteRepository.reservar(ahora, 2))
+                .extracting(CorreoPendiente::getId)
+                .containsExactlyInAnyOrder(antiguo, medio);
+    }
+
+    @Test
+    void reservasConcurrentesNoSeBloqueanNiRepitenCorreos() throws Exception {
+        LocalDateTime ahora = LocalDateTime.now();
+        Set<Long> todos = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            todos.add(guardar(CorreoPendiente.PENDIENTE, ahora.minusMinutes(10 - i)));
+        }
+
+        CountDownLatch reservado = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        // Otro nodo reserva 4 correos y mantiene los bloqueos hasta que la prueba le deja confirmar
+        CompletableFuture<List<CorreoPendiente>> otroNodo = CompletableFuture.supplyAsync(() ->
+                transaccion.execute(estado -> {
+                    List<CorreoPendiente> lote = correoPendienteRepository.reservar(ahora, 4);
+                    reservado.countDown();
+                    try {
+                        terminar.await(30, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return lote;
+                }));
+        assertThat(reservado.await(30, TimeUnit.SECONDS)).isTrue();
+
+        // Sin SKIP LOCKED esta reserva esperaría a que el otro nodo confirme
+        List<CorreoPendiente> propios = CompletableFuture
+                .supplyAsync(() -> correoPendienteRepository.reservar(ahora, 10))
+                .get(10, TimeUnit.SECONDS);
+        terminar.countDown();
+        List<CorreoPendiente> ajenos = otroNodo.get(30, TimeUnit.SECONDS);
+
+        Set<Long> reservados = new HashSet<>();
+        propios.forEach(c -> reservados.add(c.getId()));
+        ajenos.forEach(c -> assertThat(reservados.add(c.getId())).isTrue());
+        assertThat(ajenos).hasSize(4);
+        assertThat(reservados).isEqualTo(todos);
+    }
+
+    private Long guardar(String estado, LocalDateTime proximoIntento) {
+        CorreoPendiente correo = new CorreoPendiente();
+        correo.setTipo("ALERTA_CERTIFICADO");
+        correo.setRemitente("alertas@saeta.pe");
+        correo.setDestinatarios("ana@saeta.pe");
+        correo.setAsunto("Alerta");
+        correo.setCuerpo("Cuerpo");
+        correo.setEstado(estado);
+        correo.setProximoIntento(proximoIntento);
+        return correoPendienteRepository.save(correo).getId();
+    }
+}
@@ -0,0 +1,170 @@
+package org.saeta.licenciasservice.scheduler;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.saeta.licenciasservice.entity.CorreoPendiente;
+import org.saeta.licenciasservice.repository.CorreoPendienteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Envío de los lotes del outbox contra un servidor SMTP en memoria (GreenMail).
+ * La reserva de correos es una consulta nativa de PostgreSQL y se prueba aparte
+ * (CorreoPendienteReservaTest); aquí el repositorio es un mock.
+ */
+@SpringBootTest(classes = {CorreoDispatcher.class, CorreoDispatcherTest.Config.class}, properties = {
+        "app.correo.dispatcher.hilos=1",
+        "app.correo.dispatcher.lote=10",
+        "app.correo.dispatcher.max-intentos=3",
+        "app.correo.dispatcher.reintento-base-ms=60000",
+        "app.correo.dispatcher.reintento-max-ms=3600000",
+        "app.correo.dispatcher.bloqueo-ms=600000"
+})
+@ActiveProfiles("test")
+class CorreoDispatcherTest {
+
+    private static final long ESPERA_MS = 5000;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @MockBean
+    private CorreoPendienteRepository correoPendienteRepository;
+
+    @Autowired
+    private CorreoDispatcher correoDispatcher;
+
+    @Value("${app.correo.dispatcher.bloqueo-ms}")
+    private long bloqueoMs;
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        JavaMailSender javaMailSender() {
+            JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+            mailSender.setHost("127.0.0.1");
+            mailSender.setPort(ServerSetupTest.SMTP.getPort());
+            return mailSender;
+        }
+    }
+
+    @Test
+    void enviaElLoteYLoMarcaComoEnviado() {
+        reservarUnaVez(correo(1L, 1, "ana@saeta.pe,luis@saeta.pe", "Alerta 1"),
+                correo(2L, 1, "rosa@saeta.pe", "Alerta 2"));
+
+        correoDispatcher.despachar();
+
+        verify(correoPendienteRepository, timeout(ESPERA_MS)).marcarEnviados(eq(List.of(1L, 2L)), any());
+        verify(correoPendienteRepository, never()).registrarFallo(anyLong(), anyString(), any(), any(), any());
+        // Un mensaje por destinatario
+        assertThat(greenMail.waitForIncomingEmail(ESPERA_MS, 3)).isTrue();
+        assertThat(Arrays.stream(greenMail.getReceivedMessages()).map(this::asunto))
+                .containsExactlyInAnyOrder("Alerta 1", "Alerta 1", "Alerta 2");
+    }
+
+    @Test
+    void falloTransitorioReprogramaConEsperaExponencial() {
+        greenMail.stop();
+        // 'intentos' ya incluye el envío en curso: segundo intento, espera de base * 2
+        reservarUnaVez(correo(7L, 2, "ana@saeta.pe", "Alerta"));
+
+        LocalDateTime antes = LocalDateTime.now();
+        correoDispatcher.despachar();
+
+        ArgumentCaptor<LocalDateTime> proximo = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(correoPendienteRepository, timeout(ESPERA_MS))
+                .registrarFallo(eq(7L), eq(CorreoPendiente.PENDIENTE), proximo.capture(), anyString(), any());
+        LocalDateTime despues = LocalDateTime.now();
+        assertThat(proximo.getValue())
+                .isAfterOrEqualTo(antes.plus(120000, ChronoUnit.MILLIS))
+                .isBeforeOrEqualTo(despues.plus(120000, ChronoUnit.MILLIS));
+        verify(correoPendienteRepository, never()).marcarEnviados(any(), any());
+    }
+
+    @Test
+    void quedaFallidoAlAgotarLosIntentos() {
+        greenMail.stop();
+        reservarUnaVez(correo(9L, 3, "ana@saeta.pe", "Alerta"));
+
+        correoDispatcher.despachar();
+
+        verify(correoPendienteRepository, timeout(ESPERA_MS))
+                .registrarFallo(eq(9L), eq(CorreoPendiente.FALLIDO), any(), anyString(), any());
+        verify(correoPendienteRepository, never())
+                .registrarFallo(anyLong(), eq(CorreoPendiente.PENDIENTE), any(), any(), any());
+    }
+
+    @Test
+    void liberaLosCorreosAbandonadosAntesDeReservar() {
+        reservarUnaVez();
+
+        correoDispatcher.despachar();
+
+        ArgumentCaptor<LocalDateTime> ahora = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> limite = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(correoPendienteRepository).liberarBloqueados(ahora.capture(), limite.capture());
+        assertThat(ChronoUnit.MILLIS.between(limite.getValue(), ahora.getValue())).isEqualTo(bloqueoMs);
+    }
+
+    private void reservarUnaVez(CorreoPendiente... correos) {
+        when(correoPendienteRepository.reservar(any(), anyInt())).thenReturn(List.of(correos), List.of());
+    }
+
+    private static CorreoPendiente correo(Long id, int intentos, String destinatarios, String asunto) {
+        CorreoPendiente correo = new CorreoPendiente();
+        correo.setId(id);
+        correo.setTipo("ALERTA_CERTIFICADO");
+        correo.setRemitente("alertas@saeta.pe");
+        correo.setDestinatarios(destinatarios);
+        correo.setAsunto(asunto);
+        correo.setCuerpo("Cuerpo de " + asunto);
+        correo.setEstado(CorreoPendiente.ENVIANDO);
+        correo.setIntentos(intentos);
+        return correo;
+    }
+
+    private String asunto(MimeMessage mensaje) {
+        try {
+            return mensaje.getSubject();
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
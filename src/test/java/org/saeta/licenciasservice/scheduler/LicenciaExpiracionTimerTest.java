@@ -0,0 +1,108 @@
+package org.saeta.licenciasservice.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.entity.Licencia;
+import org.saeta.licenciasservice.repository.LicenciaRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.DelayQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Programación de expiraciones: reprogramar, cancelar o barrer no deja entradas obsoletas en la cola
+ */
+class LicenciaExpiracionTimerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LicenciaExpiracionTimer timer = new LicenciaExpiracionTimer(meterRegistry);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timer, "habilitado", true);
+    }
+
+    @Test
+    void reprogramarReemplazaLaEntradaDeLaCola() {
+        LocalDateTime vencimiento = LocalDateTime.now().plusDays(10);
+        for (int i = 0; i < 5; i++) {
+            timer.programar(licencia(1, vencimiento.plusDays(i), "1"));
+        }
+        timer.programar(licencia(2, vencimiento, "1"));
+
+        assertThat(cola()).hasSize(2);
+        assertThat(programadas()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelarODesactivarQuitaLaEntradaDeLaCola() {
+        LocalDateTime vencimiento = LocalDateTime.now().plusDays(10);
+        timer.programar(licencia(1, vencimiento, "1"));
+        timer.programar(licencia(2, vencimiento, "1"));
+
+        timer.cancelar(1);
+        timer.programar(licencia(2, vencimiento, "0"));
+
+        assertThat(cola()).isEmpty();
+        assertThat(programadas()).isZero();
+    }
+
+    @Test
+    void olvidaLasLicenciasDesactivadasPorElBarrido() {
+        LocalDateTime vencimiento = LocalDateTime.now().plusDays(10);
+        timer.programar(licencia(1, vencimiento, "1"));
+        timer.programar(licencia(2, vencimiento, "1"));
+
+        timer.olvidar(List.of(desactivada(1)));
+
+        assertThat(cola()).hasSize(1);
+        assertThat(programadas()).isEqualTo(1);
+        assertThat(vencimientos()).containsOnlyKeys(2);
+    }
+
+    private DelayQueue<?> cola() {
+        return (DelayQueue<?>) ReflectionTestUtils.getField(timer, "cola");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, Long> vencimientos() {
+        return (Map<Integer, Long>) ReflectionTestUtils.getField(timer, "vencimientos");
+    }
+
+    private double programadas() {
+        return meterRegistry.get("licencias.expiracion.programadas").gauge().value();
+    }
+
+    private static Licencia licencia(int id, LocalDateTime fechaVencimiento, String estado) {
+        Licencia licencia = new Licencia();
+        licencia.setId(id);
+        licencia.setMac("AA-BB-CC-DD-EE-0" + id);
+        licencia.setFechaVencimiento(fechaVencimiento);
+        licencia.setEstado(estado);
+        return licencia;
+    }
+
+    private static LicenciaRepository.LicenciaDesactivada desactivada(int id) {
+        return new LicenciaRepository.LicenciaDesactivada() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public String getMac() {
+                return "AA-BB-CC-DD-EE-0" + id;
+            }
+
+            @Override
+            public String getEmpresa() {
+                return "Empresa " + id;
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package org.saeta.licenciasservice.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.cache.CatalogoCache;
+import org.saeta.licenciasservice.cache.IndiceBusquedaCache;
+import org.saeta.licenciasservice.dto.CertificadoDTO;
+import org.saeta.licenciasservice.entity.Certificado;
+import org.saeta.licenciasservice.entity.Ejecutivo;
+import org.saeta.licenciasservice.repository.CertificadoBulkRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sentencias SQL de una página de certificados: el nombre del ejecutivo sale de CatalogoCache,
+ * sin cargar la relación Certificado.ejecutivo (LAZY) fila por fila.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({CertificadoService.class, CatalogoCache.class})
+class CertificadoServiceConsultasTest {
+
+    @MockBean
+    private CertificadoBulkRepository certificadoBulkRepository;
+
+    @MockBean
+    private ImportacionPipeline importacionPipeline;
+
+    @MockBean
+    private IndiceBusquedaCache indiceBusqueda;
+
+    @MockBean
+    private CorreoOutboxService correoOutboxService;
+
+    @Autowired
+    private CertificadoService certificadoService;
+
+    @Autowired
+    private CatalogoCache catalogoCache;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Ejecutivo> ejecutivos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            Ejecutivo ejecutivo = new Ejecutivo();
+            ejecutivo.setNombreEjecutivo("Ejecutivo " + i);
+            ejecutivo.setAbreviatura("E" + i);
+            ejecutivos.add(entityManager.persist(ejecutivo));
+        }
+        for (int i = 0; i < 8; i++) {
+            entityManager.persist(certificado(i, ejecutivos.get(i % ejecutivos.size())));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void paginaConEjecutivosDistintosEsUnSelectMasElConteo() {
+        // El catálogo se carga una sola vez para todas las páginas
+        catalogoCache.getEjecutivos();
+        // La carga del catálogo deja los ejecutivos en el contexto de persistencia de la prueba:
+        // se limpia para que una relación EAGER tuviera que consultarlos
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        Page<CertificadoDTO> pagina = certificadoService.listarCertificados(PageRequest.of(0, 6, Sort.by("id")));
+
+        assertThat(pagina.getTotalElements()).isEqualTo(8);
+        assertThat(pagina.getContent())
+                .extracting(CertificadoDTO::getEjecutivoNombre)
+                .containsExactly("Ejecutivo 0", "Ejecutivo 1", "Ejecutivo 2",
+                        "Ejecutivo 0", "Ejecutivo 1", "Ejecutivo 2");
+        // Un SELECT de la página y un SELECT count(*); ninguno por ejecutivo
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(estadisticas.getEntityFetchCount()).isZero();
+    }
+
+    private static Certificado certificado(int i, Ejecutivo ejecutivo) {
+        Certificado certificado = new Certificado();
+        certificado.setFechaEmision(LocalDateTime.of(2024, 1, 1, 0, 0));
+        certificado.setFechaVencimiento(LocalDateTime.of(2025, 1, 1, 0, 0));
+        certificado.setEjecutivoId(ejecutivo.getId());
+        certificado.setTipoCertificado("PN");
+        certificado.setNombres("Nombre " + i);
+        certificado.setPrimerApellido("Apellido " + i);
+        certificado.setNumeroDocumento(String.valueOf(10000000 + i));
+        return certificado;
+    }
+}
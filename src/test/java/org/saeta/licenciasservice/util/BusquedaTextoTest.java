@@ -0,0 +1,94 @@
+package org.saeta.licenciasservice.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.cache.CatalogoCache;
+import org.saeta.licenciasservice.dto.EjecutivoDTO;
+import org.saeta.licenciasservice.entity.Ejecutivo;
+import org.saeta.licenciasservice.repository.EjecutivoRepository;
+import org.saeta.licenciasservice.service.EjecutivoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({EjecutivoService.class, CatalogoCache.class})
+class BusquedaTextoTest {
+
+    @Autowired
+    private EjecutivoRepository ejecutivoRepository;
+
+    @Autowired
+    private EjecutivoService ejecutivoService;
+
+    @BeforeEach
+    void setUp() {
+        ejecutivoRepository.save(ejecutivo("Ana 100% Ventas", "A_1"));
+        ejecutivoRepository.save(ejecutivo("Ana 1000 Ventas", "AB1"));
+        ejecutivoRepository.save(ejecutivo("Ruta C:\\Ventas", "RC"));
+        ejecutivoRepository.save(ejecutivo("Pedro Gómez", "PG"));
+    }
+
+    @Test
+    void patronContieneEscapaComodines() {
+        assertThat(BusquedaTexto.patronContiene("100%")).isEqualTo("%100\\%%");
+        assertThat(BusquedaTexto.patronContiene("A_1")).isEqualTo("%a\\_1%");
+        assertThat(BusquedaTexto.patronContiene("C:\\V")).isEqualTo("%c:\\\\v%");
+    }
+
+    @Test
+    void buscaSinDistinguirMayusculas() {
+        assertThat(nombres(ejecutivoService.buscarEjecutivos("pedro gó", null, null, PageRequest.of(0, 10))))
+                .containsExactly("Pedro Gómez");
+    }
+
+    @Test
+    void porcentajeSeBuscaComoTexto() {
+        // Sin escapar, '100%' también encontraría "Ana 1000 Ventas"
+        assertThat(nombres(ejecutivoService.buscarEjecutivos("100%", null, null, PageRequest.of(0, 10))))
+                .containsExactly("Ana 100% Ventas");
+    }
+
+    @Test
+    void guionBajoSeBuscaComoTexto() {
+        // Sin escapar, 'a_1' también encontraría la abreviatura "AB1"
+        assertThat(nombres(ejecutivoService.buscarEjecutivos(null, "a_1", null, PageRequest.of(0, 10))))
+                .containsExactly("Ana 100% Ventas");
+    }
+
+    @Test
+    void barraInvertidaSeBuscaComoTexto() {
+        assertThat(nombres(ejecutivoService.buscarEjecutivos("c:\\v", null, null, PageRequest.of(0, 10))))
+                .containsExactly("Ruta C:\\Ventas");
+    }
+
+    @Test
+    void contieneEnAlgunoBuscaEnCualquierCampo() {
+        Specification<Ejecutivo> spec = (root, query, cb) -> BusquedaTexto.contieneEnAlguno(cb, "pg",
+                root.get("nombreEjecutivo"), root.get("abreviatura"));
+
+        assertThat(ejecutivoRepository.findAll(spec))
+                .extracting(Ejecutivo::getNombreEjecutivo)
+                .containsExactly("Pedro Gómez");
+    }
+
+    private static Ejecutivo ejecutivo(String nombre, String abreviatura) {
+        Ejecutivo ejecutivo = new Ejecutivo();
+        ejecutivo.setNombreEjecutivo(nombre);
+        ejecutivo.setAbreviatura(abreviatura);
+        return ejecutivo;
+    }
+
+    private static List<String> nombres(Page<EjecutivoDTO> ejecutivos) {
+        return ejecutivos.map(EjecutivoDTO::getNombreEjecutivo).getContent();
+    }
+}
@@ -0,0 +1,152 @@
+package org.saeta.licenciasservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.saeta.licenciasservice.dto.PaginaCursorDTO;
+import org.saeta.licenciasservice.entity.Ejecutivo;
+import org.saeta.licenciasservice.repository.EjecutivoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class CursorPaginacionTest {
+
+    private static final Set<String> ORDENES = Set.of("id", "estado", "nombreEjecutivo", "fechaCreacion");
+
+    @Autowired
+    private EjecutivoRepository ejecutivoRepository;
+
+    @Test
+    void codificarYDecodificarConservanOrdenYClaves() {
+        Sort orden = Sort.by(Sort.Order.desc("fechaCreacion"), Sort.Order.asc("nombreEjecutivo"));
+        Map<String, Object> claves = new LinkedHashMap<>();
+        claves.put("fechaCreacion", LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123456000));
+        claves.put("nombreEjecutivo", "Ñandú ñ 日本");
+        claves.put("id", 42);
+        claves.put("total", 7L);
+        claves.put("fecha", LocalDate.of(2024, 1, 1));
+        claves.put("activo", Boolean.TRUE);
+
+        CursorPaginacion.Cursor cursor = CursorPaginacion.decodificar(CursorPaginacion.codificar(orden, claves));
+
+        assertThat(cursor.orden).isEqualTo(orden);
+        assertThat(cursor.claves).containsExactlyEntriesOf(claves);
+    }
+
+    @Test
+    void rechazaCursorAlterado() {
+        String valido = CursorPaginacion.codificar(Sort.by("id"), Map.of("id", 1));
+
+        assertThatThrownBy(() -> CursorPaginacion.decodificar("no es base64!"))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Versión distinta
+        assertThatThrownBy(() -> CursorPaginacion.decodificar("X" + valido.substring(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Bytes de más al final
+        assertThatThrownBy(() -> CursorPaginacion.decodificar(valido + "AAAA"))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Tipo de valor desconocido
+        assertThatThrownBy(() -> CursorPaginacion.decodificar(cursorConValor('X', "1")))
+                .isInstanceOf(IllegalArgumentException.class);
+        // Fecha con formato inválido
+        assertThatThrownBy(() -> CursorPaginacion.decodificar(cursorConValor('T', "2024-13-45T99:00")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Cursor con orden por "fecha" y su clave escrita a mano con el tipo y el texto indicados
+     */
+    private static String cursorConValor(char tipo, String valor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream salida = new DataOutputStream(bytes);
+        salida.writeUTF("c1");
+        salida.writeByte(1);
+        salida.writeUTF("fecha");
+        salida.writeBoolean(true);
+        salida.writeByte(1);
+        salida.writeUTF("fecha");
+        salida.writeByte(tipo);
+        salida.writeUTF(valor);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    @Test
+    void rechazaCursorTruncado() {
+        String valido = CursorPaginacion.codificar(Sort.by("nombreEjecutivo"),
+                Map.of("nombreEjecutivo", "Ana", "id", 1));
+
+        for (int longitud = 0; longitud < valido.length(); longitud++) {
+            String truncado = valido.substring(0, longitud);
+            assertThatThrownBy(() -> CursorPaginacion.decodificar(truncado))
+                    .as("cursor truncado a %d caracteres", longitud)
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void rechazaCursorSinClaveDelOrden() {
+        String cursor = CursorPaginacion.codificar(Sort.by("nombreEjecutivo"), Map.of("id", 1));
+
+        assertThatThrownBy(() -> CursorPaginacion.decodificar(cursor))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rechazaOrdenNoPermitidoDentroDelCursor() {
+        // El cliente no puede colar en el cursor un orden que no admite la primera página
+        String cursor = CursorPaginacion.codificar(Sort.by("abreviatura"), Map.of("abreviatura", "A", "id", 1));
+
+        assertThatThrownBy(() -> CursorPaginacion.consultar(ejecutivoRepository, null, cursor, 10,
+                Sort.by("id"), ORDENES, e -> e))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("abreviatura");
+    }
+
+    @Test
+    void recorreTodasLasFilasConOrdenMixto() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < 23; i++) {
+            Ejecutivo ejecutivo = new Ejecutivo();
+            // Valores repetidos en ambas columnas para que el desempate por ID intervenga
+            ejecutivo.setEstado(i % 3 == 0 ? "0" : "1");
+            ejecutivo.setNombreEjecutivo("Ejecutivo " + (i % 5));
+            ejecutivo.setAbreviatura("E" + i);
+            ejecutivo.setFechaCreacion(base.plusMinutes(i % 4));
+            ejecutivoRepository.save(ejecutivo);
+        }
+        Sort orden = Sort.by(Sort.Order.asc("estado"), Sort.Order.desc("fechaCreacion"),
+                Sort.Order.asc("nombreEjecutivo"), Sort.Order.desc("id"));
+        List<Integer> esperado = ejecutivoRepository.findAll(orden).stream().map(Ejecutivo::getId).toList();
+
+        List<Integer> recorrido = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            PaginaCursorDTO<Integer> pagina = CursorPaginacion.consultar(ejecutivoRepository, null, cursor, 4,
+                    orden, ORDENES, Ejecutivo::getId);
+            recorrido.addAll(pagina.getContenido());
+            cursor = pagina.getSiguienteCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertThat(recorrido).containsExactlyElementsOf(esperado);
+        assertThat(paginas).isEqualTo(6);
+    }
+}
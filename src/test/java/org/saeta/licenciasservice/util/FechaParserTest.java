@@ -0,0 +1,100 @@
+package org.saeta.licenciasservice.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Formatos de fecha de las importaciones de Excel. Una celda vacía en 'esperado' significa
+ * que el texto se rechaza (null).
+ */
+class FechaParserTest {
+
+    @ParameterizedTest(name = "[{index}] ''{0}'' -> {1}")
+    @CsvSource({
+            // Formatos que aceptaban los DATE_FORMATTERS anteriores
+            "01/02/2024,                  2024-02-01T00:00",
+            "2024-02-01,                  2024-02-01T00:00",
+            "01-02-2024,                  2024-02-01T00:00",
+            "01/02/2024 13:45:30,         2024-02-01T13:45:30",
+            "01/02/2024 13:45,            2024-02-01T13:45",
+            "2024-02-01 13:45:30,         2024-02-01T13:45:30",
+            "1/2/2024,                    2024-02-01T00:00",
+            "2024-2-1,                    2024-02-01T00:00",
+            "2024-02-01 7:05,             2024-02-01T07:05",
+
+            // dd/MM por defecto; MM/dd solo cuando el segundo campo no puede ser un mes
+            "12/11/2024,                  2024-11-12T00:00",
+            "13/12/2024,                  2024-12-13T00:00",
+            "02/13/2024,                  2024-02-13T00:00",
+            "12/31/2024 08:00,            2024-12-31T08:00",
+            "13/31/2024,                  ",
+            "02-13-2024,                  ",
+
+            // Años bisiestos
+            "29/02/2024,                  2024-02-29T00:00",
+            "02/29/2024,                  2024-02-29T00:00",
+            "2000-02-29,                  2000-02-29T00:00",
+            "29/02/2023,                  ",
+            "1900-02-29,                  ",
+            "31/04/2024,                  ",
+
+            // Fracciones de segundo
+            "2024-02-01 13:45:30.5,       2024-02-01T13:45:30.500",
+            "2024-02-01 13:45:30.123,     2024-02-01T13:45:30.123",
+            "2024-02-01 13:45:30.123456789, 2024-02-01T13:45:30.123456789",
+            "2024-02-01 13:45:30.1234567890, ",
+            "2024-02-01 13:45:30.,        ",
+
+            // Separador T
+            "2024-02-01T13:45:30,         2024-02-01T13:45:30",
+            "01/02/2024T08:00,            2024-02-01T08:00",
+            "2024-02-01t13:45,            ",
+
+            // Espacios al inicio y al final
+            "'  01/02/2024  ',            2024-02-01T00:00",
+            "' 2024-02-01 13:45 ',        2024-02-01T13:45",
+
+            // Formas rechazadas
+            "'',                          ",
+            "'   ',                       ",
+            "abc,                         ",
+            "2024/02/01,                  ",
+            "01/02/24,                    ",
+            "01.02.2024,                  ",
+            "01/02-2024,                  ",
+            "001/02/2024,                 ",
+            "12345-01-01,                 ",
+            "00/01/2024,                  ",
+            "01/00/2024,                  ",
+            "0000-01-01,                  ",
+            "2024-02-01x,                 ",
+            "2024-02-01 13,               ",
+            "2024-02-01 13:5,             ",
+            "2024-02-01 25:00,            ",
+            "2024-02-01 13:60,            ",
+            "2024-02-01 13:45:60,         ",
+            "2024-02-01 13:45:30Z,        ",
+            "2024-02-01  13:45,           ",
+            "2024-02-01 13:45:30.5.1,     "
+    })
+    void parsea(String texto, String esperado) {
+        LocalDateTime resultado = FechaParser.parsear(texto);
+
+        if (esperado == null) {
+            assertThat(resultado).isNull();
+        } else {
+            assertThat(resultado).isEqualTo(LocalDateTime.parse(esperado));
+        }
+    }
+
+    @Test
+    void aceptaCualquierCharSequenceYRecortaControles() {
+        assertThat(FechaParser.parsear(new StringBuilder("\t2024-02-01\r\n"))).isEqualTo(LocalDateTime.of(2024, 2, 1, 0, 0));
+        assertThat(FechaParser.parsear(null)).isNull();
+    }
+}
@@ -0,0 +1,126 @@
+package org.saeta.licenciasservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Resultados del índice de trigramas frente a String.contains sobre los mismos textos,
+ * tras altas, cambios, bajas y una reconstrucción completa (como la recarga de IndiceBusquedaCache)
+ */
+class IndiceNgramasTest {
+
+    private static final int CAMPOS = 3;
+    // Alfabeto reducido para que los términos aleatorios tengan coincidencias
+    private static final String ALFABETO = "abcAB Ññé";
+
+    private final Random random = new Random(20240601L);
+
+    @Test
+    void coincideConContainsTrasCambiosYRecarga() {
+        IndiceNgramas<Integer> indice = new IndiceNgramas<>(CAMPOS);
+        Map<Integer, String[]> documentos = new HashMap<>();
+
+        for (int ronda = 0; ronda < 20; ronda++) {
+            for (int i = 0; i < 50; i++) {
+                int id = random.nextInt(200);
+                if (random.nextInt(4) == 0) {
+                    indice.eliminar(id);
+                    documentos.remove(id);
+                } else {
+                    String[] campos = documentoAleatorio(documentos.get(id));
+                    indice.actualizar(id, id, campos);
+                    documentos.put(id, campos);
+                }
+            }
+            compararConContains(indice, documentos);
+        }
+
+        // Recarga: un índice nuevo con los mismos documentos da los mismos resultados
+        IndiceNgramas<Integer> recargado = new IndiceNgramas<>(CAMPOS);
+        documentos.forEach((id, campos) -> recargado.actualizar(id, id, campos));
+        compararConContains(recargado, documentos);
+        assertThat(recargado.todos()).isEqualTo(indice.todos());
+        assertThat(recargado.size()).isEqualTo(documentos.size());
+    }
+
+    @Test
+    void eliminarQuitaElDocumentoDeTodasLasBusquedas() {
+        IndiceNgramas<Integer> indice = new IndiceNgramas<>(CAMPOS);
+        indice.actualizar(1, 1, "Saeta Perú", null, "ventas");
+        indice.actualizar(2, 2, "saeta", "PERÚ", null);
+
+        indice.eliminar(1);
+
+        assertThat(indice.buscar("saeta", 0).stream()).containsExactly(2);
+        assertThat(indice.buscar("ven", 2).isEmpty()).isTrue();
+        assertThat(indice.buscar("a", 0, 1, 2).stream()).containsExactly(2);
+        assertThat(indice.todos().stream()).containsExactly(2);
+    }
+
+    @Test
+    void filtraPorValorYPagina() {
+        IndiceNgramas<Integer> indice = new IndiceNgramas<>(1);
+        for (int id = 1; id <= 10; id++) {
+            indice.actualizar(id, id % 2, "texto " + id);
+        }
+
+        BitSet seleccion = indice.buscar("texto", 0);
+        indice.filtrar(seleccion, valor -> valor == 0);
+
+        assertThat(IndiceNgramas.pagina(seleccion, 0, 3, true)).containsExactly(10, 8, 6);
+        assertThat(IndiceNgramas.pagina(seleccion, 3, 3, true)).containsExactly(4, 2);
+        assertThat(IndiceNgramas.pagina(seleccion, 1, 2, false)).containsExactly(4, 6);
+    }
+
+    private void compararConContains(IndiceNgramas<Integer> indice, Map<Integer, String[]> documentos) {
+        for (int i = 0; i < 60; i++) {
+            String termino = texto(1 + random.nextInt(4));
+            int[] campos = random.nextBoolean() ? new int[]{random.nextInt(CAMPOS)} : new int[]{0, 1, 2};
+
+            BitSet esperado = new BitSet();
+            documentos.forEach((id, textos) -> {
+                for (int campo : campos) {
+                    if (textos[campo] != null && textos[campo].toLowerCase().contains(termino.toLowerCase())) {
+                        esperado.set(id);
+                    }
+                }
+            });
+
+            assertThat(indice.buscar(termino, campos))
+                    .as("término '%s' en campos %s", termino, List.of(campos))
+                    .isEqualTo(esperado);
+        }
+    }
+
+    /**
+     * Documento nuevo, o cambio de uno existente que conserva algunos campos (no se reindexan)
+     */
+    private String[] documentoAleatorio(String[] anterior) {
+        String[] campos = new String[CAMPOS];
+        for (int campo = 0; campo < CAMPOS; campo++) {
+            if (anterior != null && random.nextBoolean()) {
+                campos[campo] = anterior[campo];
+            } else if (random.nextInt(6) == 0) {
+                campos[campo] = null;
+            } else {
+                campos[campo] = texto(random.nextInt(12));
+            }
+        }
+        return campos;
+    }
+
+    private String texto(int longitud) {
+        StringBuilder texto = new StringBuilder(longitud);
+        for (int i = 0; i < longitud; i++) {
+            texto.append(ALFABETO.charAt(random.nextInt(ALFABETO.length())));
+        }
+        return texto.toString();
+    }
+}